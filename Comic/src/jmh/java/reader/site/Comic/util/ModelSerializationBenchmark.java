@@ -0,0 +1,124 @@
+package reader.site.Comic.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.MangaChapter;
+import reader.site.Comic.persistence.StringListConverter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reflective Gson against the adapters in {@link ModelTypeAdapters}, on the bodies the
+ * catalog and chapter endpoints send and on the manga.chapters column. Run with
+ * {@code -prof gc} for allocation per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelSerializationBenchmark {
+
+    private static final Type STRING_LIST = new TypeToken<List<String>>() {}.getType();
+
+    @Param({"20", "200"})
+    int mangaCount;
+
+    private Gson reflective;
+    private Gson adapted;
+    private List<Manga> catalog;
+    private List<MangaChapter> chapters;
+    private String chapterColumn;
+    private final StringListConverter converter = new StringListConverter();
+
+    @Setup
+    public void setUp() {
+        reflective = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, (JsonSerializer<LocalDateTime>) (src, t, ctx) ->
+                        new JsonPrimitive(src.toString()))
+                .create();
+        adapted = GsonUtil.withModelAdapters(new GsonBuilder()).create();
+
+        catalog = new ArrayList<>(mangaCount);
+        for (int i = 0; i < mangaCount; i++) {
+            Manga manga = new Manga();
+            manga.setId(String.valueOf(i));
+            manga.setTitle("Series " + i);
+            manga.setCover("https://cdn.example/covers/" + i + ".jpg");
+            List<String> names = new ArrayList<>();
+            for (int c = 1; c <= 30; c++) {
+                names.add("Chapter " + c);
+            }
+            manga.setChapters(names);
+            manga.setChapterCount(names.size());
+            manga.setLatestChapter(names.get(names.size() - 1));
+            catalog.add(manga);
+        }
+        chapterColumn = reflective.toJson(catalog.get(0).getChapters(), STRING_LIST);
+
+        chapters = new ArrayList<>(mangaCount);
+        for (int i = 0; i < mangaCount; i++) {
+            MangaChapter chapter = new MangaChapter();
+            chapter.setId(String.valueOf(i));
+            chapter.setMangaId("1");
+            chapter.setChapterNumber(i + 1);
+            chapter.setChapterTitle("Chapter " + (i + 1));
+            chapter.setChapterUrl("https://cdn.example/chapters/" + i);
+            chapter.setCreatedAt("2025-01-01T00:00:00");
+            chapter.setUpdatedAt("2025-01-02T00:00:00");
+            chapters.add(chapter);
+        }
+    }
+
+    @Benchmark
+    public void catalogReflective() throws IOException {
+        JsonOutput.write(Writer.nullWriter(), reflective, catalog, false);
+    }
+
+    @Benchmark
+    public void catalogAdapted() throws IOException {
+        JsonOutput.write(Writer.nullWriter(), adapted, catalog, false);
+    }
+
+    @Benchmark
+    public void chaptersReflective() throws IOException {
+        JsonOutput.write(Writer.nullWriter(), reflective, chapters, false);
+    }
+
+    @Benchmark
+    public void chaptersAdapted() throws IOException {
+        JsonOutput.write(Writer.nullWriter(), adapted, chapters, false);
+    }
+
+    @Benchmark
+    public List<String> chapterColumnReflective() {
+        return reflective.fromJson(chapterColumn, STRING_LIST);
+    }
+
+    @Benchmark
+    public List<String> chapterColumnAdapted() {
+        return converter.convertToEntityAttribute(chapterColumn);
+    }
+}
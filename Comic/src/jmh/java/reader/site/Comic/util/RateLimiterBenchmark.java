@@ -0,0 +1,80 @@
+package reader.site.Comic.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RateLimiter} against the sliding-window deque it replaced, on one hot key (every
+ * thread hammering the same address) and on a spray of distinct addresses. Run with
+ * {@code -prof gc} for allocation per attempt; the deque version also grows without bound
+ * on the spray.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    private static final int MAX = 10;
+    private static final long WINDOW = 15 * 60 * 1000L;
+
+    @Benchmark
+    public boolean tokenBucketHotKey() {
+        return RateLimiter.allow("203.0.113.7", MAX, WINDOW);
+    }
+
+    @Benchmark
+    public boolean slidingWindowHotKey() {
+        return SlidingWindow.allow("203.0.113.7", MAX, WINDOW);
+    }
+
+    @Benchmark
+    public boolean tokenBucketSpray() {
+        return RateLimiter.allow(sprayKey(), MAX, WINDOW);
+    }
+
+    @Benchmark
+    public boolean slidingWindowSpray() {
+        return SlidingWindow.allow(sprayKey(), MAX, WINDOW);
+    }
+
+    private static String sprayKey() {
+        return "10.0." + ThreadLocalRandom.current().nextInt(1 << 20);
+    }
+
+    /** The previous implementation, kept here as the baseline. */
+    static final class SlidingWindow {
+        private static final Map<String, Deque<Long>> ATTEMPTS = new ConcurrentHashMap<>();
+
+        static boolean allow(String key, int maxAttempts, long windowMillis) {
+            long now = System.currentTimeMillis();
+            Deque<Long> timestamps = ATTEMPTS.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+            while (!timestamps.isEmpty() && now - timestamps.peekFirst() > windowMillis) {
+                timestamps.pollFirst();
+            }
+            if (timestamps.size() >= maxAttempts) {
+                return false;
+            }
+            timestamps.addLast(now);
+            return true;
+        }
+    }
+}
@@ -1,210 +1,176 @@
 package reader.site.Comic.dao;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import reader.site.Comic.entity.BookmarkEntity;
-import reader.site.Comic.entity.MangaEntity;
-import reader.site.Comic.entity.UserEntity;
 import reader.site.Comic.model.Bookmark;
+import reader.site.Comic.model.CursorPage;
+import reader.site.Comic.persistence.ConnectionPool;
 import reader.site.Comic.persistence.JPAUtil;
+import reader.site.Comic.util.PageCursor;
 
 public class BookmarkDAO {
 
-    public Bookmark saveOrUpdate(String userId, Long mangaId, String title, String cover, Integer currentChapter, Integer totalChapters, Double readingProgress) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            em.getTransaction().begin();
-
-            TypedQuery<BookmarkEntity> query = em.createQuery(
-                    "SELECT b FROM BookmarkEntity b WHERE b.user.id = :userId AND b.manga.id = :mangaId",
-                    BookmarkEntity.class
-            );
-            query.setParameter("userId", userId);
-            query.setParameter("mangaId", mangaId);
-
-            List<BookmarkEntity> results = query.getResultList();
-            BookmarkEntity entity;
+    // Insert, or update the row that already has (user_id, manga_id), in one statement. Omitted
+    // title/cover fall back to the stored value and then to the manga's; an omitted total becomes
+    // the highest chapter number and an omitted progress current/total, clamped to [0, 1].
+    // An unknown manga selects no row, so nothing is written; an unknown user fails the foreign key.
+    private static final String UPSERT =
+            "INSERT INTO bookmarks (user_id, manga_id, title, cover, current_chapter, total_chapters, "
+                    + "reading_progress, created_at, updated_at) "
+                    + "SELECT ?, src.id, src.title, src.cover, src.current_chapter, src.total_chapters, "
+                    + "COALESCE(src.reading_progress, CASE WHEN src.current_chapter IS NOT NULL AND src.total_chapters > 0 "
+                    + "THEN LEAST(1.0, GREATEST(0.0, src.current_chapter * 1.0 / src.total_chapters)) END), ?, ? "
+                    + "FROM (SELECT m.id AS id, COALESCE(?, m.title) AS title, COALESCE(?, m.cover) AS cover, "
+                    + "CAST(? AS SIGNED) AS current_chapter, CAST(? AS DOUBLE) AS reading_progress, "
+                    + "COALESCE(CAST(? AS SIGNED), (SELECT MAX(c.chapter_number) FROM manga_chapters c WHERE c.manga_id = m.id)) "
+                    + "AS total_chapters FROM manga m WHERE m.id = ?) src "
+                    + "ON DUPLICATE KEY UPDATE title = COALESCE(?, bookmarks.title, VALUES(title)), "
+                    + "cover = COALESCE(?, bookmarks.cover, VALUES(cover)), "
+                    + "current_chapter = VALUES(current_chapter), total_chapters = VALUES(total_chapters), "
+                    + "reading_progress = VALUES(reading_progress), updated_at = VALUES(updated_at)";
+    private static final String SELECT_BY_USER_AND_MANGA =
+            "SELECT id, manga_id, title, cover, current_chapter, total_chapters, reading_progress, created_at, updated_at "
+                    + "FROM bookmarks WHERE user_id = ? AND manga_id = ?";
 
-            if (!results.isEmpty()) {
-                entity = results.get(0);
-                // Preserve existing title/cover if payload omitted; fall back to manga title/cover
-                if (title != null) {
-                    entity.setTitle(title);
-                } else if (entity.getTitle() == null && entity.getManga() != null) {
-                    entity.setTitle(entity.getManga().getTitle());
-                }
-                if (cover != null) {
-                    entity.setCover(cover);
-                } else if (entity.getCover() == null && entity.getManga() != null) {
-                    entity.setCover(entity.getManga().getCover());
-                }
-                entity.setCurrentChapter(currentChapter);
-                entity.setTotalChapters(totalChapters);
-                entity.setReadingProgress(readingProgress);
-            } else {
-                entity = new BookmarkEntity();
-                UserEntity user = em.find(UserEntity.class, userId);
-                MangaEntity manga = em.find(MangaEntity.class, mangaId);
-                if (user == null || manga == null) {
-                    em.getTransaction().rollback();
-                    return null;
+    /**
+     * Creates or updates the user's bookmark for a manga with a single upsert on the unique
+     * (user_id, manga_id) key, then reads the stored row back in the same transaction.
+     * Concurrent saves for the same pair converge on one row.
+     *
+     * @return the stored bookmark, or null if the user or manga does not exist
+     */
+    public Bookmark saveOrUpdate(String userId, Long mangaId, String title, String cover, Integer currentChapter, Integer totalChapters, Double readingProgress) {
+        try (Connection conn = ConnectionPool.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                try (PreparedStatement ps = conn.prepareStatement(UPSERT)) {
+                    ps.setString(1, userId);
+                    JdbcSupport.setTimestamp(ps, 2, now);
+                    JdbcSupport.setTimestamp(ps, 3, now);
+                    ps.setString(4, title);
+                    ps.setString(5, cover);
+                    JdbcSupport.setInteger(ps, 6, currentChapter);
+                    JdbcSupport.setDouble(ps, 7, readingProgress);
+                    JdbcSupport.setInteger(ps, 8, totalChapters);
+                    ps.setLong(9, mangaId);
+                    ps.setString(10, title);
+                    ps.setString(11, cover);
+                    ps.executeUpdate();
                 }
-                entity.setUser(user);
-                entity.setManga(manga);
-                // If title/cover not provided, use values from MangaEntity
-                entity.setTitle(title != null ? title : manga.getTitle());
-                entity.setCover(cover != null ? cover : manga.getCover());
-                entity.setCurrentChapter(currentChapter);
-                entity.setTotalChapters(totalChapters);
-                entity.setReadingProgress(readingProgress);
-                em.persist(entity);
-            }
-
-            em.getTransaction().commit();
 
-            Bookmark model = new Bookmark();
-            model.setMangaId(String.valueOf(entity.getManga().getId()));
-            model.setTitle(entity.getTitle());
-            model.setCover(entity.getCover());
-            model.setCurrentChapter(entity.getCurrentChapter());
-            // If totalChapters stored in entity is null, try to compute from manga_chapters table
-            Integer tc = entity.getTotalChapters();
-            if (tc == null) {
-                tc = computeTotalChapters(em, entity.getManga().getId());
-                // persist computed total chapters back to entity for future reads
-                try {
-                    if (tc != null) {
-                        em.getTransaction().begin();
-                        BookmarkEntity refresh = em.find(BookmarkEntity.class, entity.getId());
-                        if (refresh != null) {
-                            refresh.setTotalChapters(tc);
-                            em.getTransaction().commit();
-                        } else {
-                            em.getTransaction().rollback();
+                // No row here means the manga does not exist and nothing was written.
+                Bookmark model = null;
+                try (PreparedStatement ps = conn.prepareStatement(SELECT_BY_USER_AND_MANGA)) {
+                    ps.setString(1, userId);
+                    ps.setLong(2, mangaId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            model = toModel(rs);
                         }
                     }
-                } catch (Exception ex) {
-                    if (em.getTransaction().isActive()) em.getTransaction().rollback();
                 }
-            }
-            model.setTotalChapters(tc);
-            // Ensure readingProgress is returned; if missing, compute from current/total and persist back
-            Double rp = entity.getReadingProgress();
-            if (rp == null) {
-                Integer c = entity.getCurrentChapter();
-                Integer t = tc;
-                if (c != null && t != null && t > 0) {
-                    double computed = Math.max(0.0, Math.min(1.0, ((double) c) / ((double) t)));
-                    rp = computed;
-                    // try to persist computed reading progress for future reads
-                    try {
-                        em.getTransaction().begin();
-                        BookmarkEntity refreshRp = em.find(BookmarkEntity.class, entity.getId());
-                        if (refreshRp != null) {
-                            refreshRp.setReadingProgress(rp);
-                            em.getTransaction().commit();
-                        } else {
-                            em.getTransaction().rollback();
-                        }
-                    } catch (Exception ex) {
-                        if (em.getTransaction().isActive()) em.getTransaction().rollback();
-                    }
+                conn.commit();
+                return model;
+            } catch (SQLException ex) {
+                conn.rollback();
+                if (JdbcSupport.isIntegrityViolation(ex)) {
+                    return null;
                 }
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
             }
-            model.setReadingProgress(rp);
-            // Optionally include id and timestamps if needed by frontend
-            try {
-                model.getClass().getMethod("setId", String.class).invoke(model, String.valueOf(entity.getId()));
-            } catch (ReflectiveOperationException | IllegalArgumentException e) {
-                // model may not have id setter (older DTO); ignore if not present
-            }
-            try {
-                java.time.LocalDateTime ca = entity.getCreatedAt();
-                java.time.LocalDateTime ua = entity.getUpdatedAt();
-                java.lang.reflect.Method mca = model.getClass().getMethod("setCreatedAt", String.class);
-                java.lang.reflect.Method mua = model.getClass().getMethod("setUpdatedAt", String.class);
-                if (ca != null) mca.invoke(model, formatDateTime(ca));
-                if (ua != null) mua.invoke(model, formatDateTime(ua));
-            } catch (ReflectiveOperationException | IllegalArgumentException e) {
-                // ignore if model doesn't have these methods
-            }
-            return model;
-        } catch (Exception ex) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
-            throw ex;
-        } finally {
-            em.close();
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to save bookmark", ex);
         }
     }
 
+    private Bookmark toModel(ResultSet rs) throws SQLException {
+        Bookmark m = new Bookmark();
+        m.setId(String.valueOf(rs.getLong("id")));
+        m.setMangaId(String.valueOf(rs.getLong("manga_id")));
+        m.setTitle(rs.getString("title"));
+        m.setCover(rs.getString("cover"));
+        m.setCurrentChapter(JdbcSupport.getInteger(rs, "current_chapter"));
+        m.setTotalChapters(JdbcSupport.getInteger(rs, "total_chapters"));
+        m.setReadingProgress(JdbcSupport.getDouble(rs, "reading_progress"));
+        m.setCreatedAt(formatDateTime(JdbcSupport.getLocalDateTime(rs, "created_at")));
+        m.setUpdatedAt(formatDateTime(JdbcSupport.getLocalDateTime(rs, "updated_at")));
+        return m;
+    }
+
+    // List projection: scalar columns only, so no entity is hydrated, tracked or joined to its
+    // manga. A missing total is filled from the chapter table in the same query.
+    private static final String LIST_SELECT =
+            "SELECT b.id AS id, b.manga.id AS mangaId, b.title AS title, b.cover AS cover, "
+                    + "b.currentChapter AS currentChapter, "
+                    + "COALESCE(b.totalChapters, (SELECT MAX(c.chapterNumber) FROM MangaChapterEntity c "
+                    + "WHERE c.mangaId = b.manga.id)) AS totalChapters, "
+                    + "b.readingProgress AS readingProgress, b.createdAt AS createdAt, b.updatedAt AS updatedAt "
+                    + "FROM BookmarkEntity b WHERE b.user.id = :userId";
+
     public List<Bookmark> findByUserId(String userId) {
         EntityManager em = JPAUtil.getEntityManager();
         try {
-            TypedQuery<BookmarkEntity> query = em.createQuery(
-                    "SELECT b FROM BookmarkEntity b WHERE b.user.id = :userId ORDER BY b.updatedAt DESC",
-                    BookmarkEntity.class
-            );
+            TypedQuery<Tuple> query = em.createQuery(LIST_SELECT + " ORDER BY b.updatedAt DESC", Tuple.class);
             query.setParameter("userId", userId);
-            return query.getResultList().stream().map(entity -> {
-                // Defensive: skip malformed rows where user or manga is null
-                if (entity.getManga() == null || entity.getUser() == null) {
-                    return null;
-                }
-                Bookmark m = new Bookmark();
-                Long mangaId = entity.getManga().getId();
-                m.setMangaId(mangaId != null ? String.valueOf(mangaId) : null);
-                m.setTitle(entity.getTitle());
-                m.setCover(entity.getCover());
-                m.setCurrentChapter(entity.getCurrentChapter());
-                Integer tc = entity.getTotalChapters();
-                if (tc == null) {
-                    tc = computeTotalChapters(em, entity.getManga().getId());
-                }
-                m.setTotalChapters(tc);
-                m.setReadingProgress(entity.getReadingProgress());
-                // populate optional id/timestamps if model supports them
-                try {
-                    m.getClass().getMethod("setId", String.class).invoke(m, String.valueOf(entity.getId()));
-                } catch (ReflectiveOperationException | IllegalArgumentException e) {}
-                try {
-                    java.time.LocalDateTime ca = entity.getCreatedAt();
-                    java.time.LocalDateTime ua = entity.getUpdatedAt();
-                    java.lang.reflect.Method mca = m.getClass().getMethod("setCreatedAt", String.class);
-                    java.lang.reflect.Method mua = m.getClass().getMethod("setUpdatedAt", String.class);
-                    if (ca != null) mca.invoke(m, formatDateTime(ca));
-                    if (ua != null) mua.invoke(m, formatDateTime(ua));
-                } catch (ReflectiveOperationException | IllegalArgumentException e) {}
-                return m;
-            }).filter(b -> b != null).collect(Collectors.toList());
+            return query.getResultList().stream().map(this::toModel).collect(Collectors.toList());
         } finally {
             em.close();
         }
     }
 
-    // Helper: compute total chapters by querying manga_chapters for the manga id. Returns null if none found.
-    private Integer computeTotalChapters(EntityManager em, Long mangaId) {
-        if (mangaId == null) return null;
+    /** Keyset page of a user's bookmarks, most recently updated first. */
+    public CursorPage<Bookmark> findPageByUserId(String userId, PageCursor after, int limit) {
+        EntityManager em = JPAUtil.getEntityManager();
         try {
-            // find the maximum chapter_number for this manga
-            TypedQuery<Integer> q = em.createQuery(
-                    "SELECT MAX(c.chapterNumber) FROM MangaChapterEntity c WHERE c.mangaId = :mangaId",
-                    Integer.class
+            TypedQuery<Tuple> query = em.createQuery(
+                    LIST_SELECT
+                            + (after != null ? after.afterDescending("b.updatedAt", "b.id") : "")
+                            + " ORDER BY b.updatedAt DESC, b.id DESC",
+                    Tuple.class
             );
-            q.setParameter("mangaId", mangaId);
-            Integer max = q.getSingleResult();
-            return max;
-        } catch (Exception ex) {
-            return null;
+            query.setParameter("userId", userId);
+            if (after != null) {
+                after.bind(query, after.keyAsLocalDateTime(), after.idAsLong());
+            }
+            query.setMaxResults(limit + 1);
+            return PageCursor.page(query.getResultList(), limit,
+                    b -> PageCursor.of(b.get("updatedAt"), b.get("id")),
+                    this::toModel);
+        } finally {
+            em.close();
         }
     }
 
-    private String formatDateTime(java.time.LocalDateTime dateTime) {
-        return dateTime != null ? java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime) : null;
+    private Bookmark toModel(Tuple row) {
+        Bookmark m = new Bookmark();
+        m.setId(String.valueOf(row.get("id", Long.class)));
+        m.setMangaId(String.valueOf(row.get("mangaId", Long.class)));
+        m.setTitle(row.get("title", String.class));
+        m.setCover(row.get("cover", String.class));
+        m.setCurrentChapter(row.get("currentChapter", Integer.class));
+        m.setTotalChapters(row.get("totalChapters", Integer.class));
+        m.setReadingProgress(row.get("readingProgress", Double.class));
+        m.setCreatedAt(formatDateTime(row.get("createdAt", LocalDateTime.class)));
+        m.setUpdatedAt(formatDateTime(row.get("updatedAt", LocalDateTime.class)));
+        return m;
+    }
+
+    private String formatDateTime(LocalDateTime dateTime) {
+        return dateTime != null ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime) : null;
     }
 
     public boolean delete(Long id) {
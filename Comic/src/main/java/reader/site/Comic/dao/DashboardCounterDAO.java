@@ -0,0 +1,52 @@
+package reader.site.Comic.dao;
+
+import reader.site.Comic.persistence.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Named counters in dashboard_counters, for figures that have no table to COUNT from.
+ * Plain JDBC: the table is not mapped or cached, and increments are single statements.
+ */
+public class DashboardCounterDAO {
+
+    public static final String MANGA_VIEWS = "manga_views";
+
+    public long get(String name) {
+        try (Connection conn = ConnectionPool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT counter_value FROM dashboard_counters WHERE counter_name = ?")) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to read counter " + name, ex);
+        }
+    }
+
+    /** Adds {@code delta} atomically; creates the counter if it does not exist yet. */
+    public void add(String name, long delta) {
+        try (Connection conn = ConnectionPool.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE dashboard_counters SET counter_value = counter_value + ? WHERE counter_name = ?")) {
+                ps.setLong(1, delta);
+                ps.setString(2, name);
+                if (ps.executeUpdate() > 0) {
+                    return;
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO dashboard_counters (counter_name, counter_value) VALUES (?, ?)")) {
+                ps.setString(1, name);
+                ps.setLong(2, delta);
+                ps.executeUpdate();
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to update counter " + name, ex);
+        }
+    }
+}
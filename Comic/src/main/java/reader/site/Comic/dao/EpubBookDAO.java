@@ -1,7 +1,10 @@
 package reader.site.Comic.dao;
 
 import jakarta.persistence.*;
+import reader.site.Comic.model.CursorPage;
 import reader.site.Comic.model.EpubBook;
+import reader.site.Comic.persistence.JPAUtil;
+import reader.site.Comic.util.PageCursor;
 
 import java.util.List;
 
@@ -9,18 +12,12 @@ public class EpubBookDAO {
 
     // 500 MB limit
     private static final long USER_STORAGE_LIMIT = 500 * 1024 * 1024;
-    private final EntityManagerFactory emf;
-
-    public EpubBookDAO() {
-        // Tên của persistence unit trong persistence.xml
-        emf = Persistence.createEntityManagerFactory("comicPU");
-    }
 
     /**
      * Lấy tổng dung lượng đã sử dụng của một người dùng.
      */
     public long getUserUsedStorage(String userId) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = JPAUtil.getEntityManager();
         try {
             // JPQL để tính tổng dung lượng file theo userId
             String jpql = "SELECT SUM(e.fileSizeInBytes) FROM EpubBook e WHERE e.userId = :userId";
@@ -49,7 +46,7 @@ public class EpubBookDAO {
         }
 
         // 2. Lưu vào Database
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = JPAUtil.getEntityManager();
         em.getTransaction().begin();
         try {
             em.persist(book);
@@ -69,7 +66,7 @@ public class EpubBookDAO {
      * Lấy tất cả tệp Epub của một người dùng.
      */
     public List<EpubBook> findAllByUserId(String userId) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = JPAUtil.getEntityManager();
         try {
             TypedQuery<EpubBook> query = em.createQuery(
                     "SELECT e FROM EpubBook e WHERE e.userId = :userId", EpubBook.class);
@@ -80,8 +77,28 @@ public class EpubBookDAO {
         }
     }
 
+    /** Keyset page of a user's books, newest upload first. */
+    public CursorPage<EpubBook> findPageByUserId(String userId, PageCursor after, int limit) {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            TypedQuery<EpubBook> query = em.createQuery(
+                    "SELECT e FROM EpubBook e WHERE e.userId = :userId"
+                            + (after != null ? after.afterDescending("e.uploadDate", "e.id") : "")
+                            + " ORDER BY e.uploadDate DESC, e.id DESC", EpubBook.class);
+            query.setParameter("userId", userId);
+            if (after != null) {
+                after.bind(query, after.keyAsLocalDateTime(), after.idAsLong());
+            }
+            query.setMaxResults(limit + 1);
+            return PageCursor.page(query.getResultList(), limit,
+                    e -> PageCursor.of(e.getUploadDate(), e.getId()), e -> e);
+        } finally {
+            em.close();
+        }
+    }
+
     public EpubBook findById(Long id) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = JPAUtil.getEntityManager();
         try {
             return em.find(EpubBook.class, id);
         } finally {
@@ -90,7 +107,7 @@ public class EpubBookDAO {
     }
 
     public boolean deleteById(Long id) {
-        EntityManager em = emf.createEntityManager();
+        EntityManager em = JPAUtil.getEntityManager();
         EntityTransaction tx = em.getTransaction();
         try {
             tx.begin();
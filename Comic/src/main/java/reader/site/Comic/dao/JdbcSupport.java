@@ -0,0 +1,83 @@
+package reader.site.Comic.dao;
+
+import reader.site.Comic.persistence.JPAUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Shared helpers for the DAO write paths that bypass JPA and talk to the pool directly.
+ * Timestamps are bound and read the way Hibernate does, so rows written here look the same
+ * to the entity-based reads.
+ */
+final class JdbcSupport {
+
+    private JdbcSupport() {
+    }
+
+    /** SQLState class 23: unique, foreign key or not-null violation. */
+    static boolean isIntegrityViolation(SQLException ex) {
+        return ex.getSQLState() != null && ex.getSQLState().startsWith("23");
+    }
+
+    static boolean isH2(Connection conn) throws SQLException {
+        String product = conn.getMetaData().getDatabaseProductName();
+        return product != null && product.toLowerCase().contains("h2");
+    }
+
+    /** Binds like Hibernate does, honouring hibernate.jdbc.time_zone when it is configured. */
+    static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        Calendar calendar = jdbcCalendar();
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else if (calendar != null) {
+            ps.setTimestamp(index, Timestamp.valueOf(value), calendar);
+        } else {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        }
+    }
+
+    static LocalDateTime getLocalDateTime(ResultSet rs, String column) throws SQLException {
+        Calendar calendar = jdbcCalendar();
+        Timestamp value = calendar != null ? rs.getTimestamp(column, calendar) : rs.getTimestamp(column);
+        return value != null ? value.toLocalDateTime() : null;
+    }
+
+    static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+
+    static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    static Integer getInteger(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    static Double getDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Calendar jdbcCalendar() {
+        Object zone = JPAUtil.getEntityManagerFactory().getProperties().get("hibernate.jdbc.time_zone");
+        return zone != null ? Calendar.getInstance(TimeZone.getTimeZone(zone.toString())) : null;
+    }
+}
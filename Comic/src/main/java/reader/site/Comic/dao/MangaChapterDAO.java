@@ -2,6 +2,7 @@ package reader.site.Comic.dao;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
 import reader.site.Comic.entity.MangaChapterEntity;
 import reader.site.Comic.model.MangaChapter;
 import reader.site.Comic.persistence.JPAUtil;
@@ -30,6 +31,7 @@ public class MangaChapterDAO {
                     MangaChapterEntity.class
             );
             query.setParameter("mangaId", parsedId);
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
             List<MangaChapterEntity> entities = query.getResultList();
             List<MangaChapter> results = new ArrayList<>(entities.size());
             for (MangaChapterEntity entity : entities) {
@@ -2,16 +2,31 @@ package reader.site.Comic.dao;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
 import reader.site.Comic.entity.MangaChapterEntity;
+import reader.site.Comic.entity.MangaChapterListEntity;
 import reader.site.Comic.entity.MangaEntity;
+import reader.site.Comic.model.CursorPage;
 import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.MangaSummary;
 import reader.site.Comic.persistence.JPAUtil;
+import reader.site.Comic.service.CatalogReadModel;
+import reader.site.Comic.util.PageCursor;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class MangaDAO {
 
+    // Catalog grid projection: only the columns a card shows, never the chapters LONGTEXT.
+    private static final String SUMMARY_SELECT =
+            "SELECT new reader.site.Comic.model.MangaSummary(m.id, m.title, m.cover, m.chapterCount, m.latestChapter) "
+                    + "FROM MangaEntity m";
+
     public Manga insert(Manga manga) {
         EntityManager em = JPAUtil.getEntityManager();
         try {
@@ -19,10 +34,18 @@ public class MangaDAO {
             MangaEntity entity = new MangaEntity();
             entity.setTitle(manga.getTitle());
             entity.setCover(manga.getCover());
-            entity.setChapters(manga.getChapters());
+            entity.summariseChapters(manga.getChapters());
             em.persist(entity);
+            if (manga.getChapters() != null && !manga.getChapters().isEmpty()) {
+                // The list shares the row just inserted; write it through its own mapping.
+                em.flush();
+                em.find(MangaChapterListEntity.class, entity.getId()).setChapters(manga.getChapters());
+            }
             em.getTransaction().commit();
+            CatalogReadModel.changed();
             manga.setId(String.valueOf(entity.getId()));
+            manga.setChapterCount(entity.getChapterCount());
+            manga.setLatestChapter(entity.getLatestChapter());
             return manga;
         } catch (Exception ex) {
             if (em.getTransaction().isActive()) {
@@ -38,7 +61,75 @@ public class MangaDAO {
         EntityManager em = JPAUtil.getEntityManager();
         try {
             TypedQuery<MangaEntity> query = em.createQuery("SELECT m FROM MangaEntity m", MangaEntity.class);
-            return query.getResultList().stream().map(this::toModel).collect(Collectors.toList());
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
+            List<MangaEntity> entities = query.getResultList();
+            Map<Long, List<String>> chapters = chapterLists(em, null);
+            return entities.stream().map(m -> toModel(m, chapters.get(m.getId()))).collect(Collectors.toList());
+        } finally {
+            em.close();
+        }
+    }
+
+    /** Keyset page ordered by id; {@code after} is null for the first page. */
+    public CursorPage<Manga> findPage(PageCursor after, int limit) {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            TypedQuery<MangaEntity> query = em.createQuery(
+                    "SELECT m FROM MangaEntity m" + (after != null ? " WHERE m.id > :cursorId" : "") + " ORDER BY m.id",
+                    MangaEntity.class);
+            if (after != null) {
+                query.setParameter("cursorId", after.idAsLong());
+            }
+            query.setMaxResults(limit + 1);
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
+            List<MangaEntity> entities = query.getResultList();
+            Map<Long, List<String>> chapters = chapterLists(em,
+                    entities.stream().map(MangaEntity::getId).collect(Collectors.toList()));
+            return PageCursor.page(entities, limit, m -> PageCursor.of(null, m.getId()),
+                    m -> toModel(m, chapters.get(m.getId())));
+        } finally {
+            em.close();
+        }
+    }
+
+    /** Catalog listing without chapter lists; use {@link #findAll()} where chapters are edited. */
+    public List<MangaSummary> findAllSummaries() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            TypedQuery<MangaSummary> query = em.createQuery(SUMMARY_SELECT + " ORDER BY m.id", MangaSummary.class);
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
+            return query.getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /** The {@code limit} most recently added manga as grid rows, newest first. */
+    public List<MangaSummary> findNewestSummaries(int limit) {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            TypedQuery<MangaSummary> query = em.createQuery(SUMMARY_SELECT + " ORDER BY m.id DESC", MangaSummary.class);
+            query.setMaxResults(limit);
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
+            return query.getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    /** Keyset page of {@link #findAllSummaries()}, ordered by id. */
+    public CursorPage<MangaSummary> findSummaryPage(PageCursor after, int limit) {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            TypedQuery<MangaSummary> query = em.createQuery(
+                    SUMMARY_SELECT + (after != null ? " WHERE m.id > :cursorId" : "") + " ORDER BY m.id",
+                    MangaSummary.class);
+            if (after != null) {
+                query.setParameter("cursorId", after.idAsLong());
+            }
+            query.setMaxResults(limit + 1);
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
+            return PageCursor.page(query.getResultList(), limit, m -> PageCursor.of(null, m.getId()), m -> m);
         } finally {
             em.close();
         }
@@ -52,7 +143,11 @@ public class MangaDAO {
                 return null;
             }
             MangaEntity entity = em.find(MangaEntity.class, entityId);
-            return entity != null ? toModel(entity) : null;
+            if (entity == null) {
+                return null;
+            }
+            MangaChapterListEntity list = em.find(MangaChapterListEntity.class, entityId);
+            return toModel(entity, list != null ? list.getChapters() : null);
         } finally {
             em.close();
         }
@@ -74,8 +169,14 @@ public class MangaDAO {
             }
             entity.setTitle(manga.getTitle());
             entity.setCover(manga.getCover());
-            entity.setChapters(manga.getChapters());
+            // Omitted chapters leave the list alone; an unchanged list is not rewritten
+            // because dirty checking compares it with the loaded one.
+            if (manga.getChapters() != null) {
+                em.find(MangaChapterListEntity.class, entityId).setChapters(new ArrayList<>(manga.getChapters()));
+                entity.summariseChapters(manga.getChapters());
+            }
             em.getTransaction().commit();
+            CatalogReadModel.changed();
             return true;
         } catch (Exception ex) {
             if (em.getTransaction().isActive()) {
@@ -106,6 +207,9 @@ public class MangaDAO {
                     .executeUpdate();
             em.remove(entity);
             em.getTransaction().commit();
+            // Same row, removed through MangaEntity; drop the list's cache entry as well.
+            em.getEntityManagerFactory().getCache().evict(MangaChapterListEntity.class, entityId);
+            CatalogReadModel.changed();
             return true;
         } catch (Exception ex) {
             if (em.getTransaction().isActive()) {
@@ -117,12 +221,72 @@ public class MangaDAO {
         }
     }
 
-    private Manga toModel(MangaEntity entity) {
+    /**
+     * Number of manga in the catalog. Not query-cached: DashboardCounters reconciles with it,
+     * and a node-local cached count would hide other nodes' writes until it expired.
+     */
+    public long count() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            TypedQuery<Long> query = em.createQuery("SELECT COUNT(m) FROM MangaEntity m", Long.class);
+            return query.getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+
+    /** Sum of every manga's chapter count, read from the summary column; not query-cached, as for {@link #count}. */
+    public long totalChapters() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            TypedQuery<Long> query = em.createQuery(
+                    "SELECT COALESCE(SUM(m.chapterCount), 0) FROM MangaEntity m", Long.class);
+            return query.getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+
+    /** Manga added at or after {@code since}; rows older than the created_at column are not counted. */
+    public long countCreatedSince(Instant since) {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            TypedQuery<Long> query = em.createQuery(
+                    "SELECT COUNT(m) FROM MangaEntity m WHERE m.createdAt >= :since", Long.class);
+            query.setParameter("since", since);
+            return query.getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+
+    /** Chapter lists by manga id; {@code ids} null means every manga. */
+    private Map<Long, List<String>> chapterLists(EntityManager em, List<Long> ids) {
+        Map<Long, List<String>> lists = new HashMap<>();
+        if (ids != null && ids.isEmpty()) {
+            return lists;
+        }
+        TypedQuery<MangaChapterListEntity> query = em.createQuery(
+                "SELECT l FROM MangaChapterListEntity l" + (ids != null ? " WHERE l.id IN :ids" : ""),
+                MangaChapterListEntity.class);
+        if (ids != null) {
+            query.setParameter("ids", ids);
+        }
+        query.setHint(HibernateHints.HINT_CACHEABLE, true);
+        for (MangaChapterListEntity list : query.getResultList()) {
+            lists.put(list.getId(), list.getChapters());
+        }
+        return lists;
+    }
+
+    private Manga toModel(MangaEntity entity, List<String> chapters) {
         Manga manga = new Manga();
         manga.setId(String.valueOf(entity.getId()));
         manga.setTitle(entity.getTitle());
         manga.setCover(entity.getCover());
-        manga.setChapters(entity.getChapters());
+        manga.setChapters(chapters != null ? chapters : new ArrayList<>());
+        manga.setChapterCount(entity.getChapterCount());
+        manga.setLatestChapter(entity.getLatestChapter());
         return manga;
     }
 
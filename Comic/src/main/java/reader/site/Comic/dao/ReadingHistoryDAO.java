@@ -1,85 +1,192 @@
 package reader.site.Comic.dao;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import reader.site.Comic.entity.ReadingHistoryEntity;
 import reader.site.Comic.entity.MangaEntity;
-import reader.site.Comic.entity.UserEntity;
+import reader.site.Comic.model.CursorPage;
 import reader.site.Comic.model.ReadingHistory;
+import reader.site.Comic.persistence.ConnectionPool;
 import reader.site.Comic.persistence.JPAUtil;
+import reader.site.Comic.util.PageCursor;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class ReadingHistoryDAO {
 
+    // One statement per page turn: insert, or update the row that already has (user_id, manga_id).
+    // Both forms report the row id as the generated key, for inserts and updates alike.
+    private static final String MYSQL_UPSERT =
+        "INSERT INTO reading_history (user_id, manga_id, chapter_id, current_page, completed, last_read_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id), chapter_id = VALUES(chapter_id), "
+            + "current_page = VALUES(current_page), completed = VALUES(completed), last_read_at = VALUES(last_read_at)";
+    private static final String H2_UPSERT =
+        "MERGE INTO reading_history (user_id, manga_id, chapter_id, current_page, completed, last_read_at) "
+            + "KEY (user_id, manga_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static volatile String upsertSql;
+
+    /**
+     * Records reading progress with a single upsert on the unique (user_id, manga_id) key,
+     * so concurrent devices can no longer race each other into duplicate rows.
+     *
+     * @return the saved entry, or null if the user or manga does not exist
+     */
     public ReadingHistory save(String userId, Long mangaId, String chapterId, Integer currentPage, Boolean completed) {
+        ReadingHistory entry = new ReadingHistory();
+        entry.setUserId(userId);
+        entry.setMangaId(String.valueOf(mangaId));
+        entry.setChapterId(chapterId);
+        entry.setCurrentPage(currentPage);
+        entry.setCompleted(completed != null ? completed : false);
+        entry.setLastReadAt(LocalDateTime.now());
+
+        Long id;
+        try (Connection conn = ConnectionPool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(upsertSql(conn), new String[] {"id"})) {
+            bind(ps, entry);
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                id = keys.next() ? keys.getLong(1) : null;
+            }
+        } catch (SQLException ex) {
+            // Integrity violations here can only be the user/manga foreign keys.
+            if (JdbcSupport.isIntegrityViolation(ex)) {
+                return null;
+            }
+            throw new IllegalStateException("Failed to save reading progress", ex);
+        }
+
+        entry.setId(id != null ? String.valueOf(id) : null);
         EntityManager em = JPAUtil.getEntityManager();
         try {
-            em.getTransaction().begin();
+            // Served from the second-level cache in the common case, not another query.
+            MangaEntity manga = em.find(MangaEntity.class, mangaId);
+            if (manga != null) {
+                entry.setMangaTitle(manga.getTitle());
+                entry.setMangaCover(manga.getCover());
+            }
+        } finally {
+            em.close();
+        }
+        return entry;
+    }
 
-            // Tìm existing record
-            TypedQuery<ReadingHistoryEntity> query = em.createQuery(
-                "SELECT rh FROM ReadingHistoryEntity rh WHERE rh.user.id = :userId AND rh.manga.id = :mangaId",
-                ReadingHistoryEntity.class
-            );
-            query.setParameter("userId", userId);
-            query.setParameter("mangaId", mangaId);
-            
-            ReadingHistoryEntity entity;
-            List<ReadingHistoryEntity> results = query.getResultList();
-            
-            if (!results.isEmpty()) {
-                // Update existing
-                entity = results.get(0);
-                entity.setChapterId(chapterId);
-                entity.setCurrentPage(currentPage);
-                entity.setCompleted(completed != null ? completed : false);
-                entity.setLastReadAt(LocalDateTime.now());
-            } else {
-                // Create new
-                entity = new ReadingHistoryEntity();
-                UserEntity user = em.find(UserEntity.class, userId);
-                MangaEntity manga = em.find(MangaEntity.class, mangaId);
-                
-                if (user == null || manga == null) {
-                    em.getTransaction().rollback();
-                    return null;
+    /**
+     * Upserts many entries (userId, mangaId, chapterId, currentPage, completed, lastReadAt)
+     * as one JDBC batch in one transaction. If the batch is rejected, typically because an
+     * entry points at a manga deleted in the meantime, the entries are retried one by one
+     * and the invalid ones skipped.
+     *
+     * @return number of entries written
+     */
+    public int saveAll(Collection<ReadingHistory> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        try (Connection conn = ConnectionPool.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(upsertSql(conn))) {
+                for (ReadingHistory entry : entries) {
+                    bind(ps, entry);
+                    ps.addBatch();
                 }
-                
-                entity.setUser(user);
-                entity.setManga(manga);
-                entity.setChapterId(chapterId);
-                entity.setCurrentPage(currentPage);
-                entity.setCompleted(completed != null ? completed : false);
-                entity.setLastReadAt(LocalDateTime.now());
-                
-                em.persist(entity);
+                ps.executeBatch();
+                conn.commit();
+                return entries.size();
+            } catch (SQLException ex) {
+                conn.rollback();
+                System.err.println("[ReadingHistoryDAO] Batch of " + entries.size()
+                        + " rejected, retrying individually: " + ex.getMessage());
+            } finally {
+                conn.setAutoCommit(true);
             }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to save reading progress batch", ex);
+        }
 
-            em.getTransaction().commit();
-            return toModel(entity);
-        } catch (Exception ex) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
+        int written = 0;
+        for (ReadingHistory entry : entries) {
+            try (Connection conn = ConnectionPool.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(upsertSql(conn))) {
+                bind(ps, entry);
+                ps.executeUpdate();
+                written++;
+            } catch (SQLException ex) {
+                if (!JdbcSupport.isIntegrityViolation(ex)) {
+                    throw new IllegalStateException("Failed to save reading progress", ex);
+                }
+                System.err.println("[ReadingHistoryDAO] Dropped progress for user " + entry.getUserId()
+                        + ", manga " + entry.getMangaId() + ": " + ex.getMessage());
             }
-            throw ex;
+        }
+        return written;
+    }
+
+    private static void bind(PreparedStatement ps, ReadingHistory entry) throws SQLException {
+        ps.setString(1, entry.getUserId());
+        ps.setLong(2, Long.parseLong(entry.getMangaId()));
+        ps.setString(3, entry.getChapterId());
+        JdbcSupport.setInteger(ps, 4, entry.getCurrentPage());
+        ps.setBoolean(5, Boolean.TRUE.equals(entry.getCompleted()));
+        JdbcSupport.setTimestamp(ps, 6, entry.getLastReadAt());
+    }
+
+    private static String upsertSql(Connection conn) throws SQLException {
+        String sql = upsertSql;
+        if (sql == null) {
+            sql = JdbcSupport.isH2(conn) ? H2_UPSERT : MYSQL_UPSERT;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+
+    // List projection: the manga join only reads title and cover, never the chapters column,
+    // and nothing is hydrated into the persistence context.
+    private static final String LIST_SELECT =
+        "SELECT rh.id AS id, m.id AS mangaId, m.title AS mangaTitle, m.cover AS mangaCover, "
+            + "rh.chapterId AS chapterId, rh.currentPage AS currentPage, rh.lastReadAt AS lastReadAt, "
+            + "rh.completed AS completed "
+            + "FROM ReadingHistoryEntity rh JOIN rh.manga m WHERE rh.user.id = :userId";
+
+    public List<ReadingHistory> findByUserId(String userId) {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            TypedQuery<Tuple> query = em.createQuery(LIST_SELECT + " ORDER BY rh.lastReadAt DESC", Tuple.class);
+            query.setParameter("userId", userId);
+            return query.getResultList().stream().map(row -> toModel(userId, row)).collect(Collectors.toList());
         } finally {
             em.close();
         }
     }
 
-    public List<ReadingHistory> findByUserId(String userId) {
+    /** Keyset page of a user's history, most recently read first. */
+    public CursorPage<ReadingHistory> findPageByUserId(String userId, PageCursor after, int limit) {
         EntityManager em = JPAUtil.getEntityManager();
         try {
-            TypedQuery<ReadingHistoryEntity> query = em.createQuery(
-                "SELECT rh FROM ReadingHistoryEntity rh WHERE rh.user.id = :userId ORDER BY rh.lastReadAt DESC",
-                ReadingHistoryEntity.class
+            TypedQuery<Tuple> query = em.createQuery(
+                LIST_SELECT
+                    + (after != null ? after.afterDescending("rh.lastReadAt", "rh.id") : "")
+                    + " ORDER BY rh.lastReadAt DESC, rh.id DESC",
+                Tuple.class
             );
             query.setParameter("userId", userId);
-            return query.getResultList().stream().map(this::toModel).collect(Collectors.toList());
+            if (after != null) {
+                after.bind(query, after.keyAsLocalDateTime(), after.idAsLong());
+            }
+            query.setMaxResults(limit + 1);
+            return PageCursor.page(query.getResultList(), limit,
+                row -> PageCursor.of(row.get("lastReadAt"), row.get("id")), row -> toModel(userId, row));
         } finally {
             em.close();
         }
@@ -133,6 +240,20 @@ public class ReadingHistoryDAO {
         }
     }
 
+    private ReadingHistory toModel(String userId, Tuple row) {
+        ReadingHistory model = new ReadingHistory();
+        model.setId(String.valueOf(row.get("id", Long.class)));
+        model.setUserId(userId);
+        model.setMangaId(String.valueOf(row.get("mangaId", Long.class)));
+        model.setMangaTitle(row.get("mangaTitle", String.class));
+        model.setMangaCover(row.get("mangaCover", String.class));
+        model.setChapterId(row.get("chapterId", String.class));
+        model.setCurrentPage(row.get("currentPage", Integer.class));
+        model.setLastReadAt(row.get("lastReadAt", LocalDateTime.class));
+        model.setCompleted(row.get("completed", Boolean.class));
+        return model;
+    }
+
     private ReadingHistory toModel(ReadingHistoryEntity entity) {
         ReadingHistory model = new ReadingHistory();
         model.setId(String.valueOf(entity.getId()));
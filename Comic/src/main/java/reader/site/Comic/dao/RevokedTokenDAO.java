@@ -0,0 +1,62 @@
+package reader.site.Comic.dao;
+
+import reader.site.Comic.persistence.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Revoked signed-token ids in revoked_tokens, with the epoch second each token expires.
+ * Plain JDBC: the table is small, not mapped, and only read in bulk by TokenService.
+ */
+public class RevokedTokenDAO {
+
+    /** Records a revocation; revoking the same token twice is not an error. */
+    public void revoke(String tokenId, long expiresAtEpochSecond) {
+        try (Connection conn = ConnectionPool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "INSERT INTO revoked_tokens (token_id, expires_at) VALUES (?, ?)")) {
+            ps.setString(1, tokenId);
+            ps.setLong(2, expiresAtEpochSecond);
+            ps.executeUpdate();
+        } catch (SQLIntegrityConstraintViolationException duplicate) {
+            // Already revoked (a second logout, or another node got there first).
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to revoke token", ex);
+        }
+    }
+
+    /** Token id to expiry, for every revocation whose token has not expired yet. */
+    public Map<String, Long> findActive(long nowEpochSecond) {
+        Map<String, Long> revoked = new HashMap<>();
+        try (Connection conn = ConnectionPool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT token_id, expires_at FROM revoked_tokens WHERE expires_at > ?")) {
+            ps.setLong(1, nowEpochSecond);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    revoked.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to read revoked tokens", ex);
+        }
+        return revoked;
+    }
+
+    /** Deletes revocations of tokens that have expired; returns how many. */
+    public int purgeExpired(long nowEpochSecond) {
+        try (Connection conn = ConnectionPool.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM revoked_tokens WHERE expires_at <= ?")) {
+            ps.setLong(1, nowEpochSecond);
+            return ps.executeUpdate();
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to purge revoked tokens", ex);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package reader.site.Comic.dao;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
 import reader.site.Comic.entity.PermissionEntity;
 import reader.site.Comic.entity.UserRoleEntity;
 import reader.site.Comic.model.Permission;
@@ -14,14 +15,11 @@ import java.util.stream.Collectors;
 
 public class RoleDAO {
 
-    public RoleDAO() {
-        seedDefaults();
-    }
-
     public List<UserRole> findAll() {
         EntityManager em = JPAUtil.getEntityManager();
         try {
             TypedQuery<UserRoleEntity> query = em.createQuery("SELECT r FROM UserRoleEntity r", UserRoleEntity.class);
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
             return query.getResultList().stream().map(this::toModel).collect(Collectors.toList());
         } finally {
             em.close();
@@ -44,6 +42,7 @@ public class RoleDAO {
             TypedQuery<UserRoleEntity> query = em.createQuery(
                     "SELECT r FROM UserRoleEntity r WHERE LOWER(r.name) = :name", UserRoleEntity.class);
             query.setParameter("name", name.toLowerCase());
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
             List<UserRoleEntity> results = query.getResultList();
             if (results.isEmpty()) {
                 return null;
@@ -54,7 +53,11 @@ public class RoleDAO {
         }
     }
 
-    private void seedDefaults() {
+    /**
+     * Inserts the default roles and permissions into an empty table; a no-op otherwise.
+     * Run once at startup by {@link reader.site.Comic.service.ServiceRegistry}.
+     */
+    public void seedDefaults() {
         EntityManager em = JPAUtil.getEntityManager();
         try {
             long count = em.createQuery("SELECT COUNT(r) FROM UserRoleEntity r", Long.class).getSingleResult();
@@ -183,6 +186,7 @@ public class RoleDAO {
         TypedQuery<UserRoleEntity> query = em.createQuery(
                 "SELECT r FROM UserRoleEntity r WHERE LOWER(r.name) = :name", UserRoleEntity.class);
         query.setParameter("name", name.toLowerCase());
+        query.setHint(HibernateHints.HINT_CACHEABLE, true);
         List<UserRoleEntity> result = query.getResultList();
         return result.isEmpty() ? null : result.get(0);
     }
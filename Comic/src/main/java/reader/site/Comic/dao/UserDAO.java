@@ -3,70 +3,278 @@ package reader.site.Comic.dao;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 import jakarta.servlet.http.HttpSession;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 import reader.site.Comic.entity.UserEntity;
 import reader.site.Comic.entity.UserRoleEntity;
+import reader.site.Comic.model.CursorPage;
+import reader.site.Comic.model.SearchPage;
 import reader.site.Comic.model.User;
+import reader.site.Comic.model.UserRole;
 import reader.site.Comic.persistence.JPAUtil;
+import reader.site.Comic.util.PageCursor;
 import reader.site.Comic.util.PasswordUtil;
 
 public class UserDAO {
-    private final RoleDAO roleDAO = new RoleDAO();
-
+    // Not a backslash: MySQL reads '\' in the rendered ESCAPE clause as an escaped quote.
+    private static final char LIKE_ESCAPE = '!';
+    // How long a page header's "N users" may lag behind the table.
+    private static final long TOTAL_TTL_MILLIS = 30_000;
+    private static final int MAX_CACHED_TOTALS = 256;
 
+    private final RoleDAO roleDAO;
+    // Totals by filter (see pageTotal); cleared by this DAO's own writes.
+    private final Map<String, long[]> totals = new ConcurrentHashMap<>();
 
     public UserDAO() {
-//        seedDefaults();
+        this(new RoleDAO());
+    }
+
+    public UserDAO(RoleDAO roleDAO) {
+        this.roleDAO = roleDAO;
     }
 
     public List<User> findAll(int page, int limit, String search, String roleName, String status) {
+        return search(page, limit, search, roleName, status).getItems();
+    }
+
+    /**
+     * Numbered page of users, newest first, with the number of matches. {@code search}
+     * matches a username or email prefix (see {@link #filters}). With a search term the
+     * total comes from a COUNT(*) OVER () column of the same query, as the prefix keeps
+     * the matched set small; otherwise it is {@link #pageTotal}, so the page can stop
+     * reading the index after LIMIT rows instead of counting the whole table first.
+     */
+    public SearchPage<User> search(int page, int limit, String search, String roleName, String status) {
         EntityManager em = JPAUtil.getEntityManager();
         try {
             CriteriaBuilder cb = em.getCriteriaBuilder();
-            CriteriaQuery<UserEntity> cq = cb.createQuery(UserEntity.class);
+            CriteriaQuery<Tuple> cq = cb.createTupleQuery();
             Root<UserEntity> root = cq.from(UserEntity.class);
 
-            List<Predicate> predicates = new ArrayList<>();
+            List<Predicate> predicates = filters(cb, root, search, roleName, status);
+            boolean windowTotal = isSearch(search);
 
-            if (search != null && !search.isBlank()) {
-                String pattern = "%" + search.toLowerCase() + "%";
+            cq.multiselect(windowTotal ? withTotal(cb, root, listColumns(root)) : listColumns(root))
+                    .where(predicates.toArray(new Predicate[0]))
+                    .orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+
+            TypedQuery<Tuple> query = em.createQuery(cq);
+            int size = Math.max(limit, 1);
+            query.setFirstResult((Math.max(page, 1) - 1) * size);
+            query.setMaxResults(size);
+
+            List<Tuple> rows = query.getResultList();
+            Map<String, UserRole> roles = new HashMap<>();
+            List<User> items = rows.stream()
+                    .map(row -> toListModel(em, roles, row))
+                    .collect(java.util.stream.Collectors.toList());
+            // Past the last page there is no row to read the total from.
+            long total = windowTotal && !rows.isEmpty()
+                    ? rows.get(0).get("total", Long.class)
+                    : pageTotal(search, roleName, status);
+            return new SearchPage<>(items, null, size, total);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Keyset page of users, newest first. Unlike {@link #findAll}'s OFFSET paging, a deep
+     * page costs the same as the first one. The first page of a search carries the total
+     * from the same query; every other page takes {@link #pageTotal}, so following a
+     * cursor never counts the matched set.
+     */
+    public SearchPage<User> findPage(PageCursor after, int limit, String search, String roleName, String status) {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+            Root<UserEntity> root = cq.from(UserEntity.class);
+
+            List<Predicate> predicates = filters(cb, root, search, roleName, status);
+            List<Selection<?>> columns = listColumns(root);
+            if (after != null) {
+                Instant createdAt = after.keyAsInstant();
                 predicates.add(cb.or(
-                        cb.like(cb.lower(root.get("username")), pattern),
-                        cb.like(cb.lower(root.get("email")), pattern)
+                        cb.lessThan(root.get("createdAt"), createdAt),
+                        cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), after.getId()))
                 ));
+            } else if (isSearch(search)) {
+                columns = withTotal(cb, root, columns);
             }
 
-            if (roleName != null && !roleName.isBlank()) {
-                predicates.add(cb.equal(cb.lower(root.get("role").get("name")), roleName.toLowerCase()));
+            cq.multiselect(columns)
+                    .where(predicates.toArray(new Predicate[0]))
+                    .orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+
+            TypedQuery<Tuple> query = em.createQuery(cq);
+            query.setMaxResults(limit + 1);
+            List<Tuple> rows = query.getResultList();
+            Map<String, UserRole> roles = new HashMap<>();
+            CursorPage<User> page = PageCursor.page(rows, limit,
+                    row -> PageCursor.of(row.get("createdAt"), row.get("id")),
+                    row -> toListModel(em, roles, row));
+            long total = after == null && isSearch(search) && !rows.isEmpty()
+                    ? rows.get(0).get("total", Long.class)
+                    : pageTotal(search, roleName, status);
+            return new SearchPage<>(page.getItems(), page.getNext(), limit, total);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * List rows for the given ids, in the order given. Ids that no longer exist are
+     * skipped. Used to load a page found by {@code UserSearchIndex}.
+     */
+    public List<User> findListByIds(List<String> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+            Root<UserEntity> root = cq.from(UserEntity.class);
+            cq.multiselect(listColumns(root)).where(root.get("id").in(ids));
+
+            Map<String, UserRole> roles = new HashMap<>();
+            Map<String, User> byId = new HashMap<>();
+            for (Tuple row : em.createQuery(cq).getResultList()) {
+                User user = toListModel(em, roles, row);
+                byId.put(user.getId(), user);
+            }
+            List<User> ordered = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                User user = byId.get(id);
+                if (user != null) {
+                    ordered.add(user);
+                }
             }
+            return ordered;
+        } finally {
+            em.close();
+        }
+    }
+
+    /** Receives one user per call from {@link #scanSearchRows}. */
+    public interface SearchRowConsumer {
+        void accept(String id, String username, String email, String roleId, String status, Instant createdAt);
+    }
 
-            if (status != null && !status.isBlank()) {
-                predicates.add(cb.equal(cb.lower(root.get("status")), status.toLowerCase()));
+    /**
+     * Streams the searchable columns of every user, in id order, {@code batchSize} rows per
+     * query, without loading entities. Used to build {@code UserSearchIndex}.
+     */
+    public void scanSearchRows(int batchSize, SearchRowConsumer consumer) {
+        String after = null;
+        while (true) {
+            EntityManager em = JPAUtil.getEntityManager();
+            List<Object[]> rows;
+            try {
+                TypedQuery<Object[]> query = em.createQuery(
+                        "SELECT u.id, u.username, u.email, u.role.id, u.status, u.createdAt FROM UserEntity u"
+                                + (after != null ? " WHERE u.id > :after" : "") + " ORDER BY u.id",
+                        Object[].class);
+                if (after != null) {
+                    query.setParameter("after", after);
+                }
+                rows = query.setMaxResults(batchSize).getResultList();
+            } finally {
+                em.close();
+            }
+            for (Object[] row : rows) {
+                consumer.accept((String) row[0], (String) row[1], (String) row[2], (String) row[3],
+                        (String) row[4], (Instant) row[5]);
+            }
+            if (rows.size() < batchSize) {
+                return;
             }
+            after = (String) rows.get(rows.size() - 1)[0];
+        }
+    }
 
-            cq.select(root)
-                    .where(predicates.toArray(new Predicate[0]))
-                    .orderBy(cb.desc(root.get("createdAt")));
+    // Admin list projection: the columns the user table shows. Password hash, bio and the
+    // token columns are left out; the edit screen loads the full user by id.
+    private List<Selection<?>> listColumns(Root<UserEntity> root) {
+        return List.of(
+                root.get("id").alias("id"),
+                root.get("username").alias("username"),
+                root.get("email").alias("email"),
+                root.get("status").alias("status"),
+                root.get("createdAt").alias("createdAt"),
+                root.get("updatedAt").alias("updatedAt"),
+                root.get("lastLogin").alias("lastLogin"),
+                root.get("avatar").alias("avatar"),
+                root.get("role").get("id").alias("roleId")
+        );
+    }
 
-            TypedQuery<UserEntity> query = em.createQuery(cq);
-            query.setFirstResult((Math.max(page, 1) - 1) * Math.max(limit, 1));
-            query.setMaxResults(Math.max(limit, 1));
+    private static boolean isSearch(String search) {
+        return search != null && !search.isBlank();
+    }
 
-            return query.getResultList().stream().map(this::toModel).collect(java.util.stream.Collectors.toList());
-        } finally {
-            em.close();
+    /**
+     * {@link #count} for a page header, reused for TOTAL_TTL_MILLIS per filter: paging
+     * through the table (or every active user) would otherwise count it on every page.
+     */
+    long pageTotal(String search, String roleName, String status) {
+        String key = search + '\u0000' + roleName + '\u0000' + status;
+        long now = System.currentTimeMillis();
+        long[] cached = totals.get(key);
+        if (cached != null && cached[1] > now) {
+            return cached[0];
+        }
+        long total = count(search, roleName, status);
+        if (totals.size() >= MAX_CACHED_TOTALS) {
+            totals.clear();
         }
+        totals.put(key, new long[] {total, now + TOTAL_TTL_MILLIS});
+        return total;
+    }
+
+    // Adds COUNT(u.id) OVER () as "total": every row carries the number of rows matched.
+    private static List<Selection<?>> withTotal(CriteriaBuilder cb, Root<UserEntity> root, List<Selection<?>> columns) {
+        HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+        List<Selection<?>> withTotal = new ArrayList<>(columns);
+        withTotal.add(hcb.functionAggregate("count", Long.class, hcb.createWindow(), root.get("id")).alias("total"));
+        return withTotal;
+    }
+
+    private User toListModel(EntityManager em, Map<String, UserRole> roles, Tuple row) {
+        User user = new User();
+        user.setId(row.get("id", String.class));
+        user.setUsername(row.get("username", String.class));
+        user.setEmail(row.get("email", String.class));
+        user.setStatus(row.get("status", String.class));
+        user.setCreatedAt(formatInstant(row.get("createdAt", Instant.class)));
+        user.setUpdatedAt(formatInstant(row.get("updatedAt", Instant.class)));
+        user.setLastLogin(formatInstant(row.get("lastLogin", Instant.class)));
+        user.setAvatar(row.get("avatar", String.class));
+        // A handful of roles, each read from the second-level cache once per page.
+        user.setRole(roles.computeIfAbsent(row.get("roleId", String.class), roleId -> {
+            UserRoleEntity role = roleDAO.findEntityById(em, roleId);
+            return role != null ? roleDAO.toModel(role) : null;
+        }));
+        return user;
     }
 
     public int count(String search, String roleName, String status) {
@@ -76,23 +284,7 @@ public class UserDAO {
             CriteriaQuery<Long> cq = cb.createQuery(Long.class);
             Root<UserEntity> root = cq.from(UserEntity.class);
 
-            List<Predicate> predicates = new ArrayList<>();
-
-            if (search != null && !search.isBlank()) {
-                String pattern = "%" + search.toLowerCase() + "%";
-                predicates.add(cb.or(
-                        cb.like(cb.lower(root.get("username")), pattern),
-                        cb.like(cb.lower(root.get("email")), pattern)
-                ));
-            }
-
-            if (roleName != null && !roleName.isBlank()) {
-                predicates.add(cb.equal(cb.lower(root.get("role").get("name")), roleName.toLowerCase()));
-            }
-
-            if (status != null && !status.isBlank()) {
-                predicates.add(cb.equal(cb.lower(root.get("status")), status.toLowerCase()));
-            }
+            List<Predicate> predicates = filters(cb, root, search, roleName, status);
 
             cq.select(cb.count(root)).where(predicates.toArray(new Predicate[0]));
             return em.createQuery(cq).getSingleResult().intValue();
@@ -101,6 +293,56 @@ public class UserDAO {
         }
     }
 
+    /** Users registered at or after {@code since}. */
+    public long countCreatedSince(Instant since) {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            return em.createQuery("SELECT COUNT(u) FROM UserEntity u WHERE u.createdAt >= :since", Long.class)
+                    .setParameter("since", since)
+                    .getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * {@code search} is a username or email prefix, matched on the lower-cased generated
+     * columns so idx_users_username_lower / idx_users_email_lower serve it. Substring
+     * matches are answered by UserSearchIndex instead.
+     */
+    private List<Predicate> filters(CriteriaBuilder cb, Root<UserEntity> root,
+                                    String search, String roleName, String status) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (search != null && !search.isBlank()) {
+            String pattern = escapeLike(search.trim().toLowerCase(Locale.ROOT)) + "%";
+            predicates.add(cb.or(
+                    cb.like(root.get("usernameLower"), pattern, LIKE_ESCAPE),
+                    cb.like(root.get("emailLower"), pattern, LIKE_ESCAPE)
+            ));
+        }
+
+        if (roleName != null && !roleName.isBlank()) {
+            predicates.add(cb.equal(cb.lower(root.get("role").get("name")), roleName.toLowerCase()));
+        }
+
+        if (status != null && !status.isBlank()) {
+            predicates.add(cb.equal(cb.lower(root.get("status")), status.toLowerCase()));
+        }
+        return predicates;
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
     public Optional<User> findById(String id) {
         EntityManager em = JPAUtil.getEntityManager();
         try {
@@ -154,6 +396,7 @@ public class UserDAO {
             applyToEntity(em, entity, user);
             em.persist(entity);
             em.getTransaction().commit();
+            totals.clear();
             return toModel(entity);
         } catch (Exception ex) {
             if (em.getTransaction().isActive()) {
@@ -176,6 +419,7 @@ public class UserDAO {
             }
             applyPartialUpdate(em, entity, updates);
             em.getTransaction().commit();
+            totals.clear();
             return toModel(entity);
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -200,6 +444,7 @@ public class UserDAO {
             }
             em.remove(entity);
             em.getTransaction().commit();
+            totals.clear();
             return true;
         } catch (Exception ex) {
             if (em.getTransaction().isActive()) {
@@ -0,0 +1,45 @@
+package reader.site.Comic.entity;
+
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import reader.site.Comic.persistence.CatalogCache;
+import reader.site.Comic.persistence.StringListConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The chapters column of a manga row, mapped on its own so it is only read (and its JSON
+ * parsed) when a caller actually needs the list. The row is created through MangaEntity;
+ * this entity is only ever loaded with find() and updated, never persisted or removed.
+ */
+@Entity
+@Table(name = "manga")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CatalogCache.CHAPTER_LIST_REGION)
+public class MangaChapterListEntity {
+    @Id
+    private Long id;
+
+    @Convert(converter = StringListConverter.class)
+    @Column(columnDefinition = "LONGTEXT")
+    private List<String> chapters = new ArrayList<>();
+
+    public Long getId() {
+        return id;
+    }
+
+    public List<String> getChapters() {
+        return chapters;
+    }
+
+    public void setChapters(List<String> chapters) {
+        this.chapters = chapters;
+    }
+}
@@ -1,20 +1,34 @@
 package reader.site.Comic.entity;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
-import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
-import reader.site.Comic.persistence.StringListConverter;
+import jakarta.persistence.Transient;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import reader.site.Comic.persistence.CatalogCache;
+import reader.site.Comic.persistence.DashboardCounterListener;
 
-import java.util.ArrayList;
+import java.time.Instant;
 import java.util.List;
 
 @Entity
 @Table(name = "manga")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CatalogCache.MANGA_REGION)
+@EntityListeners(DashboardCounterListener.class)
 public class MangaEntity {
+    public static final int LATEST_CHAPTER_LENGTH = 255;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -25,9 +39,35 @@ public class MangaEntity {
     @Column(length = 512)
     private String cover;
 
-    @Convert(converter = StringListConverter.class)
-    @Column(columnDefinition = "LONGTEXT")
-    private List<String> chapters = new ArrayList<>();
+    // Summary of the chapter list, which itself lives in MangaChapterListEntity (same row)
+    // so that loading a manga never reads or parses the LONGTEXT.
+    @Column(name = "chapter_count", nullable = false)
+    private int chapterCount;
+
+    @Column(name = "latest_chapter", length = LATEST_CHAPTER_LENGTH)
+    private String latestChapter;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    // Chapter count as last read from or written to the database, for the dashboard
+    // counters' update delta. Listener callbacks run before this entity's own.
+    @Transient
+    private int persistedChapterCount;
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberPersistedChapterCount() {
+        persistedChapterCount = chapterCount;
+    }
 
     public Long getId() {
         return id;
@@ -53,11 +93,42 @@ public class MangaEntity {
         this.cover = cover;
     }
 
-    public List<String> getChapters() {
-        return chapters;
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getPersistedChapterCount() {
+        return persistedChapterCount;
+    }
+
+    public int getChapterCount() {
+        return chapterCount;
+    }
+
+    public void setChapterCount(int chapterCount) {
+        this.chapterCount = chapterCount;
+    }
+
+    public String getLatestChapter() {
+        return latestChapter;
+    }
+
+    public void setLatestChapter(String latestChapter) {
+        this.latestChapter = latestChapter;
+    }
+
+    /** Recomputes the summary columns for the given chapter list. */
+    public void summariseChapters(List<String> chapters) {
+        this.chapterCount = chapters != null ? chapters.size() : 0;
+        this.latestChapter = latestChapterOf(chapters);
     }
 
-    public void setChapters(List<String> chapters) {
-        this.chapters = chapters;
+    /** The first entry: lists are kept newest first, as the dashboard editor shows them. */
+    public static String latestChapterOf(List<String> chapters) {
+        if (chapters == null || chapters.isEmpty() || chapters.get(0) == null) {
+            return null;
+        }
+        String latest = chapters.get(0);
+        return latest.length() > LATEST_CHAPTER_LENGTH ? latest.substring(0, LATEST_CHAPTER_LENGTH) : latest;
     }
 }
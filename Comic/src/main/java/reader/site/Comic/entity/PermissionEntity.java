@@ -1,12 +1,18 @@
 package reader.site.Comic.entity;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import reader.site.Comic.persistence.CatalogCache;
 
 @Entity
 @Table(name = "permissions")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CatalogCache.PERMISSION_REGION)
 public class PermissionEntity {
     @Id
     @Column(length = 64)
@@ -5,16 +5,24 @@ import java.util.UUID;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import reader.site.Comic.persistence.DashboardCounterListener;
+import reader.site.Comic.persistence.UserSearchListener;
 
 @Entity
 @Table(name = "users")
+@EntityListeners({DashboardCounterListener.class, UserSearchListener.class})
 public class UserEntity {
     @Id
     @Column(length = 64)
@@ -48,6 +56,13 @@ public class UserEntity {
     @Column(name = "bio", columnDefinition = "TEXT")
     private String bio;
 
+    // Generated by the database (V9) for indexed search; only ever read, in queries.
+    @Column(name = "username_lower", insertable = false, updatable = false)
+    private String usernameLower;
+
+    @Column(name = "email_lower", insertable = false, updatable = false)
+    private String emailLower;
+
     @PrePersist
     public void onCreate() {
         if (id == null || id.isBlank()) {
@@ -63,11 +78,27 @@ public class UserEntity {
     @Column(name = "status", nullable = false)
     private String status = "active"; // default value
 
+    // Status as last read from or written to the database, so the dashboard counters can
+    // tell an activation from any other update. Listener callbacks run before this one.
+    @Transient
+    private String persistedStatus;
+
     @PreUpdate
     public void onUpdate() {
         updatedAt = Instant.now();
     }
 
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberPersistedStatus() {
+        persistedStatus = status;
+    }
+
+    public String getPersistedStatus() {
+        return persistedStatus;
+    }
+
     public String getId() {
         return id;
     }
@@ -1,5 +1,6 @@
 package reader.site.Comic.entity;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -10,12 +11,17 @@ import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import reader.site.Comic.persistence.CatalogCache;
 
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "roles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CatalogCache.ROLE_REGION)
 public class UserRoleEntity {
     @Id
     @Column(length = 64)
@@ -27,6 +33,7 @@ public class UserRoleEntity {
     @Column(length = 256)
     private String description;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CatalogCache.ROLE_PERMISSIONS_REGION)
     @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.MERGE, CascadeType.PERSIST})
     @JoinTable(
             name = "role_permissions",
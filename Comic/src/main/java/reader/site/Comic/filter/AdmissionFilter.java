@@ -0,0 +1,306 @@
+package reader.site.Comic.filter;
+
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import reader.site.Comic.model.User;
+import reader.site.Comic.persistence.RequestScope;
+import reader.site.Comic.util.AdaptiveLimiter;
+import reader.site.Comic.util.EnvConfig;
+import reader.site.Comic.util.RateLimiter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for /api/*: every request is sorted into a route class and has to get
+ * past two checks before a servlet (and so the database) sees it.
+ *
+ * <ul>
+ *   <li>A quota per caller: ADMISSION_&lt;ROUTE&gt;_PER_MINUTE requests, counted per user
+ *       when the bearer token resolved and per client IP otherwise (a {@link RateLimiter}
+ *       bucket). Over it, the request gets 429 with the Retry-After of one token.</li>
+ *   <li>A cap on requests in progress: ADMISSION_&lt;ROUTE&gt;_IN_FLIGHT. Past it, the
+ *       request is shed at once with 503 and Retry-After: 1 rather than queueing for a
+ *       Tomcat thread that is waiting on the database.</li>
+ * </ul>
+ *
+ * Route classes are catalog (manga, manga-chapters, series), images (chapter-images),
+ * downloads (/api/epub/file only), auth and api (everything else, EPUB listing, upload
+ * and delete included); /api/health is never limited. The synchronous classes' caps add
+ * up to less than Tomcat's 200 request threads. A download streams its blob from Azure on
+ * the blocking executor and holds its slot until the async request ends, so that class
+ * is capped at the executor's default thread count. Admitted, rate-limited and shed counts
+ * per class are in /api/metrics. ADMISSION_CONTROL=false turns the filter off.
+ *
+ * Each class served from the database also has its own {@link AdaptiveLimiter}, whose
+ * limit follows that class's latency: past it a request waits up to ADAPTIVE_LIMIT_QUEUE_MS
+ * for a slot and is then shed with 503. Classes are kept apart so a slow profile in one
+ * does not shrink another's limit. Only requests that used the database (their
+ * {@link RequestScope} was started) feed a limiter samples, so snapshot hits and 304s do
+ * not mask a slow database. Auth has no adaptive limit: a login's time is mostly BCrypt,
+ * which says nothing about the database. ADAPTIVE_LIMIT=false leaves only the fixed caps.
+ *
+ * Runs after {@link RequestContextFilter} (see web.xml), whose token check is in memory
+ * and whose persistence context is only opened when a DAO first asks for it.
+ */
+@WebFilter(filterName = "AdmissionFilter", urlPatterns = "/api/*", asyncSupported = true)
+public class AdmissionFilter implements Filter {
+
+    private static final long MINUTE_MILLIS = 60_000;
+
+    private static volatile AdmissionFilter active;
+
+    private boolean enabled = true;
+    private List<Route> routes = List.of();
+
+    @Override
+    public void init(FilterConfig config) {
+        enabled = !"false".equalsIgnoreCase(EnvConfig.getOrDefault("ADMISSION_CONTROL", "true").trim());
+        boolean adaptive = !"false".equalsIgnoreCase(EnvConfig.getOrDefault("ADAPTIVE_LIMIT", "true").trim());
+        configure(List.of(
+                Route.fromEnv("catalog", 600, 64, "/api/manga", "/api/manga-chapters", "/api/series")
+                        .adaptive(adaptive ? AdaptiveLimiter.fromEnv() : null),
+                Route.fromEnv("images", 1200, 64, "/api/chapter-images")
+                        .adaptive(adaptive ? AdaptiveLimiter.fromEnv() : null),
+                Route.fromEnv("downloads", 10, 32, "/api/epub/file"),
+                Route.fromEnv("auth", 60, 16, "/api/auth"),
+                Route.fromEnv("api", 300, 48, "/api")
+                        .adaptive(adaptive ? AdaptiveLimiter.fromEnv() : null)));
+        active = this;
+    }
+
+    /** Sets the route classes; the first whose prefix matches a path wins. */
+    void configure(List<Route> routes) {
+        this.routes = List.copyOf(routes);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response,
+                         FilterChain chain) throws IOException, ServletException {
+
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+        Route route = enabled && !"OPTIONS".equalsIgnoreCase(req.getMethod()) ? route(path(req)) : null;
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (!RateLimiter.allow(route.name + "|" + callerKey(req), route.perMinute, MINUTE_MILLIS)) {
+            route.rateLimited.increment();
+            reject(res, 429, route.retryAfterSeconds(), "Too many requests. Try again later.");
+            return;
+        }
+        if (!route.inFlight.tryAcquire()) {
+            route.shed.increment();
+            reject(res, HttpServletResponse.SC_SERVICE_UNAVAILABLE, 1, "Server busy. Try again shortly.");
+            return;
+        }
+        AdaptiveLimiter limiter = route.limiter;
+        if (limiter != null && !acquire(limiter)) {
+            route.inFlight.release();
+            route.shed.increment();
+            reject(res, HttpServletResponse.SC_SERVICE_UNAVAILABLE, 1, "Server busy. Try again shortly.");
+            return;
+        }
+        route.admitted.increment();
+
+        Permit permit = new Permit(route, limiter);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (req.isAsyncStarted()) {
+                // EPUB downloads finish on another thread; hold the slot until they do.
+                req.getAsyncContext().addListener(permit);
+            } else {
+                RequestScope scope = RequestScope.current();
+                permit.release(scope != null && scope.isStarted());
+            }
+        }
+    }
+
+    private static boolean acquire(AdaptiveLimiter limiter) {
+        try {
+            return limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** The route class for a path below the context root, or null when it is not limited. */
+    Route route(String path) {
+        if (path == null || path.equals("/api/health")) {
+            return null;
+        }
+        for (Route route : routes) {
+            if (route.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Per-class requests admitted, rejected by quota and shed, how many are in progress,
+     * and the class's adaptive limit if it has one.
+     */
+    public static Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        AdmissionFilter filter = active;
+        if (filter == null || !filter.enabled) {
+            stats.put("enabled", false);
+            return stats;
+        }
+        stats.put("enabled", true);
+        for (Route route : filter.routes) {
+            stats.put(route.name, route.stats());
+        }
+        return stats;
+    }
+
+    private static String path(HttpServletRequest req) {
+        String uri = req.getRequestURI();
+        String context = req.getContextPath();
+        if (uri != null && context != null && !context.isEmpty() && uri.startsWith(context)) {
+            return uri.substring(context.length());
+        }
+        return uri;
+    }
+
+    private static String callerKey(HttpServletRequest req) {
+        User user = RequestContextFilter.currentUser(req);
+        return user != null ? "user:" + user.getId() : "ip:" + RateLimiter.clientIp(req);
+    }
+
+    private static void reject(HttpServletResponse res, int status, long retryAfterSeconds,
+                               String message) throws IOException {
+        res.setStatus(status);
+        res.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        res.setContentType("application/json");
+        res.setCharacterEncoding("UTF-8");
+        byte[] body = ("{\"error\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+        res.setContentLength(body.length);
+        res.getOutputStream().write(body);
+    }
+
+    /** One route class: its path prefixes, limits and counters. */
+    static final class Route {
+        final String name;
+        final int perMinute;
+        final int maxInFlight;
+        private final List<String> prefixes;
+        private final Semaphore inFlight;
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+        private AdaptiveLimiter limiter;
+
+        Route(String name, int perMinute, int maxInFlight, String... prefixes) {
+            this.name = name;
+            this.perMinute = Math.max(1, perMinute);
+            this.maxInFlight = Math.max(1, maxInFlight);
+            this.prefixes = List.of(prefixes);
+            this.inFlight = new Semaphore(this.maxInFlight);
+        }
+
+        static Route fromEnv(String name, int perMinute, int maxInFlight, String... prefixes) {
+            String env = "ADMISSION_" + name.toUpperCase(Locale.ROOT);
+            return new Route(name, EnvConfig.getInt(env + "_PER_MINUTE", perMinute),
+                    EnvConfig.getInt(env + "_IN_FLIGHT", maxInFlight), prefixes);
+        }
+
+        /**
+         * Puts the class (one served from the database) behind its own adaptive limit;
+         * null leaves it with the fixed cap only.
+         */
+        Route adaptive(AdaptiveLimiter limiter) {
+            this.limiter = limiter;
+            return this;
+        }
+
+        boolean matches(String path) {
+            for (String prefix : prefixes) {
+                if (path.startsWith(prefix)
+                        && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Seconds until a spent caller has a request again. */
+        long retryAfterSeconds() {
+            return Math.max(1, (MINUTE_MILLIS / perMinute + 999) / 1000);
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("admitted", admitted.sum());
+            stats.put("rateLimited", rateLimited.sum());
+            stats.put("shed", shed.sum());
+            stats.put("inFlight", maxInFlight - inFlight.availablePermits());
+            stats.put("perMinute", perMinute);
+            stats.put("maxInFlight", maxInFlight);
+            if (limiter != null) {
+                stats.put("adaptive", limiter.stats());
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * An in-flight slot (and adaptive-limit slot, if any); released once, by the filter or
+     * when an async request ends.
+     */
+    private static final class Permit implements AsyncListener {
+        private final Route route;
+        private final AdaptiveLimiter limiter;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Route route, AdaptiveLimiter limiter) {
+            this.route = route;
+            this.limiter = limiter;
+        }
+
+        /** Gives the slots back; {@code sample} when the request's time reflects the database. */
+        void release(boolean sample) {
+            if (released.compareAndSet(false, true)) {
+                route.inFlight.release();
+                if (limiter != null) {
+                    limiter.release(sample ? System.nanoTime() - startNanos : -1);
+                }
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(false);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(false);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,530 @@
+package reader.site.Comic.filter;
+
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import reader.site.Comic.util.ConditionalGet;
+import reader.site.Comic.util.EnvConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip for GET responses under /api/*.
+ *
+ * The body is held back until COMPRESSION_MIN_BYTES (default 1024) have been written. A
+ * smaller body goes out as is; a larger JSON or text body is gzipped from then on while
+ * the servlet keeps writing, so streamed output is never held in full. Bodies of other
+ * types (EPUB downloads, already zipped) are passed through from the first byte.
+ *
+ * A gzipped body that carries an ETag is also kept, up to COMPRESSION_CACHE_MB in total.
+ * When a later request for the same path and query reaches {@link ConditionalGet#answer} with that
+ * ETag, the kept bytes are sent and the servlet neither serialises nor compresses again.
+ * Gzip bodies get a weak ETag, since they are not byte-identical to the plain ones.
+ *
+ * Only gzip is offered: the JDK has no Brotli encoder. COMPRESSION=false turns the
+ * filter off (e.g. when a proxy in front compresses).
+ */
+@WebFilter(filterName = "CompressionFilter", urlPatterns = "/api/*", asyncSupported = true)
+public class CompressionFilter implements Filter {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final LongAdder compressed = new LongAdder();
+    private static final LongAdder tooSmall = new LongAdder();
+    private static final LongAdder bytesIn = new LongAdder();
+    private static final LongAdder bytesOut = new LongAdder();
+    private static final LongAdder cpuNanos = new LongAdder();
+    private static final LongAdder cacheHits = new LongAdder();
+    private static volatile PrecompressedCache cache;
+
+    private boolean enabled;
+    private int minBytes;
+
+    @Override
+    public void init(FilterConfig config) {
+        enabled = !"false".equalsIgnoreCase(EnvConfig.getOrDefault("COMPRESSION", "true").trim());
+        minBytes = Math.max(0, EnvConfig.getInt("COMPRESSION_MIN_BYTES", 1024));
+        long cacheBytes = EnvConfig.getInt("COMPRESSION_CACHE_MB", 32) * 1024L * 1024L;
+        cache = cacheBytes > 0 ? new PrecompressedCache(cacheBytes) : null;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response,
+                         FilterChain chain) throws IOException, ServletException {
+
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+        if (!enabled || !"GET".equalsIgnoreCase(req.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        res.addHeader("Vary", "Accept-Encoding");
+        if (!acceptsGzip(req.getHeader("Accept-Encoding"))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Keyed on the query too: the same ETag under another query string is another body.
+        String query = req.getQueryString();
+        String path = query != null ? req.getRequestURI() + '?' + query : req.getRequestURI();
+        CompressingResponse wrapper = new CompressingResponse(res, path, minBytes, cache);
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            if (req.isAsyncStarted()) {
+                // The body is written after this returns; it goes out uncompressed.
+                wrapper.passThrough();
+            } else {
+                wrapper.finish();
+            }
+        }
+    }
+
+    /** Whether an Accept-Encoding header allows gzip (explicitly or via "*", with q above 0). */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] fields = part.trim().split(";");
+            String coding = fields[0].trim().toLowerCase(Locale.ROOT);
+            if (!coding.equals("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < fields.length; i++) {
+                String param = fields[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Responses gzipped or left small, bytes before and after, CPU spent, and cache use. */
+    public static Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long in = bytesIn.sum();
+        long out = bytesOut.sum();
+        stats.put("compressed", compressed.sum());
+        stats.put("belowMinimum", tooSmall.sum());
+        stats.put("bytesIn", in);
+        stats.put("bytesOut", out);
+        stats.put("ratio", in > 0 ? Math.round(1000.0 * out / in) / 1000.0 : 0);
+        stats.put("cpuMillis", cpuNanos.sum() / 1_000_000);
+        stats.put("cacheHits", cacheHits.sum());
+        PrecompressedCache current = cache;
+        stats.put("cacheEntries", current != null ? current.size() : 0);
+        stats.put("cacheBytes", current != null ? current.bytes() : 0);
+        return stats;
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("application/json") || type.startsWith("text/")
+                || type.startsWith("application/javascript") || type.contains("+json");
+    }
+
+    private enum State { BUFFERING, GZIP, IDENTITY, CACHED }
+
+    /** Holds the body back until it is known to be worth compressing, then gzips or passes it through. */
+    static final class CompressingResponse extends HttpServletResponseWrapper implements ConditionalGet.BodyCache {
+        private final String path;
+        private final int minBytes;
+        private final PrecompressedCache cache;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private State state = State.BUFFERING;
+        private String etag;
+        private Long contentLength;
+        private BodyStream stream;
+        private PrintWriter writer;
+        private WriterSink writerSink;
+        private GZIPOutputStream gzip;
+        private CountingOutput counted;
+        private long identityBytes;
+
+        CompressingResponse(HttpServletResponse response, String path, int minBytes, PrecompressedCache cache) {
+            super(response);
+            this.path = path;
+            this.minBytes = minBytes;
+            this.cache = cache;
+        }
+
+        @Override
+        public boolean sendCached(String etag) throws IOException {
+            if (cache == null || state != State.BUFFERING || buffer.size() > 0 || getStatus() != SC_OK) {
+                return false;
+            }
+            PrecompressedCache.Entry entry = cache.get(path + ' ' + etag);
+            if (entry == null) {
+                return false;
+            }
+            this.etag = etag;
+            setGzipHeaders(entry.contentType);
+            super.setContentLength(entry.gzip.length);
+            getResponse().getOutputStream().write(entry.gzip);
+            state = State.CACHED;
+            cacheHits.increment();
+            return true;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                contentLength = value != null ? Long.valueOf(value) : null;
+                return;
+            }
+            if ("ETag".equalsIgnoreCase(name)) {
+                etag = value;
+            }
+            super.setHeader(name, value);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name) || "ETag".equalsIgnoreCase(name)) {
+                setHeader(name, value);
+                return;
+            }
+            super.addHeader(name, value);
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            contentLength = (long) len;
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            contentLength = len;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            return stream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                writerSink = new WriterSink();
+                writer = new PrintWriter(new OutputStreamWriter(writerSink, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            // While buffering there is nothing to send yet: committing now would fix the encoding early.
+            if (state != State.BUFFERING) {
+                if (gzip != null) {
+                    gzip.flush();
+                }
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            discardBody();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            discardBody();
+            etag = null;
+        }
+
+        /**
+         * Drops everything written so far (the response is not committed, or the container
+         * would have refused the reset) and starts over in BUFFERING, so what the servlet
+         * writes next (usually an error body) is judged and encoded on its own.
+         */
+        private void discardBody() {
+            buffer.reset();
+            if (writerSink != null) {
+                // Chars still pending in the old writer must not reach the new body.
+                writerSink.discarded = true;
+                writerSink = null;
+                writer = null;
+            }
+            if (state == State.GZIP) {
+                gzip = null;
+                counted = null;
+                identityBytes = 0;
+                // Servlet 6: a null value removes the header.
+                super.setHeader("Content-Encoding", null);
+                super.setHeader("ETag", etag);
+            }
+            if (state != State.BUFFERING && contentLength != null) {
+                super.setContentLengthLong(-1);
+            }
+            contentLength = null;
+            state = State.BUFFERING;
+        }
+
+        /** Completes the body once the servlet has returned. */
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            switch (state) {
+                case BUFFERING:
+                    if (buffer.size() > 0) {
+                        if (isCompressible(getContentType())) {
+                            tooSmall.increment();
+                        }
+                        contentLength = (long) buffer.size();
+                    }
+                    startIdentity();
+                    break;
+                case GZIP:
+                    long started = cpuTime();
+                    gzip.finish();
+                    cpuNanos.add(cpuTime() - started);
+                    compressed.increment();
+                    bytesIn.add(identityBytes);
+                    bytesOut.add(counted.count);
+                    if (counted.copy != null && etag != null && getStatus() == SC_OK) {
+                        cache.put(path + ' ' + etag, new PrecompressedCache.Entry(counted.copy.toByteArray(), getContentType()));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /** Sends what is held back uncompressed and lets later writes straight through (async responses). */
+        void passThrough() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (state == State.BUFFERING) {
+                startIdentity();
+            }
+        }
+
+        private BodyStream stream() {
+            if (stream == null) {
+                stream = new BodyStream();
+            }
+            return stream;
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            switch (state) {
+                case BUFFERING:
+                    if (!isCompressible(getContentType()) || getStatus() != SC_OK
+                            || containsHeader("Content-Encoding")) {
+                        startIdentity();
+                        getResponse().getOutputStream().write(b, off, len);
+                        return;
+                    }
+                    buffer.write(b, off, len);
+                    if (buffer.size() >= minBytes) {
+                        startGzip();
+                    }
+                    return;
+                case GZIP:
+                    identityBytes += len;
+                    long started = cpuTime();
+                    gzip.write(b, off, len);
+                    cpuNanos.add(cpuTime() - started);
+                    return;
+                case IDENTITY:
+                    getResponse().getOutputStream().write(b, off, len);
+                    return;
+                default:
+                    // The body came from the cache; anything written after that is dropped.
+            }
+        }
+
+        private void startIdentity() throws IOException {
+            state = State.IDENTITY;
+            if (contentLength != null) {
+                super.setContentLengthLong(contentLength);
+            }
+            if (buffer.size() > 0) {
+                buffer.writeTo(getResponse().getOutputStream());
+                buffer.reset();
+            }
+        }
+
+        private void startGzip() throws IOException {
+            state = State.GZIP;
+            setGzipHeaders(getContentType());
+            boolean keep = cache != null && etag != null;
+            counted = new CountingOutput(getResponse().getOutputStream(), keep ? cache.maxEntryBytes() : 0);
+            long started = cpuTime();
+            gzip = new GZIPOutputStream(counted, 8192);
+            identityBytes = buffer.size();
+            buffer.writeTo(gzip);
+            cpuNanos.add(cpuTime() - started);
+            buffer.reset();
+        }
+
+        private void setGzipHeaders(String contentType) {
+            if (contentType != null) {
+                super.setContentType(contentType);
+            }
+            super.setHeader("Content-Encoding", "gzip");
+            if (etag != null && !etag.startsWith("W/")) {
+                super.setHeader("ETag", "W/" + etag);
+            }
+        }
+
+        /** What a writer from getWriter() encodes into; cut off when the body is reset. */
+        private final class WriterSink extends OutputStream {
+            private boolean discarded;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (!discarded) {
+                    CompressingResponse.this.write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (!discarded && state == State.IDENTITY) {
+                    getResponse().getOutputStream().flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                // As for BodyStream: the filter completes the body.
+                if (!discarded && state == State.IDENTITY) {
+                    getResponse().getOutputStream().close();
+                }
+            }
+        }
+
+        private final class BodyStream extends ServletOutputStream {
+            @Override
+            public void write(int b) throws IOException {
+                CompressingResponse.this.write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                CompressingResponse.this.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (state == State.IDENTITY) {
+                    getResponse().getOutputStream().flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                // The filter completes the body; an async response closes its own stream.
+                if (state == State.IDENTITY) {
+                    getResponse().getOutputStream().close();
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                try {
+                    return getResponse().getOutputStream().isReady();
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                try {
+                    getResponse().getOutputStream().setWriteListener(listener);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    /** Counts the compressed bytes and keeps a copy of them while they fit the cache entry limit. */
+    private static final class CountingOutput extends OutputStream {
+        private final OutputStream target;
+        private final long maxCopy;
+        private ByteArrayOutputStream copy;
+        private long count;
+
+        CountingOutput(OutputStream target, long maxCopy) {
+            this.target = target;
+            this.maxCopy = maxCopy;
+            this.copy = maxCopy > 0 ? new ByteArrayOutputStream() : null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+            count += len;
+            if (copy != null) {
+                if (count > maxCopy) {
+                    copy = null;
+                } else {
+                    copy.write(b, off, len);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+    }
+}
@@ -20,7 +20,7 @@ import java.util.stream.Collectors;
  *
  * [SECURITY FIX] Vuln #32: baseline security response headers are applied to every response.
  */
-@WebFilter("/*")
+@WebFilter(filterName = "CorsFilter", urlPatterns = "/*", asyncSupported = true)
 public class CorsFilter implements Filter {
 
     // Allowed origins come from the ALLOWED_ORIGINS env var (comma-separated, no trailing slash).
@@ -41,7 +41,7 @@ public class CorsFilter implements Filter {
         String origin = req.getHeader("Origin");
         if (origin != null && ALLOWED_ORIGINS.contains(origin)) {
             res.setHeader("Access-Control-Allow-Origin", origin);
-            res.setHeader("Vary", "Origin");
+            res.addHeader("Vary", "Origin");
             res.setHeader("Access-Control-Allow-Credentials", "true");
             res.setHeader("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
             res.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization, X-Requested-With");
@@ -0,0 +1,62 @@
+package reader.site.Comic.filter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Gzip bodies of cacheable responses, keyed by path and ETag, least recently used
+ * first out once the total size passes the budget. An ETag names exactly one
+ * representation, so an entry never needs invalidating; a changed resource simply has
+ * a new ETag and its old entry ages out.
+ */
+final class PrecompressedCache {
+
+    static final class Entry {
+        final byte[] gzip;
+        final String contentType;
+
+        Entry(byte[] gzip, String contentType) {
+            this.gzip = gzip;
+            this.contentType = contentType;
+        }
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    PrecompressedCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /** Largest body worth keeping: one entry may not take more than an eighth of the budget. */
+    long maxEntryBytes() {
+        return maxBytes / 8;
+    }
+
+    synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(String key, Entry entry) {
+        if (entry.gzip.length > maxEntryBytes()) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        bytes += entry.gzip.length - (previous != null ? previous.gzip.length : 0);
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().gzip.length;
+            eldest.remove();
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+}
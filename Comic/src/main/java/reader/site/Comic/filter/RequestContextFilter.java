@@ -0,0 +1,84 @@
+package reader.site.Comic.filter;
+
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import reader.site.Comic.model.User;
+import reader.site.Comic.persistence.ReplicaRouter;
+import reader.site.Comic.persistence.RequestScope;
+import reader.site.Comic.service.ServiceRegistry;
+import reader.site.Comic.service.TokenService;
+
+import java.io.IOException;
+
+/**
+ * Per-request context shared by every servlet.
+ *
+ * Resolves the bearer token once and stores the {@link User} (or nothing, for anonymous
+ * calls) under {@link #USER_ATTRIBUTE}; servlets read it with {@link #currentUser}. It also
+ * opens a {@link RequestScope} so the DAOs share one EntityManager for the whole request.
+ * GET and HEAD run read-only with manual flush, and on a read replica when
+ * {@link ReplicaRouter} has one and the user has not just written.
+ */
+@WebFilter(filterName = "RequestContextFilter", urlPatterns = "/*", asyncSupported = true)
+public class RequestContextFilter implements Filter {
+
+    public static final String USER_ATTRIBUTE = "reader.site.Comic.user";
+
+    private TokenService tokenService;
+    private ReplicaRouter replicaRouter;
+
+    @Override
+    public void init(FilterConfig config) {
+        ServiceRegistry services = ServiceRegistry.from(config.getServletContext());
+        tokenService = services.getTokenService();
+        replicaRouter = services.getReplicaRouter();
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response,
+                         FilterChain chain) throws IOException, ServletException {
+
+        HttpServletRequest req = (HttpServletRequest) request;
+        if ("OPTIONS".equalsIgnoreCase(req.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        User user = tokenService.resolve(bearerToken(req));
+        if (user != null) {
+            req.setAttribute(USER_ATTRIBUTE, user);
+        }
+
+        String userId = user != null ? user.getId() : null;
+        boolean readOnly = "GET".equalsIgnoreCase(req.getMethod()) || "HEAD".equalsIgnoreCase(req.getMethod());
+        boolean replicaReads = readOnly && replicaRouter.routesReads(userId);
+        RequestScope scope = RequestScope.open(readOnly, replicaReads ? replicaRouter : null);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            boolean wrote = !scope.isReadOnly();
+            scope.close();
+            if (wrote) {
+                replicaRouter.recordWrite(userId);
+            }
+        }
+    }
+
+    /** The user the request's bearer token belongs to, or null when absent, unknown or expired. */
+    public static User currentUser(HttpServletRequest req) {
+        return (User) req.getAttribute(USER_ATTRIBUTE);
+    }
+
+    /**
+     * [SECURITY FIX] Vuln #24: tokens are only accepted via the Authorization header.
+     * Query-param tokens leak into URLs, server logs, and Referer headers.
+     */
+    public static String bearerToken(HttpServletRequest req) {
+        String header = req.getHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ")) {
+            return header.substring(7);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,30 @@
+package reader.site.Comic.model;
+
+public class CacheRegionStats {
+    private long hits;
+    private long misses;
+    private long puts;
+    private double hitRatio;
+
+    public CacheRegionStats() {}
+
+    public CacheRegionStats(long hits, long misses, long puts) {
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        long lookups = hits + misses;
+        this.hitRatio = lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getPuts() { return puts; }
+    public void setPuts(long puts) { this.puts = puts; }
+
+    public double getHitRatio() { return hitRatio; }
+    public void setHitRatio(double hitRatio) { this.hitRatio = hitRatio; }
+}
@@ -0,0 +1,52 @@
+package reader.site.Comic.model;
+
+public class ConnectionPoolStats {
+    private String poolName;
+    private int maximumPoolSize;
+    private int minimumIdle;
+    private int activeConnections;
+    private int idleConnections;
+    private int totalConnections;
+    private int threadsAwaitingConnection;
+    private long connectionsAcquired;
+    private double averageWaitMillis;
+    private double maxWaitMillis;
+    private double averageUsageMillis;
+    private long connectionTimeouts;
+
+    public String getPoolName() { return poolName; }
+    public void setPoolName(String poolName) { this.poolName = poolName; }
+
+    public int getMaximumPoolSize() { return maximumPoolSize; }
+    public void setMaximumPoolSize(int maximumPoolSize) { this.maximumPoolSize = maximumPoolSize; }
+
+    public int getMinimumIdle() { return minimumIdle; }
+    public void setMinimumIdle(int minimumIdle) { this.minimumIdle = minimumIdle; }
+
+    public int getActiveConnections() { return activeConnections; }
+    public void setActiveConnections(int activeConnections) { this.activeConnections = activeConnections; }
+
+    public int getIdleConnections() { return idleConnections; }
+    public void setIdleConnections(int idleConnections) { this.idleConnections = idleConnections; }
+
+    public int getTotalConnections() { return totalConnections; }
+    public void setTotalConnections(int totalConnections) { this.totalConnections = totalConnections; }
+
+    public int getThreadsAwaitingConnection() { return threadsAwaitingConnection; }
+    public void setThreadsAwaitingConnection(int threadsAwaitingConnection) { this.threadsAwaitingConnection = threadsAwaitingConnection; }
+
+    public long getConnectionsAcquired() { return connectionsAcquired; }
+    public void setConnectionsAcquired(long connectionsAcquired) { this.connectionsAcquired = connectionsAcquired; }
+
+    public double getAverageWaitMillis() { return averageWaitMillis; }
+    public void setAverageWaitMillis(double averageWaitMillis) { this.averageWaitMillis = averageWaitMillis; }
+
+    public double getMaxWaitMillis() { return maxWaitMillis; }
+    public void setMaxWaitMillis(double maxWaitMillis) { this.maxWaitMillis = maxWaitMillis; }
+
+    public double getAverageUsageMillis() { return averageUsageMillis; }
+    public void setAverageUsageMillis(double averageUsageMillis) { this.averageUsageMillis = averageUsageMillis; }
+
+    public long getConnectionTimeouts() { return connectionTimeouts; }
+    public void setConnectionTimeouts(long connectionTimeouts) { this.connectionTimeouts = connectionTimeouts; }
+}
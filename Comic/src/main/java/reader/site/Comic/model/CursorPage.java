@@ -0,0 +1,30 @@
+package reader.site.Comic.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list. {@code next} is the opaque cursor to pass back as
+ * {@code ?cursor=} for the following page; it is null on the last page.
+ */
+public class CursorPage<T> {
+    private List<T> items;
+    private String next;
+    private int limit;
+
+    public CursorPage() {}
+
+    public CursorPage(List<T> items, String next, int limit) {
+        this.items = items;
+        this.next = next;
+        this.limit = limit;
+    }
+
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+}
@@ -7,6 +7,8 @@ public class Manga {
     private String title;
     private String cover;
     private List<String> chapters;
+    private Integer chapterCount;
+    private String latestChapter;
 
     // getters and setters
     public String getId() { return id; }
@@ -20,4 +22,10 @@ public class Manga {
 
     public List<String> getChapters() { return chapters; }
     public void setChapters(List<String> chapters) { this.chapters = chapters; }
+
+    public Integer getChapterCount() { return chapterCount; }
+    public void setChapterCount(Integer chapterCount) { this.chapterCount = chapterCount; }
+
+    public String getLatestChapter() { return latestChapter; }
+    public void setLatestChapter(String latestChapter) { this.latestChapter = latestChapter; }
 }
\ No newline at end of file
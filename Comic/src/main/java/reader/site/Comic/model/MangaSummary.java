@@ -0,0 +1,38 @@
+package reader.site.Comic.model;
+
+/**
+ * Catalog grid row: what a manga card needs, without the chapter list. Built directly by
+ * JPQL constructor expressions in {@code MangaDAO}, so no entity is loaded or tracked.
+ */
+public class MangaSummary {
+    private String id;
+    private String title;
+    private String cover;
+    private int chapterCount;
+    private String latestChapter;
+
+    public MangaSummary() {}
+
+    public MangaSummary(Long id, String title, String cover, int chapterCount, String latestChapter) {
+        this.id = id != null ? String.valueOf(id) : null;
+        this.title = title;
+        this.cover = cover;
+        this.chapterCount = chapterCount;
+        this.latestChapter = latestChapter;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getCover() { return cover; }
+    public void setCover(String cover) { this.cover = cover; }
+
+    public int getChapterCount() { return chapterCount; }
+    public void setChapterCount(int chapterCount) { this.chapterCount = chapterCount; }
+
+    public String getLatestChapter() { return latestChapter; }
+    public void setLatestChapter(String latestChapter) { this.latestChapter = latestChapter; }
+}
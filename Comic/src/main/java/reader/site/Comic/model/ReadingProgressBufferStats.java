@@ -0,0 +1,44 @@
+package reader.site.Comic.model;
+
+public class ReadingProgressBufferStats {
+    private boolean writeBehind;
+    private int pending;
+    private int maxPending;
+    private long received;
+    private long coalesced;
+    private long written;
+    private long batches;
+    private long writeThrough;
+    private long failed;
+    private double coalescingRatio;
+
+    public boolean isWriteBehind() { return writeBehind; }
+    public void setWriteBehind(boolean writeBehind) { this.writeBehind = writeBehind; }
+
+    public int getPending() { return pending; }
+    public void setPending(int pending) { this.pending = pending; }
+
+    public int getMaxPending() { return maxPending; }
+    public void setMaxPending(int maxPending) { this.maxPending = maxPending; }
+
+    public long getReceived() { return received; }
+    public void setReceived(long received) { this.received = received; }
+
+    public long getCoalesced() { return coalesced; }
+    public void setCoalesced(long coalesced) { this.coalesced = coalesced; }
+
+    public long getWritten() { return written; }
+    public void setWritten(long written) { this.written = written; }
+
+    public long getBatches() { return batches; }
+    public void setBatches(long batches) { this.batches = batches; }
+
+    public long getWriteThrough() { return writeThrough; }
+    public void setWriteThrough(long writeThrough) { this.writeThrough = writeThrough; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    public double getCoalescingRatio() { return coalescingRatio; }
+    public void setCoalescingRatio(double coalescingRatio) { this.coalescingRatio = coalescingRatio; }
+}
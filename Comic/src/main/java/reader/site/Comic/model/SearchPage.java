@@ -0,0 +1,21 @@
+package reader.site.Comic.model;
+
+import java.util.List;
+
+/**
+ * A {@link CursorPage} that also carries the number of matching rows overall, computed by
+ * the same query or index pass as the page itself.
+ */
+public class SearchPage<T> extends CursorPage<T> {
+    private long total;
+
+    public SearchPage() {}
+
+    public SearchPage(List<T> items, String next, int limit, long total) {
+        super(items, next, limit);
+        this.total = total;
+    }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+}
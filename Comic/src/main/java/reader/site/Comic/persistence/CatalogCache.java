@@ -0,0 +1,59 @@
+package reader.site.Comic.persistence;
+
+import jakarta.persistence.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import reader.site.Comic.model.CacheRegionStats;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Second-level cache regions for the read-mostly catalog and security entities.
+ *
+ * Entries are written through Hibernate's READ_WRITE strategy, so updates and deletes
+ * made through an EntityManager (including JPQL bulk statements) invalidate the affected
+ * entries and cached queries on commit. {@link #evictAll()} exists for the rare write
+ * that bypasses JPA. Region sizes and TTLs are configured in application.conf.
+ */
+public final class CatalogCache {
+
+    public static final String MANGA_REGION = "catalog-manga";
+    public static final String CHAPTER_REGION = "catalog-manga-chapters";
+    public static final String CHAPTER_LIST_REGION = "catalog-manga-chapter-lists";
+    public static final String ROLE_REGION = "catalog-roles";
+    public static final String ROLE_PERMISSIONS_REGION = "catalog-role-permissions";
+    public static final String PERMISSION_REGION = "catalog-permissions";
+
+    private static final List<String> REGIONS = List.of(
+            MANGA_REGION, CHAPTER_REGION, CHAPTER_LIST_REGION, ROLE_REGION, ROLE_PERMISSIONS_REGION, PERMISSION_REGION);
+
+    private CatalogCache() {}
+
+    /** Drops every cached entity and query result. */
+    public static void evictAll() {
+        Cache cache = JPAUtil.getEntityManagerFactory().getCache();
+        cache.evictAll();
+        JPAUtil.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    /** Hit/miss/put counters per region, plus the query cache, keyed by region name. */
+    public static Map<String, CacheRegionStats> stats() {
+        Statistics statistics = JPAUtil.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        Map<String, CacheRegionStats> result = new LinkedHashMap<>();
+        for (String region : REGIONS) {
+            CacheRegionStatistics regionStats = statistics.getDomainDataRegionStatistics(region);
+            if (regionStats != null) {
+                result.put(region, new CacheRegionStats(
+                        regionStats.getHitCount(), regionStats.getMissCount(), regionStats.getPutCount()));
+            }
+        }
+        result.put("queries", new CacheRegionStats(
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount()));
+        return result;
+    }
+}
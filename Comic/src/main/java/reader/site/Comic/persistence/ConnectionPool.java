@@ -0,0 +1,133 @@
+package reader.site.Comic.persistence;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import reader.site.Comic.model.ConnectionPoolStats;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Application-wide JDBC connection pool.
+ *
+ * The pool is HikariCP, created by Hibernate as the connection provider of the comicPU
+ * persistence unit (bounds, validation and leak detection live in persistence.xml).
+ * Raw-JDBC code borrows from the same pool through {@link #dataSource()}, so the app
+ * never opens connections outside it.
+ */
+public final class ConnectionPool {
+
+    private static final WaitTimeTracker TRACKER = new WaitTimeTracker();
+    private static volatile HikariDataSource dataSource;
+
+    private ConnectionPool() {}
+
+    public static DataSource dataSource() {
+        return hikari();
+    }
+
+    public static Connection getConnection() throws SQLException {
+        return hikari().getConnection();
+    }
+
+    /** Point-in-time snapshot of pool occupancy plus cumulative wait-time counters. */
+    public static ConnectionPoolStats stats() {
+        HikariDataSource ds = hikari();
+        ConnectionPoolStats stats = new ConnectionPoolStats();
+        stats.setPoolName(ds.getPoolName());
+        stats.setMaximumPoolSize(ds.getMaximumPoolSize());
+        stats.setMinimumIdle(ds.getMinimumIdle());
+
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        if (pool != null) {
+            stats.setActiveConnections(pool.getActiveConnections());
+            stats.setIdleConnections(pool.getIdleConnections());
+            stats.setTotalConnections(pool.getTotalConnections());
+            stats.setThreadsAwaitingConnection(pool.getThreadsAwaitingConnection());
+        }
+
+        long acquired = TRACKER.acquired.sum();
+        stats.setConnectionsAcquired(acquired);
+        stats.setAverageWaitMillis(acquired == 0 ? 0.0
+                : TRACKER.waitNanos.sum() / (double) acquired / TimeUnit.MILLISECONDS.toNanos(1));
+        stats.setMaxWaitMillis(TRACKER.maxWaitNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        long returned = TRACKER.returned.sum();
+        stats.setAverageUsageMillis(returned == 0 ? 0.0 : TRACKER.usageMillis.sum() / (double) returned);
+        stats.setConnectionTimeouts(TRACKER.timeouts.sum());
+        return stats;
+    }
+
+    private static HikariDataSource hikari() {
+        HikariDataSource ds = dataSource;
+        if (ds == null) {
+            synchronized (ConnectionPool.class) {
+                ds = dataSource;
+                if (ds == null) {
+                    ds = unwrap(JPAUtil.getEntityManagerFactory());
+                    ds.setMetricsTrackerFactory(TRACKER);
+                    dataSource = ds;
+                }
+            }
+        }
+        return ds;
+    }
+
+    /** The Hikari pool behind {@code emf}; JPAUtil also uses this while the factory is being built. */
+    static HikariDataSource unwrap(EntityManagerFactory emf) {
+        ConnectionProvider provider = emf
+                .unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        if (provider == null || !provider.isUnwrappableAs(DataSource.class)) {
+            throw new IllegalStateException("[ConnectionPool] comicPU is not configured with a pooled connection provider");
+        }
+        DataSource ds = provider.unwrap(DataSource.class);
+        if (!(ds instanceof HikariDataSource)) {
+            throw new IllegalStateException("[ConnectionPool] Expected a HikariCP data source but got " + ds.getClass().getName());
+        }
+        return (HikariDataSource) ds;
+    }
+
+    /** Accumulates Hikari's per-borrow callbacks; one instance serves the single pool. */
+    private static final class WaitTimeTracker implements MetricsTrackerFactory, IMetricsTracker {
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0L);
+        private final LongAdder returned = new LongAdder();
+        private final LongAdder usageMillis = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        @Override
+        public IMetricsTracker create(String poolName, PoolStats poolStats) {
+            return this;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquired.increment();
+            waitNanos.add(elapsedAcquiredNanos);
+            maxWaitNanos.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            returned.increment();
+            usageMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package reader.site.Comic.persistence;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import reader.site.Comic.entity.MangaEntity;
+import reader.site.Comic.entity.UserEntity;
+import reader.site.Comic.service.DashboardCounters;
+
+import java.util.Objects;
+
+/**
+ * Keeps {@link DashboardCounters} in step with user and manga writes. Callbacks fire when
+ * Hibernate flushes, before commit; a rolled-back write leaves drift that the next
+ * reconcile removes. Does nothing until the counters have been started.
+ */
+public class DashboardCounterListener {
+
+    @PostPersist
+    public void inserted(Object entity) {
+        DashboardCounters counters = DashboardCounters.running();
+        if (counters == null) {
+            return;
+        }
+        if (entity instanceof UserEntity user) {
+            counters.userCreated(user.getStatus(), user.getCreatedAt());
+        } else if (entity instanceof MangaEntity manga) {
+            counters.mangaCreated(manga.getChapterCount(), manga.getCreatedAt());
+        }
+    }
+
+    @PostUpdate
+    public void updated(Object entity) {
+        DashboardCounters counters = DashboardCounters.running();
+        if (counters == null) {
+            return;
+        }
+        // getPersisted*() still hold the pre-update values: listener callbacks run before the entity's own.
+        if (entity instanceof UserEntity user) {
+            if (!Objects.equals(user.getPersistedStatus(), user.getStatus())) {
+                counters.userStatusChanged(user.getPersistedStatus(), user.getStatus());
+            }
+        } else if (entity instanceof MangaEntity manga) {
+            counters.chaptersChanged(manga.getChapterCount() - manga.getPersistedChapterCount());
+        }
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        DashboardCounters counters = DashboardCounters.running();
+        if (counters == null) {
+            return;
+        }
+        if (entity instanceof UserEntity user) {
+            counters.userRemoved(user.getPersistedStatus(), user.getCreatedAt());
+        } else if (entity instanceof MangaEntity manga) {
+            counters.mangaRemoved(manga.getPersistedChapterCount(), manga.getCreatedAt());
+        }
+    }
+}
@@ -3,16 +3,72 @@ package reader.site.Comic.persistence;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import reader.site.Comic.util.EnvConfig;
+
+import java.util.HashMap;
+import java.util.Map;
 
 public final class JPAUtil {
-    private static final EntityManagerFactory ENTITY_MANAGER_FACTORY =
-            Persistence.createEntityManagerFactory("comicPU");
+    private static final EntityManagerFactory ENTITY_MANAGER_FACTORY = create();
 
     private JPAUtil() {
     }
 
+    /**
+     * Inside an HTTP request this is the request's shared EntityManager (see
+     * {@link RequestScope}); elsewhere a new one that the caller closes.
+     */
     public static EntityManager getEntityManager() {
+        RequestScope scope = RequestScope.current();
+        if (scope != null) {
+            return scope.entityManager();
+        }
         return ENTITY_MANAGER_FACTORY.createEntityManager();
     }
 
+    /**
+     * The single factory for the comicPU unit. Anything that needs the persistence unit
+     * must go through here — a second factory would also open a second connection pool.
+     */
+    public static EntityManagerFactory getEntityManagerFactory() {
+        return ENTITY_MANAGER_FACTORY;
+    }
+
+    /**
+     * Builds the factory, then brings the schema up to date before anything can use it.
+     * Hibernate no longer touches DDL (hbm2ddl.auto=none); the schema is owned by the
+     * versioned scripts run by {@link SchemaMigrator}. Set DB_MIGRATE_ON_STARTUP=false
+     * when migrations are applied by a separate deploy step.
+     */
+    private static EntityManagerFactory create() {
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("comicPU", poolOverrides());
+        if (!"false".equalsIgnoreCase(EnvConfig.getOrDefault("DB_MIGRATE_ON_STARTUP", "true").trim())) {
+            try {
+                SchemaMigrator.migrate(ConnectionPool.unwrap(emf));
+            } catch (RuntimeException e) {
+                emf.close();
+                throw e;
+            }
+        }
+        return emf;
+    }
+
+    /**
+     * Optional DB_POOL_* env vars override the pool defaults declared in persistence.xml.
+     */
+    private static Map<String, Object> poolOverrides() {
+        Map<String, Object> overrides = new HashMap<>();
+        putIfSet(overrides, "DB_POOL_MAX_SIZE", "hibernate.hikari.maximumPoolSize");
+        putIfSet(overrides, "DB_POOL_MIN_IDLE", "hibernate.hikari.minimumIdle");
+        putIfSet(overrides, "DB_POOL_CONNECTION_TIMEOUT_MS", "hibernate.hikari.connectionTimeout");
+        putIfSet(overrides, "DB_POOL_LEAK_DETECTION_MS", "hibernate.hikari.leakDetectionThreshold");
+        return overrides;
+    }
+
+    private static void putIfSet(Map<String, Object> overrides, String envName, String property) {
+        String value = EnvConfig.getOrDefault(envName, null);
+        if (value != null) {
+            overrides.put(property, value.trim());
+        }
+    }
 }
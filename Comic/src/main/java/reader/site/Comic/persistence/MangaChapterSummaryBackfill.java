@@ -0,0 +1,50 @@
+package reader.site.Comic.persistence;
+
+import com.google.gson.JsonParseException;
+import reader.site.Comic.entity.MangaEntity;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * V6: fills manga.chapter_count / latest_chapter (added in V5) from the chapters JSON of
+ * existing rows. Done in Java because MySQL and H2 share no JSON functions.
+ */
+final class MangaChapterSummaryBackfill implements SchemaMigrator.JdbcStep {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Connection conn) throws SQLException {
+        StringListConverter converter = new StringListConverter();
+        int updated = 0;
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery("SELECT id, chapters FROM manga");
+             PreparedStatement update = conn.prepareStatement(
+                     "UPDATE manga SET chapter_count = ?, latest_chapter = ? WHERE id = ?")) {
+            while (rs.next()) {
+                List<String> chapters;
+                try {
+                    chapters = converter.convertToEntityAttribute(rs.getString(2));
+                } catch (JsonParseException e) {
+                    System.err.println("[SchemaMigrator] Unreadable chapters for manga " + rs.getLong(1)
+                            + ", counting 0: " + e.getMessage());
+                    chapters = List.of();
+                }
+                update.setInt(1, chapters.size());
+                update.setString(2, MangaEntity.latestChapterOf(chapters));
+                update.setLong(3, rs.getLong(1));
+                update.addBatch();
+                if (++updated % BATCH_SIZE == 0) {
+                    update.executeBatch();
+                }
+            }
+            update.executeBatch();
+        }
+        System.out.println("[SchemaMigrator] Backfilled chapter summary for " + updated + " manga");
+    }
+}
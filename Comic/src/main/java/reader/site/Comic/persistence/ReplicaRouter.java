@@ -0,0 +1,264 @@
+package reader.site.Comic.persistence;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import reader.site.Comic.service.BlockingExecutor;
+import reader.site.Comic.util.EnvConfig;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends the reads of GET requests to read replicas; everything else stays on the primary
+ * pool of the comicPU unit.
+ *
+ * {@link RequestScope} asks for a replica connection when it opens a read-only
+ * EntityManager. Replicas are taken round-robin among the healthy ones; a replica whose
+ * connection fails is skipped until the health check sees it answer again, and with no
+ * healthy replica the read simply runs on the primary. A GET that writes switches its
+ * scope back to the primary before the transaction starts.
+ *
+ * Replication lag is hidden in two ways. A user who has just written (any non-GET
+ * request) reads from the primary for DB_REPLICA_STICKY_MS, so they see their own change.
+ * And for the same window after any write, replica reads do not fill the second-level
+ * cache, which would otherwise keep a row the replica had not caught up on.
+ *
+ * Configured by DB_REPLICA_URLS (comma-separated JDBC URLs; unset means no replicas) with
+ * DB_REPLICA_USER / DB_REPLICA_PASSWORD (default DB_USER / DB_PASSWORD),
+ * DB_REPLICA_POOL_MAX_SIZE, DB_REPLICA_STICKY_MS and DB_REPLICA_HEALTH_MS. Stickiness is
+ * kept per node.
+ */
+public final class ReplicaRouter implements AutoCloseable {
+
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 2;
+    private static final int STICKY_PRUNE_THRESHOLD = 1_024;
+
+    private static volatile ReplicaRouter shared;
+
+    private final List<Replica> replicas;
+    private final long stickyNanos;
+    private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+    private final AtomicLong lastWriteNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryFallbacks = new LongAdder();
+    private final ScheduledExecutorService healthChecker;
+
+    /**
+     * Routes over the given replicas. A health-check interval of 0 or less starts no
+     * background checks (tests call {@link #checkHealth()} themselves).
+     */
+    public ReplicaRouter(List<? extends DataSource> replicas, long stickyMillis, long healthCheckMillis) {
+        List<Replica> list = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            list.add(new Replica("replica-" + (i + 1), replicas.get(i)));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+        this.stickyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, stickyMillis));
+        this.lastWriteNanos = new AtomicLong(System.nanoTime() - stickyNanos);
+        if (!list.isEmpty() && healthCheckMillis > 0) {
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(
+                    BlockingExecutor.threadFactory("replica-health"));
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, healthCheckMillis, healthCheckMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.healthChecker = null;
+        }
+    }
+
+    /** Starts the application-wide router from the DB_REPLICA_* settings, unless it is already running. */
+    public static ReplicaRouter startShared() {
+        ReplicaRouter router = shared;
+        if (router == null) {
+            synchronized (ReplicaRouter.class) {
+                router = shared;
+                if (router == null) {
+                    router = new ReplicaRouter(poolsFromEnv(),
+                            EnvConfig.getInt("DB_REPLICA_STICKY_MS", 5_000),
+                            EnvConfig.getInt("DB_REPLICA_HEALTH_MS", 10_000));
+                    shared = router;
+                    if (router.isEnabled()) {
+                        System.out.println("[ReplicaRouter] Routing GET reads over " + router.replicas.size() + " replica(s)");
+                    }
+                }
+            }
+        }
+        return router;
+    }
+
+    /** The application-wide router if it has been started, else null. */
+    public static ReplicaRouter running() {
+        return shared;
+    }
+
+    /** Stops the application-wide router and closes its pools (called on undeploy). */
+    public static void shutdownShared() {
+        synchronized (ReplicaRouter.class) {
+            if (shared != null) {
+                shared.close();
+                shared = null;
+            }
+        }
+    }
+
+    /** Whether any replica is configured. */
+    public boolean isEnabled() {
+        return !replicas.isEmpty();
+    }
+
+    /** Whether a read-only request by this user (null when anonymous) may go to a replica. */
+    public boolean routesReads(String userId) {
+        if (!isEnabled()) {
+            return false;
+        }
+        if (userId == null) {
+            return true;
+        }
+        Long wrote = lastWriteByUser.get(userId);
+        return wrote == null || System.nanoTime() - wrote >= stickyNanos;
+    }
+
+    /** Notes that this user (null when anonymous) has just written through the primary. */
+    public void recordWrite(String userId) {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        lastWriteNanos.accumulateAndGet(now, Math::max);
+        if (userId != null) {
+            lastWriteByUser.put(userId, now);
+            if (lastWriteByUser.size() > STICKY_PRUNE_THRESHOLD) {
+                lastWriteByUser.values().removeIf(wrote -> now - wrote >= stickyNanos);
+            }
+        }
+    }
+
+    /** Probes every replica and marks it healthy or not. */
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean ok;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                ok = connection.isValid(HEALTH_CHECK_TIMEOUT_SECONDS);
+            } catch (SQLException | RuntimeException e) {
+                ok = false;
+            }
+            if (ok != replica.healthy) {
+                System.out.println("[ReplicaRouter] " + replica.name + " is " + (ok ? "healthy again" : "unhealthy"));
+            }
+            replica.healthy = ok;
+        }
+    }
+
+    public int healthyReplicas() {
+        int healthy = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    /** Replica count, healthy count, and reads served by replicas or sent back to the primary. */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("replicas", replicas.size());
+        stats.put("healthyReplicas", healthyReplicas());
+        stats.put("replicaReads", replicaReads.sum());
+        stats.put("primaryFallbacks", primaryFallbacks.sum());
+        return stats;
+    }
+
+    /** Stops the health checks and closes the replica pools. */
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof HikariDataSource) {
+                ((HikariDataSource) replica.dataSource).close();
+            }
+        }
+    }
+
+    /**
+     * A connection to a healthy replica, or null when there is none and the read should
+     * use the primary. The caller closes it.
+     */
+    Connection readConnection() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException | RuntimeException e) {
+                replica.healthy = false;
+                System.err.println("[ReplicaRouter] " + replica.name + " is unhealthy: " + e.getMessage());
+            }
+        }
+        primaryFallbacks.increment();
+        return null;
+    }
+
+    /** Whether replica reads may be put in the second-level cache: no write within the sticky window. */
+    boolean cachesReplicaReads() {
+        return System.nanoTime() - lastWriteNanos.get() >= stickyNanos;
+    }
+
+    private static List<DataSource> poolsFromEnv() {
+        String urls = EnvConfig.getOrDefault("DB_REPLICA_URLS", null);
+        List<DataSource> pools = new ArrayList<>();
+        if (urls == null) {
+            return pools;
+        }
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("comicReplica-" + (pools.size() + 1));
+            config.setJdbcUrl(url.trim());
+            config.setUsername(EnvConfig.getOrDefault("DB_REPLICA_USER", EnvConfig.getOrDefault("DB_USER", null)));
+            config.setPassword(EnvConfig.getOrDefault("DB_REPLICA_PASSWORD", EnvConfig.getOrDefault("DB_PASSWORD", null)));
+            config.setMaximumPoolSize(EnvConfig.getInt("DB_REPLICA_POOL_MAX_SIZE", 10));
+            config.setMinimumIdle(1);
+            config.setConnectionTimeout(2_000);
+            config.setReadOnly(true);
+            // An unreachable replica must not stop startup; its first failed read marks it unhealthy.
+            config.setInitializationFailTimeout(-1);
+            pools.add(new HikariDataSource(config));
+        }
+        return pools;
+    }
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile boolean healthy = true;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
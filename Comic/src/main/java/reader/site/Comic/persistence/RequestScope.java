@@ -0,0 +1,244 @@
+package reader.site.Comic.persistence;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.resource.jdbc.spi.LogicalConnectionImplementor;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One persistence context per HTTP request, bound to the request thread by
+ * {@link reader.site.Comic.filter.RequestContextFilter}.
+ *
+ * While a scope is open, {@link JPAUtil#getEntityManager()} hands every DAO call the same
+ * EntityManager, so an update followed by a read in one request (MangaChapterServlet PUT)
+ * shares one context and one connection instead of opening one of each per DAO method.
+ * The DAOs keep their own {@code em.close()} calls; in a scope those are ignored and the
+ * EntityManager is closed when the scope is.
+ *
+ * The EntityManager is only created when a DAO first asks for it. A read-only scope (GET)
+ * loads entities read-only and never auto-flushes, which skips snapshots and dirty checks.
+ * A GET that writes anyway (account activation) switches the scope to normal mode when it
+ * asks for a transaction.
+ *
+ * A read-only scope opened with a {@link ReplicaRouter} runs on a replica connection when
+ * one is healthy. Switching such a scope to normal mode moves it onto a primary connection
+ * and reloads what it has read from there, so writes never see replica state.
+ */
+public final class RequestScope implements AutoCloseable {
+
+    private static final ThreadLocal<RequestScope> CURRENT = new ThreadLocal<>();
+
+    private final RequestScope previous;
+    private final ReplicaRouter replicas;
+    private boolean readOnly;
+    // Connections we handed to the session ourselves (replica, then primary after a switch).
+    private Connection suppliedConnection;
+    private EntityManager delegate;
+    private EntityManager view;
+    private boolean closed;
+
+    private RequestScope(boolean readOnly, ReplicaRouter replicas, RequestScope previous) {
+        this.readOnly = readOnly;
+        this.replicas = readOnly ? replicas : null;
+        this.previous = previous;
+    }
+
+    /** Opens a scope on the current thread; close it in a finally block. */
+    public static RequestScope open(boolean readOnly) {
+        return open(readOnly, null);
+    }
+
+    /**
+     * Opens a scope whose reads go through {@code replicas} when it is read-only; a null
+     * router keeps everything on the primary.
+     */
+    public static RequestScope open(boolean readOnly, ReplicaRouter replicas) {
+        RequestScope scope = new RequestScope(readOnly, replicas, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /** The scope bound to the current thread, or null outside a request. */
+    public static RequestScope current() {
+        return CURRENT.get();
+    }
+
+    /** The request's EntityManager; created on first use. */
+    public EntityManager entityManager() {
+        if (closed) {
+            throw new IllegalStateException("Request scope is closed");
+        }
+        if (view == null) {
+            view = (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                    new Class<?>[]{EntityManager.class}, new ScopedHandler());
+        }
+        return view;
+    }
+
+    /** Whether a DAO has used this scope yet (no EntityManager is opened otherwise). */
+    public boolean isStarted() {
+        return delegate != null;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /** Whether the EntityManager currently runs on a replica connection. */
+    public boolean isOnReplica() {
+        return suppliedConnection != null && readOnly;
+    }
+
+    /** Rolls back anything a failed request left open, closes the EntityManager and unbinds the scope. */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (delegate != null) {
+                try {
+                    if (delegate.getTransaction().isActive()) {
+                        System.err.println("[RequestScope] Rolling back a transaction left open by the request");
+                        delegate.getTransaction().rollback();
+                    }
+                } finally {
+                    try {
+                        delegate.close();
+                    } finally {
+                        closeSuppliedConnection();
+                    }
+                }
+            }
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    private EntityManager delegate() {
+        if (delegate == null) {
+            Connection replica = replicas != null ? replicas.readConnection() : null;
+            if (replica != null) {
+                suppliedConnection = replica;
+                Session session = JPAUtil.getEntityManagerFactory().unwrap(SessionFactory.class)
+                        .withOptions().connection(replica).openSession();
+                if (!replicas.cachesReplicaReads()) {
+                    session.setCacheMode(CacheMode.GET);
+                }
+                delegate = session;
+            } else {
+                delegate = JPAUtil.getEntityManagerFactory().createEntityManager();
+            }
+            if (readOnly) {
+                Session session = delegate.unwrap(Session.class);
+                session.setDefaultReadOnly(true);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
+            }
+        }
+        return delegate;
+    }
+
+    /**
+     * Leaves read-only mode before the first write. Entities already loaded become
+     * modifiable (their current state is taken as the snapshot), so a DAO that loads
+     * before it begins its transaction still has its changes flushed.
+     */
+    private void makeWritable() {
+        Session session = delegate().unwrap(Session.class);
+        boolean fromReplica = isOnReplica();
+        if (fromReplica) {
+            moveToPrimary((SessionImplementor) session);
+        }
+        List<Object> loaded = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : ((SessionImplementor) session)
+                .getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entry.getValue().isReadOnly()) {
+                loaded.add(entry.getKey());
+            }
+        }
+        for (Object entity : loaded) {
+            if (fromReplica) {
+                // Read-only entities have no pending changes, so nothing is lost.
+                session.refresh(entity);
+            }
+            session.setReadOnly(entity, false);
+        }
+        session.setDefaultReadOnly(false);
+        session.setHibernateFlushMode(FlushMode.AUTO);
+        readOnly = false;
+    }
+
+    private void moveToPrimary(SessionImplementor session) {
+        LogicalConnectionImplementor connection = session.getJdbcCoordinator().getLogicalConnection();
+        connection.manualDisconnect();
+        closeSuppliedConnection();
+        try {
+            suppliedConnection = ConnectionPool.getConnection();
+        } catch (SQLException e) {
+            throw new PersistenceException("Could not switch the request to the primary database", e);
+        }
+        connection.manualReconnect(suppliedConnection);
+        session.setCacheMode(CacheMode.NORMAL);
+    }
+
+    private void closeSuppliedConnection() {
+        if (suppliedConnection != null) {
+            try {
+                suppliedConnection.close();
+            } catch (SQLException e) {
+                System.err.println("[RequestScope] Could not close connection: " + e.getMessage());
+            }
+            suppliedConnection = null;
+        }
+    }
+
+    private final class ScopedHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "isOpen":
+                    return !closed;
+                case "getTransaction":
+                    if (readOnly) {
+                        makeWritable();
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "RequestScope.EntityManager(readOnly=" + readOnly + ")";
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(delegate(), args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package reader.site.Comic.persistence;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned schema migrations, replacing hibernate.hbm2ddl.auto=update.
+ *
+ * Scripts live in src/main/resources/db/migration as V{version}__{description}.sql and
+ * are listed in {@link #MIGRATIONS}. Each applied version is recorded in
+ * schema_migrations with the SHA-256 of its script, so a script runs exactly once per
+ * database and startup fails if an already-applied script has been edited since.
+ * Released scripts are immutable: change the schema by adding the next version.
+ *
+ * Scripts must run on both MySQL 8 and H2 in MySQL mode (the test database). MySQL
+ * commits DDL implicitly, so a script that fails half-way is not rolled back; keep one
+ * concern per version.
+ *
+ * Data changes that SQL cannot express portably (e.g. parsing JSON columns) are Java
+ * migrations: a {@link JdbcStep} registered with {@link Migration#java}. Their checksum
+ * covers the version, description and class name only, so treat the class as frozen too.
+ */
+public final class SchemaMigrator {
+
+    static final String HISTORY_TABLE = "schema_migrations";
+    private static final String LOCK_NAME = "comic_schema_migrations";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    /** Applied in this order. Never edit, remove or renumber an entry once released. */
+    private static final List<Migration> MIGRATIONS = List.of(
+            Migration.classpath(1, "baseline_schema"),
+            Migration.classpath(2, "query_indexes"),
+            Migration.classpath(3, "keyset_pagination_indexes"),
+            Migration.classpath(4, "reading_history_unique_user_manga"),
+            Migration.classpath(5, "manga_chapter_summary"),
+            Migration.java(6, "backfill_manga_chapter_summary", new MangaChapterSummaryBackfill()),
+            Migration.classpath(7, "dashboard_counters"),
+            Migration.classpath(8, "manga_created_at"),
+            Migration.classpath(9, "user_search_columns"),
+            Migration.classpath(10, "revoked_tokens")
+    );
+
+    private final DataSource dataSource;
+    private final List<Migration> migrations;
+
+    SchemaMigrator(DataSource dataSource, List<Migration> migrations) {
+        this.dataSource = dataSource;
+        this.migrations = migrations;
+    }
+
+    /**
+     * Brings the database up to the latest version.
+     *
+     * @return number of migrations applied (0 when the schema was already current)
+     * @throws IllegalStateException if a migration fails or an applied script was modified
+     */
+    public static int migrate(DataSource dataSource) {
+        return new SchemaMigrator(dataSource, MIGRATIONS).run();
+    }
+
+    int run() {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(true);
+            // Several app nodes may boot at once against the same MySQL database.
+            boolean locked = isMySql(conn) && acquireLock(conn);
+            try {
+                ensureHistoryTable(conn);
+                Map<Integer, String> applied = appliedChecksums(conn);
+                verify(applied);
+
+                int count = 0;
+                for (Migration migration : migrations) {
+                    if (!applied.containsKey(migration.version)) {
+                        apply(conn, migration);
+                        count++;
+                    }
+                }
+                if (count == 0) {
+                    System.out.println("[SchemaMigrator] Schema is up to date (version " + latest(applied) + ")");
+                }
+                return count;
+            } finally {
+                if (locked) {
+                    releaseLock(conn);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("[SchemaMigrator] Migration failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void verify(Map<Integer, String> applied) {
+        Map<Integer, Migration> known = new LinkedHashMap<>();
+        for (Migration migration : migrations) {
+            known.put(migration.version, migration);
+        }
+        for (Map.Entry<Integer, String> entry : applied.entrySet()) {
+            Migration migration = known.get(entry.getKey());
+            if (migration == null) {
+                // Database is ahead of this build (e.g. after a rollback); leave it alone.
+                System.err.println("[SchemaMigrator] Database has version " + entry.getKey()
+                        + " which this build does not know about");
+            } else if (!migration.checksum.equals(entry.getValue())) {
+                throw new IllegalStateException("[SchemaMigrator] " + migration.fileName()
+                        + " was modified after it was applied (checksum " + entry.getValue()
+                        + " in database, " + migration.checksum + " on classpath)");
+            }
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        if (migration.step != null) {
+            try {
+                migration.step.migrate(conn);
+            } catch (SQLException e) {
+                throw new SQLException(migration.fileName() + ": " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+            }
+        } else {
+            runScript(conn, migration);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO " + HISTORY_TABLE
+                        + " (version, description, checksum, applied_at, execution_ms) VALUES (?, ?, ?, ?, ?)")) {
+            ps.setInt(1, migration.version);
+            ps.setString(2, migration.description);
+            ps.setString(3, migration.checksum);
+            ps.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            ps.setLong(5, elapsedMs);
+            ps.executeUpdate();
+        }
+        System.out.println("[SchemaMigrator] Applied " + migration.fileName() + " in " + elapsedMs + " ms");
+    }
+
+    private static void runScript(Connection conn, Migration migration) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            for (String sql : splitStatements(migration.sql)) {
+                try {
+                    st.execute(sql);
+                } catch (SQLException e) {
+                    throw new SQLException(migration.fileName() + ": " + e.getMessage()
+                            + " [statement: " + sql + "]", e.getSQLState(), e.getErrorCode(), e);
+                }
+            }
+        }
+    }
+
+    private static void ensureHistoryTable(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + " ("
+                    + "version INT NOT NULL, "
+                    + "description VARCHAR(200) NOT NULL, "
+                    + "checksum CHAR(64) NOT NULL, "
+                    + "applied_at TIMESTAMP NOT NULL, "
+                    + "execution_ms BIGINT NOT NULL, "
+                    + "PRIMARY KEY (version))");
+        }
+    }
+
+    private static Map<Integer, String> appliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new LinkedHashMap<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version, checksum FROM " + HISTORY_TABLE + " ORDER BY version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2).trim());
+            }
+        }
+        return applied;
+    }
+
+    private static int latest(Map<Integer, String> applied) {
+        int latest = 0;
+        for (int version : applied.keySet()) {
+            latest = Math.max(latest, version);
+        }
+        return latest;
+    }
+
+    private static boolean isMySql(Connection conn) throws SQLException {
+        return conn.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+    }
+
+    private static boolean acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 1) {
+                    return true;
+                }
+            }
+        }
+        throw new SQLException("Timed out after " + LOCK_TIMEOUT_SECONDS
+                + "s waiting for the migration lock held by another node");
+    }
+
+    private static void releaseLock(Connection conn) {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("[SchemaMigrator] Could not release migration lock: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Splits a script into statements. Statements end with ';' at the end of a line and
+     * lines starting with "--" are comments; that is all the syntax scripts may rely on.
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            if (current.length() > 0) {
+                current.append('\n');
+            }
+            if (trimmed.endsWith(";")) {
+                current.append(trimmed, 0, trimmed.length() - 1);
+                statements.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(trimmed);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString());
+        }
+        return statements;
+    }
+
+    /** Body of a Java migration. Runs on the migrator's auto-commit connection. */
+    interface JdbcStep {
+        void migrate(Connection conn) throws SQLException;
+    }
+
+    static final class Migration {
+        final int version;
+        final String description;
+        final String sql;
+        final JdbcStep step;
+        final String checksum;
+
+        Migration(int version, String description, String sql) {
+            this.version = version;
+            this.description = description;
+            this.sql = sql.replace("\r\n", "\n");
+            this.step = null;
+            this.checksum = sha256(this.sql);
+        }
+
+        private Migration(int version, String description, JdbcStep step) {
+            this.version = version;
+            this.description = description;
+            this.sql = null;
+            this.step = step;
+            this.checksum = sha256("java:" + version + ":" + description + ":" + step.getClass().getName());
+        }
+
+        static Migration java(int version, String description, JdbcStep step) {
+            return new Migration(version, description, step);
+        }
+
+        static Migration classpath(int version, String description) {
+            String path = "db/migration/V" + version + "__" + description + ".sql";
+            try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(path)) {
+                if (in == null) {
+                    throw new IllegalStateException("[SchemaMigrator] Missing migration script " + path);
+                }
+                return new Migration(version, description, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new IllegalStateException("[SchemaMigrator] Cannot read " + path, e);
+            }
+        }
+
+        String fileName() {
+            return "V" + version + "__" + description + (step != null ? " (Java)" : ".sql");
+        }
+
+        private static String sha256(String text) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
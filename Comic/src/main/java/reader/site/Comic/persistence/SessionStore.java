@@ -0,0 +1,600 @@
+package reader.site.Comic.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Login sessions in a memory-mapped file, so they survive a restart and stay off the heap.
+ *
+ * The file is an open-addressing hash table (linear probing) of fixed-size records: the
+ * SHA-256 of the token (the token itself is never stored), user id, role id and expiry.
+ * A lookup probes the mapped records directly; nothing per session lives on the heap
+ * except one int in the expiry wheel. The table doubles when it is 70% full, by writing a
+ * new file and moving it over the old one. That copy runs on the login that triggers it,
+ * under the write lock, so every lookup waits for it, on the order of a second per
+ * million sessions. Size SESSION_STORE_CAPACITY for the expected peak so it does not happen in
+ * production.
+ *
+ * Expiry runs on a hashed timer wheel: each session is filed under the tick it expires in,
+ * and {@link #expireDue} deletes what is due in the ticks that have passed, without
+ * scanning the table. {@link #get} also refuses an expired session itself, so a late tick
+ * never lets one through. On {@link #open} the table is reloaded and the wheel rebuilt;
+ * sessions that expired while the application was down are deleted then.
+ *
+ * Records are written field by field as a tombstone, with the live state byte last, so a
+ * crash mid-write leaves at worst that one record deleted; probe chains through it stay
+ * intact. Reads share a lock; writes are exclusive.
+ *
+ * One process owns the file: {@link #open} takes an OS lock on a {@code .lock} file next to
+ * it and fails at once if another store (in this or another JVM) holds it, since two
+ * mappings with separate in-process locks would corrupt the table.
+ */
+public final class SessionStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x43535331; // "CSS1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_BYTES = 176;
+    private static final int MAX_ID_BYTES = 64;
+    /** Largest table whose file still maps as one buffer (records * 176 bytes < 2 GB). */
+    private static final int MAX_CAPACITY = 1 << 23;
+    private static final double MAX_LOAD = 0.7;
+
+    // Header: magic, format version, record size, capacity, live records, tombstones.
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORD = 8;
+    private static final int H_CAPACITY = 12;
+    private static final int H_LIVE = 16;
+    private static final int H_TOMBSTONES = 20;
+
+    // Record: state, id lengths, expiry (epoch millis), token hash, user id, role id.
+    private static final int R_STATE = 0;
+    private static final int R_USER_LEN = 1;
+    private static final int R_ROLE_LEN = 2;
+    private static final int R_EXPIRES = 8;
+    private static final int R_HASH = 16;
+    private static final int R_USER = 48;
+    private static final int R_ROLE = R_USER + MAX_ID_BYTES;
+
+    private static final byte EMPTY = 0;
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 2;
+
+    private static final int WHEEL_BUCKETS = 8192;
+
+    private final Path file;
+    private final long tickMillis;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private FileChannel lockChannel;
+    private FileLock fileLock;
+    private int capacity;
+    private int live;
+    private int tombstones;
+
+    // Hashed timer wheel: slot numbers per bucket, bucket = expiry tick mod WHEEL_BUCKETS.
+    private final int[][] wheel = new int[WHEEL_BUCKETS][];
+    private final int[] wheelSizes = new int[WHEEL_BUCKETS];
+    private long lastTick;
+
+    private long expired;
+    private long resizes;
+
+    /** A stored session. */
+    public static final class Session {
+        private final String userId;
+        private final String roleId;
+        private final long expiresAtMillis;
+
+        Session(String userId, String roleId, long expiresAtMillis) {
+            this.userId = userId;
+            this.roleId = roleId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public String getUserId() { return userId; }
+        public String getRoleId() { return roleId; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+    }
+
+    private SessionStore(Path file, long tickMillis) {
+        this.file = file;
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * Opens the store in {@code file}, reloading the sessions it holds, or creates it with
+     * room for {@code initialCapacity} records (see {@link #tableCapacity}). A file in
+     * another format is replaced, which logs everyone out once.
+     *
+     * @param tickMillis granularity of the expiry wheel
+     * @throws IllegalStateException when the file cannot be opened or another store has it open
+     */
+    public static SessionStore open(Path file, int initialCapacity, long tickMillis, long nowMillis) {
+        SessionStore store = new SessionStore(file, Math.max(1, tickMillis));
+        try {
+            store.lockFile();
+            store.load(tableCapacity(initialCapacity), nowMillis);
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            if (e instanceof IllegalStateException) {
+                throw (IllegalStateException) e;
+            }
+            throw new IllegalStateException("[SessionStore] Cannot open " + file + ": " + e.getMessage(), e);
+        }
+        return store;
+    }
+
+    /** Stores (or replaces) the session for {@code token}. */
+    public void put(String token, String userId, String roleId, long expiresAtMillis) {
+        byte[] hash = hash(token);
+        byte[] user = id(userId);
+        byte[] role = id(roleId);
+        lock.writeLock().lock();
+        try {
+            if (live + tombstones + 1 > capacity * MAX_LOAD) {
+                rehash(live + 1 > capacity * MAX_LOAD / 2 ? capacity * 2 : capacity);
+            }
+            int slot = find(hash);
+            if (slot >= 0) {
+                write(slot, hash, user, role, expiresAtMillis);
+            } else {
+                slot = freeSlot(hash);
+                if (map.get(offset(slot) + R_STATE) == DELETED) {
+                    tombstones--;
+                }
+                write(slot, hash, user, role, expiresAtMillis);
+                live++;
+                writeCounts();
+            }
+            schedule(slot, expiresAtMillis);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** The session for {@code token}, or null when there is none or it has expired. */
+    public Session get(String token, long nowMillis) {
+        byte[] hash = hash(token);
+        lock.readLock().lock();
+        try {
+            int slot = find(hash);
+            if (slot < 0) {
+                return null;
+            }
+            int off = offset(slot);
+            long expiresAt = map.getLong(off + R_EXPIRES);
+            if (expiresAt <= nowMillis) {
+                return null; // the wheel deletes it on its tick
+            }
+            return new Session(readId(off + R_USER, map.get(off + R_USER_LEN)),
+                    readId(off + R_ROLE, map.get(off + R_ROLE_LEN)), expiresAt);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Deletes the session for {@code token}, if any. */
+    public void remove(String token) {
+        byte[] hash = hash(token);
+        lock.writeLock().lock();
+        try {
+            int slot = find(hash);
+            if (slot >= 0) {
+                delete(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Deletes the sessions that expired in the ticks since the last call; returns how many. */
+    public int expireDue(long nowMillis) {
+        lock.writeLock().lock();
+        try {
+            long nowTick = nowMillis / tickMillis;
+            if (nowTick <= lastTick) {
+                return 0;
+            }
+            // After a long pause one pass over every bucket catches up.
+            long from = Math.max(lastTick + 1, nowTick - WHEEL_BUCKETS + 1);
+            int removed = 0;
+            for (long tick = from; tick <= nowTick; tick++) {
+                removed += expireBucket((int) (tick & (WHEEL_BUCKETS - 1)), nowMillis);
+            }
+            lastTick = nowTick;
+            expired += removed;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Live sessions, including expired ones the wheel has not reached yet. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Table size, occupancy and expiry counters. */
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("file", file.toString());
+            stats.put("capacity", capacity);
+            stats.put("sessions", live);
+            stats.put("tombstones", tombstones);
+            stats.put("fileBytes", fileBytes(capacity));
+            stats.put("expired", expired);
+            stats.put("resizes", resizes);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Writes the mapped pages back to the file and closes it. */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (channel != null) {
+                if (map != null) {
+                    map.force();
+                }
+                channel.close();
+                channel = null;
+            }
+            if (lockChannel != null) {
+                lockChannel.close(); // releases the file lock
+                lockChannel = null;
+                fileLock = null;
+            }
+        } catch (IOException e) {
+            System.err.println("[SessionStore] Closing " + file + " failed: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ─── Table ───────────────────────────────────────────────────────────────
+
+    /** {@code requested} rounded up to a power of two, at least 16 and at most MAX_CAPACITY. */
+    static int tableCapacity(int requested) {
+        if (requested >= MAX_CAPACITY) {
+            return MAX_CAPACITY; // rounding first would overflow the mappable size
+        }
+        return Math.max(16, Integer.highestOneBit(Math.max(1, requested - 1)) << 1);
+    }
+
+    /** Takes the OS lock on the store's {@code .lock} file, for as long as the store is open. */
+    private void lockFile() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path lockPath = file.resolveSibling(file.getFileName() + ".lock");
+        lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            fileLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null; // held by another store in this JVM
+        }
+        if (fileLock == null) {
+            throw new IllegalStateException("[SessionStore] " + file + " is held by another open store; "
+                    + "give each instance its own SESSION_STORE_PATH");
+        }
+    }
+
+    private void load(int initialCapacity, long nowMillis) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        boolean reload = Files.exists(file) && readable(file);
+        if (!reload && Files.exists(file)) {
+            System.err.println("[SessionStore] " + file + " has another format; starting with no sessions");
+            Files.delete(file);
+        }
+        if (reload) {
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            capacity = headerInt(channel, H_CAPACITY);
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes(capacity));
+        } else {
+            channel = create(file, initialCapacity);
+            capacity = initialCapacity;
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes(capacity));
+        }
+        lastTick = nowMillis / tickMillis;
+
+        // Count the table and rebuild the wheel; what expired while we were down goes now.
+        live = 0;
+        tombstones = 0;
+        int dropped = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int off = offset(slot);
+            byte state = map.get(off + R_STATE);
+            if (state == LIVE) {
+                long expiresAt = map.getLong(off + R_EXPIRES);
+                if (expiresAt <= nowMillis) {
+                    map.put(off + R_STATE, DELETED);
+                    tombstones++;
+                    dropped++;
+                } else {
+                    live++;
+                    schedule(slot, expiresAt);
+                }
+            } else if (state == DELETED) {
+                tombstones++;
+            }
+        }
+        writeCounts();
+        if (reload) {
+            System.out.println("[SessionStore] Reloaded " + live + " sessions from " + file
+                    + (dropped > 0 ? " (" + dropped + " expired)" : ""));
+        }
+        if (live + tombstones > capacity * MAX_LOAD) {
+            rehash(live > capacity * MAX_LOAD / 2 ? capacity * 2 : capacity);
+        }
+    }
+
+    /** Copies the live records into a new table of {@code newCapacity} and swaps the file in. */
+    private void rehash(int newCapacity) {
+        if (newCapacity > MAX_CAPACITY) {
+            if (tombstones == 0) {
+                throw new IllegalStateException("[SessionStore] Full: " + live + " sessions");
+            }
+            newCapacity = capacity;
+        }
+        Path next = file.resolveSibling(file.getFileName() + ".resize");
+        try {
+            Files.deleteIfExists(next);
+            FileChannel nextChannel = create(next, newCapacity);
+            MappedByteBuffer nextMap = nextChannel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes(newCapacity));
+            int mask = newCapacity - 1;
+            for (int slot = 0; slot < capacity; slot++) {
+                int off = offset(slot);
+                if (map.get(off + R_STATE) != LIVE) {
+                    continue;
+                }
+                int target = (int) (map.getLong(off + R_HASH) & mask);
+                while (nextMap.get(offset(target) + R_STATE) != EMPTY) {
+                    target = (target + 1) & mask;
+                }
+                nextMap.put(offset(target), map, off, RECORD_BYTES);
+            }
+            nextMap.putInt(H_LIVE, live);
+            nextMap.putInt(H_TOMBSTONES, 0);
+            nextMap.force();
+
+            channel.close();
+            Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = nextChannel;
+            map = nextMap;
+            capacity = newCapacity;
+            tombstones = 0;
+            resizes++;
+        } catch (IOException e) {
+            throw new IllegalStateException("[SessionStore] Resizing " + file + " failed: " + e.getMessage(), e);
+        }
+
+        // Slot numbers changed: refile every session.
+        Arrays.fill(wheelSizes, 0);
+        for (int slot = 0; slot < capacity; slot++) {
+            int off = offset(slot);
+            if (map.get(off + R_STATE) == LIVE) {
+                schedule(slot, map.getLong(off + R_EXPIRES));
+            }
+        }
+    }
+
+    private static FileChannel create(Path path, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(H_MAGIC, MAGIC);
+        header.putInt(H_VERSION, FORMAT_VERSION);
+        header.putInt(H_RECORD, RECORD_BYTES);
+        header.putInt(H_CAPACITY, capacity);
+        channel.write(header, 0);
+        // Extend the file (sparse where the file system allows) so every record maps to zeros.
+        channel.write(ByteBuffer.allocate(1), fileBytes(capacity) - 1);
+        return channel;
+    }
+
+    private static boolean readable(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return false;
+            }
+            int capacity = headerInt(channel, H_CAPACITY);
+            return headerInt(channel, H_MAGIC) == MAGIC
+                    && headerInt(channel, H_VERSION) == FORMAT_VERSION
+                    && headerInt(channel, H_RECORD) == RECORD_BYTES
+                    && capacity > 0 && capacity <= MAX_CAPACITY && Integer.bitCount(capacity) == 1
+                    && channel.size() >= fileBytes(capacity);
+        }
+    }
+
+    private static int headerInt(FileChannel channel, int position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        channel.read(buffer, position);
+        return buffer.getInt(0);
+    }
+
+    private static long fileBytes(int capacity) {
+        return HEADER_BYTES + (long) capacity * RECORD_BYTES;
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    /** The slot holding {@code hash}, or -1. */
+    private int find(byte[] hash) {
+        long h0 = ByteBuffer.wrap(hash).getLong(0);
+        int mask = capacity - 1;
+        int slot = (int) (h0 & mask);
+        for (int probes = 0; probes < capacity; probes++) {
+            int off = offset(slot);
+            byte state = map.get(off + R_STATE);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == LIVE && matches(off, hash)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** The first deleted or empty slot on {@code hash}'s probe path. */
+    private int freeSlot(byte[] hash) {
+        int mask = capacity - 1;
+        int slot = (int) (ByteBuffer.wrap(hash).getLong(0) & mask);
+        while (map.get(offset(slot) + R_STATE) == LIVE) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean matches(int off, byte[] hash) {
+        ByteBuffer expected = ByteBuffer.wrap(hash);
+        for (int i = 0; i < 32; i += 8) {
+            if (map.getLong(off + R_HASH + i) != expected.getLong(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void write(int slot, byte[] hash, byte[] user, byte[] role, long expiresAtMillis) {
+        int off = offset(slot);
+        // A tombstone while the fields change: lookups skip it but keep probing past it, so
+        // a crash here cannot cut off the sessions further along the chain.
+        map.put(off + R_STATE, DELETED);
+        map.putLong(off + R_EXPIRES, expiresAtMillis);
+        map.put(off + R_HASH, hash);
+        map.put(off + R_USER_LEN, (byte) user.length);
+        map.put(off + R_USER, user);
+        map.put(off + R_ROLE_LEN, (byte) role.length);
+        map.put(off + R_ROLE, role);
+        map.put(off + R_STATE, LIVE);
+    }
+
+    private void delete(int slot) {
+        map.put(offset(slot) + R_STATE, DELETED);
+        live--;
+        tombstones++;
+        writeCounts();
+    }
+
+    private void writeCounts() {
+        map.putInt(H_LIVE, live);
+        map.putInt(H_TOMBSTONES, tombstones);
+    }
+
+    private String readId(int off, byte length) {
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        map.get(off, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] id(String id) {
+        if (id == null) {
+            return new byte[0];
+        }
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0 || bytes.length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("Session ids must be 1 to " + MAX_ID_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    private static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is unavailable", e);
+        }
+    }
+
+    // ─── Expiry wheel ────────────────────────────────────────────────────────
+
+    private void schedule(int slot, long expiresAtMillis) {
+        int bucket = bucket(expiresAtMillis);
+        int[] slots = wheel[bucket];
+        if (slots == null) {
+            slots = wheel[bucket] = new int[8];
+        } else if (wheelSizes[bucket] == slots.length) {
+            slots = wheel[bucket] = Arrays.copyOf(slots, slots.length * 2);
+        }
+        slots[wheelSizes[bucket]++] = slot;
+    }
+
+    // A session expiring at t is filed under the first tick at or after t.
+    private int bucket(long expiresAtMillis) {
+        long tick = (expiresAtMillis + tickMillis - 1) / tickMillis;
+        return (int) (tick & (WHEEL_BUCKETS - 1));
+    }
+
+    /**
+     * Deletes the due sessions filed in {@code bucket}. Sessions for a later turn of the
+     * wheel stay; entries for slots that were deleted, refreshed or reused are dropped.
+     */
+    private int expireBucket(int bucket, long nowMillis) {
+        int[] slots = wheel[bucket];
+        int size = wheelSizes[bucket];
+        int kept = 0;
+        int removed = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = slots[i];
+            int off = offset(slot);
+            if (map.get(off + R_STATE) != LIVE) {
+                continue;
+            }
+            long expiresAt = map.getLong(off + R_EXPIRES);
+            if (bucket(expiresAt) != bucket) {
+                continue; // the slot now holds a session filed elsewhere
+            }
+            if (expiresAt <= nowMillis) {
+                delete(slot);
+                removed++;
+            } else {
+                slots[kept++] = slot;
+            }
+        }
+        wheelSizes[bucket] = kept;
+        if (kept == 0 && slots != null && slots.length > 64) {
+            wheel[bucket] = null; // give back what a burst of logins grew
+        }
+        return removed;
+    }
+}
@@ -1,25 +1,31 @@
 package reader.site.Comic.persistence;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
+import reader.site.Comic.util.ModelTypeAdapters;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Stores a string list as a JSON array. Reads and writes go straight through
+ * {@link ModelTypeAdapters#STRING_LIST}, without Gson's reflective collection adapter.
+ */
 @Converter
 public class StringListConverter implements AttributeConverter<List<String>, String> {
-    private static final Gson GSON = new Gson();
-    private static final Type LIST_TYPE = new TypeToken<List<String>>() {}.getType();
 
     @Override
     public String convertToDatabaseColumn(List<String> attribute) {
         if (attribute == null || attribute.isEmpty()) {
             return "[]";
         }
-        return GSON.toJson(attribute, LIST_TYPE);
+        return ModelTypeAdapters.STRING_LIST.toJson(attribute);
     }
 
     @Override
@@ -27,6 +33,17 @@ public class StringListConverter implements AttributeConverter<List<String>, Str
         if (dbData == null || dbData.isBlank()) {
             return new ArrayList<>();
         }
-        return GSON.fromJson(dbData, LIST_TYPE);
+        // Lenient and whole-document, as Gson.fromJson reads it.
+        JsonReader reader = new JsonReader(new StringReader(dbData));
+        reader.setStrictness(Strictness.LENIENT);
+        try {
+            List<String> chapters = ModelTypeAdapters.STRING_LIST.read(reader);
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("JSON document was not fully consumed.");
+            }
+            return chapters;
+        } catch (IllegalStateException | IOException e) {
+            throw new JsonSyntaxException(e);
+        }
     }
 }
@@ -0,0 +1,33 @@
+package reader.site.Comic.persistence;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import reader.site.Comic.entity.UserEntity;
+import reader.site.Comic.service.UserSearchService;
+
+/**
+ * Keeps the admin user-search index in step with user writes. Like
+ * {@link DashboardCounterListener} it fires at flush; an entry left by a rolled-back
+ * write is dropped by the next rebuild. Does nothing until the service has been started.
+ */
+public class UserSearchListener {
+
+    @PostPersist
+    @PostUpdate
+    public void saved(UserEntity user) {
+        UserSearchService search = UserSearchService.running();
+        if (search != null) {
+            search.userSaved(user.getId(), user.getUsername(), user.getEmail(),
+                    user.getRole() != null ? user.getRole().getId() : null, user.getStatus(), user.getCreatedAt());
+        }
+    }
+
+    @PostRemove
+    public void removed(UserEntity user) {
+        UserSearchService search = UserSearchService.running();
+        if (search != null) {
+            search.userRemoved(user.getId());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package reader.site.Comic.service;
+
+import reader.site.Comic.util.EnvConfig;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the slow blocking calls that must not hold a Tomcat request thread: Azure Blob
+ * downloads ({@code EpubServlet}) and SMTP sends ({@code EmailUtil}). It also makes the
+ * threads of the background services.
+ *
+ * THREAD_MODE=virtual uses one virtual thread per task (and virtual background threads)
+ * when the JVM has them (JDK 21+). Otherwise, and by default, tasks run on a bounded
+ * platform pool of BLOCKING_IO_THREADS threads with a queue of BLOCKING_IO_QUEUE. In both
+ * modes at most BLOCKING_IO_THREADS + BLOCKING_IO_QUEUE tasks are accepted at once;
+ * {@link #tryExecute} refuses the rest so callers can answer 503 instead of piling up.
+ *
+ * The mode is chosen at runtime by reflection, so the code still builds and runs on JDK 17.
+ */
+public final class BlockingExecutor implements AutoCloseable {
+
+    public enum Mode { PLATFORM, VIRTUAL }
+
+    private static final long SHUTDOWN_WAIT_MS = 10_000;
+
+    private static volatile BlockingExecutor shared;
+
+    private final Mode mode;
+    private final int maxThreads;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /** {@code requested} VIRTUAL falls back to PLATFORM on a JVM without virtual threads. */
+    public BlockingExecutor(Mode requested, int maxThreads, int maxQueued) {
+        this.maxThreads = Math.max(1, maxThreads);
+        int queue = Math.max(0, maxQueued);
+        ExecutorService virtual = requested == Mode.VIRTUAL ? newVirtualThreadPerTaskExecutor() : null;
+        if (virtual != null) {
+            this.mode = Mode.VIRTUAL;
+            this.executor = virtual;
+        } else {
+            if (requested == Mode.VIRTUAL) {
+                System.err.println("[BlockingExecutor] THREAD_MODE=virtual needs JDK 21+ (running "
+                        + Runtime.version().feature() + "); using platform threads");
+            }
+            this.mode = Mode.PLATFORM;
+            this.executor = new ThreadPoolExecutor(this.maxThreads, this.maxThreads, 60, TimeUnit.SECONDS,
+                    queue > 0 ? new ArrayBlockingQueue<>(queue) : new SynchronousQueue<>(),
+                    platformFactory("blocking-io"));
+            ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+        }
+        this.permits = new Semaphore(this.maxThreads + queue);
+    }
+
+    /** Starts the application-wide executor from THREAD_MODE / BLOCKING_IO_*, unless it is already running. */
+    public static BlockingExecutor startShared() {
+        BlockingExecutor executor = shared;
+        if (executor == null) {
+            synchronized (BlockingExecutor.class) {
+                executor = shared;
+                if (executor == null) {
+                    Mode requested = "virtual".equals(EnvConfig.getOrDefault("THREAD_MODE", "platform")
+                            .trim().toLowerCase(Locale.ROOT)) ? Mode.VIRTUAL : Mode.PLATFORM;
+                    executor = new BlockingExecutor(requested,
+                            EnvConfig.getInt("BLOCKING_IO_THREADS", 32),
+                            EnvConfig.getInt("BLOCKING_IO_QUEUE", 256));
+                    shared = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /** The application-wide executor if it has been started, else null (callers then run inline). */
+    public static BlockingExecutor running() {
+        return shared;
+    }
+
+    /** Lets queued work finish, then stops the application-wide executor (called on undeploy). */
+    public static void shutdownShared() {
+        synchronized (BlockingExecutor.class) {
+            if (shared != null) {
+                shared.close();
+                shared = null;
+            }
+        }
+    }
+
+    /**
+     * Thread factory for a background service: virtual threads when the application-wide
+     * executor runs in virtual mode, daemon platform threads otherwise.
+     */
+    public static ThreadFactory threadFactory(String name) {
+        BlockingExecutor executor = shared;
+        if (executor != null && executor.mode == Mode.VIRTUAL) {
+            ThreadFactory virtual = virtualThreadFactory(name);
+            if (virtual != null) {
+                return virtual;
+            }
+        }
+        return platformFactory(name);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /** Runs {@code task} in the background; false when the executor is saturated or stopped. */
+    public boolean tryExecute(Runnable task) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                active.incrementAndGet();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("[BlockingExecutor] Task failed: " + e.getMessage());
+                } finally {
+                    active.decrementAndGet();
+                    completed.increment();
+                    permits.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            rejected.increment();
+            return false;
+        }
+    }
+
+    /** Mode, running and waiting tasks, and totals completed and refused. */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode.name().toLowerCase(Locale.ROOT));
+        stats.put("maxThreads", maxThreads);
+        stats.put("active", active.get());
+        stats.put("queued", executor instanceof ThreadPoolExecutor
+                ? ((ThreadPoolExecutor) executor).getQueue().size() : 0);
+        stats.put("completed", completed.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory platformFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            int n = count.incrementAndGet();
+            Thread t = new Thread(r, n == 1 ? name : name + "-" + n);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor(), or null before JDK 21.
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // Thread.ofVirtual().name(name, 1).factory(), or null before JDK 21.
+    private static ThreadFactory virtualThreadFactory(String name) {
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Object ofVirtual = Thread.class.getMethod("ofVirtual").invoke(null);
+            Object named = builder.getMethod("name", String.class, long.class).invoke(ofVirtual, name + "-", 1L);
+            return (ThreadFactory) builder.getMethod("factory").invoke(named);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package reader.site.Comic.service;
+
+import reader.site.Comic.dao.MangaDAO;
+import reader.site.Comic.util.EnvConfig;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The catalog read model behind GET /api/manga and /api/series: one {@link CatalogSnapshot}
+ * built from {@link MangaDAO} on a background thread and swapped in atomically.
+ *
+ * {@code MangaDAO} calls {@link #changed()} after every committed catalog write. That
+ * bumps the write generation, so the snapshot stops being served at once, and queues a
+ * rebuild; writes that arrive during a rebuild are coalesced into the next one.
+ * {@link #current()} returns null while the snapshot is behind, and callers then read
+ * through the DAO as before, so a client never sees a catalog older than its own write.
+ * Writes made by other nodes are picked up by the CATALOG_SNAPSHOT_REFRESH_MS rebuild;
+ * CATALOG_SNAPSHOT=false turns the snapshot off and every read goes to the DAO.
+ */
+public class CatalogReadModel implements AutoCloseable {
+
+    private static final long SHUTDOWN_WAIT_MS = 5_000;
+
+    private static volatile CatalogReadModel shared;
+
+    private final MangaDAO mangaDAO;
+    private final ScheduledExecutorService builder;
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder served = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private volatile long lastBuildMillis;
+
+    /**
+     * With {@code background} false nothing is built on its own and tests call
+     * {@link #rebuild()}; a refresh interval of 0 or less disables the periodic rebuild.
+     */
+    public CatalogReadModel(MangaDAO mangaDAO, boolean background, long refreshIntervalMs) {
+        this.mangaDAO = mangaDAO;
+        if (background) {
+            this.builder = Executors.newSingleThreadScheduledExecutor(
+                    BlockingExecutor.threadFactory("catalog-snapshot"));
+            requestRebuild();
+            if (refreshIntervalMs > 0) {
+                builder.scheduleWithFixedDelay(this::requestRebuild, refreshIntervalMs, refreshIntervalMs,
+                        TimeUnit.MILLISECONDS);
+            }
+        } else {
+            this.builder = null;
+        }
+    }
+
+    /** Starts the application-wide read model, unless it is already running. */
+    public static CatalogReadModel startShared(MangaDAO mangaDAO) {
+        CatalogReadModel model = shared;
+        if (model == null) {
+            synchronized (CatalogReadModel.class) {
+                model = shared;
+                if (model == null) {
+                    model = new CatalogReadModel(mangaDAO,
+                            !"false".equalsIgnoreCase(EnvConfig.getOrDefault("CATALOG_SNAPSHOT", "true").trim()),
+                            EnvConfig.getInt("CATALOG_SNAPSHOT_REFRESH_MS", 60_000));
+                    shared = model;
+                }
+            }
+        }
+        return model;
+    }
+
+    /** The application-wide read model if it has been started, else null. */
+    public static CatalogReadModel running() {
+        return shared;
+    }
+
+    /** Stops the application-wide read model (called on undeploy). */
+    public static void shutdownShared() {
+        synchronized (CatalogReadModel.class) {
+            if (shared != null) {
+                shared.close();
+                shared = null;
+            }
+        }
+    }
+
+    /** Called by MangaDAO after a catalog write commits. */
+    public static void changed() {
+        CatalogReadModel model = shared;
+        if (model != null) {
+            model.invalidate();
+        }
+    }
+
+    /** The snapshot if it reflects every write made through this node, else null. */
+    public CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot.get();
+        if (current != null && current.generation() == writes.get()) {
+            served.increment();
+            return current;
+        }
+        bypassed.increment();
+        return null;
+    }
+
+    /** Marks the snapshot stale and queues a rebuild. */
+    public void invalidate() {
+        writes.incrementAndGet();
+        requestRebuild();
+    }
+
+    /** Builds a snapshot from the database now and swaps it in. Returns it. */
+    public CatalogSnapshot rebuild() {
+        long started = System.nanoTime();
+        // Read the generation first: a write committed during the load bumps it, so this
+        // snapshot is never taken as current for that write.
+        long generation = writes.get();
+        CatalogSnapshot fresh = new CatalogSnapshot(mangaDAO.findAll(), generation);
+        snapshot.accumulateAndGet(fresh, (old, built) ->
+                old == null || built.generation() >= old.generation() ? built : old);
+        rebuilds.increment();
+        lastBuildMillis = (System.nanoTime() - started) / 1_000_000;
+        return fresh;
+    }
+
+    /** Snapshot size, freshness and how many reads it answered. */
+    public Map<String, Object> stats() {
+        CatalogSnapshot current = snapshot.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("manga", current != null ? current.size() : 0);
+        stats.put("distinctChapterNames", current != null ? current.distinctChapterNames() : 0);
+        stats.put("current", current != null && current.generation() == writes.get());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("lastBuildMillis", lastBuildMillis);
+        stats.put("served", served.sum());
+        stats.put("bypassed", bypassed.sum());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        if (builder != null) {
+            builder.shutdownNow();
+            try {
+                builder.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void requestRebuild() {
+        if (builder == null || builder.isShutdown() || !rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            builder.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    System.err.println("[CatalogReadModel] Snapshot rebuild failed: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rebuildQueued.set(false);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package reader.site.Comic.service;
+
+import reader.site.Comic.model.CursorPage;
+import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.MangaSummary;
+import reader.site.Comic.util.ConditionalGet;
+import reader.site.Comic.util.PageCursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of the manga catalog, laid out column by column: ids in a sorted
+ * {@code long[]}, the other fields in arrays at the same index, and every manga's chapter
+ * names in one flat array addressed by {@code chapterStart}. Chapter names repeat across
+ * titles ("Chapter 1", ...), so each distinct name is stored once.
+ *
+ * Nothing here changes after construction, so any number of request threads read it
+ * without locking; {@link CatalogReadModel} replaces the whole snapshot when the catalog
+ * changes. Readers get fresh model objects and cannot modify the snapshot through them.
+ *
+ * Each manga carries a content version, and the catalog one over all of them; servlets
+ * turn these into ETags without touching the database.
+ */
+public final class CatalogSnapshot {
+
+    private final long generation;
+    private final long[] ids;
+    private final String[] titles;
+    private final String[] covers;
+    private final int[] chapterCounts;
+    private final String[] latestChapters;
+    // Chapters of manga i are chapterNames[chapterStart[i] .. chapterStart[i + 1]).
+    private final int[] chapterStart;
+    private final String[] chapterNames;
+    private final int distinctChapterNames;
+    private final long[] versions;
+    private final long version;
+
+    /** Copies {@code catalog}; {@code generation} is the write count it reflects. */
+    public CatalogSnapshot(List<Manga> catalog, long generation) {
+        List<Manga> sorted = new ArrayList<>(catalog);
+        sorted.sort(Comparator.comparingLong(m -> Long.parseLong(m.getId())));
+        int n = sorted.size();
+        this.generation = generation;
+        this.ids = new long[n];
+        this.titles = new String[n];
+        this.covers = new String[n];
+        this.chapterCounts = new int[n];
+        this.latestChapters = new String[n];
+        this.chapterStart = new int[n + 1];
+        this.versions = new long[n];
+
+        int totalChapters = 0;
+        for (Manga manga : sorted) {
+            totalChapters += manga.getChapters() != null ? manga.getChapters().size() : 0;
+        }
+        this.chapterNames = new String[totalChapters];
+        Map<String, String> pool = new HashMap<>();
+
+        int next = 0;
+        for (int i = 0; i < n; i++) {
+            Manga manga = sorted.get(i);
+            ids[i] = Long.parseLong(manga.getId());
+            titles[i] = manga.getTitle();
+            covers[i] = manga.getCover();
+            chapterCounts[i] = manga.getChapterCount() != null ? manga.getChapterCount() : 0;
+            latestChapters[i] = manga.getLatestChapter();
+            versions[i] = version(manga);
+            chapterStart[i] = next;
+            if (manga.getChapters() != null) {
+                for (String name : manga.getChapters()) {
+                    chapterNames[next++] = name != null ? pool.computeIfAbsent(name, k -> k) : null;
+                }
+            }
+        }
+        chapterStart[n] = next;
+        this.distinctChapterNames = pool.size();
+        this.version = version(versions);
+    }
+
+    /** Content version of one manga as /api/manga/{id} returns it. */
+    public static long version(Manga manga) {
+        ConditionalGet.Hasher hasher = ConditionalGet.hasher()
+                .add(manga.getId())
+                .add(manga.getTitle())
+                .add(manga.getCover())
+                .add(manga.getChapterCount() != null ? manga.getChapterCount() : 0)
+                .add(manga.getLatestChapter());
+        List<String> chapters = manga.getChapters() != null ? manga.getChapters() : List.of();
+        hasher.add(chapters.size());
+        for (String chapter : chapters) {
+            hasher.add(chapter);
+        }
+        return hasher.value();
+    }
+
+    /** Version of a whole catalog from its manga versions, in id order. */
+    public static long version(long[] mangaVersions) {
+        ConditionalGet.Hasher hasher = ConditionalGet.hasher().add(mangaVersions.length);
+        for (long v : mangaVersions) {
+            hasher.add(v);
+        }
+        return hasher.value();
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    /** Content version of the whole catalog; equal snapshots have equal versions on every node. */
+    public long version() {
+        return version;
+    }
+
+    /** Content version of one manga, or 0 when it is not in the catalog. */
+    public long version(String id) {
+        int i = indexOf(id);
+        return i >= 0 ? versions[i] : 0;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int distinctChapterNames() {
+        return distinctChapterNames;
+    }
+
+    /** The manga with this id (as sent by clients), with its chapters, or null. */
+    public Manga find(String id) {
+        int i = indexOf(id);
+        return i >= 0 ? manga(i) : null;
+    }
+
+    /** Every manga with its chapters, by id. */
+    public List<Manga> mangas() {
+        List<Manga> out = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            out.add(manga(i));
+        }
+        return out;
+    }
+
+    /** Every manga as a grid row, by id. */
+    public List<MangaSummary> summaries() {
+        List<MangaSummary> out = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            out.add(summary(i));
+        }
+        return out;
+    }
+
+    /** Up to {@code limit} grid rows, newest (highest id) first. */
+    public List<MangaSummary> newestSummaries(int limit) {
+        int count = Math.min(Math.max(limit, 0), ids.length);
+        List<MangaSummary> out = new ArrayList<>(count);
+        for (int i = ids.length - 1; i >= ids.length - count; i--) {
+            out.add(summary(i));
+        }
+        return out;
+    }
+
+    /** Keyset page by id, like {@code MangaDAO.findPage}; {@code afterId} is null for the first page. */
+    public CursorPage<Manga> page(Long afterId, int limit) {
+        int from = firstAfter(afterId);
+        int to = Math.min(ids.length, from + limit);
+        List<Manga> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            items.add(manga(i));
+        }
+        return new CursorPage<>(items, nextCursor(to), limit);
+    }
+
+    /** Keyset page of grid rows by id, like {@code MangaDAO.findSummaryPage}. */
+    public CursorPage<MangaSummary> summaryPage(Long afterId, int limit) {
+        int from = firstAfter(afterId);
+        int to = Math.min(ids.length, from + limit);
+        List<MangaSummary> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            items.add(summary(i));
+        }
+        return new CursorPage<>(items, nextCursor(to), limit);
+    }
+
+    private int indexOf(String id) {
+        long key;
+        try {
+            key = Long.parseLong(id);
+        } catch (NumberFormatException | NullPointerException e) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(ids, key);
+        return i >= 0 ? i : -1;
+    }
+
+    private int firstAfter(Long afterId) {
+        if (afterId == null) {
+            return 0;
+        }
+        int i = Arrays.binarySearch(ids, afterId);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private String nextCursor(int to) {
+        return to < ids.length && to > 0 ? PageCursor.of(null, ids[to - 1]).encode() : null;
+    }
+
+    private Manga manga(int i) {
+        Manga manga = new Manga();
+        manga.setId(String.valueOf(ids[i]));
+        manga.setTitle(titles[i]);
+        manga.setCover(covers[i]);
+        manga.setChapters(Collections.unmodifiableList(
+                Arrays.asList(chapterNames).subList(chapterStart[i], chapterStart[i + 1])));
+        manga.setChapterCount(chapterCounts[i]);
+        manga.setLatestChapter(latestChapters[i]);
+        return manga;
+    }
+
+    private MangaSummary summary(int i) {
+        return new MangaSummary(ids[i], titles[i], covers[i], chapterCounts[i], latestChapters[i]);
+    }
+}
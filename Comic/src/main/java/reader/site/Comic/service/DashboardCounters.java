@@ -0,0 +1,286 @@
+package reader.site.Comic.service;
+
+import reader.site.Comic.dao.DashboardCounterDAO;
+import reader.site.Comic.dao.MangaDAO;
+import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.model.DashboardStats;
+import reader.site.Comic.util.EnvConfig;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dashboard figures kept in memory, so /api/dashboard/stats costs the same whatever the
+ * size of the users and manga tables.
+ *
+ * User and manga writes adjust the counters through {@code DashboardCounterListener} as
+ * they are flushed. Every DASHBOARD_RECONCILE_MS the counters are reset from COUNT
+ * queries, which also corrects drift from rolled-back transactions, bulk statements and
+ * other nodes. "This month" is the calendar month in UTC; the first read in a new month
+ * reconciles. Detail-page views have no table to count, so they are added to the
+ * dashboard_counters row every DASHBOARD_VIEWS_FLUSH_MS.
+ */
+public class DashboardCounters implements AutoCloseable {
+
+    private static final long SHUTDOWN_WAIT_MS = 5_000;
+
+    private static volatile DashboardCounters shared;
+
+    private final UserDAO userDAO;
+    private final MangaDAO mangaDAO;
+    private final DashboardCounterDAO counterDAO;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong totalUsers = new AtomicLong();
+    private final AtomicLong activeUsers = new AtomicLong();
+    private final AtomicLong newUsersThisMonth = new AtomicLong();
+    private final AtomicLong totalManga = new AtomicLong();
+    private final AtomicLong totalChapters = new AtomicLong();
+    private final AtomicLong newMangaThisMonth = new AtomicLong();
+    private final AtomicLong persistedViews = new AtomicLong();
+    private final LongAdder pendingViews = new LongAdder();
+
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+    private volatile YearMonth month;
+    private volatile boolean reconciled;
+    private volatile long lastDrift;
+
+    /** Intervals of 0 or less disable the background task (tests reconcile by hand). */
+    public DashboardCounters(UserDAO userDAO, MangaDAO mangaDAO, DashboardCounterDAO counterDAO,
+                             long reconcileIntervalMs, long viewsFlushIntervalMs) {
+        this.userDAO = userDAO;
+        this.mangaDAO = mangaDAO;
+        this.counterDAO = counterDAO;
+        if (reconcileIntervalMs > 0 || viewsFlushIntervalMs > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    BlockingExecutor.threadFactory("dashboard-counters"));
+            if (reconcileIntervalMs > 0) {
+                scheduler.scheduleWithFixedDelay(this::reconcileQuietly,
+                        reconcileIntervalMs, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+            }
+            if (viewsFlushIntervalMs > 0) {
+                scheduler.scheduleWithFixedDelay(this::flushViewsQuietly,
+                        viewsFlushIntervalMs, viewsFlushIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /** The application-wide counters, configured from DASHBOARD_* env vars. */
+    public static DashboardCounters shared() {
+        DashboardCounters counters = shared;
+        return counters != null ? counters : startShared(new UserDAO(), new MangaDAO(), new DashboardCounterDAO());
+    }
+
+    /** Starts the application-wide counters on the given DAOs, unless they are already running. */
+    public static DashboardCounters startShared(UserDAO userDAO, MangaDAO mangaDAO, DashboardCounterDAO counterDAO) {
+        DashboardCounters counters = shared;
+        if (counters == null) {
+            synchronized (DashboardCounters.class) {
+                counters = shared;
+                if (counters == null) {
+                    counters = new DashboardCounters(userDAO, mangaDAO, counterDAO,
+                            EnvConfig.getInt("DASHBOARD_RECONCILE_MS", 300_000),
+                            EnvConfig.getInt("DASHBOARD_VIEWS_FLUSH_MS", 10_000));
+                    shared = counters;
+                }
+            }
+        }
+        return counters;
+    }
+
+    /** The application-wide counters if they have been started, else null (writes are then simply counted later). */
+    public static DashboardCounters running() {
+        return shared;
+    }
+
+    /** Persists pending views and stops the application-wide counters (called on undeploy). */
+    public static void shutdownShared() {
+        synchronized (DashboardCounters.class) {
+            if (shared != null) {
+                shared.close();
+                shared = null;
+            }
+        }
+    }
+
+    public void userCreated(String status, Instant createdAt) {
+        totalUsers.incrementAndGet();
+        if (isActive(status)) {
+            activeUsers.incrementAndGet();
+        }
+        if (isThisMonth(createdAt)) {
+            newUsersThisMonth.incrementAndGet();
+        }
+    }
+
+    public void userRemoved(String status, Instant createdAt) {
+        totalUsers.decrementAndGet();
+        if (isActive(status)) {
+            activeUsers.decrementAndGet();
+        }
+        if (isThisMonth(createdAt)) {
+            newUsersThisMonth.decrementAndGet();
+        }
+    }
+
+    public void userStatusChanged(String from, String to) {
+        boolean wasActive = isActive(from);
+        boolean isActive = isActive(to);
+        if (wasActive != isActive) {
+            activeUsers.addAndGet(isActive ? 1 : -1);
+        }
+    }
+
+    public void mangaCreated(int chapterCount, Instant createdAt) {
+        totalManga.incrementAndGet();
+        totalChapters.addAndGet(chapterCount);
+        if (isThisMonth(createdAt)) {
+            newMangaThisMonth.incrementAndGet();
+        }
+    }
+
+    public void mangaRemoved(int chapterCount, Instant createdAt) {
+        totalManga.decrementAndGet();
+        totalChapters.addAndGet(-chapterCount);
+        if (isThisMonth(createdAt)) {
+            newMangaThisMonth.decrementAndGet();
+        }
+    }
+
+    public void chaptersChanged(int delta) {
+        if (delta != 0) {
+            totalChapters.addAndGet(delta);
+        }
+    }
+
+    public void mangaViewed() {
+        pendingViews.increment();
+    }
+
+    /** Current figures; reconciles first on the very first read and after a month boundary. */
+    public DashboardStats snapshot() {
+        if (!reconciled || !currentMonth().equals(month)) {
+            reconcile();
+        }
+        DashboardStats stats = new DashboardStats();
+        stats.setTotalUsers((int) totalUsers.get());
+        stats.setActiveUsers((int) activeUsers.get());
+        stats.setNewUsersThisMonth((int) newUsersThisMonth.get());
+        stats.setTotalManga((int) totalManga.get());
+        // The catalog has no draft state yet: every stored manga is published.
+        stats.setPublishedManga((int) totalManga.get());
+        stats.setTotalChapters((int) totalChapters.get());
+        stats.setNewMangaThisMonth((int) newMangaThisMonth.get());
+        stats.setTotalViews(persistedViews.get() + pendingViews.sum());
+        return stats;
+    }
+
+    /** Resets every counter from the database. Returns the total absolute drift corrected. */
+    public long reconcile() {
+        // A lock rather than synchronized: the COUNT queries block, and a virtual thread
+        // blocking inside a monitor pins its carrier (THREAD_MODE=virtual on JDK 21).
+        reconcileLock.lock();
+        try {
+            return reconcileLocked();
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private long reconcileLocked() {
+        YearMonth now = currentMonth();
+        Instant monthStart = now.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+
+        long drift = 0;
+        drift += reset(totalUsers, userDAO.count(null, null, null));
+        drift += reset(activeUsers, userDAO.count(null, null, "active"));
+        drift += reset(newUsersThisMonth, userDAO.countCreatedSince(monthStart));
+        drift += reset(totalManga, mangaDAO.count());
+        drift += reset(totalChapters, mangaDAO.totalChapters());
+        drift += reset(newMangaThisMonth, mangaDAO.countCreatedSince(monthStart));
+        flushViews();
+        persistedViews.set(counterDAO.get(DashboardCounterDAO.MANGA_VIEWS));
+
+        if (reconciled && drift != 0 && now.equals(month)) {
+            System.out.println("[DashboardCounters] Reconcile corrected a drift of " + drift);
+        }
+        month = now;
+        lastDrift = drift;
+        reconciled = true;
+        return drift;
+    }
+
+    /** Drift corrected by the last reconcile (0 when incremental updates were exact). */
+    public long lastDrift() {
+        return lastDrift;
+    }
+
+    /** Adds the views counted since the last flush to the persisted total. */
+    public void flushViews() {
+        long delta = pendingViews.sumThenReset();
+        if (delta == 0) {
+            return;
+        }
+        try {
+            counterDAO.add(DashboardCounterDAO.MANGA_VIEWS, delta);
+            persistedViews.addAndGet(delta);
+        } catch (RuntimeException e) {
+            pendingViews.add(delta);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushViewsQuietly();
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            System.err.println("[DashboardCounters] Reconcile failed, will retry: " + e.getMessage());
+        }
+    }
+
+    private void flushViewsQuietly() {
+        try {
+            flushViews();
+        } catch (RuntimeException e) {
+            System.err.println("[DashboardCounters] Could not persist views, will retry: " + e.getMessage());
+        }
+    }
+
+    private static long reset(AtomicLong counter, long actual) {
+        return Math.abs(counter.getAndSet(actual) - actual);
+    }
+
+    private boolean isThisMonth(Instant createdAt) {
+        return createdAt != null && YearMonth.from(createdAt.atOffset(ZoneOffset.UTC)).equals(month);
+    }
+
+    private static boolean isActive(String status) {
+        return "active".equalsIgnoreCase(status);
+    }
+
+    private static YearMonth currentMonth() {
+        return YearMonth.now(ZoneOffset.UTC);
+    }
+}
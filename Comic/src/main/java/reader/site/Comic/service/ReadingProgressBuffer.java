@@ -0,0 +1,281 @@
+package reader.site.Comic.service;
+
+import reader.site.Comic.dao.MangaDAO;
+import reader.site.Comic.dao.ReadingHistoryDAO;
+import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.ReadingHistory;
+import reader.site.Comic.model.ReadingProgressBufferStats;
+import reader.site.Comic.util.EnvConfig;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind stage for reading progress.
+ *
+ * Readers post their position on every page flip. Instead of one transaction per post,
+ * updates are kept in memory per (userId, mangaId) — a newer position simply replaces the
+ * pending one — and written by a background thread in JDBC batches, either every
+ * READING_PROGRESS_FLUSH_MS or as soon as READING_PROGRESS_BATCH_SIZE entries are waiting.
+ *
+ * The buffer holds at most READING_PROGRESS_MAX_PENDING entries (approximately, under
+ * concurrent posts); beyond that, new pairs are written through synchronously. Reads go
+ * through {@link #flushUser(String)} first, so a user always sees their latest position.
+ * Pending entries are written on {@link #close()}; a crash loses at most one flush
+ * interval of progress.
+ */
+public class ReadingProgressBuffer implements AutoCloseable {
+
+    private static final long SHUTDOWN_WAIT_MS = 5_000;
+
+    private static volatile ReadingProgressBuffer shared;
+
+    private final ReadingHistoryDAO historyDAO;
+    private final MangaDAO mangaDAO;
+    private final boolean writeBehind;
+    private final int batchSize;
+    private final int maxPending;
+
+    private final ConcurrentHashMap<String, ReadingHistory> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private volatile boolean closed;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder writeThrough = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public ReadingProgressBuffer(ReadingHistoryDAO historyDAO, MangaDAO mangaDAO, boolean writeBehind,
+                                 int batchSize, int maxPending, long flushIntervalMs) {
+        this.historyDAO = historyDAO;
+        this.mangaDAO = mangaDAO;
+        this.writeBehind = writeBehind;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxPending = Math.max(1, maxPending);
+        if (writeBehind) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(
+                    BlockingExecutor.threadFactory("reading-progress-flush"));
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /** The application-wide buffer, configured from READING_PROGRESS_* env vars. */
+    public static ReadingProgressBuffer shared() {
+        ReadingProgressBuffer buffer = shared;
+        return buffer != null ? buffer : startShared(new ReadingHistoryDAO(), new MangaDAO());
+    }
+
+    /** Starts the application-wide buffer on the given DAOs, unless it is already running. */
+    public static ReadingProgressBuffer startShared(ReadingHistoryDAO historyDAO, MangaDAO mangaDAO) {
+        ReadingProgressBuffer buffer = shared;
+        if (buffer == null) {
+            synchronized (ReadingProgressBuffer.class) {
+                buffer = shared;
+                if (buffer == null) {
+                    buffer = new ReadingProgressBuffer(historyDAO, mangaDAO,
+                            !"false".equalsIgnoreCase(EnvConfig.getOrDefault("READING_PROGRESS_WRITE_BEHIND", "true").trim()),
+                            EnvConfig.getInt("READING_PROGRESS_BATCH_SIZE", 200),
+                            EnvConfig.getInt("READING_PROGRESS_MAX_PENDING", 10_000),
+                            EnvConfig.getInt("READING_PROGRESS_FLUSH_MS", 1_000));
+                    shared = buffer;
+                }
+            }
+        }
+        return buffer;
+    }
+
+    /** Flushes and stops the application-wide buffer (called on undeploy). */
+    public static void shutdownShared() {
+        synchronized (ReadingProgressBuffer.class) {
+            if (shared != null) {
+                shared.close();
+                shared = null;
+            }
+        }
+    }
+
+    /**
+     * Records a position. Returns the entry as it will be stored (id is only known once
+     * written), or null if the manga does not exist.
+     */
+    public ReadingHistory record(String userId, Long mangaId, String chapterId, Integer currentPage, Boolean completed) {
+        received.increment();
+        if (!writeBehind || closed) {
+            writeThrough.increment();
+            return historyDAO.save(userId, mangaId, chapterId, currentPage, completed);
+        }
+
+        // Checked up front because a buffered write can no longer report it; cached lookup.
+        Manga manga = mangaDAO.findById(String.valueOf(mangaId));
+        if (manga == null) {
+            return null;
+        }
+
+        String key = key(userId, String.valueOf(mangaId));
+        if (pending.size() >= maxPending && !pending.containsKey(key)) {
+            writeThrough.increment();
+            return historyDAO.save(userId, mangaId, chapterId, currentPage, completed);
+        }
+
+        ReadingHistory entry = new ReadingHistory();
+        entry.setUserId(userId);
+        entry.setMangaId(String.valueOf(mangaId));
+        entry.setMangaTitle(manga.getTitle());
+        entry.setMangaCover(manga.getCover());
+        entry.setChapterId(chapterId);
+        entry.setCurrentPage(currentPage);
+        entry.setCompleted(completed != null ? completed : false);
+        entry.setLastReadAt(LocalDateTime.now());
+
+        if (pending.put(key, entry) != null) {
+            coalesced.increment();
+        }
+        if (pending.size() >= batchSize) {
+            requestFlush();
+        }
+        return entry;
+    }
+
+    /** Writes everything pending. Returns the number of entries written. */
+    public int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        flushLock.lock();
+        try {
+            return drain(null);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the pending entries of one user, so a following read sees them. Also waits
+     * for a background flush in progress, whose entries are no longer in the buffer but
+     * may not be committed yet.
+     */
+    public void flushUser(String userId) {
+        flushLock.lock();
+        try {
+            if (!pending.isEmpty()) {
+                drain(userId + "|");
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int count = flush();
+        System.out.println("[ReadingProgressBuffer] Flushed " + count + " pending entries on shutdown");
+    }
+
+    public ReadingProgressBufferStats stats() {
+        ReadingProgressBufferStats stats = new ReadingProgressBufferStats();
+        stats.setWriteBehind(writeBehind);
+        stats.setPending(pending.size());
+        stats.setMaxPending(maxPending);
+        long receivedCount = received.sum();
+        long coalescedCount = coalesced.sum();
+        stats.setReceived(receivedCount);
+        stats.setCoalesced(coalescedCount);
+        stats.setWritten(written.sum());
+        stats.setBatches(batches.sum());
+        stats.setWriteThrough(writeThrough.sum());
+        stats.setFailed(failed.sum());
+        // Share of posts that never became a database write of their own.
+        stats.setCoalescingRatio(receivedCount == 0 ? 0.0 : (double) coalescedCount / receivedCount);
+        return stats;
+    }
+
+    private void requestFlush() {
+        if (flusher != null && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushRequested.set(false);
+                    flushQuietly();
+                });
+            } catch (RuntimeException e) {
+                // Rejected during shutdown; close() flushes what is left.
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("[ReadingProgressBuffer] Flush failed, will retry: " + e.getMessage());
+        }
+    }
+
+    /** Caller holds flushLock. {@code keyPrefix} null means every key. */
+    private int drain(String keyPrefix) {
+        int total = 0;
+        List<ReadingHistory> batch = new ArrayList<>();
+        for (String key : pending.keySet()) {
+            if (keyPrefix != null && !key.startsWith(keyPrefix)) {
+                continue;
+            }
+            ReadingHistory entry = pending.remove(key);
+            if (entry == null) {
+                continue;
+            }
+            batch.add(entry);
+            if (batch.size() >= batchSize) {
+                total += write(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            total += write(batch);
+        }
+        return total;
+    }
+
+    private int write(List<ReadingHistory> batch) {
+        try {
+            int count = historyDAO.saveAll(batch);
+            batches.increment();
+            written.add(count);
+            failed.add(batch.size() - count);
+            return count;
+        } catch (RuntimeException e) {
+            // Database unavailable: keep the entries for the next attempt unless a newer
+            // position for the same pair has arrived in the meantime.
+            for (ReadingHistory entry : batch) {
+                pending.putIfAbsent(key(entry.getUserId(), entry.getMangaId()), entry);
+            }
+            throw e;
+        }
+    }
+
+    private static String key(String userId, String mangaId) {
+        return userId + "|" + mangaId;
+    }
+}
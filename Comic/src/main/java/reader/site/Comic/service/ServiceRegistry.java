@@ -0,0 +1,173 @@
+package reader.site.Comic.service;
+
+import jakarta.servlet.ServletContext;
+import reader.site.Comic.dao.BookmarkDAO;
+import reader.site.Comic.dao.ChapterImageDAO;
+import reader.site.Comic.dao.CommentDAO;
+import reader.site.Comic.dao.DashboardCounterDAO;
+import reader.site.Comic.dao.EpubBookDAO;
+import reader.site.Comic.dao.MangaChapterDAO;
+import reader.site.Comic.dao.MangaDAO;
+import reader.site.Comic.dao.PostDAO;
+import reader.site.Comic.dao.ReadingHistoryDAO;
+import reader.site.Comic.dao.RevokedTokenDAO;
+import reader.site.Comic.dao.RoleDAO;
+import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.persistence.JPAUtil;
+import reader.site.Comic.persistence.ReplicaRouter;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The application's DAOs and services, built once per deployment by
+ * {@code AppContextListener} and stored as a ServletContext attribute. Servlets take what
+ * they need in {@code init()} via {@link #from(ServletContext)} instead of building their
+ * own copies, and the default roles are seeded exactly once here.
+ *
+ * Each startup step is timed; the breakdown is logged and reported by /api/metrics.
+ */
+public final class ServiceRegistry implements AutoCloseable {
+
+    public static final String ATTRIBUTE = ServiceRegistry.class.getName();
+
+    private final Map<String, Long> startupMillis = new LinkedHashMap<>();
+
+    private final BlockingExecutor blockingExecutor;
+    private final ReplicaRouter replicaRouter;
+    private final RoleDAO roleDAO;
+    private final UserDAO userDAO;
+    private final MangaDAO mangaDAO;
+    private final MangaChapterDAO mangaChapterDAO;
+    private final ChapterImageDAO chapterImageDAO;
+    private final BookmarkDAO bookmarkDAO;
+    private final ReadingHistoryDAO readingHistoryDAO;
+    private final EpubBookDAO epubBookDAO;
+    private final PostDAO postDAO;
+    private final CommentDAO commentDAO;
+    private final DashboardCounterDAO dashboardCounterDAO;
+
+    private final TokenService tokenService;
+    private final AuthService authService;
+    private final ReadingProgressBuffer readingProgressBuffer;
+    private final DashboardCounters dashboardCounters;
+    private final CatalogReadModel catalog;
+    private final UserSearchService userSearchService;
+    private final DashboardService dashboardService;
+    private final ModerationService moderationService;
+    private final SystemSettingsService settingsService;
+
+    private ServiceRegistry(Path sessionFile) {
+        long started = System.nanoTime();
+
+        // Pool start-up and schema migrations happen when the factory is first touched.
+        time("persistence", JPAUtil::getEntityManagerFactory);
+        // First, so the background services below get their threads from it.
+        blockingExecutor = time("blockingExecutor", BlockingExecutor::startShared);
+        replicaRouter = time("replicas", ReplicaRouter::startShared);
+        roleDAO = time("roles", () -> {
+            RoleDAO dao = new RoleDAO();
+            dao.seedDefaults();
+            return dao;
+        });
+        // Reloads the session file in session mode.
+        tokenService = time("tokens", () -> TokenService.fromEnv(new RevokedTokenDAO(), roleDAO, sessionFile));
+
+        userDAO = new UserDAO(roleDAO);
+        mangaDAO = new MangaDAO();
+        mangaChapterDAO = new MangaChapterDAO();
+        chapterImageDAO = new ChapterImageDAO();
+        bookmarkDAO = new BookmarkDAO();
+        readingHistoryDAO = new ReadingHistoryDAO();
+        epubBookDAO = new EpubBookDAO();
+        postDAO = new PostDAO();
+        commentDAO = new CommentDAO();
+        dashboardCounterDAO = new DashboardCounterDAO();
+
+        authService = new AuthService(userDAO, roleDAO, tokenService);
+        readingProgressBuffer = time("readingProgressBuffer",
+                () -> ReadingProgressBuffer.startShared(readingHistoryDAO, mangaDAO));
+        dashboardCounters = time("dashboardCounters",
+                () -> DashboardCounters.startShared(userDAO, mangaDAO, dashboardCounterDAO));
+        catalog = time("catalog", () -> CatalogReadModel.startShared(mangaDAO));
+        userSearchService = time("userSearch", () -> UserSearchService.startShared(userDAO, roleDAO));
+        dashboardService = new DashboardService(dashboardCounters);
+        moderationService = new ModerationService();
+        settingsService = new SystemSettingsService();
+
+        startupMillis.put("total", (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Builds every component; called once by the context listener. */
+    public static ServiceRegistry start() {
+        return start(null);
+    }
+
+    /** Builds every component with the session file at {@code sessionFile} (null: from the env). */
+    static ServiceRegistry start(Path sessionFile) {
+        ServiceRegistry registry = new ServiceRegistry(sessionFile);
+        System.out.println("[ServiceRegistry] Started in " + registry.startupMillis.get("total")
+                + " ms " + registry.startupMillis);
+        return registry;
+    }
+
+    /** The registry of the running application. */
+    public static ServiceRegistry from(ServletContext context) {
+        ServiceRegistry registry = (ServiceRegistry) context.getAttribute(ATTRIBUTE);
+        if (registry == null) {
+            throw new IllegalStateException("ServiceRegistry has not been started");
+        }
+        return registry;
+    }
+
+    /** Milliseconds spent in each startup step, in order, plus "total". */
+    public Map<String, Long> getStartupTimings() {
+        return Collections.unmodifiableMap(startupMillis);
+    }
+
+    public BlockingExecutor getBlockingExecutor() { return blockingExecutor; }
+    public ReplicaRouter getReplicaRouter() { return replicaRouter; }
+    public RoleDAO getRoleDAO() { return roleDAO; }
+    public UserDAO getUserDAO() { return userDAO; }
+    public MangaDAO getMangaDAO() { return mangaDAO; }
+    public MangaChapterDAO getMangaChapterDAO() { return mangaChapterDAO; }
+    public ChapterImageDAO getChapterImageDAO() { return chapterImageDAO; }
+    public BookmarkDAO getBookmarkDAO() { return bookmarkDAO; }
+    public ReadingHistoryDAO getReadingHistoryDAO() { return readingHistoryDAO; }
+    public EpubBookDAO getEpubBookDAO() { return epubBookDAO; }
+    public PostDAO getPostDAO() { return postDAO; }
+    public CommentDAO getCommentDAO() { return commentDAO; }
+
+    public TokenService getTokenService() { return tokenService; }
+    public AuthService getAuthService() { return authService; }
+    public ReadingProgressBuffer getReadingProgressBuffer() { return readingProgressBuffer; }
+    public DashboardCounters getDashboardCounters() { return dashboardCounters; }
+    public CatalogReadModel getCatalog() { return catalog; }
+    public UserSearchService getUserSearchService() { return userSearchService; }
+    public DashboardService getDashboardService() { return dashboardService; }
+    public ModerationService getModerationService() { return moderationService; }
+    public SystemSettingsService getSettingsService() { return settingsService; }
+
+    /** Flushes buffered reading progress and dashboard views, then stops the background threads and replica pools;
+     * queued blocking work (downloads, emails) is given time to finish. */
+    @Override
+    public void close() {
+        ReadingProgressBuffer.shutdownShared();
+        DashboardCounters.shutdownShared();
+        CatalogReadModel.shutdownShared();
+        UserSearchService.shutdownShared();
+        tokenService.close();
+        ReplicaRouter.shutdownShared();
+        BlockingExecutor.shutdownShared();
+    }
+
+    private <T> T time(String step, Supplier<T> action) {
+        long started = System.nanoTime();
+        T result = action.get();
+        startupMillis.put(step, (System.nanoTime() - started) / 1_000_000);
+        return result;
+    }
+}
@@ -1,33 +1,174 @@
 package reader.site.Comic.service;
 
+import reader.site.Comic.dao.RevokedTokenDAO;
+import reader.site.Comic.dao.RoleDAO;
 import reader.site.Comic.model.User;
+import reader.site.Comic.model.UserRole;
+import reader.site.Comic.persistence.SessionStore;
+import reader.site.Comic.util.EnvConfig;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
-public class TokenService {
-    private static class TokenMetadata {
-        private final User user;
-        private final Instant expiresAt;
+/**
+ * Issues and resolves bearer tokens, in one of two modes (TOKEN_MODE):
+ *
+ * "session" (default): an opaque random token whose user id, role id and expiry are kept
+ * in a {@link SessionStore}, a memory-mapped file (SESSION_STORE_PATH, default
+ * comic-sessions.dat in java.io.tmpdir) that survives restarts and redeploys. Expired
+ * sessions are deleted by the store's expiry wheel, advanced every few seconds. Only the
+ * node holding the file can resolve its tokens.
+ *
+ * "signed": {@code <payload>.<HMAC-SHA256>}, both base64url, where the payload carries
+ * the user id, role id and name, expiry and a random token id. Any node holding the same
+ * TOKEN_SIGNING_KEY (at least 32 bytes) verifies it without a lookup. Logout records the
+ * token id in revoked_tokens and in a local revocation list, which every node reloads
+ * every TOKEN_REVOCATION_SYNC_MS (default 5 s), so a logout reaches the other nodes within
+ * that interval. Revocations are dropped once the token would have expired anyway.
+ *
+ * In both modes the resolved {@link User} has only its id and role set; the role is
+ * looked up once per role id and kept, as the token's snapshot used to be.
+ */
+public class TokenService implements AutoCloseable {
+    /** Absolute session lifetime. */
+    private static final long TOKEN_LIFETIME_HOURS = 12;
 
-        private TokenMetadata(User user, Instant expiresAt) {
-            this.user = user;
-            this.expiresAt = expiresAt;
+    private static final String SIGNED_VERSION = "v1";
+    private static final String HMAC = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+    private static final int TOKEN_ID_BYTES = 12;
+    private static final long SHUTDOWN_WAIT_MS = 5_000;
+    private static final long EXPIRY_TICK_MS = 5_000;
+    private static final int DEFAULT_SESSION_CAPACITY = 1 << 16;
+
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64_DECODER = Base64.getUrlDecoder();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Session mode only; null in signed mode.
+    private final SessionStore sessions;
+    private final Function<String, UserRole> roleLookup;
+    private final Map<String, UserRole> roles = new ConcurrentHashMap<>();
+
+    // Signed mode only; null in session mode.
+    private final Mac macPrototype;
+    private final RevokedTokenDAO revokedTokenDAO;
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    // Advances the session expiry wheel, or reloads revocations.
+    private final ScheduledExecutorService background;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder syncFailures = new LongAdder();
+
+    /**
+     * Session mode. With {@code background} false the expiry wheel is not advanced on its
+     * own (tests call {@link SessionStore#expireDue}); expired sessions still never resolve.
+     *
+     * @param roleLookup role by id, for the role of a resolved user
+     */
+    public TokenService(SessionStore sessions, Function<String, UserRole> roleLookup, boolean background) {
+        this.sessions = sessions;
+        this.roleLookup = roleLookup;
+        this.macPrototype = null;
+        this.revokedTokenDAO = null;
+        if (background) {
+            this.background = Executors.newSingleThreadScheduledExecutor(
+                    BlockingExecutor.threadFactory("session-expiry"));
+            this.background.scheduleWithFixedDelay(this::expireSessions, EXPIRY_TICK_MS, EXPIRY_TICK_MS,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.background = null;
         }
     }
 
-    private static final Map<String, TokenMetadata> TOKENS = new ConcurrentHashMap<>();
+    /**
+     * Signed mode. With {@code syncIntervalMs} of 0 or less the revocation list is only
+     * loaded once, here, and tests call {@link #syncRevocations()} themselves.
+     */
+    public TokenService(byte[] signingKey, RevokedTokenDAO revokedTokenDAO, long syncIntervalMs) {
+        if (signingKey == null || signingKey.length < MIN_KEY_BYTES) {
+            throw new IllegalStateException("[TokenService] TOKEN_SIGNING_KEY must be at least "
+                    + MIN_KEY_BYTES + " bytes");
+        }
+        try {
+            this.macPrototype = Mac.getInstance(HMAC);
+            this.macPrototype.init(new SecretKeySpec(signingKey, HMAC));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("[TokenService] " + HMAC + " is unavailable", e);
+        }
+        this.sessions = null;
+        this.roleLookup = null;
+        this.revokedTokenDAO = revokedTokenDAO;
+        syncRevocations();
+        if (syncIntervalMs > 0) {
+            this.background = Executors.newSingleThreadScheduledExecutor(
+                    BlockingExecutor.threadFactory("token-revocations"));
+            background.scheduleWithFixedDelay(this::syncRevocations, syncIntervalMs, syncIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.background = null;
+        }
+    }
 
-    /** Absolute session lifetime. */
-    private static final long TOKEN_LIFETIME_HOURS = 12;
+    /**
+     * The token service configured by TOKEN_MODE, TOKEN_SIGNING_KEY and
+     * TOKEN_REVOCATION_SYNC_MS, or SESSION_STORE_PATH and SESSION_STORE_CAPACITY.
+     */
+    public static TokenService fromEnv(RevokedTokenDAO revokedTokenDAO, RoleDAO roleDAO) {
+        return fromEnv(revokedTokenDAO, roleDAO, null);
+    }
+
+    /** As {@link #fromEnv(RevokedTokenDAO, RoleDAO)}, with the session file given (null: from the env). */
+    static TokenService fromEnv(RevokedTokenDAO revokedTokenDAO, RoleDAO roleDAO, Path sessionFile) {
+        String mode = EnvConfig.getOrDefault("TOKEN_MODE", "session").trim();
+        if (!"signed".equalsIgnoreCase(mode)) {
+            Path file = sessionFile != null ? sessionFile : Path.of(EnvConfig.getOrDefault("SESSION_STORE_PATH",
+                    Path.of(System.getProperty("java.io.tmpdir"), "comic-sessions.dat").toString()));
+            SessionStore store = SessionStore.open(file,
+                    EnvConfig.getInt("SESSION_STORE_CAPACITY", DEFAULT_SESSION_CAPACITY),
+                    EXPIRY_TICK_MS, System.currentTimeMillis());
+            return new TokenService(store, roleDAO::findById, true);
+        }
+        byte[] key = EnvConfig.require("TOKEN_SIGNING_KEY").getBytes(StandardCharsets.UTF_8);
+        TokenService service = new TokenService(key, revokedTokenDAO,
+                EnvConfig.getInt("TOKEN_REVOCATION_SYNC_MS", 5_000));
+        System.out.println("[TokenService] Signed tokens enabled");
+        return service;
+    }
+
+    /** True when tokens are signed (TOKEN_MODE=signed). */
+    public boolean isSigned() {
+        return macPrototype != null;
+    }
 
     public String issueToken(User user) {
-        String token = UUID.randomUUID().toString();
         Instant expiry = Instant.now().plus(TOKEN_LIFETIME_HOURS, ChronoUnit.HOURS);
-        TOKENS.put(token, new TokenMetadata(user, expiry));
+        if (isSigned()) {
+            return sign(user, expiry.getEpochSecond());
+        }
+        if (user == null || user.getId() == null) {
+            throw new IllegalArgumentException("Cannot issue a token for a user without an id");
+        }
+        String token = UUID.randomUUID().toString();
+        sessions.put(token, user.getId(), user.getRole() != null ? user.getRole().getId() : null,
+                expiry.toEpochMilli());
         return token;
     }
 
@@ -35,25 +176,208 @@ public class TokenService {
         if (token == null || token.isBlank()) {
             return null;
         }
+        if (isSigned()) {
+            return verify(token);
+        }
+
+        // [SECURITY FIX] Vuln #25: removed sliding expiration. Tokens now have a fixed
+        // absolute lifetime of 12 hours; activity no longer extends the session.
+        SessionStore.Session session = sessions.get(token, System.currentTimeMillis());
+        return session != null ? user(session.getUserId(), session.getRoleId(), null) : null;
+    }
+
+    public void invalidate(String token) {
+        if (token == null) {
+            return;
+        }
+        if (!isSigned()) {
+            sessions.remove(token);
+            return;
+        }
+        Claims claims = claims(token);
+        if (claims == null || claims.expiresAt <= Instant.now().getEpochSecond()) {
+            return; // forged, malformed or already expired: nothing to revoke
+        }
+        if (revoked.putIfAbsent(claims.tokenId, claims.expiresAt) == null) {
+            try {
+                revokedTokenDAO.revoke(claims.tokenId, claims.expiresAt);
+            } catch (RuntimeException e) {
+                // Still revoked here; other nodes accept the token until it expires.
+                System.err.println("[TokenService] Could not store revocation: " + e.getMessage());
+            }
+        }
+    }
 
-        TokenMetadata metadata = TOKENS.get(token);
-        if (metadata == null) {
+    /** Reloads the revocation list from the database and drops expired entries. */
+    public void syncRevocations() {
+        long now = Instant.now().getEpochSecond();
+        try {
+            revokedTokenDAO.purgeExpired(now);
+            revoked.putAll(revokedTokenDAO.findActive(now));
+        } catch (RuntimeException e) {
+            syncFailures.increment();
+            System.err.println("[TokenService] Revocation sync failed: " + e.getMessage());
+        }
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    /** The session store's stats, or the revocation list size, rejected tokens and failed syncs. */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", isSigned() ? "signed" : "session");
+        if (isSigned()) {
+            stats.put("revoked", revoked.size());
+            stats.put("rejected", rejected.sum());
+            stats.put("syncFailures", syncFailures.sum());
+        } else {
+            stats.put("sessionStore", sessions.stats());
+        }
+        return stats;
+    }
+
+    /** Stops the background thread; in session mode, writes the store back to its file. */
+    @Override
+    public void close() {
+        if (background != null) {
+            background.shutdown();
+            try {
+                if (!background.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                    background.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                background.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (sessions != null) {
+            sessions.close();
+        }
+    }
+
+    private void expireSessions() {
+        try {
+            sessions.expireDue(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            System.err.println("[TokenService] Session expiry failed: " + e.getMessage());
+        }
+    }
+
+    /** A user with only the id and role set. */
+    private User user(String userId, String roleId, String roleName) {
+        User user = new User();
+        user.setId(userId);
+        if (roleId != null && roleName == null && roleLookup != null) {
+            UserRole role = roles.get(roleId);
+            if (role == null) {
+                role = roleLookup.apply(roleId);
+                if (role != null) {
+                    roles.put(roleId, role);
+                }
+            }
+            if (role != null) {
+                user.setRole(role);
+                return user;
+            }
+        }
+        if (roleId != null || roleName != null) {
+            UserRole role = new UserRole();
+            role.setId(roleId);
+            role.setName(roleName);
+            user.setRole(role);
+        }
+        return user;
+    }
+
+    // ─── Signed tokens ───────────────────────────────────────────────────────
+
+    /** What a signed token carries. */
+    private static final class Claims {
+        private final String userId;
+        private final String roleId;
+        private final String roleName;
+        private final long expiresAt;
+        private final String tokenId;
+
+        private Claims(String userId, String roleId, String roleName, long expiresAt, String tokenId) {
+            this.userId = userId;
+            this.roleId = roleId;
+            this.roleName = roleName;
+            this.expiresAt = expiresAt;
+            this.tokenId = tokenId;
+        }
+    }
+
+    private String sign(User user, long expiresAt) {
+        if (user == null || user.getId() == null) {
+            throw new IllegalArgumentException("Cannot issue a token for a user without an id");
+        }
+        UserRole role = user.getRole();
+        byte[] tokenId = new byte[TOKEN_ID_BYTES];
+        RANDOM.nextBytes(tokenId);
+        // Fields are '|'-separated; ids and role names are checked not to contain it.
+        String payload = String.join("|", SIGNED_VERSION, field(user.getId()),
+                field(role != null ? role.getId() : null), field(role != null ? role.getName() : null),
+                Long.toString(expiresAt), B64.encodeToString(tokenId));
+        String encoded = B64.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encoded + "." + B64.encodeToString(mac(encoded));
+    }
+
+    private User verify(String token) {
+        Claims claims = claims(token);
+        if (claims == null || claims.expiresAt <= Instant.now().getEpochSecond()
+                || revoked.containsKey(claims.tokenId)) {
             return null;
         }
+        return user(claims.userId, claims.roleId, claims.roleName);
+    }
 
-        if (metadata.expiresAt.isBefore(Instant.now())) {
-            TOKENS.remove(token);
+    /** The claims of a correctly signed token (expired or not), or null. */
+    private Claims claims(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            rejected.increment();
+            return null;
+        }
+        String encoded = token.substring(0, dot);
+        try {
+            byte[] signature = B64_DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, mac(encoded))) {
+                rejected.increment();
+                return null;
+            }
+            String[] fields = new String(B64_DECODER.decode(encoded), StandardCharsets.UTF_8).split("\\|", -1);
+            if (fields.length != 6 || !SIGNED_VERSION.equals(fields[0]) || fields[1].isEmpty()) {
+                rejected.increment();
+                return null;
+            }
+            return new Claims(fields[1], emptyToNull(fields[2]), emptyToNull(fields[3]),
+                    Long.parseLong(fields[4]), fields[5]);
+        } catch (IllegalArgumentException e) {
+            rejected.increment();
             return null;
         }
+    }
 
-        // [SECURITY FIX] Vuln #25: removed sliding expiration. Tokens now have a fixed
-        // absolute lifetime of 12 hours; activity no longer extends the session.
-        return metadata.user;
+    private byte[] mac(String encodedPayload) {
+        try {
+            Mac mac = (Mac) macPrototype.clone();
+            return mac.doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("[TokenService] " + HMAC + " cannot be cloned", e);
+        }
     }
 
-    public void invalidate(String token) {
-        if (token != null) {
-            TOKENS.remove(token);
+    private static String field(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf('|') >= 0) {
+            throw new IllegalArgumentException("Token fields cannot contain '|'");
         }
+        return value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
     }
 }
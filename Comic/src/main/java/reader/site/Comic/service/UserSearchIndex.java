@@ -0,0 +1,239 @@
+package reader.site.Comic.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over usernames and emails, for the admin "contains" search that
+ * no B-tree index can answer.
+ *
+ * Every user becomes a document; each distinct three-character sequence of its lower-cased
+ * username and email has a posting list of document numbers. A search walks the shortest
+ * posting list of the term's trigrams and checks each candidate directly, so cost follows
+ * the number of candidates rather than the number of users. Role and status filters, the
+ * total and the newest-first page all come out of that one pass.
+ *
+ * Removing or changing a user leaves a dead document behind; {@link UserSearchService}
+ * rebuilds the index periodically, which also drops them.
+ */
+public final class UserSearchIndex {
+
+    /** Terms shorter than this have no trigram and are searched by prefix in SQL. */
+    public static final int MIN_TERM_LENGTH = 3;
+
+    private static final Comparator<Doc> NEWEST_FIRST = Comparator
+            .comparingLong((Doc d) -> d.createdAtMicros).reversed()
+            .thenComparing((Doc d) -> d.userId, Comparator.reverseOrder());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> docByUser = new HashMap<>();
+    private final List<Doc> docs = new ArrayList<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    /** Adds or replaces a user. */
+    public void put(String userId, String username, String email, String roleId, String status, Instant createdAt) {
+        Doc doc = new Doc(userId, lower(username), lower(email), roleId, lower(status), micros(createdAt));
+        lock.writeLock().lock();
+        try {
+            Integer previous = docByUser.get(userId);
+            if (previous != null) {
+                Doc old = docs.get(previous);
+                if (old.username.equals(doc.username) && old.email.equals(doc.email)) {
+                    // Same text, same postings: update the filters in place.
+                    docs.set(previous, doc);
+                    return;
+                }
+                docs.set(previous, null);
+            }
+            int number = docs.size();
+            docs.add(doc);
+            docByUser.put(userId, number);
+            long[] grams = distinctGrams(doc.username, doc.email);
+            for (long gram : grams) {
+                postings.computeIfAbsent(gram, g -> new IntList()).add(number);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String userId) {
+        lock.writeLock().lock();
+        try {
+            Integer number = docByUser.remove(userId);
+            if (number != null) {
+                docs.set(number, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Number of live users in the index. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByUser.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Users whose username or email contains {@code term}, optionally restricted to a role
+     * id and a status, newest first. {@code afterCreatedAt}/{@code afterId} (both or
+     * neither) start the page after that row; {@code skip} then skips further rows.
+     * The total counts every match, ignoring the cursor and skip.
+     */
+    public Result search(String term, String roleId, String status,
+                         Instant afterCreatedAt, String afterId, int skip, int limit) {
+        String needle = lower(term);
+        if (needle.length() < MIN_TERM_LENGTH) {
+            throw new IllegalArgumentException("Search term needs at least " + MIN_TERM_LENGTH + " characters");
+        }
+        String wantedStatus = status != null && !status.isBlank() ? lower(status) : null;
+        long afterMicros = micros(afterCreatedAt);
+        int keep = Math.max(0, skip) + Math.max(0, limit);
+
+        lock.readLock().lock();
+        try {
+            IntList candidates = shortestPosting(needle);
+            if (candidates == null) {
+                return new Result(List.of(), List.of(), 0);
+            }
+            // Max-heap on "newest first", so the oldest kept row is evicted first.
+            PriorityQueue<Doc> top = new PriorityQueue<>(Math.max(1, keep + 1), NEWEST_FIRST.reversed());
+            long total = 0;
+            for (int i = 0; i < candidates.size; i++) {
+                Doc doc = docs.get(candidates.values[i]);
+                if (doc == null
+                        || (roleId != null && !roleId.equals(doc.roleId))
+                        || (wantedStatus != null && !wantedStatus.equals(doc.status))
+                        || (!doc.username.contains(needle) && !doc.email.contains(needle))) {
+                    continue;
+                }
+                total++;
+                if (afterId != null && !isAfter(doc, afterMicros, afterId)) {
+                    continue;
+                }
+                if (keep > 0) {
+                    top.add(doc);
+                    if (top.size() > keep) {
+                        top.poll();
+                    }
+                }
+            }
+            List<Doc> ordered = new ArrayList<>(top);
+            ordered.sort(NEWEST_FIRST);
+            List<String> ids = new ArrayList<>(Math.max(0, ordered.size() - skip));
+            List<Instant> createdAts = new ArrayList<>(ids.size());
+            for (int i = Math.max(0, skip); i < ordered.size(); i++) {
+                Doc doc = ordered.get(i);
+                ids.add(doc.userId);
+                createdAts.add(Instant.ofEpochSecond(Math.floorDiv(doc.createdAtMicros, 1_000_000L),
+                        Math.floorMod(doc.createdAtMicros, 1_000_000L) * 1_000));
+            }
+            return new Result(ids, createdAts, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Ids of one page of matches with their creation times, in order, plus the number of matches overall. */
+    public static final class Result {
+        private final List<String> userIds;
+        private final List<Instant> createdAts;
+        private final long total;
+
+        Result(List<String> userIds, List<Instant> createdAts, long total) {
+            this.userIds = userIds;
+            this.createdAts = createdAts;
+            this.total = total;
+        }
+
+        public List<String> getUserIds() { return userIds; }
+        public List<Instant> getCreatedAts() { return createdAts; }
+        public long getTotal() { return total; }
+    }
+
+    private IntList shortestPosting(String needle) {
+        IntList shortest = null;
+        for (long gram : distinctGrams(needle, "")) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                return null; // a trigram nobody has: no match possible
+            }
+            if (shortest == null || list.size < shortest.size) {
+                shortest = list;
+            }
+        }
+        return shortest;
+    }
+
+    private static boolean isAfter(Doc doc, long afterMicros, String afterId) {
+        if (doc.createdAtMicros != afterMicros) {
+            return doc.createdAtMicros < afterMicros;
+        }
+        return doc.userId.compareTo(afterId) < 0;
+    }
+
+    private static long[] distinctGrams(String first, String second) {
+        long[] grams = new long[Math.max(0, first.length() - 2) + Math.max(0, second.length() - 2)];
+        int n = 0;
+        for (String text : new String[]{first, second}) {
+            for (int i = 0; i + MIN_TERM_LENGTH <= text.length(); i++) {
+                grams[n++] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+            }
+        }
+        return Arrays.stream(grams, 0, n).distinct().toArray();
+    }
+
+    // datetime(6) precision, as stored in users.created_at.
+    private static long micros(Instant instant) {
+        return instant != null ? instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000 : 0;
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Doc {
+        final String userId;
+        final String username;
+        final String email;
+        final String roleId;
+        final String status;
+        final long createdAtMicros;
+
+        Doc(String userId, String username, String email, String roleId, String status, long createdAtMicros) {
+            this.userId = userId;
+            this.username = username;
+            this.email = email;
+            this.roleId = roleId;
+            this.status = status;
+            this.createdAtMicros = createdAtMicros;
+        }
+    }
+
+    /** Growable int array; document numbers only ever grow, so each list stays sorted. */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package reader.site.Comic.service;
+
+import reader.site.Comic.dao.RoleDAO;
+import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.model.SearchPage;
+import reader.site.Comic.model.User;
+import reader.site.Comic.model.UserRole;
+import reader.site.Comic.util.EnvConfig;
+import reader.site.Comic.util.PageCursor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Admin user list and search; every call returns the page and the total together.
+ *
+ * A term of {@link UserSearchIndex#MIN_TERM_LENGTH} or more characters is a substring
+ * search, answered by the in-memory {@link UserSearchIndex}: only the ids of the page are
+ * then read from the database. No term, a shorter one, or an index that is disabled or
+ * still loading goes to {@link UserDAO}, where the term is a username/email prefix served
+ * by the generated-column indexes.
+ *
+ * The index is loaded in the background at startup, kept current by
+ * {@code UserSearchListener} as users are written, and rebuilt every
+ * USER_SEARCH_REBUILD_MS to drop removed entries and pick up other nodes' writes.
+ */
+public class UserSearchService implements AutoCloseable {
+
+    private static final int SCAN_BATCH_SIZE = 1_000;
+    private static final long SHUTDOWN_WAIT_MS = 5_000;
+
+    private static volatile UserSearchService shared;
+
+    private final UserDAO userDAO;
+    private final RoleDAO roleDAO;
+    private final ScheduledExecutorService scheduler;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final Object writes = new Object();
+    private volatile UserSearchIndex index;
+    // Writes seen while a rebuild is scanning, replayed onto the new index before it goes live.
+    private List<Consumer<UserSearchIndex>> replay;
+
+    /**
+     * With {@code indexEnabled} false every search goes to SQL. A rebuild interval of 0 or
+     * less loads nothing in the background (tests call {@link #rebuild()} themselves).
+     */
+    public UserSearchService(UserDAO userDAO, RoleDAO roleDAO, boolean indexEnabled, long rebuildIntervalMs) {
+        this.userDAO = userDAO;
+        this.roleDAO = roleDAO;
+        if (indexEnabled && rebuildIntervalMs > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    BlockingExecutor.threadFactory("user-search-index"));
+            scheduler.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /** Starts the application-wide service on the given DAOs, unless it is already running. */
+    public static UserSearchService startShared(UserDAO userDAO, RoleDAO roleDAO) {
+        UserSearchService service = shared;
+        if (service == null) {
+            synchronized (UserSearchService.class) {
+                service = shared;
+                if (service == null) {
+                    service = new UserSearchService(userDAO, roleDAO,
+                            !"false".equalsIgnoreCase(EnvConfig.getOrDefault("USER_SEARCH_INDEX", "true").trim()),
+                            EnvConfig.getInt("USER_SEARCH_REBUILD_MS", 900_000));
+                    shared = service;
+                }
+            }
+        }
+        return service;
+    }
+
+    /** The application-wide service if it has been started, else null. */
+    public static UserSearchService running() {
+        return shared;
+    }
+
+    /** Stops the application-wide service (called on undeploy). */
+    public static void shutdownShared() {
+        synchronized (UserSearchService.class) {
+            if (shared != null) {
+                shared.close();
+                shared = null;
+            }
+        }
+    }
+
+    /** Numbered page ({@code page} from 1), newest first. */
+    public SearchPage<User> search(String term, String roleName, String status, int page, int limit) {
+        int size = Math.max(limit, 1);
+        UserSearchIndex current = indexFor(term);
+        if (current == null) {
+            return userDAO.search(page, size, term, roleName, status);
+        }
+        String roleId = roleIdOf(roleName);
+        if (roleId == null && roleName != null && !roleName.isBlank()) {
+            return new SearchPage<>(new ArrayList<>(), null, size, 0);
+        }
+        UserSearchIndex.Result result = current.search(term, roleId, status, null, null,
+                (Math.max(page, 1) - 1) * size, size);
+        return new SearchPage<>(userDAO.findListByIds(result.getUserIds()), null, size, result.getTotal());
+    }
+
+    /** Keyset page, newest first; {@code after} is null for the first page. */
+    public SearchPage<User> findPage(String term, String roleName, String status, PageCursor after, int limit) {
+        UserSearchIndex current = indexFor(term);
+        if (current == null) {
+            return userDAO.findPage(after, limit, term, roleName, status);
+        }
+        String roleId = roleIdOf(roleName);
+        if (roleId == null && roleName != null && !roleName.isBlank()) {
+            return new SearchPage<>(new ArrayList<>(), null, limit, 0);
+        }
+        UserSearchIndex.Result result = current.search(term, roleId, status,
+                after != null ? after.keyAsInstant() : null, after != null ? after.getId() : null, 0, limit + 1);
+        List<String> ids = result.getUserIds();
+        String next = null;
+        if (ids.size() > limit) {
+            ids = ids.subList(0, limit);
+            next = PageCursor.of(result.getCreatedAts().get(limit - 1), ids.get(limit - 1)).encode();
+        }
+        return new SearchPage<>(userDAO.findListByIds(ids), next, limit, result.getTotal());
+    }
+
+    /** Whether substring searches are currently answered by the index. */
+    public boolean isIndexReady() {
+        return index != null;
+    }
+
+    /** Reloads the index from the users table and swaps it in. Returns the number of users indexed. */
+    public int rebuild() {
+        // Not synchronized: the scan blocks on JDBC, which would pin a virtual thread's carrier.
+        rebuildLock.lock();
+        try {
+            return rebuildLocked();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private int rebuildLocked() {
+        synchronized (writes) {
+            replay = new ArrayList<>();
+        }
+        UserSearchIndex fresh = new UserSearchIndex();
+        try {
+            userDAO.scanSearchRows(SCAN_BATCH_SIZE, fresh::put);
+        } catch (RuntimeException e) {
+            synchronized (writes) {
+                replay = null;
+            }
+            throw e;
+        }
+        synchronized (writes) {
+            for (Consumer<UserSearchIndex> write : replay) {
+                write.accept(fresh);
+            }
+            replay = null;
+            index = fresh;
+        }
+        return fresh.size();
+    }
+
+    public void userSaved(String id, String username, String email, String roleId, String status, Instant createdAt) {
+        apply(target -> target.put(id, username, email, roleId, status, createdAt));
+    }
+
+    public void userRemoved(String id) {
+        apply(target -> target.remove(id));
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            try {
+                scheduler.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void apply(Consumer<UserSearchIndex> write) {
+        synchronized (writes) {
+            UserSearchIndex current = index;
+            if (current != null) {
+                write.accept(current);
+            }
+            if (replay != null) {
+                replay.add(write);
+            }
+        }
+    }
+
+    private UserSearchIndex indexFor(String term) {
+        if (term == null || term.trim().length() < UserSearchIndex.MIN_TERM_LENGTH) {
+            return null;
+        }
+        return index;
+    }
+
+    private String roleIdOf(String roleName) {
+        if (roleName == null || roleName.isBlank()) {
+            return null;
+        }
+        UserRole role = roleDAO.findByName(roleName);
+        return role != null ? role.getId() : null;
+    }
+
+    private void rebuildQuietly() {
+        try {
+            long started = System.nanoTime();
+            int users = rebuild();
+            System.out.println("[UserSearchService] Indexed " + users + " users in "
+                    + (System.nanoTime() - started) / 1_000_000 + " ms");
+        } catch (RuntimeException e) {
+            System.err.println("[UserSearchService] Index rebuild failed, will retry: " + e.getMessage());
+        }
+    }
+}
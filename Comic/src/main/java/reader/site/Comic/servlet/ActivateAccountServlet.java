@@ -8,7 +8,6 @@ import java.io.IOException;
 
 @WebServlet("/api/auth/activate")
 public class ActivateAccountServlet extends HttpServlet {
-    private final UserDAO dao = new UserDAO();
 
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
         String token = request.getParameter("token");
@@ -0,0 +1,28 @@
+package reader.site.Comic.servlet;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import reader.site.Comic.service.ServiceRegistry;
+
+/**
+ * Creates the {@link ServiceRegistry} before any filter or servlet is initialised and
+ * closes it on undeploy, after they have all been destroyed.
+ */
+@WebListener
+public class AppContextListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        event.getServletContext().setAttribute(ServiceRegistry.ATTRIBUTE, ServiceRegistry.start());
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        Object registry = event.getServletContext().getAttribute(ServiceRegistry.ATTRIBUTE);
+        event.getServletContext().removeAttribute(ServiceRegistry.ATTRIBUTE);
+        if (registry instanceof ServiceRegistry services) {
+            services.close();
+        }
+    }
+}
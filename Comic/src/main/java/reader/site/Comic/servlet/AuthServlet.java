@@ -6,12 +6,14 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import reader.site.Comic.dao.RoleDAO;
 import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.filter.RequestContextFilter;
 import reader.site.Comic.model.AuthResponse;
 import reader.site.Comic.model.LoginRequest;
 import reader.site.Comic.model.RegisterRequest;
 import reader.site.Comic.model.User;
 import reader.site.Comic.model.UserRole;
 import reader.site.Comic.service.AuthService;
+import reader.site.Comic.service.ServiceRegistry;
 import reader.site.Comic.service.TokenService;
 import reader.site.Comic.util.EmailUtil;
 import reader.site.Comic.util.RateLimiter;
@@ -31,10 +33,11 @@ public class AuthServlet extends BaseServlet {
 
     @Override
     public void init() throws ServletException {
-        this.userDAO = new UserDAO();
-        this.roleDAO = new RoleDAO();
-        this.tokenService = new TokenService();
-        this.authService = new AuthService(userDAO, roleDAO, tokenService);
+        ServiceRegistry services = ServiceRegistry.from(getServletContext());
+        this.userDAO = services.getUserDAO();
+        this.roleDAO = services.getRoleDAO();
+        this.tokenService = services.getTokenService();
+        this.authService = services.getAuthService();
     }
 
     @Override
@@ -138,7 +141,7 @@ public class AuthServlet extends BaseServlet {
     }
 
     private void handleLogout(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        String token = extractToken(req);
+        String token = RequestContextFilter.bearerToken(req);
         if (token != null) {
             authService.invalidateToken(token);
         }
@@ -146,29 +149,25 @@ public class AuthServlet extends BaseServlet {
     }
 
     private void handleCurrentUser(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        String token = extractToken(req);
-        if (token == null) {
+        if (RequestContextFilter.bearerToken(req) == null) {
             writeError(resp, HttpServletResponse.SC_UNAUTHORIZED, "Missing token");
             return;
         }
 
-        User user = authService.resolveToken(token);
+        User user = RequestContextFilter.currentUser(req);
         if (user == null) {
             writeError(resp, HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired token");
             return;
         }
 
-        writeJson(resp, user);
-    }
-
-    private String extractToken(HttpServletRequest req) {
-        // [SECURITY FIX] Vuln #24: tokens are only accepted via the Authorization header.
-        // Query-param tokens leak into URLs, server logs, and Referer headers.
-        String header = req.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            return header.substring(7);
+        // A token only resolves to the id and role; the profile comes from the database.
+        user = userDAO.findById(user.getId()).orElse(null);
+        if (user == null) {
+            writeError(resp, HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired token");
+            return;
         }
-        return null;
+
+        writeJson(resp, user);
     }
 
     private static class MessageResponse {
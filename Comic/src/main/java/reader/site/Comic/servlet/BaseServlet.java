@@ -2,8 +2,12 @@ package reader.site.Comic.servlet;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import reader.site.Comic.util.GsonUtil;
+import reader.site.Comic.util.JsonOutput;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -21,10 +25,14 @@ import java.nio.charset.StandardCharsets;
 public abstract class BaseServlet extends HttpServlet {
     // [SECURITY FIX] Vuln #18: Removed disableHtmlEscaping() — Gson now escapes
     // HTML special characters (<, >, &, ", ') in JSON output, adding a layer of XSS defense.
-    protected static final Gson GSON = new GsonBuilder()
-            .setPrettyPrinting()
+    // Compact: indentation is only added per request with ?pretty (see JsonOutput).
+    // Models go through the hand-written adapters registered in GsonUtil, not reflection.
+    protected static final Gson GSON = GsonUtil.withModelAdapters(new GsonBuilder())
             .create();
 
+    // Whether the request being served asked for ?pretty; writeJson has no request to look at.
+    private static final ThreadLocal<Boolean> PRETTY = new ThreadLocal<>();
+
     /**
      * Kept for compatibility with existing call sites. CORS headers are set by the
      * global CorsFilter; emitting them here previously produced a wildcard origin.
@@ -33,21 +41,40 @@ public abstract class BaseServlet extends HttpServlet {
         // Intentionally empty — see class javadoc (CorsFilter owns CORS).
     }
 
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        PRETTY.set(JsonOutput.wantsPretty(req));
+        try {
+            super.service(req, resp);
+        } finally {
+            PRETTY.remove();
+        }
+    }
+
     @Override
     protected void doOptions(jakarta.servlet.http.HttpServletRequest req, HttpServletResponse resp) throws IOException {
         resp.setStatus(HttpServletResponse.SC_OK);
     }
 
+    /**
+     * Keyset paging is opt-in so existing clients keep working: list endpoints answer with a
+     * {@link reader.site.Comic.model.CursorPage} when the request carries ?limit= or ?cursor=,
+     * and with the plain array otherwise.
+     */
+    protected static boolean isPageRequest(jakarta.servlet.http.HttpServletRequest req) {
+        return req.getParameter("limit") != null || req.getParameter("cursor") != null;
+    }
+
     protected void writeJson(HttpServletResponse resp, Object payload) throws IOException {
         try {
-            resp.setContentType("application/json");
-            resp.setCharacterEncoding("UTF-8");
-            String json = GSON.toJson(payload);
-            resp.getWriter().write(json);
-            resp.getWriter().flush(); // đảm bảo ghi xong
+            JsonOutput.write(resp, GSON, payload, isPretty());
         } catch (Exception e) {
             // [SECURITY FIX] Vuln #16: log details server-side only; return a generic error.
             System.err.println("[BaseServlet] Failed to write JSON: " + e);
+            if (resp.isCommitted()) {
+                return; // part of the body is already out; nothing valid can follow it
+            }
+            resp.resetBuffer();
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             resp.getWriter().write("{\"error\":\"Internal server error\"}");
         }
@@ -55,9 +82,12 @@ public abstract class BaseServlet extends HttpServlet {
 
     protected void writeError(HttpServletResponse resp, int status, String message) throws IOException {
         resp.setStatus(status);
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
-        resp.getWriter().write(GSON.toJson(new ErrorResponse(message)));
+        JsonOutput.write(resp, GSON, new ErrorResponse(message), isPretty());
+    }
+
+    /** Whether the request being served on this thread asked for indented JSON. */
+    protected static boolean isPretty() {
+        return Boolean.TRUE.equals(PRETTY.get());
     }
 
     protected <T> T readJson(HttpServletResponse resp, Reader bodyReader, Class<T> clazz) throws IOException {
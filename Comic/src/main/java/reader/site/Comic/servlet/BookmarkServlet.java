@@ -8,22 +8,20 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import reader.site.Comic.dao.BookmarkDAO;
-import reader.site.Comic.dao.RoleDAO;
-import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.filter.RequestContextFilter;
 import reader.site.Comic.model.Bookmark;
+import reader.site.Comic.model.CursorPage;
 import reader.site.Comic.model.User;
-import reader.site.Comic.service.AuthService;
-import reader.site.Comic.service.TokenService;
+import reader.site.Comic.service.ServiceRegistry;
+import reader.site.Comic.util.PageCursor;
 
 @WebServlet("/api/bookmarks/*")
 public class BookmarkServlet extends BaseServlet {
     private BookmarkDAO bookmarkDAO;
-    private AuthService authService;
 
     @Override
     public void init() throws ServletException {
-        bookmarkDAO = new BookmarkDAO();
-        authService = new AuthService(new UserDAO(), new RoleDAO(), new TokenService());
+        bookmarkDAO = ServiceRegistry.from(getServletContext()).getBookmarkDAO();
     }
 
     @Override
@@ -37,6 +35,19 @@ public class BookmarkServlet extends BaseServlet {
         }
 
         try {
+            if (isPageRequest(req)) {
+                CursorPage<Bookmark> page;
+                try {
+                    page = bookmarkDAO.findPageByUserId(user.getId(),
+                            PageCursor.decode(req.getParameter("cursor")),
+                            PageCursor.parseLimit(req.getParameter("limit")));
+                } catch (IllegalArgumentException ex) {
+                    writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor");
+                    return;
+                }
+                writeJson(resp, page);
+                return;
+            }
             List<Bookmark> bookmarks = bookmarkDAO.findByUserId(user.getId());
             writeJson(resp, bookmarks);
         } catch (Exception ex) {
@@ -110,10 +121,6 @@ public class BookmarkServlet extends BaseServlet {
     }
 
     private User getAuthenticatedUser(HttpServletRequest req) {
-        String header = req.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            header = header.substring(7);
-        }
-        return authService.resolveToken(header);
+        return RequestContextFilter.currentUser(req);
     }
 }
@@ -6,6 +6,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import reader.site.Comic.dao.ChapterImageDAO;
 import reader.site.Comic.model.ChapterImage;
+import reader.site.Comic.service.ServiceRegistry;
+import reader.site.Comic.util.ConditionalGet;
 
 import java.io.IOException;
 import java.util.List;
@@ -16,7 +18,7 @@ public class ChapterImageServlet extends BaseServlet {
 
     @Override
     public void init() throws ServletException {
-        dao = new ChapterImageDAO();
+        dao = ServiceRegistry.from(getServletContext()).getChapterImageDAO();
         System.out.println("✅ ChapterImageServlet initialized");
     }
 
@@ -35,7 +37,14 @@ public class ChapterImageServlet extends BaseServlet {
         try {
             String chapterName = "Chapter" + chapterId;
             List<ChapterImage> images = dao.findByMangaAndChapter(mangaId, chapterName);
-            writeJson(resp, images);
+            // chapter_images has no timestamps, so the ETag is over the list itself.
+            ConditionalGet.Hasher version = ConditionalGet.hasher().add(images.size());
+            for (ChapterImage image : images) {
+                version.add(image.getUrl()).add(image.getOrder());
+            }
+            if (!ConditionalGet.answer(req, resp, ConditionalGet.CHAPTER_IMAGES, version.toEtag(), null)) {
+                writeJson(resp, images);
+            }
         } catch (Exception e) {
             e.printStackTrace();
             writeError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error fetching chapter images");
@@ -6,13 +6,11 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import reader.site.Comic.dao.CommentDAO;
 import reader.site.Comic.dao.PostDAO;
-import reader.site.Comic.dao.RoleDAO;
-import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.filter.RequestContextFilter;
 import reader.site.Comic.model.Comment;
 import reader.site.Comic.model.Post;
 import reader.site.Comic.model.User;
-import reader.site.Comic.service.AuthService;
-import reader.site.Comic.service.TokenService;
+import reader.site.Comic.service.ServiceRegistry;
 import reader.site.Comic.util.JsonUtil;
 
 import java.io.IOException;
@@ -25,13 +23,12 @@ public class CommentApiServlet extends BaseServlet {
 
     private CommentDAO commentDAO;
     private PostDAO postDAO;
-    private AuthService authService;
 
     @Override
     public void init() throws ServletException {
-        commentDAO = new CommentDAO();
-        postDAO = new PostDAO();
-        authService = new AuthService(new UserDAO(), new RoleDAO(), new TokenService());
+        ServiceRegistry services = ServiceRegistry.from(getServletContext());
+        commentDAO = services.getCommentDAO();
+        postDAO = services.getPostDAO();
     }
 
     @Override
@@ -82,11 +79,7 @@ public class CommentApiServlet extends BaseServlet {
 
     // ===== Helpers =====
     private User getAuthenticatedUser(HttpServletRequest req) {
-        String header = req.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            header = header.substring(7);
-        }
-        return authService.resolveToken(header);
+        return RequestContextFilter.currentUser(req);
     }
 
     private static boolean isBlank(String s) { return s == null || s.isBlank(); }
@@ -4,15 +4,12 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import reader.site.Comic.dao.MangaDAO;
-import reader.site.Comic.dao.RoleDAO;
-import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.filter.RequestContextFilter;
 import reader.site.Comic.model.ActivityItem;
 import reader.site.Comic.model.DashboardStats;
 import reader.site.Comic.model.User;
-import reader.site.Comic.service.AuthService;
 import reader.site.Comic.service.DashboardService;
-import reader.site.Comic.service.TokenService;
+import reader.site.Comic.service.ServiceRegistry;
 
 import java.io.IOException;
 import java.util.List;
@@ -20,16 +17,10 @@ import java.util.List;
 @WebServlet(name = "DashboardServlet", urlPatterns = "/api/dashboard/*")
 public class DashboardServlet extends BaseServlet {
     private DashboardService dashboardService;
-    private AuthService authService;
 
     @Override
     public void init() throws ServletException {
-        UserDAO userDAO = new UserDAO();
-        MangaDAO mangaDAO = new MangaDAO();
-        RoleDAO roleDAO = new RoleDAO();
-        TokenService tokenService = new TokenService();
-        this.dashboardService = new DashboardService(userDAO, mangaDAO);
-        this.authService = new AuthService(userDAO, roleDAO, tokenService);
+        this.dashboardService = ServiceRegistry.from(getServletContext()).getDashboardService();
     }
 
     @Override
@@ -72,11 +63,7 @@ public class DashboardServlet extends BaseServlet {
     }
 
     private boolean isAuthorised(HttpServletRequest req) {
-        String token = req.getHeader("Authorization");
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);
-        }
-        User user = authService.resolveToken(token);
+        User user = RequestContextFilter.currentUser(req);
         // [SECURITY FIX] Vuln #10: Must be logged in AND have the admin role.
         // RoleDAO seeds role name "admin" (id "role-admin"), so compare on the name.
         if (user == null) return false;
@@ -2,6 +2,9 @@ package reader.site.Comic.servlet;
 
 import com.azure.storage.blob.BlobClient;
 import com.google.gson.*;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.MultipartConfig;
 import jakarta.servlet.annotation.WebServlet;
@@ -9,21 +12,25 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.Part;
 import reader.site.Comic.dao.EpubBookDAO;
-import reader.site.Comic.dao.RoleDAO;
-import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.filter.RequestContextFilter;
+import reader.site.Comic.model.CursorPage;
 import reader.site.Comic.model.EpubBook;
 import reader.site.Comic.model.User;
-import reader.site.Comic.service.AuthService;
 import reader.site.Comic.service.AzureBlobUploader;
-import reader.site.Comic.service.TokenService;
+import reader.site.Comic.service.BlockingExecutor;
+import reader.site.Comic.service.ServiceRegistry;
+import reader.site.Comic.util.JsonOutput;
+import reader.site.Comic.util.PageCursor;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * EPUB endpoints.
@@ -34,7 +41,7 @@ import java.util.UUID;
  *  - POST /api/epub               → userId is taken from the token, uploads validated
  *  - DELETE /api/epub/<id>        → only the owner (or an admin) can delete
  */
-@WebServlet("/api/epub/*")
+@WebServlet(urlPatterns = "/api/epub/*", asyncSupported = true)
 @MultipartConfig(
         fileSizeThreshold = 1024 * 1024 * 10,
         maxFileSize = 1024L * 1024 * 50,      // [SECURITY] 50 MB per file
@@ -42,7 +49,9 @@ import java.util.UUID;
 public class EpubServlet extends BaseServlet {
     private EpubBookDAO epubDAO;
     private AzureBlobUploader blobUploader;
-    private AuthService authService;
+    private BlockingExecutor blockingExecutor;
+
+    private static final long DOWNLOAD_TIMEOUT_MS = 10 * 60 * 1000L;
 
     // Adapter cho LocalDateTime
     private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
@@ -57,9 +66,10 @@ public class EpubServlet extends BaseServlet {
     @Override
     public void init() throws ServletException {
         try {
-            epubDAO = new EpubBookDAO();
+            ServiceRegistry services = ServiceRegistry.from(getServletContext());
+            epubDAO = services.getEpubBookDAO();
+            blockingExecutor = services.getBlockingExecutor();
             blobUploader = new AzureBlobUploader(); // Khởi tạo Blob Uploader
-            authService = new AuthService(new UserDAO(), new RoleDAO(), new TokenService());
             System.out.println("EpubServlet initialized successfully with Azure Blob.");
         } catch (Exception e) {
             System.err.println("Failed to initialize EpubServlet/Database/Azure: " + e.getMessage());
@@ -69,19 +79,14 @@ public class EpubServlet extends BaseServlet {
 
     private void sendJsonResponse(HttpServletResponse resp, int status, Object data) throws IOException {
         resp.setStatus(status);
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
         setCorsHeaders(resp);
-        resp.getWriter().write(gson.toJson(data));
+        JsonOutput.write(resp, gson, data, isPretty());
     }
 
     private void sendErrorResponse(HttpServletResponse resp, int status, String message) throws IOException {
         resp.setStatus(status);
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
         setCorsHeaders(resp);
-        String errorJson = gson.toJson(new ErrorResponse(message));
-        resp.getWriter().write(errorJson);
+        JsonOutput.write(resp, gson, new ErrorResponse(message), isPretty());
     }
 
     // Helper class
@@ -125,27 +130,17 @@ public class EpubServlet extends BaseServlet {
                     return;
                 }
 
-                // Lấy BlobClient từ tên blob đã lưu
-                BlobClient blobClient = blobUploader.getBlobClient(book.getBlobName());
-
-                if (!blobClient.exists()) {
-                    sendErrorResponse(resp, HttpServletResponse.SC_NOT_FOUND, "File not found on Azure Blob");
-                    return;
-                }
-
-                // Thiết lập header và stream từ Azure
-                resp.setContentType("application/epub+zip");
-                // [SECURITY FIX] Vuln #23: sanitize filename to prevent header injection
-                String safeName = sanitizeFileName(book.getFileName());
-                resp.setHeader("Content-Disposition", "attachment; filename=\"" + safeName + "\"");
-                resp.setContentLengthLong(blobClient.getProperties().getBlobSize());
-
-                // Hỗ trợ Range Requests là TỐT NHẤT cho epubjs
-                resp.setHeader("Accept-Ranges", "bytes");
-
-                try (var out = resp.getOutputStream()) {
-                    blobClient.download(out); // Stream trực tiếp từ Azure ra response
-                    out.flush();
+                // The Azure calls can be slow; stream on the blocking executor so this
+                // request thread goes back to Tomcat for catalog traffic meanwhile.
+                AsyncContext async = req.startAsync();
+                async.setTimeout(DOWNLOAD_TIMEOUT_MS);
+                Download download = new Download(async);
+                async.addListener(download);
+                if (!blockingExecutor.tryExecute(() -> streamBook(download, book))) {
+                    resp.setHeader("Retry-After", "5");
+                    sendErrorResponse(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                            "Too many downloads, try again shortly");
+                    download.finish();
                 }
             } catch (NumberFormatException e) {
                 sendErrorResponse(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid book ID format.");
@@ -169,6 +164,19 @@ public class EpubServlet extends BaseServlet {
             }
 
             try {
+                if (isPageRequest(req)) {
+                    CursorPage<EpubBook> page;
+                    try {
+                        page = epubDAO.findPageByUserId(userId,
+                                PageCursor.decode(req.getParameter("cursor")),
+                                PageCursor.parseLimit(req.getParameter("limit")));
+                    } catch (IllegalArgumentException e) {
+                        sendErrorResponse(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor");
+                        return;
+                    }
+                    sendJsonResponse(resp, HttpServletResponse.SC_OK, page);
+                    return;
+                }
                 List<EpubBook> books = epubDAO.findAllByUserId(userId);
                 sendJsonResponse(resp, HttpServletResponse.SC_OK, books);
             } catch (Exception e) {
@@ -182,6 +190,128 @@ public class EpubServlet extends BaseServlet {
     }
 
 
+    private void streamBook(Download download, EpubBook book) {
+        HttpServletResponse resp = download.response;
+        try {
+            // Lấy BlobClient từ tên blob đã lưu
+            BlobClient blobClient = blobUploader.getBlobClient(book.getBlobName());
+
+            if (download.isOver()) {
+                return;
+            }
+            if (!blobClient.exists()) {
+                sendErrorResponse(resp, HttpServletResponse.SC_NOT_FOUND, "File not found on Azure Blob");
+                return;
+            }
+
+            // Thiết lập header và stream từ Azure
+            resp.setContentType("application/epub+zip");
+            // [SECURITY FIX] Vuln #23: sanitize filename to prevent header injection
+            String safeName = sanitizeFileName(book.getFileName());
+            resp.setHeader("Content-Disposition", "attachment; filename=\"" + safeName + "\"");
+            resp.setContentLengthLong(blobClient.getProperties().getBlobSize());
+
+            // Hỗ trợ Range Requests là TỐT NHẤT cho epubjs
+            resp.setHeader("Accept-Ranges", "bytes");
+
+            OutputStream out = download.body(resp.getOutputStream());
+            blobClient.download(out); // Stream trực tiếp từ Azure ra response
+            out.flush();
+        } catch (Exception e) {
+            if (download.isOver()) {
+                System.err.println("Download of book " + book.getId() + " timed out or failed; stopped streaming");
+                return;
+            }
+            System.err.println("Error streaming book " + book.getId() + ": " + e.getMessage());
+            if (!resp.isCommitted()) {
+                try {
+                    sendErrorResponse(resp, HttpServletResponse.SC_BAD_GATEWAY, "Could not read the file from storage");
+                } catch (IOException ignored) {
+                    // client went away
+                }
+            }
+        } finally {
+            download.finish();
+        }
+    }
+
+    /**
+     * One download's async request. Once the container times it out or it fails (the
+     * client went away), the response and AsyncContext belong to the container again: the
+     * body stream stops taking bytes and {@link #finish} no longer calls complete(), which
+     * would throw. AdmissionFilter's own listener gives the download slot back either way.
+     */
+    static final class Download implements AsyncListener {
+        private final AsyncContext async;
+        final HttpServletResponse response;
+        private final AtomicBoolean over = new AtomicBoolean();
+
+        Download(AsyncContext async) {
+            this.async = async;
+            this.response = (HttpServletResponse) async.getResponse();
+        }
+
+        /** True once the request ended, by {@link #finish} or by the container. */
+        boolean isOver() {
+            return over.get();
+        }
+
+        /** Completes the request unless the container already ended it. */
+        void finish() {
+            if (over.compareAndSet(false, true)) {
+                async.complete();
+            }
+        }
+
+        /** {@code out}, failing every write once the request is over. */
+        OutputStream body(OutputStream out) {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    check();
+                    out.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    check();
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    check();
+                    out.flush();
+                }
+
+                private void check() throws IOException {
+                    if (over.get()) {
+                        throw new IOException("download ended by the container");
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            over.set(true);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            over.set(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            over.set(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
     // --- POST: Tải lên sách mới lên Azure ---
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
@@ -306,11 +436,7 @@ public class EpubServlet extends BaseServlet {
     // ===== Helpers =====
 
     private User getAuthenticatedUser(HttpServletRequest req) {
-        String header = req.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            header = header.substring(7);
-        }
-        return authService.resolveToken(header);
+        return RequestContextFilter.currentUser(req);
     }
 
     /** Owner of the resource, or an admin, may access it. */
@@ -6,18 +6,24 @@ import jakarta.servlet.ServletException;
 import java.io.IOException;
 
 import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.service.ServiceRegistry;
 import reader.site.Comic.util.EmailUtil;
 import reader.site.Comic.util.RateLimiter;
 
 @WebServlet("/api/auth/forgot-password")
 public class ForgotPasswordServlet extends HttpServlet {
 
-    private final UserDAO userDAO = new UserDAO();
+    private UserDAO userDAO;
 
     /** Forgot-password throttle: 5 attempts per 15 minutes per IP. */
     private static final int MAX_ATTEMPTS = 5;
     private static final long WINDOW_MILLIS = 15 * 60 * 1000L;
 
+    @Override
+    public void init() throws ServletException {
+        userDAO = ServiceRegistry.from(getServletContext()).getUserDAO();
+    }
+
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse res)
             throws IOException, ServletException {
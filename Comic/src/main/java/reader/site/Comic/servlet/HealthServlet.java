@@ -1,20 +1,27 @@
 package reader.site.Comic.servlet;
 
+import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import reader.site.Comic.dao.MangaDAO;
+import reader.site.Comic.service.ServiceRegistry;
 
 import java.io.IOException;
 
 @WebServlet(name = "HealthServlet", urlPatterns = "/api/health")
 public class HealthServlet extends BaseServlet {
-    private final MangaDAO mangaDAO = new MangaDAO();
+    private MangaDAO mangaDAO;
+
+    @Override
+    public void init() throws ServletException {
+        mangaDAO = ServiceRegistry.from(getServletContext()).getMangaDAO();
+    }
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         try {
-            mangaDAO.findAll();
+            mangaDAO.findAllSummaries();
             writeJson(resp, new HealthResponse("ok", "Database connection successful"));
         } catch (Exception ex) {
             writeJson(resp, new HealthResponse("degraded", "Database not reachable: " + ex.getMessage()));
@@ -5,25 +5,26 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import reader.site.Comic.dao.MangaChapterDAO;
-import reader.site.Comic.dao.RoleDAO;
-import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.filter.RequestContextFilter;
 import reader.site.Comic.model.MangaChapter;
 import reader.site.Comic.model.User;
-import reader.site.Comic.service.AuthService;
-import reader.site.Comic.service.TokenService;
+import reader.site.Comic.service.ServiceRegistry;
+import reader.site.Comic.util.ConditionalGet;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @WebServlet("/api/manga-chapters/*")
 public class MangaChapterServlet extends BaseServlet {
     private transient MangaChapterDAO chapterDAO;
-    private transient AuthService authService;
 
     @Override
     public void init() throws ServletException {
-        chapterDAO = new MangaChapterDAO();
-        authService = new AuthService(new UserDAO(), new RoleDAO(), new TokenService());
+        chapterDAO = ServiceRegistry.from(getServletContext()).getMangaChapterDAO();
     }
 
     @Override
@@ -45,7 +46,15 @@ public class MangaChapterServlet extends BaseServlet {
                 }
 
                 List<MangaChapter> chapters = chapterDAO.findByMangaId(mangaIdParam);
-                writeJson(resp, chapters);
+                // updated_at covers edits and the ids cover inserts and deletes; no single
+                // timestamp covers a delete, so the list has no Last-Modified.
+                ConditionalGet.Hasher version = ConditionalGet.hasher().add(chapters.size());
+                for (MangaChapter chapter : chapters) {
+                    version.add(chapter.getId()).add(chapter.getUpdatedAt());
+                }
+                if (!ConditionalGet.answer(req, resp, ConditionalGet.CHAPTERS, version.toEtag(), null)) {
+                    writeJson(resp, chapters);
+                }
                 return;
             }
 
@@ -55,7 +64,10 @@ public class MangaChapterServlet extends BaseServlet {
                 writeError(resp, HttpServletResponse.SC_NOT_FOUND, "Chapter not found");
                 return;
             }
-            writeJson(resp, chapter);
+            String etag = ConditionalGet.hasher().add(chapter.getId()).add(chapter.getUpdatedAt()).toEtag();
+            if (!ConditionalGet.answer(req, resp, ConditionalGet.CHAPTERS, etag, lastModified(chapter))) {
+                writeJson(resp, chapter);
+            }
         } catch (Exception ex) {
             ex.printStackTrace();
             writeError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error fetching chapters");
@@ -153,6 +165,18 @@ public class MangaChapterServlet extends BaseServlet {
         }
     }
 
+    // updated_at is written in the server's zone (see MangaChapterEntity).
+    private static Instant lastModified(MangaChapter chapter) {
+        if (chapter.getUpdatedAt() == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(chapter.getUpdatedAt()).atZone(ZoneId.systemDefault()).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
     private boolean isValidPayload(MangaChapter chapter) {
         return chapter.getMangaId() != null
                 && !chapter.getMangaId().isBlank()
@@ -162,11 +186,7 @@ public class MangaChapterServlet extends BaseServlet {
     }
 
     private boolean isEditor(HttpServletRequest req) {
-        String header = req.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            header = header.substring(7);
-        }
-        User user = authService.resolveToken(header);
+        User user = RequestContextFilter.currentUser(req);
         if (user == null || user.getRole() == null) {
             return false;
         }
@@ -5,12 +5,16 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import reader.site.Comic.dao.MangaDAO;
-import reader.site.Comic.dao.RoleDAO;
-import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.filter.RequestContextFilter;
+import reader.site.Comic.model.CursorPage;
 import reader.site.Comic.model.Manga;
 import reader.site.Comic.model.User;
-import reader.site.Comic.service.AuthService;
-import reader.site.Comic.service.TokenService;
+import reader.site.Comic.service.CatalogReadModel;
+import reader.site.Comic.service.CatalogSnapshot;
+import reader.site.Comic.service.DashboardCounters;
+import reader.site.Comic.service.ServiceRegistry;
+import reader.site.Comic.util.ConditionalGet;
+import reader.site.Comic.util.PageCursor;
 
 import java.io.IOException;
 import java.util.List;
@@ -18,13 +22,16 @@ import java.util.List;
 @WebServlet("/api/manga/*")
 public class MangaServlet extends BaseServlet {
     private MangaDAO mangaDAO;
-    private AuthService authService;
+    private DashboardCounters dashboardCounters;
+    private CatalogReadModel catalog;
 
     @Override
     public void init() throws ServletException {
         try {
-            mangaDAO = new MangaDAO();
-            authService = new AuthService(new UserDAO(), new RoleDAO(), new TokenService());
+            ServiceRegistry services = ServiceRegistry.from(getServletContext());
+            mangaDAO = services.getMangaDAO();
+            dashboardCounters = services.getDashboardCounters();
+            catalog = services.getCatalog();
             System.out.println("MangaServlet initialized successfully (MySQL)");
         } catch (Exception e) {
             throw new ServletException("Database connection failed", e);
@@ -48,16 +55,49 @@ public class MangaServlet extends BaseServlet {
         System.out.println("GET request - PathInfo: " + pathInfo);
 
         try {
+            // Served from memory; null while a write is not in the snapshot yet.
+            CatalogSnapshot snapshot = catalog.current();
             if (pathInfo == null || pathInfo.equals("/")) {
-                List<Manga> mangas = mangaDAO.findAll();
-                writeJson(response, mangas);
+                // ?view=summary: grid rows (id, title, cover) without the chapter lists.
+                boolean summary = "summary".equalsIgnoreCase(request.getParameter("view"));
+                if (isPageRequest(request)) {
+                    writePage(request, response, summary, snapshot);
+                    return;
+                }
+                if (summary) {
+                    if (snapshot == null) {
+                        // Summary rows have no chapter lists to version; skip validators until the snapshot is back.
+                        writeJson(response, mangaDAO.findAllSummaries());
+                    } else if (!answered(request, response, ConditionalGet.hasher()
+                            .add("summaries").add(snapshot.version()))) {
+                        writeJson(response, snapshot.summaries());
+                    }
+                    return;
+                }
+                List<Manga> mangas;
+                long version;
+                if (snapshot != null) {
+                    version = snapshot.version();
+                    mangas = null;
+                } else {
+                    mangas = mangaDAO.findAll();
+                    version = CatalogSnapshot.version(mangas.stream().mapToLong(CatalogSnapshot::version).toArray());
+                }
+                if (answered(request, response, ConditionalGet.hasher().add("all").add(version))) {
+                    return;
+                }
+                writeJson(response, mangas != null ? mangas : snapshot.mangas());
                 return;
             }
 
             String id = pathInfo.substring(1);
-            Manga manga = mangaDAO.findById(id);
+            Manga manga = snapshot != null ? snapshot.find(id) : mangaDAO.findById(id);
             if (manga != null) {
-                writeJson(response, manga);
+                dashboardCounters.mangaViewed();
+                long version = snapshot != null ? snapshot.version(id) : CatalogSnapshot.version(manga);
+                if (!answered(request, response, ConditionalGet.hasher().add("manga").add(version))) {
+                    writeJson(response, manga);
+                }
             } else {
                 writeError(response, HttpServletResponse.SC_NOT_FOUND, "Manga not found");
             }
@@ -67,6 +107,36 @@ public class MangaServlet extends BaseServlet {
         }
     }
 
+    private void writePage(HttpServletRequest request, HttpServletResponse response, boolean summary,
+                           CatalogSnapshot snapshot) throws IOException {
+        CursorPage<?> page;
+        try {
+            PageCursor after = PageCursor.decode(request.getParameter("cursor"));
+            int limit = PageCursor.parseLimit(request.getParameter("limit"));
+            if (snapshot != null) {
+                Long afterId = after != null ? after.idAsLong() : null;
+                // The page is a function of the catalog version and the request.
+                if (answered(request, response, ConditionalGet.hasher().add(summary ? "summary-page" : "page")
+                        .add(afterId != null ? afterId : -1).add(limit).add(snapshot.version()))) {
+                    return;
+                }
+                page = summary ? snapshot.summaryPage(afterId, limit) : snapshot.page(afterId, limit);
+            } else {
+                page = summary ? mangaDAO.findSummaryPage(after, limit) : mangaDAO.findPage(after, limit);
+            }
+        } catch (IllegalArgumentException e) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor");
+            return;
+        }
+        writeJson(response, page);
+    }
+
+    /** Sets the catalog validators for this representation; true when that already answered the request. */
+    private static boolean answered(HttpServletRequest request, HttpServletResponse response,
+                                       ConditionalGet.Hasher representation) throws IOException {
+        return ConditionalGet.answer(request, response, ConditionalGet.CATALOG, representation.toEtag(), null);
+    }
+
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         if (!isEditor(req)) {
@@ -154,11 +224,7 @@ public class MangaServlet extends BaseServlet {
     }
 
     private boolean isEditor(HttpServletRequest req) {
-        String header = req.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            header = header.substring(7);
-        }
-        User user = authService.resolveToken(header);
+        User user = RequestContextFilter.currentUser(req);
         if (user == null || user.getRole() == null) {
             return false;
         }
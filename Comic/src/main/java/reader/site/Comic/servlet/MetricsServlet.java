@@ -0,0 +1,61 @@
+package reader.site.Comic.servlet;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import reader.site.Comic.filter.AdmissionFilter;
+import reader.site.Comic.filter.CompressionFilter;
+import reader.site.Comic.filter.RequestContextFilter;
+import reader.site.Comic.model.User;
+import reader.site.Comic.persistence.CatalogCache;
+import reader.site.Comic.persistence.ConnectionPool;
+import reader.site.Comic.service.ServiceRegistry;
+import reader.site.Comic.util.ConditionalGet;
+import reader.site.Comic.util.RateLimiter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Operational metrics for sizing the backend (admin only).
+ * GET /api/metrics → one JSON object, one section per instrumented component.
+ */
+@WebServlet(name = "MetricsServlet", urlPatterns = "/api/metrics")
+public class MetricsServlet extends BaseServlet {
+    private ServiceRegistry services;
+
+    @Override
+    public void init() throws ServletException {
+        this.services = ServiceRegistry.from(getServletContext());
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (!isAuthorised(req)) {
+            writeError(resp, HttpServletResponse.SC_UNAUTHORIZED, "Not authorised");
+            return;
+        }
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("connectionPool", ConnectionPool.stats());
+        metrics.put("readReplicas", services.getReplicaRouter().stats());
+        metrics.put("blockingExecutor", services.getBlockingExecutor().stats());
+        metrics.put("secondLevelCache", CatalogCache.stats());
+        metrics.put("catalogSnapshot", services.getCatalog().stats());
+        metrics.put("notModified", ConditionalGet.stats());
+        metrics.put("compression", CompressionFilter.stats());
+        metrics.put("readingProgressBuffer", services.getReadingProgressBuffer().stats());
+        metrics.put("tokens", services.getTokenService().stats());
+        metrics.put("rateLimiter", RateLimiter.stats());
+        metrics.put("admission", AdmissionFilter.stats());
+        metrics.put("startupMillis", services.getStartupTimings());
+        writeJson(resp, metrics);
+    }
+
+    private boolean isAuthorised(HttpServletRequest req) {
+        User user = RequestContextFilter.currentUser(req);
+        return user != null && user.getRole() != null && "admin".equalsIgnoreCase(user.getRole().getName());
+    }
+}
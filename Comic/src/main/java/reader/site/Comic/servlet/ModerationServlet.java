@@ -4,25 +4,21 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import reader.site.Comic.dao.RoleDAO;
-import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.filter.RequestContextFilter;
 import reader.site.Comic.model.ModerationSubmission;
 import reader.site.Comic.model.User;
-import reader.site.Comic.service.AuthService;
 import reader.site.Comic.service.ModerationService;
-import reader.site.Comic.service.TokenService;
+import reader.site.Comic.service.ServiceRegistry;
 
 import java.io.IOException;
 
 @WebServlet(name = "ModerationServlet", urlPatterns = "/api/moderation/*")
 public class ModerationServlet extends BaseServlet {
     private ModerationService moderationService;
-    private AuthService authService;
 
     @Override
     public void init() throws ServletException {
-        this.moderationService = new ModerationService();
-        this.authService = new AuthService(new UserDAO(), new RoleDAO(), new TokenService());
+        this.moderationService = ServiceRegistry.from(getServletContext()).getModerationService();
     }
 
     @Override
@@ -81,11 +77,7 @@ public class ModerationServlet extends BaseServlet {
     }
 
     private boolean isAuthorised(HttpServletRequest req) {
-        String header = req.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            header = header.substring(7);
-        }
-        User user = authService.resolveToken(header);
+        User user = RequestContextFilter.currentUser(req);
         if (user == null || user.getRole() == null) {
             return false;
         }
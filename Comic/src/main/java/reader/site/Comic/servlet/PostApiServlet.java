@@ -5,12 +5,10 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import reader.site.Comic.dao.PostDAO;
-import reader.site.Comic.dao.RoleDAO;
-import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.filter.RequestContextFilter;
 import reader.site.Comic.model.Post;
 import reader.site.Comic.model.User;
-import reader.site.Comic.service.AuthService;
-import reader.site.Comic.service.TokenService;
+import reader.site.Comic.service.ServiceRegistry;
 import reader.site.Comic.util.JsonUtil;
 
 import java.io.IOException;
@@ -22,12 +20,10 @@ import java.util.stream.Collectors;
 public class PostApiServlet extends BaseServlet {
 
     private PostDAO postDAO;
-    private AuthService authService;
 
     @Override
     public void init() throws ServletException {
-        postDAO = new PostDAO();
-        authService = new AuthService(new UserDAO(), new RoleDAO(), new TokenService());
+        postDAO = ServiceRegistry.from(getServletContext()).getPostDAO();
     }
 
     @Override
@@ -74,11 +70,7 @@ public class PostApiServlet extends BaseServlet {
 
     // ===== Helpers =====
     private User getAuthenticatedUser(HttpServletRequest req) {
-        String header = req.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            header = header.substring(7);
-        }
-        return authService.resolveToken(header);
+        return RequestContextFilter.currentUser(req);
     }
 
     private static boolean isBlank(String s) { return s == null || s.isBlank(); }
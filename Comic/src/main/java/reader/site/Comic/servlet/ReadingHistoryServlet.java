@@ -5,12 +5,13 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import reader.site.Comic.dao.ReadingHistoryDAO;
+import reader.site.Comic.filter.RequestContextFilter;
+import reader.site.Comic.model.CursorPage;
 import reader.site.Comic.model.ReadingHistory;
 import reader.site.Comic.model.User;
-import reader.site.Comic.service.AuthService;
-import reader.site.Comic.dao.UserDAO;
-import reader.site.Comic.dao.RoleDAO;
-import reader.site.Comic.service.TokenService;
+import reader.site.Comic.service.ReadingProgressBuffer;
+import reader.site.Comic.service.ServiceRegistry;
+import reader.site.Comic.util.PageCursor;
 
 import java.io.IOException;
 import java.util.List;
@@ -18,12 +19,13 @@ import java.util.List;
 @WebServlet("/api/reading-history/*")
 public class ReadingHistoryServlet extends BaseServlet {
     private ReadingHistoryDAO historyDAO;
-    private AuthService authService;
+    private ReadingProgressBuffer progressBuffer;
 
     @Override
     public void init() throws ServletException {
-        historyDAO = new ReadingHistoryDAO();
-        authService = new AuthService(new UserDAO(), new RoleDAO(), new TokenService());
+        ServiceRegistry services = ServiceRegistry.from(getServletContext());
+        historyDAO = services.getReadingHistoryDAO();
+        progressBuffer = services.getReadingProgressBuffer();
     }
 
     @Override
@@ -37,8 +39,24 @@ public class ReadingHistoryServlet extends BaseServlet {
         }
 
         try {
+            // Positions posted moments ago may still be buffered; write them before reading.
+            progressBuffer.flushUser(user.getId());
+
             // [BUG FIX] user ids are UUID strings — Long.parseLong(user.getId()) threw
             // NumberFormatException for every authenticated user (500 on all history calls).
+            if (isPageRequest(req)) {
+                CursorPage<ReadingHistory> page;
+                try {
+                    page = historyDAO.findPageByUserId(user.getId(),
+                            PageCursor.decode(req.getParameter("cursor")),
+                            PageCursor.parseLimit(req.getParameter("limit")));
+                } catch (IllegalArgumentException e) {
+                    writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor");
+                    return;
+                }
+                writeJson(resp, page);
+                return;
+            }
             List<ReadingHistory> history = historyDAO.findByUserId(user.getId());
             writeJson(resp, history);
         } catch (Exception e) {
@@ -68,7 +86,7 @@ public class ReadingHistoryServlet extends BaseServlet {
         try {
             Long mangaId = Long.parseLong(request.getMangaId());
 
-            ReadingHistory saved = historyDAO.save(
+            ReadingHistory saved = progressBuffer.record(
                 user.getId(),
                 mangaId,
                 request.getChapterId(),
@@ -101,6 +119,9 @@ public class ReadingHistoryServlet extends BaseServlet {
             String historyId = pathInfo.substring(1);
             Long historyIdLong = Long.parseLong(historyId);
 
+            // A buffered position would otherwise re-create the row after the delete.
+            progressBuffer.flushUser(user.getId());
+
             // [SECURITY FIX] Vuln #19: Verify ownership before deleting.
             // Check that the history record belongs to the authenticated user.
             ReadingHistory existing = historyDAO.findById(historyIdLong);
@@ -130,11 +151,7 @@ public class ReadingHistoryServlet extends BaseServlet {
     }
 
     private User getAuthenticatedUser(HttpServletRequest req) {
-        String header = req.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            header = header.substring(7);
-        }
-        return authService.resolveToken(header);
+        return RequestContextFilter.currentUser(req);
     }
 
     private static class ReadingProgressRequest {
@@ -1,48 +1,40 @@
 package reader.site.Comic.servlet;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import reader.site.Comic.util.EnvConfig;
+import reader.site.Comic.dao.MangaDAO;
+import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.MangaSummary;
+import reader.site.Comic.service.CatalogReadModel;
+import reader.site.Comic.service.CatalogSnapshot;
+import reader.site.Comic.service.ServiceRegistry;
+import reader.site.Comic.util.ConditionalGet;
+import reader.site.Comic.util.JsonOutput;
 
 import java.io.IOException;
-import java.lang.reflect.Type;
-import java.sql.*;
 import java.util.*;
 
+/**
+ * Reader-facing series list and detail. Answers from the catalog snapshot (the same one
+ * /api/manga uses) and reads through {@link MangaDAO} only while the snapshot is behind.
+ */
 @WebServlet("/api/series")
 public class SeriesServlet extends HttpServlet {
+    private static final int LIST_LIMIT = 500;
+
     private final Gson gson = new Gson();
-    private String dbUrl;
-    private String dbUser;
-    private String dbPass;
+    private MangaDAO mangaDAO;
+    private CatalogReadModel catalog;
 
     @Override
     public void init() throws ServletException {
-        // [SECURITY] Credentials come from environment variables — see EnvConfig / .env.example
-        dbUrl = EnvConfig.dbUrl();
-        dbUser = EnvConfig.dbUser();
-        dbPass = EnvConfig.dbPassword();
-
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            System.out.println("[SeriesServlet] JDBC driver loaded");
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
-            throw new ServletException("MySQL driver not found", e);
-        }
-
-        // Optional: test connection at init so we can see error early
-        try (Connection conn = DriverManager.getConnection(dbUrl, dbUser, dbPass)) {
-            System.out.println("[SeriesServlet] ✅ Connected to DB in init()");
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            throw new ServletException("Cannot connect to DB in init(): " + ex.getMessage(), ex);
-        }
+        ServiceRegistry services = ServiceRegistry.from(getServletContext());
+        mangaDAO = services.getMangaDAO();
+        catalog = services.getCatalog();
     }
 
     // CORS headers helper
@@ -62,63 +54,60 @@ public class SeriesServlet extends HttpServlet {
             throws ServletException, IOException {
 
         setCorsHeaders(resp);
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("utf-8");
+        boolean pretty = JsonOutput.wantsPretty(req);
 
         String idParam = req.getParameter("id");
+        CatalogSnapshot snapshot = catalog.current();
 
-        try (Connection conn = DriverManager.getConnection(dbUrl, dbUser, dbPass)) {
+        try {
             if (idParam != null && !idParam.isBlank()) {
-                String sql = "SELECT id, title, cover, chapters FROM manga WHERE id = ?";
-                try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                    ps.setInt(1, Integer.parseInt(idParam));
-                    try (ResultSet rs = ps.executeQuery()) {
-                        if (rs.next()) {
-                            Map<String, Object> out = new HashMap<>();
-                            out.put("id", rs.getInt("id"));
-                            out.put("title", rs.getString("title"));
-                            out.put("coverUrl", rs.getString("cover"));
-
-                            String chaptersJson = rs.getString("chapters");
-                            if (chaptersJson != null) {
-                                Type listType = new TypeToken<List<String>>(){}.getType();
-                                List<String> chapters = gson.fromJson(chaptersJson, listType);
-                                out.put("chapters", chapters);
-                            } else {
-                                out.put("chapters", Collections.emptyList());
-                            }
-
-                            resp.getWriter().write(gson.toJson(out));
-                            return;
-                        } else {
-                            resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
-                            resp.getWriter().write(gson.toJson(Map.of("error", "Series not found")));
-                            return;
-                        }
-                    }
+                long id = Long.parseLong(idParam.trim());
+                Manga manga = snapshot != null ? snapshot.find(String.valueOf(id)) : mangaDAO.findById(String.valueOf(id));
+                if (manga == null) {
+                    resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                    JsonOutput.write(resp, gson, Map.of("error", "Series not found"), pretty);
+                    return;
+                }
+                long version = snapshot != null ? snapshot.version(String.valueOf(id)) : CatalogSnapshot.version(manga);
+                if (answered(req, resp, ConditionalGet.hasher().add("series").add(version))) {
+                    return;
                 }
+                Map<String, Object> out = new LinkedHashMap<>();
+                out.put("id", id);
+                out.put("title", manga.getTitle());
+                out.put("coverUrl", manga.getCover());
+                out.put("chapters", manga.getChapters() != null ? manga.getChapters() : Collections.emptyList());
+                JsonOutput.write(resp, gson, out, pretty);
             } else {
-                String sql = "SELECT id, title, cover FROM manga ORDER BY id DESC LIMIT 500";
-                List<Map<String, Object>> list = new ArrayList<>();
-                try (PreparedStatement ps = conn.prepareStatement(sql);
-                     ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        Map<String, Object> row = new HashMap<>();
-                        row.put("id", rs.getInt("id"));
-                        row.put("title", rs.getString("title"));
-                        row.put("coverUrl", rs.getString("cover"));
-                        list.add(row);
-                    }
+                // While the snapshot is behind, the list is read through the DAO without validators.
+                if (snapshot != null
+                        && answered(req, resp, ConditionalGet.hasher().add("series-list").add(snapshot.version()))) {
+                    return;
                 }
-                resp.getWriter().write(gson.toJson(list));
+                List<MangaSummary> newest = snapshot != null
+                        ? snapshot.newestSummaries(LIST_LIMIT) : mangaDAO.findNewestSummaries(LIST_LIMIT);
+                List<Map<String, Object>> list = new ArrayList<>(newest.size());
+                for (MangaSummary summary : newest) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("id", Long.parseLong(summary.getId()));
+                    row.put("title", summary.getTitle());
+                    row.put("coverUrl", summary.getCover());
+                    list.add(row);
+                }
+                JsonOutput.write(resp, gson, list, pretty);
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
-            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            resp.getWriter().write(gson.toJson(Map.of("error", "DB error", "message", ex.getMessage())));
         } catch (NumberFormatException nf) {
             resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-            resp.getWriter().write(gson.toJson(Map.of("error", "Invalid id")));
+            JsonOutput.write(resp, gson, Map.of("error", "Invalid id"), pretty);
+        } catch (RuntimeException ex) {
+            System.err.println("[SeriesServlet] Catalog read failed: " + ex.getMessage());
+            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            JsonOutput.write(resp, gson, Map.of("error", "DB error"), pretty);
         }
     }
+
+    private static boolean answered(HttpServletRequest req, HttpServletResponse resp,
+                                       ConditionalGet.Hasher representation) throws IOException {
+        return ConditionalGet.answer(req, resp, ConditionalGet.CATALOG, representation.toEtag(), null);
+    }
 }
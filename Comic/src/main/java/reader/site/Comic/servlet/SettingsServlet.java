@@ -4,25 +4,21 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import reader.site.Comic.dao.RoleDAO;
-import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.filter.RequestContextFilter;
 import reader.site.Comic.model.SystemSettings;
 import reader.site.Comic.model.User;
-import reader.site.Comic.service.AuthService;
+import reader.site.Comic.service.ServiceRegistry;
 import reader.site.Comic.service.SystemSettingsService;
-import reader.site.Comic.service.TokenService;
 
 import java.io.IOException;
 
 @WebServlet(name = "SettingsServlet", urlPatterns = "/api/settings")
 public class SettingsServlet extends BaseServlet {
     private SystemSettingsService settingsService;
-    private AuthService authService;
 
     @Override
     public void init() throws ServletException {
-        this.settingsService = new SystemSettingsService();
-        this.authService = new AuthService(new UserDAO(), new RoleDAO(), new TokenService());
+        this.settingsService = ServiceRegistry.from(getServletContext()).getSettingsService();
     }
 
     @Override
@@ -55,11 +51,7 @@ public class SettingsServlet extends BaseServlet {
     }
 
     private boolean isAdmin(HttpServletRequest req) {
-        String header = req.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            header = header.substring(7);
-        }
-        User user = authService.resolveToken(header);
+        User user = RequestContextFilter.currentUser(req);
         return user != null && user.getRole() != null && "admin".equalsIgnoreCase(user.getRole().getName());
     }
 }
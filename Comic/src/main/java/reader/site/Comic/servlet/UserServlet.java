@@ -2,7 +2,6 @@ package reader.site.Comic.servlet;
 
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import jakarta.servlet.ServletException;
@@ -11,22 +10,26 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import reader.site.Comic.dao.RoleDAO;
 import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.filter.RequestContextFilter;
+import reader.site.Comic.model.SearchPage;
 import reader.site.Comic.model.User;
 import reader.site.Comic.model.UserRole;
-import reader.site.Comic.service.AuthService;
-import reader.site.Comic.service.TokenService;
+import reader.site.Comic.service.ServiceRegistry;
+import reader.site.Comic.service.UserSearchService;
+import reader.site.Comic.util.PageCursor;
 
 @WebServlet(name = "UserServlet", urlPatterns = "/api/users/*")
 public class UserServlet extends BaseServlet {
     private UserDAO userDAO;
     private RoleDAO roleDAO;
-    private AuthService authService;
+    private UserSearchService userSearch;
 
     @Override
     public void init() throws ServletException {
-        this.userDAO = new UserDAO();
-        this.roleDAO = new RoleDAO();
-        this.authService = new AuthService(userDAO, roleDAO, new TokenService());
+        ServiceRegistry services = ServiceRegistry.from(getServletContext());
+        this.userDAO = services.getUserDAO();
+        this.roleDAO = services.getRoleDAO();
+        this.userSearch = services.getUserSearchService();
     }
 
     @Override
@@ -89,11 +92,7 @@ public class UserServlet extends BaseServlet {
         String userId = path.substring(1);
         
         // Lấy user từ token
-        String header = req.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            header = header.substring(7);
-        }
-        User currentUser = authService.resolveToken(header);
+        User currentUser = RequestContextFilter.currentUser(req);
         
         if (currentUser == null) {
             writeError(resp, HttpServletResponse.SC_UNAUTHORIZED, "Not authenticated");
@@ -168,18 +167,38 @@ public class UserServlet extends BaseServlet {
     }
 
     private void handleList(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        int page = parseInt(req.getParameter("page"), 1);
-        int limit = parseInt(req.getParameter("limit"), 10);
         String search = req.getParameter("search");
         String roleName = req.getParameter("role");
         String status = req.getParameter("status");
 
-        List<User> users = userDAO.findAll(page, limit, search, roleName, status);
-        int total = userDAO.count(search, roleName, status);
+        // ?page= keeps the numbered (OFFSET) paging the admin table uses; without it the
+        // list is keyset-paginated and clients follow "next".
+        if (req.getParameter("page") == null) {
+            SearchPage<User> page;
+            try {
+                page = userSearch.findPage(search, roleName, status, PageCursor.decode(req.getParameter("cursor")),
+                        PageCursor.parseLimit(req.getParameter("limit")));
+            } catch (IllegalArgumentException ex) {
+                writeError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor");
+                return;
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("items", page.getItems());
+            response.put("total", page.getTotal());
+            response.put("limit", page.getLimit());
+            response.put("next", page.getNext());
+            writeJson(resp, response);
+            return;
+        }
+
+        int page = parseInt(req.getParameter("page"), 1);
+        int limit = parseInt(req.getParameter("limit"), 10);
+
+        SearchPage<User> users = userSearch.search(search, roleName, status, page, limit);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("items", users);
-        response.put("total", total);
+        response.put("items", users.getItems());
+        response.put("total", users.getTotal());
         response.put("page", page);
         response.put("limit", limit);
         writeJson(resp, response);
@@ -195,11 +214,7 @@ public class UserServlet extends BaseServlet {
     }
 
     private boolean isAuthorized(HttpServletRequest req) {
-        String header = req.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            header = header.substring(7);
-        }
-        User user = authService.resolveToken(header);
+        User user = RequestContextFilter.currentUser(req);
         return user != null && user.getRole() != null && "admin".equalsIgnoreCase(user.getRole().getName());
     }
 
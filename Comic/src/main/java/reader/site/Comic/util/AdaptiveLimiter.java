@@ -0,0 +1,216 @@
+package reader.site.Comic.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that follows the latency of what it guards, in the style of a gradient
+ * limiter: it compares recent latency with the long-run baseline and scales the limit by
+ * that ratio.
+ *
+ * <pre>
+ *   gradient = clamp(TOLERANCE * longRtt / shortRtt, 0.5, 1.0)
+ *   limit    = smooth(limit * gradient + sqrt(limit))
+ * </pre>
+ *
+ * While latency stays at its baseline the gradient is 1 and the sqrt term lets the limit
+ * grow; once requests start queueing in front of the database, latency rises, the gradient
+ * drops and the limit shrinks until it no longer does. Samples taken while less than half
+ * the limit was in use say nothing about the limit and are ignored. After a sustained
+ * drop in latency (a slow period ending), the baseline is pulled down towards it.
+ * Sampling never blocks a releasing caller: a sample that arrives while another is being
+ * folded in is dropped, which costs the moving averages next to nothing.
+ *
+ * {@link #acquire} admits at once below the limit; above it, a caller waits up to the
+ * queue time for a slot (no more callers wait than the limit allows in flight) and is
+ * refused otherwise. Every admitted caller must call {@link #release} exactly once.
+ */
+public final class AdaptiveLimiter {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long queueNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    // Changed under the lock; read without it by release() to skip locking when nobody waits.
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    // Guards shortRtt and longRtt. release() only tries it, so no caller waits on a sample.
+    final ReentrantLock sampleLock = new ReentrantLock();
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder samplesDropped = new LongAdder();
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, long queueMillis) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.queueNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, queueMillis));
+    }
+
+    /**
+     * ADAPTIVE_LIMIT_INITIAL (default 20), ADAPTIVE_LIMIT_MIN (4), ADAPTIVE_LIMIT_MAX (200)
+     * and ADAPTIVE_LIMIT_QUEUE_MS (50).
+     */
+    public static AdaptiveLimiter fromEnv() {
+        return new AdaptiveLimiter(EnvConfig.getInt("ADAPTIVE_LIMIT_INITIAL", 20),
+                EnvConfig.getInt("ADAPTIVE_LIMIT_MIN", 4),
+                EnvConfig.getInt("ADAPTIVE_LIMIT_MAX", 200),
+                EnvConfig.getInt("ADAPTIVE_LIMIT_QUEUE_MS", 50));
+    }
+
+    /** Takes a slot, waiting up to the queue time for one; false when none came free. */
+    public boolean acquire() throws InterruptedException {
+        if (tryAcquire()) {
+            admitted.increment();
+            return true;
+        }
+        if (queueNanos == 0) {
+            rejected.increment();
+            return false;
+        }
+        lock.lock();
+        try {
+            if (waiting.get() >= limit()) {
+                rejected.increment();
+                return false;
+            }
+            waiting.incrementAndGet();
+            queued.increment();
+            try {
+                long remaining = queueNanos;
+                while (!tryAcquire()) {
+                    if (remaining <= 0) {
+                        rejected.increment();
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+            } finally {
+                waiting.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+        admitted.increment();
+        return true;
+    }
+
+    /**
+     * Gives a slot back. {@code rttNanos} is how long the caller held it; pass a negative
+     * value when the time says nothing about the guarded resource (the request never used
+     * it, or failed before reaching it).
+     */
+    public void release(long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        if (rttNanos >= 0) {
+            onSample(rttNanos, current);
+        }
+        if (waiting.get() > 0) {
+            lock.lock();
+            try {
+                released.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Folds one latency sample, taken with {@code inFlight} slots in use, into the limit;
+     * drops it when another thread is folding one in.
+     */
+    void onSample(long rttNanos, int inFlight) {
+        if (!sampleLock.tryLock()) {
+            samplesDropped.increment();
+            return;
+        }
+        try {
+            fold(rttNanos, inFlight);
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    private void fold(long rttNanos, int inFlight) {
+        double rtt = Math.max(1, rttNanos);
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) / SHORT_WINDOW;
+        longRtt += (rtt - longRtt) / LONG_WINDOW;
+        if (longRtt / shortRtt > 2) {
+            // Latency has stayed well under the baseline: let the baseline catch up.
+            longRtt *= 0.95;
+        }
+
+        double current = limit;
+        if (inFlight < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.min(maxLimit, Math.max(minLimit, next));
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /** Current limit, slots in use, callers admitted, queued and refused, and samples dropped. */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limit", limit());
+        stats.put("inFlight", inFlight());
+        stats.put("minLimit", minLimit);
+        stats.put("maxLimit", maxLimit);
+        sampleLock.lock();
+        try {
+            stats.put("shortRttMillis", Math.round(shortRtt / 10_000) / 100.0);
+            stats.put("longRttMillis", Math.round(longRtt / 10_000) / 100.0);
+        } finally {
+            sampleLock.unlock();
+        }
+        stats.put("admitted", admitted.sum());
+        stats.put("queued", queued.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("samplesDropped", samplesDropped.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,189 @@
+package reader.site.Comic.util;
+
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Validators and Cache-Control for read endpoints.
+ *
+ * A servlet computes the ETag of what it is about to send (from content versions it
+ * already has, so usually before any query) and calls {@link #answer}. That sets
+ * ETag, Last-Modified and the route's Cache-Control, and answers 304 when the client's
+ * copy is current, or sends the body from a {@link BodyCache} (the compression filter's
+ * pre-compressed copies) when there is one for this ETag; either way the servlet then
+ * returns without serialising anything.
+ *
+ * ETags are strong and derived from content, never from node-local counters, so every
+ * node (and the CDN in front of them) agrees on them; CompressionFilter marks them weak on
+ * gzip bodies, which If-None-Match still matches. A {@code ?pretty} body is other bytes
+ * than the compact one, so {@link #answer} gives it its own tag. Last-Modified is only sent where a
+ * timestamp covers every change, including deletes.
+ *
+ * Cache-Control comes from CACHE_CONTROL_&lt;ROUTE&gt; (e.g. CACHE_CONTROL_CHAPTER_IMAGES),
+ * default "no-cache": caches may keep the body but must revalidate, which costs a 304.
+ */
+public final class ConditionalGet {
+
+    public static final String CATALOG = "catalog";
+    public static final String CHAPTERS = "chapters";
+    public static final String CHAPTER_IMAGES = "chapter_images";
+
+    private static final String DEFAULT_CACHE_CONTROL = "no-cache";
+    private static final Map<String, String> CACHE_CONTROL = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> NOT_MODIFIED = new ConcurrentHashMap<>();
+
+    private ConditionalGet() {}
+
+    /** Starts an ETag over the given parts; add more with {@link Hasher#add}. */
+    public static Hasher hasher() {
+        return new Hasher();
+    }
+
+    /**
+     * Sets the validators and Cache-Control for {@code route}. Returns true when the
+     * response is complete: a 304 because the request's If-None-Match / If-Modified-Since
+     * show the client already has this representation, or a body sent from cache.
+     *
+     * @param lastModified null when no timestamp covers every change
+     */
+    public static boolean answer(HttpServletRequest req, HttpServletResponse resp, String route,
+                                 String etag, Instant lastModified) throws IOException {
+        etag = representation(req, etag);
+        resp.setHeader("ETag", etag);
+        if (lastModified != null) {
+            resp.setDateHeader("Last-Modified", lastModified.toEpochMilli());
+        }
+        resp.setHeader("Cache-Control", cacheControl(route));
+
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = req.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            ifModifiedSince = -1;
+        }
+        if (isNotModified(req.getHeader("If-None-Match"), ifModifiedSince, etag, lastModified)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            NOT_MODIFIED.computeIfAbsent(route, k -> new LongAdder()).increment();
+            return true;
+        }
+        BodyCache cache = bodyCache(resp);
+        return cache != null && cache.sendCached(etag);
+    }
+
+    /** {@code etag} for the compact body, or a tag of its own for the indented one {@code ?pretty} asks for. */
+    static String representation(HttpServletRequest req, String etag) {
+        if (!JsonOutput.wantsPretty(req) || !etag.endsWith("\"")) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-pretty\"";
+    }
+
+    /**
+     * RFC 9110 evaluation for GET/HEAD: If-None-Match decides when present (weak
+     * comparison, "*" matches); otherwise If-Modified-Since, at one-second precision.
+     */
+    public static boolean isNotModified(String ifNoneMatch, long ifModifiedSinceMillis, String etag,
+                                        Instant lastModified) {
+        if (ifNoneMatch != null) {
+            String opaque = opaque(etag);
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || opaque(tag).equals(opaque)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return lastModified != null && ifModifiedSinceMillis >= 0
+                && lastModified.getEpochSecond() <= ifModifiedSinceMillis / 1000;
+    }
+
+    /** The Cache-Control header for a route: CACHE_CONTROL_&lt;ROUTE&gt;, default "no-cache". */
+    public static String cacheControl(String route) {
+        return CACHE_CONTROL.computeIfAbsent(route, r -> EnvConfig.getOrDefault(
+                "CACHE_CONTROL_" + r.toUpperCase(Locale.ROOT), DEFAULT_CACHE_CONTROL).trim());
+    }
+
+    /** 304 responses sent, by route. */
+    public static Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        NOT_MODIFIED.forEach((route, count) -> stats.put(route, count.sum()));
+        return stats;
+    }
+
+    /** A response (wrapper) that may hold the finished body of a representation by ETag. */
+    public interface BodyCache {
+        /** Sends the cached body for {@code etag} and returns true, or returns false if there is none. */
+        boolean sendCached(String etag) throws IOException;
+    }
+
+    private static BodyCache bodyCache(ServletResponse resp) {
+        while (true) {
+            if (resp instanceof BodyCache) {
+                return (BodyCache) resp;
+            }
+            if (!(resp instanceof ServletResponseWrapper)) {
+                return null;
+            }
+            resp = ((ServletResponseWrapper) resp).getResponse();
+        }
+    }
+
+    // W/"x" and "x" compare equal under the weak comparison If-None-Match uses.
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    /** 64-bit FNV-1a over the parts added, rendered as a strong ETag. */
+    public static final class Hasher {
+        private static final long OFFSET = 0xcbf29ce484222325L;
+        private static final long PRIME = 0x100000001b3L;
+
+        private long hash = OFFSET;
+
+        private Hasher() {}
+
+        public Hasher add(String part) {
+            if (part == null) {
+                mix(0xff);
+            } else {
+                for (byte b : part.getBytes(StandardCharsets.UTF_8)) {
+                    mix(b);
+                }
+            }
+            mix(0); // separator, so ("ab", "c") and ("a", "bc") differ
+            return this;
+        }
+
+        public Hasher add(long part) {
+            for (int shift = 0; shift < 64; shift += 8) {
+                mix((int) (part >>> shift));
+            }
+            return this;
+        }
+
+        public long value() {
+            return hash;
+        }
+
+        public String toEtag() {
+            return "\"" + Long.toHexString(hash) + "\"";
+        }
+
+        private void mix(int b) {
+            hash ^= b & 0xff;
+            hash *= PRIME;
+        }
+    }
+}
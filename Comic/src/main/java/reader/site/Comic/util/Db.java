@@ -1,19 +1,17 @@
 package reader.site.Comic.util;
 
+import reader.site.Comic.persistence.ConnectionPool;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
 
 /**
- * Raw JDBC access helper. Credentials come from environment variables
- * (DB_URL / DB_USER / DB_PASSWORD) — never hardcode secrets here.
+ * Raw JDBC access helper. Connections are borrowed from the shared pool
+ * (see {@link ConnectionPool}); closing them returns them to the pool.
  */
 public class Db {
 
-  public static Connection get() throws Exception {
-    Class.forName("com.mysql.cj.jdbc.Driver");
-    return DriverManager.getConnection(
-        EnvConfig.dbUrl(),
-        EnvConfig.dbUser(),
-        EnvConfig.dbPassword());
+  public static Connection get() throws SQLException {
+    return ConnectionPool.getConnection();
   }
 }
@@ -3,11 +3,16 @@ package reader.site.Comic.util;
 import jakarta.mail.*;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import reader.site.Comic.service.BlockingExecutor;
+
 import java.util.Properties;
 
 /**
  * Email helper. SMTP credentials come from environment variables
  * (SMTP_USERNAME / SMTP_APP_PASSWORD) — never hardcode secrets here.
+ *
+ * Activation and reset emails are handed to {@link BlockingExecutor} so the request does
+ * not wait on the SMTP round trips; they are sent inline when it is not running or full.
  */
 public class EmailUtil {
 
@@ -58,7 +63,7 @@ public class EmailUtil {
                         + "If you didn’t request this, please ignore this email.\n\nBest regards,\nComic Reader Team",
                 link
         );
-        sendEmail(to, subject, body);
+        sendInBackground(to, subject, body);
     }
 
     public static void sendResetPasswordEmail(String to, String token) {
@@ -69,6 +74,13 @@ public class EmailUtil {
                         + "If you didn’t request this, please ignore this email.\n\nBest regards,\nComic Reader Team",
                 link
         );
-        sendEmail(to, subject, body);
+        sendInBackground(to, subject, body);
+    }
+
+    private static void sendInBackground(String to, String subject, String content) {
+        BlockingExecutor executor = BlockingExecutor.running();
+        if (executor == null || !executor.tryExecute(() -> sendEmail(to, subject, content))) {
+            sendEmail(to, subject, content);
+        }
     }
 }
@@ -13,7 +13,27 @@ package reader.site.Comic.util;
  *   AZURE_BLOB_CONTAINER (default "temp"),
  *   ALLOWED_ORIGINS (comma-separated CORS allow-list, default http://localhost:3000),
  *   APP_BASE_URL (frontend base for reset-password links),
- *   BACKEND_BASE_URL (backend base for account-activation links)
+ *   BACKEND_BASE_URL (backend base for account-activation links),
+ *   DB_POOL_MAX_SIZE, DB_POOL_MIN_IDLE, DB_POOL_CONNECTION_TIMEOUT_MS,
+ *   DB_POOL_LEAK_DETECTION_MS (connection-pool overrides, see JPAUtil),
+ *   DB_MIGRATE_ON_STARTUP (default true, see SchemaMigrator),
+ *   DB_REPLICA_URLS, DB_REPLICA_USER, DB_REPLICA_PASSWORD, DB_REPLICA_POOL_MAX_SIZE,
+ *   DB_REPLICA_STICKY_MS, DB_REPLICA_HEALTH_MS (read replicas, see ReplicaRouter),
+ *   READING_PROGRESS_WRITE_BEHIND, READING_PROGRESS_FLUSH_MS, READING_PROGRESS_BATCH_SIZE,
+ *   READING_PROGRESS_MAX_PENDING (write-behind buffer, see ReadingProgressBuffer),
+ *   DASHBOARD_RECONCILE_MS, DASHBOARD_VIEWS_FLUSH_MS (dashboard counters, see DashboardCounters),
+ *   USER_SEARCH_INDEX, USER_SEARCH_REBUILD_MS (admin user search, see UserSearchService),
+ *   CATALOG_SNAPSHOT, CATALOG_SNAPSHOT_REFRESH_MS (in-memory catalog, see CatalogReadModel),
+ *   CACHE_CONTROL_CATALOG, CACHE_CONTROL_CHAPTERS, CACHE_CONTROL_CHAPTER_IMAGES (see ConditionalGet),
+ *   COMPRESSION, COMPRESSION_MIN_BYTES, COMPRESSION_CACHE_MB (response gzip, see CompressionFilter),
+ *   TOKEN_MODE, TOKEN_SIGNING_KEY, TOKEN_REVOCATION_SYNC_MS (signed access tokens, see TokenService),
+ *   SESSION_STORE_PATH, SESSION_STORE_CAPACITY (session-mode token file, see SessionStore),
+ *   RATE_LIMIT_MAX_KEYS, TRUSTED_PROXY_HOPS (auth throttles and client IP, see RateLimiter),
+ *   ADMISSION_CONTROL, ADMISSION_*_PER_MINUTE, ADMISSION_*_IN_FLIGHT
+ *   (per-route quotas and load shedding, see AdmissionFilter),
+ *   ADAPTIVE_LIMIT, ADAPTIVE_LIMIT_INITIAL, ADAPTIVE_LIMIT_MIN, ADAPTIVE_LIMIT_MAX,
+ *   ADAPTIVE_LIMIT_QUEUE_MS (latency-driven limit on database-bound requests, see AdaptiveLimiter),
+ *   THREAD_MODE, BLOCKING_IO_THREADS, BLOCKING_IO_QUEUE (blocking work, see BlockingExecutor)
  */
 public final class EnvConfig {
 
@@ -41,6 +61,20 @@ public final class EnvConfig {
         return (value != null && !value.isBlank()) ? value : defaultValue;
     }
 
+    /** Integer setting; falls back to the default (with a warning) when unset or invalid. */
+    public static int getInt(String name, int defaultValue) {
+        String value = getOrDefault(name, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("[EnvConfig] Ignoring invalid " + name + "='" + value + "', using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
     // ─── Convenience accessors ───────────────────────────────────────────────
 
     public static String dbUrl() {
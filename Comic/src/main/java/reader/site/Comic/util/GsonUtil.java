@@ -1,14 +1,41 @@
 package reader.site.Comic.util;
 
 import com.google.gson.*;
+import reader.site.Comic.model.Bookmark;
+import reader.site.Comic.model.ChapterImage;
+import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.MangaChapter;
+import reader.site.Comic.model.Permission;
+import reader.site.Comic.model.ReadingHistory;
+import reader.site.Comic.model.User;
+import reader.site.Comic.model.UserRole;
+
 import java.lang.reflect.Type;
 import java.time.LocalDateTime;
 
 /**
  * Tiện ích Gson xử lý LocalDateTime an toàn.
+ *
+ * Also the one place the model adapters are registered: every Gson that serialises
+ * models is built through {@link #withModelAdapters}, so none of them falls back to
+ * reflection for the hot models. Output is compact (see JsonOutput for ?pretty).
  */
 public class GsonUtil {
-    public static final Gson gson = new GsonBuilder()
+
+    /** Registers the {@link ModelTypeAdapters} on {@code builder} and returns it. */
+    public static GsonBuilder withModelAdapters(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(Manga.class, ModelTypeAdapters.MANGA)
+                .registerTypeAdapter(MangaChapter.class, ModelTypeAdapters.MANGA_CHAPTER)
+                .registerTypeAdapter(ChapterImage.class, ModelTypeAdapters.CHAPTER_IMAGE)
+                .registerTypeAdapter(Bookmark.class, ModelTypeAdapters.BOOKMARK)
+                .registerTypeAdapter(ReadingHistory.class, ModelTypeAdapters.READING_HISTORY)
+                .registerTypeAdapter(User.class, ModelTypeAdapters.USER)
+                .registerTypeAdapter(UserRole.class, ModelTypeAdapters.USER_ROLE)
+                .registerTypeAdapter(Permission.class, ModelTypeAdapters.PERMISSION);
+    }
+
+    public static final Gson gson = withModelAdapters(new GsonBuilder())
             .registerTypeAdapter(LocalDateTime.class, new JsonSerializer<LocalDateTime>() {
                 @Override
                 public JsonElement serialize(LocalDateTime src, Type typeOfSrc, JsonSerializationContext context) {
@@ -22,6 +49,5 @@ public class GsonUtil {
                     return LocalDateTime.parse(json.getAsString());
                 }
             })
-            .setPrettyPrinting()
             .create();
-}
\ No newline at end of file
+}
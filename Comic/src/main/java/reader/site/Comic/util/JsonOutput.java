@@ -0,0 +1,142 @@
+package reader.site.Comic.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes a JSON response body straight from the object graph to the response writer.
+ *
+ * Nothing is rendered into an intermediate String first. Gson's many small writes go
+ * into a char buffer taken from a small shared pool and are handed to the response in
+ * 8 KB blocks. Output is compact; {@code ?pretty} (or {@code ?pretty=true}) on the
+ * request indents it, for reading responses by hand.
+ */
+public final class JsonOutput {
+
+    public static final String PRETTY_PARAM = "pretty";
+
+    private static final int BUFFER_CHARS = 8 * 1024;
+    private static final BlockingQueue<char[]> BUFFERS = new ArrayBlockingQueue<>(64);
+
+    private JsonOutput() {}
+
+    /** Whether the query string asks for indented output. Only the query string is read, never a form body. */
+    public static boolean wantsPretty(HttpServletRequest req) {
+        String query = req.getQueryString();
+        if (query == null) {
+            return false;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.equals(PRETTY_PARAM) || pair.equals(PRETTY_PARAM + "=true") || pair.equals(PRETTY_PARAM + "=1")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the JSON content type and streams {@code payload} with {@code gson}'s adapters.
+     * The status is left to the caller; the response is not flushed, so a small body can
+     * still be sent with a Content-Length.
+     */
+    public static void write(HttpServletResponse resp, Gson gson, Object payload, boolean pretty) throws IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        write(resp.getWriter(), gson, payload, pretty);
+    }
+
+    /** Streams {@code payload} to {@code target} through a pooled buffer. */
+    public static void write(Writer target, Gson gson, Object payload, boolean pretty) throws IOException {
+        char[] buffer = BUFFERS.poll();
+        if (buffer == null) {
+            buffer = new char[BUFFER_CHARS];
+        }
+        try {
+            JsonWriter json = gson.newJsonWriter(new BufferedTarget(target, buffer));
+            if (pretty) {
+                json.setIndent("  ");
+            }
+            if (payload == null) {
+                gson.toJson(JsonNull.INSTANCE, json);
+            } else {
+                gson.toJson(payload, payload.getClass(), json);
+            }
+            json.flush();
+        } finally {
+            BUFFERS.offer(buffer);
+        }
+    }
+
+    /** Buffers writes to {@code target}; {@link #flush()} hands the buffer over without flushing the target. */
+    private static final class BufferedTarget extends Writer {
+        private final Writer target;
+        private final char[] buffer;
+        private int count;
+
+        BufferedTarget(Writer target, char[] buffer) {
+            this.target = target;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (count == buffer.length) {
+                drain();
+            }
+            buffer[count++] = (char) c;
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            if (len >= buffer.length) {
+                drain();
+                target.write(chars, off, len);
+                return;
+            }
+            if (len > buffer.length - count) {
+                drain();
+            }
+            System.arraycopy(chars, off, buffer, count, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            if (len >= buffer.length) {
+                drain();
+                target.write(str, off, len);
+                return;
+            }
+            if (len > buffer.length - count) {
+                drain();
+            }
+            str.getChars(off, off + len, buffer, count);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+        }
+
+        @Override
+        public void close() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            if (count > 0) {
+                target.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+    }
+}
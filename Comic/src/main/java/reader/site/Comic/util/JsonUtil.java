@@ -7,7 +7,6 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -18,7 +17,7 @@ import java.time.LocalDateTime;
 public final class JsonUtil {
     private JsonUtil() {}
 
-    private static final Gson gson = new GsonBuilder()
+    private static final Gson gson = GsonUtil.withModelAdapters(new GsonBuilder())
             // java.time.* adapters
             .registerTypeAdapter(LocalDateTime.class,
                     (com.google.gson.JsonSerializer<LocalDateTime>) (src, t, ctx) ->
@@ -48,11 +47,7 @@ public final class JsonUtil {
 
     public static void writeJson(HttpServletResponse resp, int status, Object obj) throws IOException {
         resp.setStatus(status);
-        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
-        resp.setContentType("application/json; charset=UTF-8");
-        try (PrintWriter out = resp.getWriter()) {
-            out.write(gson.toJson(obj));
-        }
+        JsonOutput.write(resp, gson, obj, false);
     }
 
     public static void writeError(HttpServletResponse resp, int status, String message) throws IOException {
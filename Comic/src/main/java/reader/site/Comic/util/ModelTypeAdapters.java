@@ -0,0 +1,449 @@
+package reader.site.Comic.util;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import reader.site.Comic.model.Bookmark;
+import reader.site.Comic.model.ChapterImage;
+import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.MangaChapter;
+import reader.site.Comic.model.Permission;
+import reader.site.Comic.model.ReadingHistory;
+import reader.site.Comic.model.User;
+import reader.site.Comic.model.UserRole;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written Gson adapters for the models every response carries, registered by
+ * {@link GsonUtil#withModelAdapters}. They go through getters and setters instead of
+ * reflecting over fields, so nothing is looked up per field and no boxed values are
+ * created beyond what the models already hold.
+ *
+ * The JSON is the same as the reflective adapter's: fields in declaration order, nulls
+ * left out, unknown names skipped on read, a JSON null leaving a primitive alone.
+ * Exceptions: ReadingHistory.lastReadAt is an ISO-8601 string (as GsonUtil writes every
+ * LocalDateTime), and User's reset/activation tokens are neither written nor read.
+ */
+public final class ModelTypeAdapters {
+
+    private ModelTypeAdapters() {}
+
+    /** A JSON array of strings, as Manga.chapters and the manga.chapters column hold. */
+    public static final TypeAdapter<List<String>> STRING_LIST = new TypeAdapter<List<String>>() {
+        @Override
+        public void write(JsonWriter out, List<String> value) throws IOException {
+            writeStrings(out, value);
+        }
+
+        @Override
+        public List<String> read(JsonReader in) throws IOException {
+            return readStrings(in);
+        }
+    };
+
+    public static final TypeAdapter<Manga> MANGA = new ModelAdapter<Manga>() {
+        @Override
+        Manga create() {
+            return new Manga();
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Manga m) throws IOException {
+            out.name("id").value(m.getId());
+            out.name("title").value(m.getTitle());
+            out.name("cover").value(m.getCover());
+            out.name("chapters");
+            writeStrings(out, m.getChapters());
+            out.name("chapterCount").value(m.getChapterCount());
+            out.name("latestChapter").value(m.getLatestChapter());
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, Manga m) throws IOException {
+            switch (name) {
+                case "id": m.setId(readString(in)); return true;
+                case "title": m.setTitle(readString(in)); return true;
+                case "cover": m.setCover(readString(in)); return true;
+                case "chapters": m.setChapters(readStrings(in)); return true;
+                case "chapterCount": m.setChapterCount(readInteger(in)); return true;
+                case "latestChapter": m.setLatestChapter(readString(in)); return true;
+                default: return false;
+            }
+        }
+    };
+
+    public static final TypeAdapter<MangaChapter> MANGA_CHAPTER = new ModelAdapter<MangaChapter>() {
+        @Override
+        MangaChapter create() {
+            return new MangaChapter();
+        }
+
+        @Override
+        void writeFields(JsonWriter out, MangaChapter c) throws IOException {
+            out.name("id").value(c.getId());
+            out.name("mangaId").value(c.getMangaId());
+            out.name("chapterNumber").value(c.getChapterNumber());
+            out.name("chapterTitle").value(c.getChapterTitle());
+            out.name("imageUrl").value(c.getImageUrl());
+            out.name("chapterUrl").value(c.getChapterUrl());
+            out.name("releaseDate").value(c.getReleaseDate());
+            out.name("createdAt").value(c.getCreatedAt());
+            out.name("updatedAt").value(c.getUpdatedAt());
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, MangaChapter c) throws IOException {
+            switch (name) {
+                case "id": c.setId(readString(in)); return true;
+                case "mangaId": c.setMangaId(readString(in)); return true;
+                case "chapterNumber": c.setChapterNumber(readInteger(in)); return true;
+                case "chapterTitle": c.setChapterTitle(readString(in)); return true;
+                case "imageUrl": c.setImageUrl(readString(in)); return true;
+                case "chapterUrl": c.setChapterUrl(readString(in)); return true;
+                case "releaseDate": c.setReleaseDate(readString(in)); return true;
+                case "createdAt": c.setCreatedAt(readString(in)); return true;
+                case "updatedAt": c.setUpdatedAt(readString(in)); return true;
+                default: return false;
+            }
+        }
+    };
+
+    public static final TypeAdapter<ChapterImage> CHAPTER_IMAGE = new ModelAdapter<ChapterImage>() {
+        @Override
+        ChapterImage create() {
+            return new ChapterImage();
+        }
+
+        @Override
+        void writeFields(JsonWriter out, ChapterImage image) throws IOException {
+            out.name("url").value(image.getUrl());
+            out.name("order").value(image.getOrder());
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, ChapterImage image) throws IOException {
+            switch (name) {
+                case "url": image.setUrl(readString(in)); return true;
+                case "order":
+                    Integer order = readInteger(in);
+                    if (order != null) {
+                        image.setOrder(order);
+                    }
+                    return true;
+                default: return false;
+            }
+        }
+    };
+
+    public static final TypeAdapter<Bookmark> BOOKMARK = new ModelAdapter<Bookmark>() {
+        @Override
+        Bookmark create() {
+            return new Bookmark();
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Bookmark b) throws IOException {
+            out.name("id").value(b.getId());
+            out.name("mangaId").value(b.getMangaId());
+            out.name("title").value(b.getTitle());
+            out.name("cover").value(b.getCover());
+            out.name("currentChapter").value(b.getCurrentChapter());
+            out.name("totalChapters").value(b.getTotalChapters());
+            out.name("readingProgress").value(b.getReadingProgress());
+            out.name("createdAt").value(b.getCreatedAt());
+            out.name("updatedAt").value(b.getUpdatedAt());
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, Bookmark b) throws IOException {
+            switch (name) {
+                case "id": b.setId(readString(in)); return true;
+                case "mangaId": b.setMangaId(readString(in)); return true;
+                case "title": b.setTitle(readString(in)); return true;
+                case "cover": b.setCover(readString(in)); return true;
+                case "currentChapter": b.setCurrentChapter(readInteger(in)); return true;
+                case "totalChapters": b.setTotalChapters(readInteger(in)); return true;
+                case "readingProgress": b.setReadingProgress(readDouble(in)); return true;
+                case "createdAt": b.setCreatedAt(readString(in)); return true;
+                case "updatedAt": b.setUpdatedAt(readString(in)); return true;
+                default: return false;
+            }
+        }
+    };
+
+    public static final TypeAdapter<ReadingHistory> READING_HISTORY = new ModelAdapter<ReadingHistory>() {
+        @Override
+        ReadingHistory create() {
+            return new ReadingHistory();
+        }
+
+        @Override
+        void writeFields(JsonWriter out, ReadingHistory h) throws IOException {
+            out.name("id").value(h.getId());
+            out.name("userId").value(h.getUserId());
+            out.name("mangaId").value(h.getMangaId());
+            out.name("mangaTitle").value(h.getMangaTitle());
+            out.name("mangaCover").value(h.getMangaCover());
+            out.name("chapterId").value(h.getChapterId());
+            out.name("currentPage").value(h.getCurrentPage());
+            out.name("lastReadAt").value(h.getLastReadAt() != null ? h.getLastReadAt().toString() : null);
+            out.name("completed").value(h.getCompleted());
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, ReadingHistory h) throws IOException {
+            switch (name) {
+                case "id": h.setId(readString(in)); return true;
+                case "userId": h.setUserId(readString(in)); return true;
+                case "mangaId": h.setMangaId(readString(in)); return true;
+                case "mangaTitle": h.setMangaTitle(readString(in)); return true;
+                case "mangaCover": h.setMangaCover(readString(in)); return true;
+                case "chapterId": h.setChapterId(readString(in)); return true;
+                case "currentPage": h.setCurrentPage(readInteger(in)); return true;
+                case "lastReadAt": h.setLastReadAt(readDateTime(in)); return true;
+                case "completed": h.setCompleted(readBoolean(in)); return true;
+                default: return false;
+            }
+        }
+    };
+
+    public static final TypeAdapter<Permission> PERMISSION = new ModelAdapter<Permission>() {
+        @Override
+        Permission create() {
+            return new Permission();
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Permission p) throws IOException {
+            out.name("id").value(p.getId());
+            out.name("name").value(p.getName());
+            out.name("resource").value(p.getResource());
+            out.name("action").value(p.getAction());
+            out.name("description").value(p.getDescription());
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, Permission p) throws IOException {
+            switch (name) {
+                case "id": p.setId(readString(in)); return true;
+                case "name": p.setName(readString(in)); return true;
+                case "resource": p.setResource(readString(in)); return true;
+                case "action": p.setAction(readString(in)); return true;
+                case "description": p.setDescription(readString(in)); return true;
+                default: return false;
+            }
+        }
+    };
+
+    public static final TypeAdapter<UserRole> USER_ROLE = new ModelAdapter<UserRole>() {
+        @Override
+        UserRole create() {
+            return new UserRole();
+        }
+
+        @Override
+        void writeFields(JsonWriter out, UserRole r) throws IOException {
+            out.name("id").value(r.getId());
+            out.name("name").value(r.getName());
+            out.name("description").value(r.getDescription());
+            out.name("permissions");
+            List<Permission> permissions = r.getPermissions();
+            if (permissions == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (Permission permission : permissions) {
+                    PERMISSION.write(out, permission);
+                }
+                out.endArray();
+            }
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, UserRole r) throws IOException {
+            switch (name) {
+                case "id": r.setId(readString(in)); return true;
+                case "name": r.setName(readString(in)); return true;
+                case "description": r.setDescription(readString(in)); return true;
+                case "permissions":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        r.setPermissions(null);
+                        return true;
+                    }
+                    List<Permission> permissions = new ArrayList<>();
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        permissions.add(PERMISSION.read(in));
+                    }
+                    in.endArray();
+                    r.setPermissions(permissions);
+                    return true;
+                default: return false;
+            }
+        }
+    };
+
+    public static final TypeAdapter<User> USER = new ModelAdapter<User>() {
+        @Override
+        User create() {
+            return new User();
+        }
+
+        @Override
+        void writeFields(JsonWriter out, User u) throws IOException {
+            out.name("id").value(u.getId());
+            out.name("username").value(u.getUsername());
+            out.name("email").value(u.getEmail());
+            out.name("role");
+            USER_ROLE.write(out, u.getRole());
+            out.name("status").value(u.getStatus());
+            out.name("createdAt").value(u.getCreatedAt());
+            out.name("updatedAt").value(u.getUpdatedAt());
+            out.name("lastLogin").value(u.getLastLogin());
+            out.name("avatar").value(u.getAvatar());
+            out.name("bio").value(u.getBio());
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, User u) throws IOException {
+            switch (name) {
+                case "id": u.setId(readString(in)); return true;
+                case "username": u.setUsername(readString(in)); return true;
+                case "email": u.setEmail(readString(in)); return true;
+                case "role": u.setRole(USER_ROLE.read(in)); return true;
+                case "status": u.setStatus(readString(in)); return true;
+                case "createdAt": u.setCreatedAt(readString(in)); return true;
+                case "updatedAt": u.setUpdatedAt(readString(in)); return true;
+                case "lastLogin": u.setLastLogin(readString(in)); return true;
+                case "avatar": u.setAvatar(readString(in)); return true;
+                case "bio": u.setBio(readString(in)); return true;
+                default: return false;
+            }
+        }
+    };
+
+    /** An object adapter: null handling, the object braces and skipping unknown names. */
+    abstract static class ModelAdapter<T> extends TypeAdapter<T> {
+
+        abstract T create();
+
+        abstract void writeFields(JsonWriter out, T value) throws IOException;
+
+        /** Reads the value of {@code name} into {@code value}; false when the name is not a field. */
+        abstract boolean readField(JsonReader in, String name, T value) throws IOException;
+
+        @Override
+        public final void write(JsonWriter out, T value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeFields(out, value);
+            out.endObject();
+        }
+
+        @Override
+        public final T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            T value = create();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!readField(in, in.nextName(), value)) {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return value;
+        }
+    }
+
+    private static void writeStrings(JsonWriter out, List<String> values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(readString(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    // The readers below accept what Gson's built-in String/Integer/Double/Boolean adapters accept.
+
+    private static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return token == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString();
+    }
+
+    private static Integer readInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static Double readDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextDouble();
+    }
+
+    private static Boolean readBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return token == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean();
+    }
+
+    private static LocalDateTime readDateTime(JsonReader in) throws IOException {
+        String text = readString(in);
+        if (text == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+}
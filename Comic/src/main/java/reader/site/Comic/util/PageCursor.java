@@ -0,0 +1,149 @@
+package reader.site.Comic.util;
+
+import jakarta.persistence.Query;
+import reader.site.Comic.model.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset-pagination cursor: the sort key and id of the last row on a page.
+ *
+ * The next page is "rows ordered after (key, id)", which the database answers with an
+ * index seek no matter how deep the page is, unlike OFFSET which reads and throws away
+ * every earlier row. Clients only ever see the encoded form and must treat it as opaque.
+ */
+public final class PageCursor {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final char SEPARATOR = '|';
+
+    private final String key;
+    private final String id;
+
+    private PageCursor(String key, String id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    /** @param key sort-key value of the row (null if the row has none, or the list is ordered by id alone) */
+    public static PageCursor of(Object key, Object id) {
+        return new PageCursor(key == null ? null : key.toString(), String.valueOf(id));
+    }
+
+    /**
+     * Parses a cursor received from a client.
+     *
+     * @return null for a missing/blank cursor (first page)
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        int split = raw.lastIndexOf(SEPARATOR);
+        if (split < 0 || split == raw.length() - 1) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String key = raw.substring(0, split);
+        return new PageCursor(key.isEmpty() ? null : key, raw.substring(split + 1));
+    }
+
+    public String encode() {
+        String raw = (key == null ? "" : key) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getKey() { return key; }
+    public String getId() { return id; }
+
+    public Long idAsLong() {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public LocalDateTime keyAsLocalDateTime() {
+        try {
+            return key == null ? null : LocalDateTime.parse(key);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public Instant keyAsInstant() {
+        try {
+            return key == null ? null : Instant.parse(key);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /** Page size from a ?limit= parameter, defaulted and clamped to [1, MAX_LIMIT]. */
+    public static int parseLimit(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            return Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(raw.trim())));
+        } catch (NumberFormatException e) {
+            return DEFAULT_LIMIT;
+        }
+    }
+
+    /**
+     * JPQL condition (leading " AND ") for rows after this cursor in
+     * "ORDER BY keyPath DESC, idPath DESC" order, where NULL keys sort last as they do on
+     * MySQL and H2. Bind the values with {@link #bind}.
+     */
+    public String afterDescending(String keyPath, String idPath) {
+        if (key == null) {
+            return " AND " + keyPath + " IS NULL AND " + idPath + " < :cursorId";
+        }
+        return " AND (" + keyPath + " < :cursorKey OR (" + keyPath + " = :cursorKey AND " + idPath + " < :cursorId)"
+                + " OR " + keyPath + " IS NULL)";
+    }
+
+    /** Binds the parameters used by {@link #afterDescending}, converted to the mapped types. */
+    public void bind(Query query, Object typedKey, Object typedId) {
+        if (key != null) {
+            query.setParameter("cursorKey", typedKey);
+        }
+        query.setParameter("cursorId", typedId);
+    }
+
+    /**
+     * Builds a page from rows fetched with {@code setMaxResults(limit + 1)}: the extra row,
+     * if present, only signals that another page exists. Rows the mapper turns into null
+     * are dropped without affecting the cursor.
+     */
+    public static <E, T> CursorPage<T> page(List<E> rows, int limit,
+                                            Function<E, PageCursor> cursorOf, Function<E, T> mapper) {
+        boolean hasMore = rows.size() > limit;
+        List<E> pageRows = hasMore ? rows.subList(0, limit) : rows;
+        List<T> items = new ArrayList<>(pageRows.size());
+        for (E row : pageRows) {
+            T item = mapper.apply(row);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        String next = hasMore ? cursorOf.apply(pageRows.get(pageRows.size() - 1)).encode() : null;
+        return new CursorPage<>(items, next, limit);
+    }
+}
@@ -1,14 +1,28 @@
 package reader.site.Comic.util;
 
-import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * [SECURITY] Simple in-memory sliding-window rate limiter keyed by client IP.
+ * [SECURITY] In-memory token-bucket rate limiter keyed by client IP.
  * Used to throttle credential endpoints (login, forgot-password) against brute force.
  *
+ * Each limit ({@code maxAttempts} per {@code windowMillis}) has its own buckets: a key
+ * starts with {@code maxAttempts} tokens, an attempt takes one, and tokens come back at
+ * {@code maxAttempts / windowMillis}. A bucket's whole state is one long (tokens and last
+ * refill time) updated by compare-and-set, so allow() neither locks nor allocates for a
+ * known key.
+ *
+ * A full bucket is the same as no bucket, so those are what gets evicted: once a limit
+ * tracks more than RATE_LIMIT_MAX_KEYS keys (default 100000), idle keys are dropped. If a
+ * spray of addresses still leaves it over, arbitrary keys go too, and those start over
+ * with a full budget; memory stays bounded either way.
+ *
  * Note: per-instance only — adequate for a single Tomcat node. If the app is scaled
  * out horizontally, move rate limiting to the gateway / a shared store (e.g. Redis).
  */
@@ -16,38 +30,178 @@ public final class RateLimiter {
 
     private RateLimiter() {}
 
-    private static final Map<String, Deque<Long>> ATTEMPTS = new ConcurrentHashMap<>();
+    private static final int MAX_KEYS = Math.max(16, EnvConfig.getInt("RATE_LIMIT_MAX_KEYS", 100_000));
+    private static final int TRUSTED_PROXY_HOPS = Math.max(0, EnvConfig.getInt("TRUSTED_PROXY_HOPS", 1));
+    private static final long START_NANOS = System.nanoTime();
+
+    // State: refill time (ms since START_NANOS) in the high 42 bits, tokens in the low 22.
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    /** Marks a bucket being evicted; allow() then starts a new one. */
+    private static final long EVICTED = -1L;
+
+    private static final Map<Long, Buckets> LIMITS = new ConcurrentHashMap<>();
+    private static final LongAdder REJECTED = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
 
     /**
      * Records an attempt for the given key and reports whether it is allowed.
      *
      * @param key          usually the client IP
      * @param maxAttempts  max attempts within the window
-     * @param windowMillis sliding window size
+     * @param windowMillis time for a spent budget to refill completely
      * @return true if the attempt is within the limit
      */
     public static boolean allow(String key, int maxAttempts, long windowMillis) {
-        long now = System.currentTimeMillis();
-        Deque<Long> timestamps = ATTEMPTS.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+        return allow(key, maxAttempts, windowMillis, (System.nanoTime() - START_NANOS) / 1_000_000);
+    }
 
-        // Evict expired entries
-        while (!timestamps.isEmpty() && now - timestamps.peekFirst() > windowMillis) {
-            timestamps.pollFirst();
+    static boolean allow(String key, int maxAttempts, long windowMillis, long nowMillis) {
+        if (maxAttempts <= 0) {
+            return false;
+        }
+        int max = (int) Math.min(maxAttempts, TOKEN_MASK);
+        long window = Math.max(1, windowMillis);
+        Buckets buckets = LIMITS.computeIfAbsent(((long) max << 40) ^ window,
+                k -> new Buckets(max, window, MAX_KEYS));
+        boolean allowed = buckets.take(key, nowMillis);
+        if (!allowed) {
+            REJECTED.increment();
         }
+        return allowed;
+    }
 
-        if (timestamps.size() >= maxAttempts) {
-            return false;
+    /** Keys tracked, attempts rejected and idle keys evicted. */
+    public static Map<String, Object> stats() {
+        long keys = 0;
+        for (Buckets buckets : LIMITS.values()) {
+            keys += buckets.size();
         }
-        timestamps.addLast(now);
-        return true;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", keys);
+        stats.put("maxKeysPerLimit", MAX_KEYS);
+        stats.put("rejected", REJECTED.sum());
+        stats.put("evicted", EVICTIONS.sum());
+        return stats;
     }
 
-    /** Best-effort client IP (honours a single-hop X-Forwarded-For if present). */
+    /**
+     * The client address as seen by the nearest trusted proxy. Each of the
+     * TRUSTED_PROXY_HOPS proxies in front of Tomcat (default 1, the Container Apps
+     * ingress) appends the address it received from to X-Forwarded-For, so the entry that
+     * many places from the right is the client's; anything further left was sent by the
+     * client and can be anything. With 0 hops, or no header, the socket address is used.
+     */
     public static String clientIp(jakarta.servlet.http.HttpServletRequest req) {
+        return clientIp(req, TRUSTED_PROXY_HOPS);
+    }
+
+    static String clientIp(jakarta.servlet.http.HttpServletRequest req, int trustedHops) {
         String forwarded = req.getHeader("X-Forwarded-For");
-        if (forwarded != null && !forwarded.isBlank()) {
-            return forwarded.split(",")[0].trim();
+        if (trustedHops == 0 || forwarded == null || forwarded.isBlank()) {
+            return req.getRemoteAddr();
+        }
+        String[] hops = forwarded.split(",");
+        return hops[Math.max(0, hops.length - trustedHops)].trim();
+    }
+
+    /** The buckets of one limit. */
+    static final class Buckets {
+        private final int max;
+        private final long window;
+        private final int maxKeys;
+        private final ConcurrentHashMap<String, AtomicLong> states = new ConcurrentHashMap<>();
+        private final AtomicBoolean sweeping = new AtomicBoolean();
+
+        Buckets(int max, long window, int maxKeys) {
+            this.max = max;
+            this.window = window;
+            this.maxKeys = maxKeys;
+        }
+
+        int size() {
+            return states.size();
+        }
+
+        boolean take(String key, long now) {
+            while (true) {
+                AtomicLong state = states.get(key);
+                if (state == null) {
+                    // A new key starts full and spends one token.
+                    if (states.size() >= maxKeys) {
+                        sweep(now);
+                    }
+                    state = states.putIfAbsent(key, new AtomicLong(pack(now, max - 1)));
+                    if (state == null) {
+                        return true;
+                    }
+                }
+                while (true) {
+                    long current = state.get();
+                    if (current == EVICTED) {
+                        states.remove(key, state);
+                        break; // start over with a new bucket
+                    }
+                    long refilled = refill(current, now);
+                    if ((refilled & TOKEN_MASK) == 0) {
+                        return false;
+                    }
+                    if (state.compareAndSet(current, refilled - 1)) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        /** The state after adding the tokens earned since its refill time. */
+        long refill(long state, long now) {
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+            long elapsed = now - last;
+            if (elapsed <= 0 || tokens >= max) {
+                return tokens >= max ? pack(Math.max(now, last), max) : state;
+            }
+            long earned = elapsed >= window ? max : elapsed * max / window;
+            if (earned == 0) {
+                return state;
+            }
+            if (tokens + earned >= max) {
+                return pack(now, max);
+            }
+            // Advance the refill time only by what the earned tokens took, keeping the remainder.
+            return pack(last + earned * window / max, tokens + earned);
+        }
+
+        /** Drops idle (full) buckets; if that is not enough, drops arbitrary ones. */
+        void sweep(long now) {
+            if (!sweeping.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                for (Map.Entry<String, AtomicLong> entry : states.entrySet()) {
+                    AtomicLong state = entry.getValue();
+                    long current = state.get();
+                    if (current != EVICTED && (refill(current, now) & TOKEN_MASK) >= max
+                            && state.compareAndSet(current, EVICTED)) {
+                        states.remove(entry.getKey(), state);
+                        EVICTIONS.increment();
+                    }
+                }
+                int target = maxKeys - maxKeys / 10;
+                Iterator<Map.Entry<String, AtomicLong>> it = states.entrySet().iterator();
+                while (states.size() > target && it.hasNext()) {
+                    Map.Entry<String, AtomicLong> entry = it.next();
+                    entry.getValue().set(EVICTED);
+                    states.remove(entry.getKey(), entry.getValue());
+                    EVICTIONS.increment();
+                }
+            } finally {
+                sweeping.set(false);
+            }
+        }
+
+        private static long pack(long refillMillis, long tokens) {
+            return (refillMillis << TOKEN_BITS) | tokens;
         }
-        return req.getRemoteAddr();
     }
 }
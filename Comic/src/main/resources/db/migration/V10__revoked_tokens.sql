@@ -0,0 +1,9 @@
+-- Logged-out signed access tokens (TOKEN_MODE=signed), by token id, kept until the token
+-- would have expired anyway. Every node polls the table into its in-memory revocation
+-- list, so a logout on one node is honoured by all of them.
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    token_id VARCHAR(32) NOT NULL,
+    expires_at BIGINT NOT NULL,
+    PRIMARY KEY (token_id)
+) ENGINE=InnoDB;
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
@@ -0,0 +1,138 @@
+-- Baseline: the schema hibernate.hbm2ddl.auto=update has been producing for the
+-- mapped entities. Every table is CREATE ... IF NOT EXISTS and constraint names match
+-- the ones Hibernate generated, so existing databases pass through this unchanged and
+-- empty databases end up identical to them.
+
+CREATE TABLE IF NOT EXISTS roles (
+    id varchar(64) NOT NULL,
+    name varchar(64) NOT NULL,
+    description varchar(256),
+    PRIMARY KEY (id),
+    CONSTRAINT UKofx66keruapi6vyqpv6f2or37 UNIQUE (name)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS permissions (
+    id varchar(64) NOT NULL,
+    name varchar(128) NOT NULL,
+    resource varchar(64) NOT NULL,
+    action varchar(64) NOT NULL,
+    description varchar(256),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS role_permissions (
+    role_id varchar(64) NOT NULL,
+    permission_id varchar(64) NOT NULL,
+    PRIMARY KEY (permission_id, role_id),
+    CONSTRAINT FKn5fotdgk8d1xvo8nav9uv3muc FOREIGN KEY (role_id) REFERENCES roles (id),
+    CONSTRAINT FKegdk29eiy7mdtefy5c7eirr6e FOREIGN KEY (permission_id) REFERENCES permissions (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS users (
+    id varchar(64) NOT NULL,
+    username varchar(64) NOT NULL,
+    email varchar(128) NOT NULL,
+    password varchar(255) NOT NULL,
+    role_id varchar(64) NOT NULL,
+    status varchar(255) NOT NULL,
+    avatar varchar(500),
+    bio TEXT,
+    activation_token varchar(255),
+    reset_token varchar(255),
+    reset_token_expiry datetime(6),
+    last_login datetime(6),
+    created_at datetime(6) NOT NULL,
+    updated_at datetime(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT UKr43af9ap4edm43mmtq01oddj6 UNIQUE (username),
+    CONSTRAINT UK6dotkott2kjsp8vw4d0m25fb7 UNIQUE (email),
+    CONSTRAINT FKp56c1712k691lhsyewcssf40f FOREIGN KEY (role_id) REFERENCES roles (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS manga (
+    id bigint NOT NULL AUTO_INCREMENT,
+    title varchar(255) NOT NULL,
+    cover varchar(512),
+    chapters LONGTEXT,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+-- Mapped twice: MangaChapterEntity (chapter metadata) and ChapterImageEntity
+-- (chapter_name / image_url / image_order page rows).
+CREATE TABLE IF NOT EXISTS manga_chapters (
+    id bigint NOT NULL AUTO_INCREMENT,
+    manga_id bigint NOT NULL,
+    chapter_number integer NOT NULL,
+    chapter_title varchar(255) NOT NULL,
+    chapter_url varchar(512),
+    chapter_name varchar(255),
+    image_url varchar(512),
+    image_order integer,
+    release_date date,
+    created_at datetime(6),
+    updated_at datetime(6),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS bookmarks (
+    id bigint NOT NULL AUTO_INCREMENT,
+    user_id varchar(64) NOT NULL,
+    manga_id bigint NOT NULL,
+    title varchar(255),
+    cover varchar(512),
+    current_chapter integer,
+    total_chapters integer,
+    reading_progress float(53),
+    created_at datetime(6),
+    updated_at datetime(6),
+    PRIMARY KEY (id),
+    CONSTRAINT FKdbsho2e05w5r13fkjqfjmge5f FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT FK2qdxsi0yqft9tsku0evt5j8km FOREIGN KEY (manga_id) REFERENCES manga (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS reading_history (
+    id bigint NOT NULL AUTO_INCREMENT,
+    user_id varchar(64) NOT NULL,
+    manga_id bigint NOT NULL,
+    chapter_id varchar(50),
+    current_page integer,
+    completed bit,
+    last_read_at datetime(6),
+    PRIMARY KEY (id),
+    CONSTRAINT FK4em4jiifdpk82abt61fexga29 FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT FK4vmx8iiili4wrhavcoi59hl8m FOREIGN KEY (manga_id) REFERENCES manga (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS epub_books (
+    id bigint NOT NULL AUTO_INCREMENT,
+    user_id varchar(64) NOT NULL,
+    title varchar(255) NOT NULL,
+    file_name varchar(255) NOT NULL,
+    blob_name varchar(40) NOT NULL,
+    file_size_in_bytes bigint NOT NULL,
+    upload_date datetime(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS posts (
+    id bigint NOT NULL AUTO_INCREMENT,
+    title varchar(255) NOT NULL,
+    content tinytext NOT NULL,
+    authorId varchar(64) NOT NULL,
+    mangaId bigint,
+    coverImage varchar(255),
+    tagsCsv varchar(512),
+    createdAt datetime(6) NOT NULL,
+    updatedAt datetime(6) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS comments (
+    id bigint NOT NULL AUTO_INCREMENT,
+    post_id bigint NOT NULL,
+    authorId varchar(64) NOT NULL,
+    content tinytext NOT NULL,
+    createdAt datetime(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT FKh4c7lvsc298whoyd4w9ta25cr FOREIGN KEY (post_id) REFERENCES posts (id)
+) ENGINE=InnoDB;
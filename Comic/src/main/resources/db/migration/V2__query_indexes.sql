@@ -0,0 +1,27 @@
+-- Composite indexes for the hot lookups. Before this every one of these was a full
+-- scan (or an FK index on the first column followed by a filesort).
+
+-- MangaChapterDAO.findByMangaId: WHERE manga_id = ? ORDER BY chapter_number
+CREATE INDEX idx_manga_chapters_manga_number ON manga_chapters (manga_id, chapter_number);
+
+-- ChapterImageDAO.findByMangaAndChapter: WHERE manga_id = ? AND chapter_name = ? ORDER BY image_order
+CREATE INDEX idx_manga_chapters_manga_name_order ON manga_chapters (manga_id, chapter_name, image_order);
+
+-- BookmarkDAO looks bookmarks up by (user, manga) and treats the pair as unique, but
+-- nothing enforced it. Keep the newest row of any duplicate pair, then enforce it.
+DELETE FROM bookmarks
+WHERE id NOT IN (
+    SELECT keep_id FROM (
+        SELECT MAX(id) AS keep_id FROM bookmarks GROUP BY user_id, manga_id
+    ) AS keep_rows
+);
+CREATE UNIQUE INDEX ux_bookmarks_user_manga ON bookmarks (user_id, manga_id);
+
+-- ReadingHistoryDAO.findByUserId: WHERE user_id = ? ORDER BY last_read_at DESC
+CREATE INDEX idx_reading_history_user_last_read ON reading_history (user_id, last_read_at);
+
+-- CommentDAO: WHERE post_id = ? ORDER BY createdAt DESC
+CREATE INDEX idx_comments_post_created ON comments (post_id, createdAt);
+
+-- PostDAO.list: WHERE mangaId = ? ORDER BY createdAt DESC (Post maps camelCase column names)
+CREATE INDEX idx_posts_manga_created ON posts (mangaId, createdAt);
@@ -0,0 +1,12 @@
+-- Seek indexes for keyset pagination (PageCursor). Each matches the ORDER BY of its
+-- page query; InnoDB appends the primary key, which covers the id tie-breaker.
+-- reading_history already has (user_id, last_read_at) from V2 and manga pages by PK.
+
+-- BookmarkDAO.findPageByUserId: WHERE user_id = ? ORDER BY updated_at DESC, id DESC
+CREATE INDEX idx_bookmarks_user_updated ON bookmarks (user_id, updated_at);
+
+-- EpubBookDAO.findPageByUserId: WHERE user_id = ? ORDER BY upload_date DESC, id DESC
+CREATE INDEX idx_epub_books_user_uploaded ON epub_books (user_id, upload_date);
+
+-- UserDAO.findPage: ORDER BY created_at DESC, id DESC
+CREATE INDEX idx_users_created ON users (created_at, id);
@@ -0,0 +1,10 @@
+-- ReadingHistoryDAO.save is a single-statement upsert keyed on (user_id, manga_id).
+-- The old SELECT-then-INSERT could race and leave duplicates; keep the newest row of
+-- each pair, then enforce the key the upsert relies on.
+DELETE FROM reading_history
+WHERE id NOT IN (
+    SELECT keep_id FROM (
+        SELECT MAX(id) AS keep_id FROM reading_history GROUP BY user_id, manga_id
+    ) AS keep_rows
+);
+CREATE UNIQUE INDEX ux_reading_history_user_manga ON reading_history (user_id, manga_id);
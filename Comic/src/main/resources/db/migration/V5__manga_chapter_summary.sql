@@ -0,0 +1,4 @@
+-- Denormalised chapter summary, so catalog reads never parse the chapters LONGTEXT.
+-- Kept in step with the list by MangaDAO; V6 fills it in for existing rows.
+ALTER TABLE manga ADD COLUMN chapter_count INT NOT NULL DEFAULT 0;
+ALTER TABLE manga ADD COLUMN latest_chapter VARCHAR(255) NULL;
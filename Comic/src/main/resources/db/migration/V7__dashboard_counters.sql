@@ -0,0 +1,8 @@
+-- Persisted dashboard counters that have no table to COUNT from (manga detail views).
+-- Table-backed figures are kept in memory and reconciled with COUNT queries instead.
+CREATE TABLE IF NOT EXISTS dashboard_counters (
+    counter_name VARCHAR(64) NOT NULL,
+    counter_value BIGINT NOT NULL,
+    PRIMARY KEY (counter_name)
+) ENGINE=InnoDB;
+INSERT INTO dashboard_counters (counter_name, counter_value) VALUES ('manga_views', 0);
@@ -0,0 +1,3 @@
+-- Creation time for the "new manga this month" figure; unknown (NULL) for existing rows.
+ALTER TABLE manga ADD COLUMN created_at datetime(6) NULL;
+CREATE INDEX idx_manga_created ON manga (created_at);
@@ -0,0 +1,8 @@
+-- Admin user search. LOWER(username) LIKE '%x%' could not use any index, so every
+-- keystroke scanned users. The database now keeps lower-cased copies of both columns
+-- (virtual in MySQL, so no data is rewritten) and indexes them for prefix matches;
+-- infix matches are answered by the in-process UserSearchIndex.
+ALTER TABLE users ADD COLUMN username_lower VARCHAR(64) GENERATED ALWAYS AS (LOWER(username));
+ALTER TABLE users ADD COLUMN email_lower VARCHAR(128) GENERATED ALWAYS AS (LOWER(email));
+CREATE INDEX idx_users_username_lower ON users (username_lower);
+CREATE INDEX idx_users_email_lower ON users (email_lower);
@@ -1,9 +1,10 @@
 package reader.site.Comic;
 
 import jakarta.persistence.EntityManager;
+import reader.site.Comic.dao.MangaDAO;
 import reader.site.Comic.dao.RoleDAO;
-import reader.site.Comic.entity.MangaEntity;
 import reader.site.Comic.entity.UserEntity;
+import reader.site.Comic.model.Manga;
 import reader.site.Comic.persistence.JPAUtil;
 import reader.site.Comic.util.PasswordUtil;
 
@@ -22,7 +23,7 @@ public final class TestDb {
 
     /** Ensures default roles/permissions are seeded (idempotent). */
     public static void ensureRolesSeeded() {
-        new RoleDAO();
+        new RoleDAO().seedDefaults();
     }
 
     /** Creates and persists a user with a bcrypt-hashed password. Returns the entity id. */
@@ -48,18 +49,10 @@ public final class TestDb {
 
     /** Creates and persists a manga. Returns the entity id. */
     public static Long createManga() {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            em.getTransaction().begin();
-            MangaEntity manga = new MangaEntity();
-            manga.setTitle("Test Manga " + UUID.randomUUID().toString().substring(0, 8));
-            manga.setCover("https://example.com/cover.png");
-            manga.setChapters(new ArrayList<>(List.of("chapter-1", "chapter-2")));
-            em.persist(manga);
-            em.getTransaction().commit();
-            return manga.getId();
-        } finally {
-            em.close();
-        }
+        Manga manga = new Manga();
+        manga.setTitle("Test Manga " + UUID.randomUUID().toString().substring(0, 8));
+        manga.setCover("https://example.com/cover.png");
+        manga.setChapters(new ArrayList<>(List.of("chapter-1", "chapter-2")));
+        return Long.valueOf(new MangaDAO().insert(manga).getId());
     }
 }
@@ -4,8 +4,15 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import reader.site.Comic.TestDb;
 import reader.site.Comic.model.Bookmark;
+import reader.site.Comic.model.CursorPage;
+import reader.site.Comic.model.MangaChapter;
+import reader.site.Comic.util.PageCursor;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -58,6 +65,57 @@ class BookmarkDAOTest {
         assertNull(bookmarkDAO.saveOrUpdate(userId, 999_999_999L, "x", null, 1, 1, 0.0));
     }
 
+    @Test
+    void saveOrUpdateDerivesMissingFieldsInTheSameWrite() {
+        String userId = TestDb.createUser("role-user");
+        Long mangaId = TestDb.createManga();
+        MangaChapterDAO chapterDAO = new MangaChapterDAO();
+        for (int number : new int[] {1, 8}) {
+            MangaChapter chapter = new MangaChapter();
+            chapter.setMangaId(String.valueOf(mangaId));
+            chapter.setChapterNumber(number);
+            chapter.setChapterTitle("Chapter " + number);
+            chapterDAO.insert(chapter);
+        }
+
+        Bookmark saved = bookmarkDAO.saveOrUpdate(userId, mangaId, null, null, 2, null, null);
+        assertNotNull(saved.getId());
+        assertTrue(saved.getTitle().startsWith("Test Manga"), "title falls back to the manga's");
+        assertEquals("https://example.com/cover.png", saved.getCover());
+        assertEquals(8, saved.getTotalChapters());
+        assertEquals(0.25, saved.getReadingProgress(), 1e-9);
+        assertNotNull(saved.getCreatedAt());
+
+        Bookmark renamed = bookmarkDAO.saveOrUpdate(userId, mangaId, "Renamed", null, 4, null, null);
+        Bookmark kept = bookmarkDAO.saveOrUpdate(userId, mangaId, null, null, 6, null, null);
+        assertEquals(saved.getId(), kept.getId());
+        assertEquals("Renamed", kept.getTitle(), "an omitted title keeps the stored one");
+        assertEquals(0.75, kept.getReadingProgress(), 1e-9);
+        assertEquals(saved.getCreatedAt(), renamed.getCreatedAt());
+    }
+
+    @Test
+    void concurrentSavesForSamePairConvergeOnOneRow() throws Exception {
+        String userId = TestDb.createUser("role-user");
+        Long mangaId = TestDb.createManga();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Bookmark>> results = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                int chapter = i;
+                results.add(pool.submit(() -> bookmarkDAO.saveOrUpdate(userId, mangaId, null, null, chapter, 20, null)));
+            }
+            for (Future<Bookmark> result : results) {
+                assertNotNull(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, bookmarkDAO.findByUserId(userId).size());
+    }
+
     @Test
     void deleteOwnedRemovesOwnBookmark() {
         String userId = TestDb.createUser("role-user");
@@ -95,4 +153,22 @@ class BookmarkDAOTest {
         String userId = TestDb.createUser("role-user");
         assertFalse(bookmarkDAO.deleteOwned(999_999_999L, userId));
     }
+
+    @Test
+    void findPageByUserIdReturnsNewestFirstAcrossPages() {
+        String userId = TestDb.createUser("role-user");
+        for (int i = 0; i < 3; i++) {
+            bookmarkDAO.saveOrUpdate(userId, TestDb.createManga(), "Paged " + i, null, 1, 10, 0.1);
+        }
+
+        CursorPage<Bookmark> first = bookmarkDAO.findPageByUserId(userId, null, 2);
+        assertEquals(2, first.getItems().size());
+        assertEquals("Paged 2", first.getItems().get(0).getTitle());
+        assertNotNull(first.getNext());
+
+        CursorPage<Bookmark> second = bookmarkDAO.findPageByUserId(userId, PageCursor.decode(first.getNext()), 2);
+        assertEquals(1, second.getItems().size());
+        assertEquals("Paged 0", second.getItems().get(0).getTitle());
+        assertNull(second.getNext(), "last page must not offer a next cursor");
+    }
 }
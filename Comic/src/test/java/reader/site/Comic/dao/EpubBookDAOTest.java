@@ -4,6 +4,9 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import reader.site.Comic.TestDb;
 import reader.site.Comic.model.EpubBook;
+import reader.site.Comic.model.CursorPage;
+import reader.site.Comic.persistence.RequestScope;
+import reader.site.Comic.util.PageCursor;
 
 import java.util.List;
 
@@ -122,4 +125,32 @@ class EpubBookDAOTest {
         assertNull(epubDAO.findById(saved.getId()));
         assertFalse(epubDAO.deleteById(saved.getId()), "second delete must return false");
     }
+
+    @Test
+    void findPageByUserIdReturnsOnlyOwnBooksInPages() throws Exception {
+        String userId = TestDb.createUser("role-user");
+        String otherId = TestDb.createUser("role-user");
+        for (int i = 0; i < 3; i++) {
+            epubDAO.insert(book(userId, "Paged " + i, 1024));
+        }
+        epubDAO.insert(book(otherId, "Not Mine", 1024));
+
+        CursorPage<EpubBook> first = epubDAO.findPageByUserId(userId, null, 2);
+        assertEquals(2, first.getItems().size());
+        CursorPage<EpubBook> second = epubDAO.findPageByUserId(userId, PageCursor.decode(first.getNext()), 2);
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNext());
+
+        assertTrue(java.util.stream.Stream.concat(first.getItems().stream(), second.getItems().stream())
+                .allMatch(b -> userId.equals(b.getUserId())));
+    }
+
+    @Test
+    void readsJoinTheRequestScope() {
+        String userId = TestDb.createUser("role-user");
+        try (RequestScope scope = RequestScope.open(true)) {
+            assertEquals(0L, epubDAO.getUserUsedStorage(userId));
+            assertTrue(scope.isStarted(), "the read went through the request's EntityManager");
+        }
+    }
 }
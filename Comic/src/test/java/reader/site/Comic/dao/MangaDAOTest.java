@@ -4,7 +4,13 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import reader.site.Comic.TestDb;
 import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.CursorPage;
+import reader.site.Comic.model.MangaSummary;
+import reader.site.Comic.persistence.ConnectionPool;
+import reader.site.Comic.util.PageCursor;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -92,4 +98,92 @@ class MangaDAOTest {
         List<Manga> all = mangaDAO.findAll();
         assertTrue(all.stream().anyMatch(m -> title.equals(m.getTitle())));
     }
+
+    @Test
+    void summariesCarryGridFieldsAndReflectUpdates() {
+        Manga saved = mangaDAO.insert(newManga("Summary " + System.nanoTime()));
+
+        MangaSummary summary = mangaDAO.findAllSummaries().stream()
+                .filter(m -> saved.getId().equals(m.getId())).findFirst().orElseThrow();
+        assertEquals(saved.getTitle(), summary.getTitle());
+        assertEquals(saved.getCover(), summary.getCover());
+
+        // The projection is query-cached; an update must still show through.
+        Manga renamed = newManga("Summary renamed " + System.nanoTime());
+        assertTrue(mangaDAO.update(saved.getId(), renamed));
+        assertTrue(mangaDAO.findAllSummaries().stream().anyMatch(m -> renamed.getTitle().equals(m.getTitle())));
+    }
+
+    @Test
+    void chapterSummaryFollowsTheList() {
+        Manga saved = mangaDAO.insert(newManga("Counted " + System.nanoTime()));
+        assertEquals(3, saved.getChapterCount());
+        assertEquals("ch-1", saved.getLatestChapter());
+
+        Manga retitled = newManga("Counted retitled " + System.nanoTime());
+        retitled.setChapters(null);
+        assertTrue(mangaDAO.update(saved.getId(), retitled));
+        Manga reloaded = mangaDAO.findById(saved.getId());
+        assertEquals(List.of("ch-1", "ch-2", "ch-3"), reloaded.getChapters(), "omitted chapters are left alone");
+        assertEquals(3, reloaded.getChapterCount());
+
+        retitled.setChapters(new java.util.ArrayList<>(List.of("ch-9", "ch-8")));
+        assertTrue(mangaDAO.update(saved.getId(), retitled));
+        MangaSummary summary = mangaDAO.findAllSummaries().stream()
+                .filter(m -> saved.getId().equals(m.getId())).findFirst().orElseThrow();
+        assertEquals(2, summary.getChapterCount());
+        assertEquals("ch-9", summary.getLatestChapter());
+        assertTrue(mangaDAO.totalChapters() >= 2);
+    }
+
+    @Test
+    void countsSeeRowsWrittenPastHibernate() throws Exception {
+        long manga = mangaDAO.count();
+        long chapters = mangaDAO.totalChapters();
+
+        // Another node's insert: nothing on this node invalidates its query cache.
+        try (Connection conn = ConnectionPool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "INSERT INTO manga (title, chapter_count) VALUES (?, 4)")) {
+            ps.setString(1, "Other node " + System.nanoTime());
+            ps.executeUpdate();
+        }
+
+        assertEquals(manga + 1, mangaDAO.count());
+        assertEquals(chapters + 4, mangaDAO.totalChapters());
+    }
+
+    @Test
+    void findSummaryPageFollowsIdOrder() {
+        mangaDAO.insert(newManga("Summary page a " + System.nanoTime()));
+        mangaDAO.insert(newManga("Summary page b " + System.nanoTime()));
+
+        CursorPage<MangaSummary> first = mangaDAO.findSummaryPage(null, 1);
+        assertNotNull(first.getNext());
+        CursorPage<MangaSummary> second = mangaDAO.findSummaryPage(PageCursor.decode(first.getNext()), 1);
+        assertTrue(Long.parseLong(second.getItems().get(0).getId()) > Long.parseLong(first.getItems().get(0).getId()));
+    }
+
+    @Test
+    void findPageWalksEveryMangaExactlyOnce() {
+        for (int i = 0; i < 5; i++) {
+            mangaDAO.insert(newManga("Paged " + i + " " + System.nanoTime()));
+        }
+        int total = mangaDAO.findAll().size();
+
+        java.util.Set<String> seen = new java.util.HashSet<>();
+        PageCursor cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<Manga> page = mangaDAO.findPage(cursor, 2);
+            assertTrue(page.getItems().size() <= 2);
+            for (Manga manga : page.getItems()) {
+                assertTrue(seen.add(manga.getId()), "no manga may appear on two pages");
+            }
+            cursor = PageCursor.decode(page.getNext());
+            pages++;
+        } while (cursor != null && pages < 1000);
+
+        assertEquals(total, seen.size());
+    }
 }
@@ -4,8 +4,14 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import reader.site.Comic.TestDb;
 import reader.site.Comic.model.ReadingHistory;
+import reader.site.Comic.model.CursorPage;
+import reader.site.Comic.util.PageCursor;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -91,4 +97,62 @@ class ReadingHistoryDAOTest {
         assertTrue(historyDAO.findByUserId(userId).isEmpty());
         assertFalse(historyDAO.delete(Long.valueOf(saved.getId())), "second delete must return false");
     }
+
+    @Test
+    void findPageByUserIdPagesWithoutGapsOrRepeats() {
+        String userId = TestDb.createUser("role-user");
+        for (int i = 0; i < 5; i++) {
+            historyDAO.save(userId, TestDb.createManga(), "chapter-" + i, i, false);
+        }
+
+        java.util.Set<String> seen = new java.util.HashSet<>();
+        CursorPage<ReadingHistory> page = historyDAO.findPageByUserId(userId, null, 2);
+        seen.addAll(page.getItems().stream().map(ReadingHistory::getId).toList());
+        while (page.getNext() != null) {
+            page = historyDAO.findPageByUserId(userId, PageCursor.decode(page.getNext()), 2);
+            for (ReadingHistory entry : page.getItems()) {
+                assertTrue(seen.add(entry.getId()), "no entry may appear on two pages");
+            }
+        }
+
+        assertEquals(5, seen.size());
+    }
+
+    @Test
+    void saveKeepsTheSameRowAndLatestPosition() {
+        String userId = TestDb.createUser("role-user");
+        Long mangaId = TestDb.createManga();
+
+        ReadingHistory first = historyDAO.save(userId, mangaId, "chapter-1", 1, false);
+        ReadingHistory second = historyDAO.save(userId, mangaId, "chapter-4", 12, true);
+
+        assertEquals(first.getId(), second.getId(), "an upsert must report the existing row's id");
+        assertNotNull(second.getMangaTitle());
+        ReadingHistory stored = historyDAO.findByUserAndManga(userId, mangaId).orElseThrow();
+        assertEquals("chapter-4", stored.getChapterId());
+        assertEquals(12, stored.getCurrentPage());
+        assertTrue(stored.getCompleted());
+    }
+
+    @Test
+    void concurrentSavesForSamePairNeverDuplicate() throws Exception {
+        String userId = TestDb.createUser("role-user");
+        Long mangaId = TestDb.createManga();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ReadingHistory>> results = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                int page = i;
+                results.add(pool.submit(() -> historyDAO.save(userId, mangaId, "chapter-1", page, false)));
+            }
+            for (Future<ReadingHistory> result : results) {
+                assertNotNull(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, historyDAO.findByUserId(userId).size());
+    }
 }
@@ -6,6 +6,8 @@ import reader.site.Comic.TestDb;
 import reader.site.Comic.model.User;
 import reader.site.Comic.model.UserRole;
 import reader.site.Comic.util.PasswordUtil;
+import reader.site.Comic.model.CursorPage;
+import reader.site.Comic.util.PageCursor;
 
 import java.util.List;
 import java.util.Optional;
@@ -110,6 +112,8 @@ class UserDAOTest {
 
         List<User> page = userDAO.findAll(1, 10, suffix, null, null);
         assertEquals(2, page.size(), "search should find both users created with suffix " + suffix);
+        assertNotNull(page.get(0).getRole(), "list rows still carry the role");
+        assertNull(page.get(0).getPassword(), "list rows never load the password hash");
         assertEquals(2, userDAO.count(suffix, null, null));
     }
 
@@ -156,4 +160,46 @@ class UserDAOTest {
     void generateResetTokenReturnsNullForUnknownEmail() {
         assertNull(userDAO.generateResetToken("ghost-" + System.nanoTime() + "@nowhere.test"));
     }
+
+    @Test
+    void findPageFollowsCursorThroughFilteredUsers() {
+        String marker = "page" + System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            userDAO.create(newUser(marker + "-" + i));
+        }
+
+        CursorPage<User> first = userDAO.findPage(null, 2, marker, null, null);
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getNext());
+
+        CursorPage<User> second = userDAO.findPage(PageCursor.decode(first.getNext()), 2, marker, null, null);
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNext());
+        assertTrue(first.getItems().stream().noneMatch(u -> u.getId().equals(second.getItems().get(0).getId())));
+    }
+
+    @Test
+    void unfilteredPagesReuseOneCountUntilThisDaoWrites() {
+        UserDAO dao = new UserDAO();
+        long total = dao.findPage(null, 2, null, null, null).getTotal();
+        assertEquals(userDAO.count(null, null, null), total);
+
+        userDAO.create(newUser("elsewhere-" + System.nanoTime()));
+        assertEquals(total, dao.search(1, 2, null, null, null).getTotal(), "counted once, then reused");
+
+        dao.create(newUser("here-" + System.nanoTime()));
+        assertEquals(total + 2, dao.findPage(null, 2, null, null, null).getTotal(), "its own write recounts");
+    }
+
+    @Test
+    void aSearchStillCountsItsMatchesExactly() {
+        String marker = "total" + System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            userDAO.create(newUser(marker + "-" + i));
+        }
+
+        assertEquals(3, userDAO.findPage(null, 2, marker, null, null).getTotal());
+        assertEquals(3, userDAO.search(1, 2, marker, null, null).getTotal());
+        assertEquals(3, userDAO.search(5, 2, marker, null, null).getTotal(), "past the last page");
+    }
 }
@@ -0,0 +1,270 @@
+package reader.site.Comic.filter;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import reader.site.Comic.model.User;
+import reader.site.Comic.persistence.JPAUtil;
+import reader.site.Comic.persistence.RequestScope;
+import reader.site.Comic.util.AdaptiveLimiter;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the filter against minimal in-memory requests: route classes, the per-caller quota
+ * (429), the in-flight cap and the adaptive limit (503), that each class's adaptive limit
+ * sees only its own latency, and that an async request holds its slot until it ends.
+ */
+class AdmissionFilterTest {
+
+    private static final FilterChain OK = (request, response) -> {};
+
+    @Test
+    void pathsAreSortedIntoRouteClasses() {
+        AdmissionFilter filter = new AdmissionFilter();
+        filter.configure(List.of(
+                new AdmissionFilter.Route("catalog", 600, 64, "/api/manga", "/api/manga-chapters", "/api/series"),
+                new AdmissionFilter.Route("downloads", 10, 32, "/api/epub/file"),
+                new AdmissionFilter.Route("api", 300, 48, "/api")));
+
+        assertEquals("catalog", filter.route("/api/manga").name);
+        assertEquals("catalog", filter.route("/api/manga/42").name);
+        assertEquals("catalog", filter.route("/api/manga-chapters/7").name);
+        assertEquals("downloads", filter.route("/api/epub/file").name);
+        assertEquals("api", filter.route("/api/epub/user/12").name, "listing is not a download");
+        assertEquals("api", filter.route("/api/epub").name, "nor is an upload");
+        assertEquals("api", filter.route("/api/mangas").name, "prefixes end at a path segment");
+        assertEquals("api", filter.route("/api/bookmarks").name);
+        assertNull(filter.route("/api/health"), "health checks are never limited");
+    }
+
+    @Test
+    void aCallerOverItsQuotaGets429WithRetryAfter() throws Exception {
+        AdmissionFilter filter = filter(new AdmissionFilter.Route(uniqueName(), 2, 10, "/api"));
+        AtomicInteger served = new AtomicInteger();
+        FilterChain chain = (request, response) -> served.incrementAndGet();
+
+        assertEquals(200, run(filter, request("198.51.100.1", null), chain).status);
+        assertEquals(200, run(filter, request("198.51.100.1", null), chain).status);
+        FakeResponse rejected = run(filter, request("198.51.100.1", null), chain);
+
+        assertEquals(429, rejected.status);
+        assertEquals("30", rejected.headers.get("Retry-After"));
+        assertTrue(rejected.body.toString(StandardCharsets.UTF_8).contains("\"error\""));
+        assertEquals(2, served.get(), "the servlet never saw the rejected request");
+        assertEquals(200, run(filter, request("198.51.100.2", null), chain).status, "another address has its own quota");
+    }
+
+    @Test
+    void signedInUsersAreCountedPerUser() throws Exception {
+        AdmissionFilter filter = filter(new AdmissionFilter.Route(uniqueName(), 1, 10, "/api"));
+
+        assertEquals(200, run(filter, request("203.0.113.5", user("u1")), OK).status);
+        assertEquals(429, run(filter, request("203.0.113.5", user("u1")), OK).status);
+        assertEquals(200, run(filter, request("203.0.113.5", user("u2")), OK).status, "same address, other user");
+    }
+
+    @Test
+    void requestsPastTheInFlightCapAreShed() throws Exception {
+        AdmissionFilter.Route route = new AdmissionFilter.Route(uniqueName(), 1_000, 1, "/api");
+        AdmissionFilter filter = filter(route);
+        AtomicReference<FakeResponse> nested = new AtomicReference<>();
+
+        // While the first request is still in the servlet, a second one arrives.
+        run(filter, request("192.0.2.1", null), (request, response) ->
+                nested.set(run(filter, request("192.0.2.2", null), OK)));
+
+        assertEquals(503, nested.get().status);
+        assertEquals("1", nested.get().headers.get("Retry-After"));
+        assertEquals(200, run(filter, request("192.0.2.3", null), OK).status, "the slot was released");
+        Map<String, Object> stats = route.stats();
+        assertEquals(2L, stats.get("admitted"));
+        assertEquals(1L, stats.get("shed"));
+        assertEquals(0, stats.get("inFlight"));
+    }
+
+    @Test
+    void databaseBoundRoutesAreShedPastTheAdaptiveLimit() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 0);
+        AdmissionFilter.Route route = new AdmissionFilter.Route(uniqueName(), 1_000, 10, "/api").adaptive(limiter);
+        AdmissionFilter filter = filter(route);
+        AtomicReference<FakeResponse> nested = new AtomicReference<>();
+
+        run(filter, request("192.0.2.20", null), (request, response) ->
+                nested.set(run(filter, request("192.0.2.21", null), OK)));
+
+        assertEquals(503, nested.get().status);
+        assertEquals(0, limiter.inFlight());
+        assertEquals(0, route.stats().get("inFlight"), "the route's slot went back too");
+        assertEquals(200, run(filter, request("192.0.2.22", null), OK).status);
+    }
+
+    @Test
+    void anAsyncRequestHoldsItsSlotUntilItCompletes() throws Exception {
+        AdmissionFilter filter = filter(new AdmissionFilter.Route(uniqueName(), 1_000, 1, "/api"));
+        AtomicReference<AsyncListener> listener = new AtomicReference<>();
+        AsyncContext async = (AsyncContext) Proxy.newProxyInstance(AsyncContext.class.getClassLoader(),
+                new Class<?>[] {AsyncContext.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("addListener")) {
+                        listener.set((AsyncListener) args[0]);
+                    }
+                    return null;
+                });
+
+        run(filter, request("192.0.2.10", null, async), OK);
+        assertEquals(503, run(filter, request("192.0.2.11", null), OK).status);
+
+        listener.get().onComplete(null);
+        assertEquals(200, run(filter, request("192.0.2.11", null), OK).status);
+    }
+
+    @Test
+    void anAsyncRequestThatTimesOutGivesItsSlotsBack() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 0);
+        AdmissionFilter.Route route = new AdmissionFilter.Route(uniqueName(), 1_000, 1, "/api").adaptive(limiter);
+        AdmissionFilter filter = filter(route);
+        AtomicReference<AsyncListener> listener = new AtomicReference<>();
+        AsyncContext async = (AsyncContext) Proxy.newProxyInstance(AsyncContext.class.getClassLoader(),
+                new Class<?>[] {AsyncContext.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("addListener")) {
+                        listener.set((AsyncListener) args[0]);
+                    }
+                    return null;
+                });
+
+        run(filter, request("192.0.2.12", null, async), OK);
+        listener.get().onTimeout(null);
+        listener.get().onComplete(null);
+
+        assertEquals(0, limiter.inFlight());
+        assertEquals(0, route.stats().get("inFlight"), "released once, not twice");
+        assertEquals(200, run(filter, request("192.0.2.13", null), OK).status);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void slowSamplesInOneClassLeaveTheCatalogLimitAlone() throws Exception {
+        AdmissionFilter filter = new AdmissionFilter();
+        filter.init(null);
+        Map<String, Object> catalogBefore = (Map<String, Object>)
+                ((Map<String, Object>) AdmissionFilter.stats().get("catalog")).get("adaptive");
+        // A login: a user lookup, then BCrypt; an api call on a slow path.
+        FilterChain slow = (request, response) -> {
+            JPAUtil.getEntityManager().createNativeQuery("SELECT 1").getSingleResult();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        for (int i = 0; i < 12; i++) {
+            try (RequestScope ignored = RequestScope.open(false)) {
+                assertEquals(200, run(filter, request("/Comic/api/auth/login", "198.18.0." + i, null, null), slow).status);
+            }
+            try (RequestScope ignored = RequestScope.open(true)) {
+                assertEquals(200, run(filter, request("/Comic/api/bookmarks", "198.18.1." + i, null, null), slow).status);
+            }
+        }
+
+        Map<String, Object> stats = AdmissionFilter.stats();
+        Map<String, Object> catalog = (Map<String, Object>) ((Map<String, Object>) stats.get("catalog")).get("adaptive");
+        Map<String, Object> api = (Map<String, Object>) ((Map<String, Object>) stats.get("api")).get("adaptive");
+        assertNull(((Map<String, Object>) stats.get("auth")).get("adaptive"), "logins are not adaptively limited");
+        assertTrue((double) api.get("shortRttMillis") >= 20, "the api class saw its own samples");
+        assertEquals(catalogBefore.get("limit"), catalog.get("limit"));
+        assertEquals(0.0, catalog.get("shortRttMillis"), "no sample reached the catalog limiter");
+    }
+
+    private static AdmissionFilter filter(AdmissionFilter.Route route) {
+        AdmissionFilter filter = new AdmissionFilter();
+        filter.configure(List.of(route));
+        return filter;
+    }
+
+    // Rate-limit buckets are process-wide; a fresh route name keeps each test's callers apart.
+    private static String uniqueName() {
+        return "test-" + UUID.randomUUID();
+    }
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static FakeResponse run(AdmissionFilter filter, HttpServletRequest request, FilterChain chain) {
+        FakeResponse response = new FakeResponse();
+        try {
+            filter.doFilter(request, response.proxy(), chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+
+    private static HttpServletRequest request(String ip, User user) {
+        return request(ip, user, null);
+    }
+
+    private static HttpServletRequest request(String ip, User user, AsyncContext async) {
+        return request("/Comic/api/manga", ip, user, async);
+    }
+
+    private static HttpServletRequest request(String uri, String ip, User user, AsyncContext async) {
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getMethod": return "GET";
+                        case "getRequestURI": return uri;
+                        case "getContextPath": return "/Comic";
+                        case "getRemoteAddr": return ip;
+                        case "getAttribute":
+                            return RequestContextFilter.USER_ATTRIBUTE.equals(args[0]) ? user : null;
+                        case "isAsyncStarted": return async != null;
+                        case "getAsyncContext": return async;
+                        default: return null;
+                    }
+                });
+    }
+
+    /** Records status, headers and body. */
+    private static final class FakeResponse {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final Map<String, String> headers = new HashMap<>();
+        int status = 200;
+
+        HttpServletResponse proxy() {
+            ServletOutputStream out = new ServletOutputStream() {
+                @Override public void write(int b) { body.write(b); }
+                @Override public boolean isReady() { return true; }
+                @Override public void setWriteListener(WriteListener listener) {}
+            };
+            return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+                    new Class<?>[] {HttpServletResponse.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getOutputStream": return out;
+                            case "setStatus": status = (int) args[0]; return null;
+                            case "getStatus": return status;
+                            case "setHeader": headers.put((String) args[0], (String) args[1]); return null;
+                            default: return null;
+                        }
+                    });
+        }
+    }
+}
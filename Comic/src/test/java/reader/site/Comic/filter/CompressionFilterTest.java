@@ -0,0 +1,272 @@
+package reader.site.Comic.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reader.site.Comic.util.ConditionalGet;
+import reader.site.Comic.util.JsonOutput;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the filter against minimal in-memory requests and responses: which bodies are
+ * gzipped, that they decompress to what the servlet wrote, and that a repeated ETag is
+ * answered from the pre-compressed cache without the servlet writing anything (and never
+ * with another query's body).
+ */
+class CompressionFilterTest {
+
+    private static final String LARGE_JSON = "[" + "{\"title\":\"Chapter\"},".repeat(200) + "{}]";
+
+    private CompressionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new CompressionFilter();
+        filter.init(null);
+    }
+
+    @Test
+    void acceptEncodingNegotiation() {
+        assertTrue(CompressionFilter.acceptsGzip("gzip, deflate, br"));
+        assertTrue(CompressionFilter.acceptsGzip("br;q=1.0, gzip;q=0.8"));
+        assertTrue(CompressionFilter.acceptsGzip("*"));
+        assertFalse(CompressionFilter.acceptsGzip("gzip;q=0"));
+        assertFalse(CompressionFilter.acceptsGzip("br, identity"));
+        assertFalse(CompressionFilter.acceptsGzip(null));
+    }
+
+    @Test
+    void largeJsonIsGzippedWithAWeakEtag() throws Exception {
+        FakeResponse response = run("/api/manga", Map.of("Accept-Encoding", "gzip"),
+                json(LARGE_JSON, "\"large-1\"", new AtomicInteger()));
+
+        assertEquals("gzip", response.header("Content-Encoding"));
+        assertEquals("W/\"large-1\"", response.header("ETag"));
+        assertTrue(response.headers("Vary").contains("Accept-Encoding"));
+        assertTrue(response.body.size() < LARGE_JSON.length());
+        assertEquals(LARGE_JSON, gunzip(response.body.toByteArray()));
+    }
+
+    @Test
+    void smallOrBinaryBodiesPassThrough() throws Exception {
+        FakeResponse small = run("/api/manga/1", Map.of("Accept-Encoding", "gzip"),
+                json("{\"id\":1}", "\"small\"", new AtomicInteger()));
+        assertNull(small.header("Content-Encoding"));
+        assertEquals("{\"id\":1}", small.body.toString(StandardCharsets.UTF_8));
+        assertEquals(8L, small.contentLength);
+
+        byte[] epub = LARGE_JSON.getBytes(StandardCharsets.UTF_8);
+        FakeResponse binary = run("/api/epub/1", Map.of("Accept-Encoding", "gzip"), (req, res) -> {
+            res.setContentType("application/epub+zip");
+            res.getOutputStream().write(epub);
+        });
+        assertNull(binary.header("Content-Encoding"));
+        assertArrayEquals(epub, binary.body.toByteArray());
+
+        FakeResponse identity = run("/api/manga", Map.of(),
+                json(LARGE_JSON, "\"large-2\"", new AtomicInteger()));
+        assertNull(identity.header("Content-Encoding"));
+        assertEquals(LARGE_JSON, identity.body.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void aRepeatedEtagIsServedFromTheCache() throws Exception {
+        AtomicInteger serialised = new AtomicInteger();
+        FakeResponse first = run("/api/manga", Map.of("Accept-Encoding", "gzip"),
+                json(LARGE_JSON, "\"cached-1\"", serialised));
+        long hits = (long) CompressionFilter.stats().get("cacheHits");
+
+        FakeResponse second = run("/api/manga", Map.of("Accept-Encoding", "gzip"),
+                json(LARGE_JSON, "\"cached-1\"", serialised));
+
+        assertEquals(1, serialised.get(), "the second response was not serialised");
+        assertArrayEquals(first.body.toByteArray(), second.body.toByteArray());
+        assertEquals("gzip", second.header("Content-Encoding"));
+        assertEquals("application/json;charset=UTF-8", second.contentType);
+        assertEquals(hits + 1, CompressionFilter.stats().get("cacheHits"));
+
+        run("/api/series", Map.of("Accept-Encoding", "gzip"), json(LARGE_JSON, "\"cached-1\"", serialised));
+        assertEquals(2, serialised.get(), "entries are per path");
+    }
+
+    @Test
+    void prettyAndCompactBodiesNeverShareACacheEntry() throws Exception {
+        String pretty = LARGE_JSON.replace(",", ",\n  ");
+        AtomicInteger serialised = new AtomicInteger();
+        FilterChain servlet = (request, response) -> json(
+                JsonOutput.wantsPretty((HttpServletRequest) request) ? pretty : LARGE_JSON,
+                "\"mixed-1\"", serialised).doFilter(request, response);
+        Map<String, String> gzip = Map.of("Accept-Encoding", "gzip");
+
+        FakeResponse compact = run("/api/manga/9", gzip, servlet);
+        FakeResponse indented = run("/api/manga/9?pretty", gzip, servlet);
+        FakeResponse compactAgain = run("/api/manga/9", gzip, servlet);
+        FakeResponse indentedAgain = run("/api/manga/9?pretty", gzip, servlet);
+
+        assertEquals(2, serialised.get(), "each representation was serialised once, then cached");
+        assertEquals(LARGE_JSON, gunzip(compact.body.toByteArray()));
+        assertEquals(pretty, gunzip(indented.body.toByteArray()));
+        assertEquals(LARGE_JSON, gunzip(compactAgain.body.toByteArray()));
+        assertEquals(pretty, gunzip(indentedAgain.body.toByteArray()));
+        assertEquals("W/\"mixed-1\"", compact.header("ETag"));
+        assertEquals("W/\"mixed-1-pretty\"", indented.header("ETag"), "other bytes, other validator");
+    }
+
+    @Test
+    void anErrorAfterGzipStartedReplacesTheBodyUncompressed() throws Exception {
+        String error = "{\"error\":\"Internal server error\"}";
+        FakeResponse response = run("/api/manga", Map.of("Accept-Encoding", "gzip"), (request, res) -> {
+            HttpServletResponse resp = (HttpServletResponse) res;
+            resp.setContentType("application/json");
+            resp.setCharacterEncoding("UTF-8");
+            resp.setHeader("ETag", "\"failing\"");
+            PrintWriter writer = resp.getWriter();
+            writer.write(LARGE_JSON);
+            writer.flush();               // past the threshold: gzip has started
+            writer.write("{\"title\":");  // still pending in the writer when serialisation fails
+
+            // What BaseServlet.writeJson does on failure.
+            resp.resetBuffer();
+            resp.setStatus(500);
+            resp.getWriter().write(error);
+        });
+
+        assertEquals(500, response.status);
+        assertNull(response.header("Content-Encoding"));
+        assertEquals("\"failing\"", response.header("ETag"));
+        assertEquals(error, response.body.toString(StandardCharsets.UTF_8));
+    }
+
+    /** A servlet that answers through ConditionalGet and otherwise writes {@code body}. */
+    private static FilterChain json(String body, String etag, AtomicInteger serialised) {
+        return (request, response) -> {
+            HttpServletResponse res = (HttpServletResponse) response;
+            if (ConditionalGet.answer((HttpServletRequest) request, res, ConditionalGet.CATALOG, etag, null)) {
+                return;
+            }
+            serialised.incrementAndGet();
+            res.setContentType("application/json");
+            res.setCharacterEncoding("UTF-8");
+            res.getWriter().write(body);
+            res.getWriter().flush();
+        };
+    }
+
+    private FakeResponse run(String uri, Map<String, String> headers, FilterChain chain) throws Exception {
+        FakeResponse response = new FakeResponse();
+        filter.doFilter(request(uri, headers), response.proxy(), chain);
+        return response;
+    }
+
+    private static String gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static HttpServletRequest request(String target, Map<String, String> headers) {
+        int q = target.indexOf('?');
+        String uri = q < 0 ? target : target.substring(0, q);
+        String query = q < 0 ? null : target.substring(q + 1);
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getMethod": return "GET";
+                        case "getRequestURI": return uri;
+                        case "getQueryString": return query;
+                        case "getHeader": return headers.get((String) args[0]);
+                        case "getDateHeader": return -1L;
+                        case "isAsyncStarted": return false;
+                        default: return null;
+                    }
+                });
+    }
+
+    /** Records status, headers and body. */
+    private static final class FakeResponse {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final Map<String, List<String>> headers = new HashMap<>();
+        int status = 200;
+        String contentType;
+        String encoding = "ISO-8859-1";
+        Long contentLength;
+        PrintWriter writer;
+
+        String header(String name) {
+            List<String> values = headers.get(name);
+            return values != null ? values.get(0) : null;
+        }
+
+        List<String> headers(String name) {
+            return headers.getOrDefault(name, List.of());
+        }
+
+        HttpServletResponse proxy() {
+            ServletOutputStream out = new ServletOutputStream() {
+                @Override public void write(int b) { body.write(b); }
+                @Override public boolean isReady() { return true; }
+                @Override public void setWriteListener(WriteListener listener) {}
+            };
+            return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+                    new Class<?>[] {HttpServletResponse.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getOutputStream": return out;
+                            case "getWriter":
+                                if (writer == null) {
+                                    writer = new PrintWriter(new OutputStreamWriter(out, encoding));
+                                }
+                                return writer;
+                            case "setStatus": status = (int) args[0]; return null;
+                            case "getStatus": return status;
+                            case "setContentType":
+                                String type = (String) args[0];
+                                contentType = type.contains("charset") ? type : type + ";charset=" + encoding;
+                                return null;
+                            case "getContentType": return contentType;
+                            case "setCharacterEncoding":
+                                encoding = (String) args[0];
+                                if (contentType != null) {
+                                    contentType = contentType.replaceAll(";charset=.*", "") + ";charset=" + encoding;
+                                }
+                                return null;
+                            case "getCharacterEncoding": return encoding;
+                            case "setHeader":
+                                if (args[1] == null) {
+                                    headers.remove((String) args[0]);
+                                } else {
+                                    headers.put((String) args[0], new ArrayList<>(List.of((String) args[1])));
+                                }
+                                return null;
+                            case "addHeader":
+                                headers.computeIfAbsent((String) args[0], k -> new ArrayList<>()).add((String) args[1]);
+                                return null;
+                            case "containsHeader": return headers.containsKey((String) args[0]);
+                            case "setContentLength": contentLength = (long) (int) args[0]; return null;
+                            case "setContentLengthLong": contentLength = (long) args[0]; return null;
+                            case "isCommitted": return false;
+                            case "resetBuffer": body.reset(); return null;
+                            default: return null;
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package reader.site.Comic.persistence;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reader.site.Comic.TestDb;
+import reader.site.Comic.dao.MangaChapterDAO;
+import reader.site.Comic.dao.MangaDAO;
+import reader.site.Comic.dao.RoleDAO;
+import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.MangaChapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that catalog reads are served from the second-level / query cache and that
+ * DAO writes never leave stale entries behind.
+ */
+class CatalogCacheTest {
+
+    private static MangaDAO mangaDAO;
+    private static MangaChapterDAO chapterDAO;
+    private static RoleDAO roleDAO;
+
+    @BeforeAll
+    static void setUp() {
+        TestDb.ensureRolesSeeded();
+        mangaDAO = new MangaDAO();
+        chapterDAO = new MangaChapterDAO();
+        roleDAO = new RoleDAO();
+    }
+
+    private Manga newManga(String title) {
+        Manga manga = new Manga();
+        manga.setTitle(title);
+        manga.setCover("https://example.com/cover.png");
+        manga.setChapters(new ArrayList<>(List.of("ch-1")));
+        return mangaDAO.insert(manga);
+    }
+
+    private MangaChapter newChapter(String mangaId, int number) {
+        MangaChapter chapter = new MangaChapter();
+        chapter.setMangaId(mangaId);
+        chapter.setChapterNumber(number);
+        chapter.setChapterTitle("Chapter " + number);
+        return chapterDAO.insert(chapter);
+    }
+
+    @Test
+    void repeatedFindByIdIsServedFromCache() {
+        Manga saved = newManga("Cached " + System.nanoTime());
+        mangaDAO.findById(saved.getId());
+        long hitsBefore = CatalogCache.stats().get(CatalogCache.MANGA_REGION).getHits();
+
+        mangaDAO.findById(saved.getId());
+
+        assertTrue(CatalogCache.stats().get(CatalogCache.MANGA_REGION).getHits() > hitsBefore);
+    }
+
+    @Test
+    void updateIsVisibleAfterCaching() {
+        Manga saved = newManga("Before " + System.nanoTime());
+        mangaDAO.findById(saved.getId());
+
+        Manga updates = new Manga();
+        updates.setTitle("After");
+        updates.setCover(saved.getCover());
+        updates.setChapters(new ArrayList<>(List.of("ch-1", "ch-2")));
+        assertTrue(mangaDAO.update(saved.getId(), updates));
+
+        Manga reloaded = mangaDAO.findById(saved.getId());
+        assertEquals("After", reloaded.getTitle());
+        assertEquals(List.of("ch-1", "ch-2"), reloaded.getChapters());
+    }
+
+    @Test
+    void chapterWritesInvalidateCachedChapterList() {
+        Manga manga = newManga("Chapters " + System.nanoTime());
+        newChapter(manga.getId(), 1);
+        assertEquals(1, chapterDAO.findByMangaId(manga.getId()).size());
+
+        MangaChapter second = newChapter(manga.getId(), 2);
+        assertEquals(2, chapterDAO.findByMangaId(manga.getId()).size(),
+                "a cached chapter list must not survive an insert");
+
+        MangaChapter rename = new MangaChapter();
+        rename.setChapterTitle("Renamed");
+        assertTrue(chapterDAO.update(second.getId(), rename));
+        assertEquals("Renamed", chapterDAO.findById(second.getId()).getChapterTitle());
+
+        assertTrue(chapterDAO.delete(second.getId()));
+        assertNull(chapterDAO.findById(second.getId()));
+        assertEquals(1, chapterDAO.findByMangaId(manga.getId()).size());
+    }
+
+    @Test
+    void mangaDeleteEvictsMangaAndItsChapters() {
+        Manga manga = newManga("Delete " + System.nanoTime());
+        MangaChapter chapter = newChapter(manga.getId(), 1);
+        chapterDAO.findById(chapter.getId());
+        chapterDAO.findByMangaId(manga.getId());
+
+        assertTrue(mangaDAO.delete(manga.getId()));
+
+        assertNull(mangaDAO.findById(manga.getId()));
+        assertNull(chapterDAO.findById(chapter.getId()), "bulk chapter delete must evict cached chapters");
+        assertTrue(chapterDAO.findByMangaId(manga.getId()).isEmpty());
+    }
+
+    @Test
+    void roleLookupsUseQueryCache() {
+        roleDAO.findByName("admin");
+        long hitsBefore = CatalogCache.stats().get("queries").getHits();
+
+        assertNotNull(roleDAO.findByName("admin"));
+
+        assertTrue(CatalogCache.stats().get("queries").getHits() > hitsBefore);
+    }
+
+    @Test
+    void evictAllDropsCachedEntries() {
+        Manga saved = newManga("Evict " + System.nanoTime());
+        mangaDAO.findById(saved.getId());
+        CatalogCache.evictAll();
+
+        long missesBefore = CatalogCache.stats().get(CatalogCache.MANGA_REGION).getMisses();
+        assertNotNull(mangaDAO.findById(saved.getId()));
+        assertTrue(CatalogCache.stats().get(CatalogCache.MANGA_REGION).getMisses() > missesBefore);
+    }
+}
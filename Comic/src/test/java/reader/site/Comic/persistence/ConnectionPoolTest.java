@@ -0,0 +1,59 @@
+package reader.site.Comic.persistence;
+
+import org.junit.jupiter.api.Test;
+import reader.site.Comic.TestDb;
+import reader.site.Comic.model.ConnectionPoolStats;
+import reader.site.Comic.util.Db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that JPA and raw JDBC share the single pooled data source and that its
+ * metrics reflect borrow/return activity.
+ */
+class ConnectionPoolTest {
+
+    @Test
+    void rawJdbcSeesTablesCreatedThroughJpa() throws Exception {
+        TestDb.ensureRolesSeeded();
+        try (Connection conn = Db.get();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM roles")) {
+            assertTrue(rs.next());
+            assertTrue(rs.getLong(1) > 0, "raw JDBC must hit the same database as the comicPU unit");
+        }
+    }
+
+    @Test
+    void statsTrackActiveConnectionsAndAcquisitions() throws Exception {
+        long acquiredBefore = ConnectionPool.stats().getConnectionsAcquired();
+
+        try (Connection conn = ConnectionPool.getConnection()) {
+            assertTrue(conn.isValid(1));
+            ConnectionPoolStats during = ConnectionPool.stats();
+            assertTrue(during.getActiveConnections() >= 1);
+            assertTrue(during.getTotalConnections() <= during.getMaximumPoolSize(), "pool must stay bounded");
+        }
+
+        ConnectionPoolStats after = ConnectionPool.stats();
+        assertTrue(after.getConnectionsAcquired() > acquiredBefore);
+        assertEquals("comicTestPool", after.getPoolName());
+        assertTrue(after.getAverageWaitMillis() >= 0.0);
+    }
+
+    @Test
+    void closedConnectionsReturnToThePool() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            try (Connection conn = Db.get()) {
+                assertFalse(conn.isClosed());
+            }
+        }
+        ConnectionPoolStats stats = ConnectionPool.stats();
+        assertTrue(stats.getTotalConnections() <= stats.getMaximumPoolSize(),
+                "borrowing more times than the pool size must reuse connections");
+    }
+}
@@ -0,0 +1,179 @@
+package reader.site.Comic.persistence;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reader.site.Comic.TestDb;
+import reader.site.Comic.dao.UserDAO;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests read routing with two H2 databases: the comicPU test database as the primary and
+ * a second, freshly migrated one as the replica. Users are only ever written to the
+ * primary, so a read that cannot see them ran on the replica.
+ */
+class ReplicaRouterTest {
+
+    private static int databases;
+
+    private SwitchableDataSource replica;
+    private ReplicaRouter router;
+    private UserDAO userDAO;
+
+    @BeforeEach
+    void setUp() {
+        TestDb.ensureRolesSeeded();
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:replica" + (++databases)
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1");
+        h2.setUser("sa");
+        SchemaMigrator.migrate(h2);
+        replica = new SwitchableDataSource(h2);
+        router = new ReplicaRouter(List.of(replica), 60_000, 0);
+        userDAO = new UserDAO();
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+    }
+
+    private String createUserEmail() {
+        String id = TestDb.createUser("role-user");
+        return userDAO.findById(id).orElseThrow().getEmail();
+    }
+
+    @Test
+    void readOnlyScopesReadFromTheReplica() {
+        String email = createUserEmail();
+
+        try (RequestScope scope = RequestScope.open(true, router)) {
+            assertTrue(userDAO.findByEmail(email).isEmpty(), "the replica has not seen the user");
+            assertTrue(scope.isOnReplica());
+        }
+        try (RequestScope scope = RequestScope.open(true)) {
+            assertTrue(userDAO.findByEmail(email).isPresent(), "without a router the primary is read");
+            assertFalse(scope.isOnReplica());
+        }
+        assertEquals(1L, router.stats().get("replicaReads"));
+    }
+
+    @Test
+    void writableScopesNeverUseTheReplica() {
+        String email = createUserEmail();
+
+        try (RequestScope scope = RequestScope.open(false, router)) {
+            assertTrue(userDAO.findByEmail(email).isPresent());
+            assertFalse(scope.isOnReplica());
+        }
+    }
+
+    @Test
+    void aGetThatWritesMovesToThePrimary() {
+        String id = TestDb.createUser("role-user");
+        String token = userDAO.generateActivationToken(id);
+
+        try (RequestScope scope = RequestScope.open(true, router)) {
+            assertTrue(userDAO.findById(id).isEmpty());
+            assertTrue(scope.isOnReplica());
+
+            assertTrue(UserDAO.activateUser(token), "the token only exists on the primary");
+            assertFalse(scope.isOnReplica());
+            assertFalse(scope.isReadOnly());
+        }
+        assertEquals("active", userDAO.findById(id).orElseThrow().getStatus());
+    }
+
+    @Test
+    void usersWhoJustWroteStayOnThePrimary() {
+        assertTrue(router.routesReads("writer"));
+
+        router.recordWrite("writer");
+
+        assertFalse(router.routesReads("writer"));
+        assertTrue(router.routesReads("someone-else"));
+        assertTrue(router.routesReads(null));
+        assertTrue(new ReplicaRouter(List.of(replica), 0, 0).routesReads("writer"), "no window, no stickiness");
+        assertFalse(new ReplicaRouter(List.of(), 60_000, 0).routesReads(null), "nothing to route to");
+    }
+
+    @Test
+    void replicaReadsSkipTheCacheRightAfterAWrite() {
+        try (RequestScope ignored = RequestScope.open(true, router)) {
+            assertEquals(CacheMode.NORMAL, JPAUtil.getEntityManager().unwrap(Session.class).getCacheMode());
+        }
+
+        router.recordWrite(null);
+
+        try (RequestScope ignored = RequestScope.open(true, router)) {
+            assertEquals(CacheMode.GET, JPAUtil.getEntityManager().unwrap(Session.class).getCacheMode());
+        }
+    }
+
+    @Test
+    void anUnhealthyReplicaFallsBackToThePrimaryUntilItRecovers() {
+        String email = createUserEmail();
+        replica.failing = true;
+
+        try (RequestScope scope = RequestScope.open(true, router)) {
+            assertTrue(userDAO.findByEmail(email).isPresent(), "read served by the primary");
+            assertFalse(scope.isOnReplica());
+        }
+        assertEquals(0, router.healthyReplicas());
+        assertEquals(1L, router.stats().get("primaryFallbacks"));
+
+        router.checkHealth();
+        assertEquals(0, router.healthyReplicas(), "still down");
+
+        replica.failing = false;
+        router.checkHealth();
+        assertEquals(1, router.healthyReplicas());
+        try (RequestScope scope = RequestScope.open(true, router)) {
+            assertTrue(userDAO.findByEmail(email).isEmpty());
+            assertTrue(scope.isOnReplica());
+        }
+    }
+
+    /** Data source that can be made to refuse connections. */
+    private static final class SwitchableDataSource implements DataSource {
+        private final DataSource target;
+        volatile boolean failing;
+
+        SwitchableDataSource(DataSource target) {
+            this.target = target;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (failing) {
+                throw new SQLException("replica unavailable");
+            }
+            return target.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+
+        @Override public PrintWriter getLogWriter() throws SQLException { return target.getLogWriter(); }
+        @Override public void setLogWriter(PrintWriter out) throws SQLException { target.setLogWriter(out); }
+        @Override public void setLoginTimeout(int seconds) throws SQLException { target.setLoginTimeout(seconds); }
+        @Override public int getLoginTimeout() throws SQLException { return target.getLoginTimeout(); }
+        @Override public Logger getParentLogger() throws SQLFeatureNotSupportedException { return target.getParentLogger(); }
+        @Override public <T> T unwrap(Class<T> type) throws SQLException { return target.unwrap(type); }
+        @Override public boolean isWrapperFor(Class<?> type) throws SQLException { return target.isWrapperFor(type); }
+    }
+}
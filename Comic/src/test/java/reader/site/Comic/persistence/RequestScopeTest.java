@@ -0,0 +1,106 @@
+package reader.site.Comic.persistence;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import reader.site.Comic.TestDb;
+import reader.site.Comic.dao.MangaChapterDAO;
+import reader.site.Comic.dao.MangaDAO;
+import reader.site.Comic.entity.MangaEntity;
+import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.MangaChapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that a request scope gives every DAO call the same EntityManager, that GET scopes
+ * are read-only until something writes, and that nothing leaks past the scope.
+ */
+class RequestScopeTest {
+
+    private static Session session(EntityManager em) {
+        return em.unwrap(Session.class);
+    }
+
+    @Test
+    void daoCallsShareOneEntityManagerUntilTheScopeCloses() {
+        EntityManager first;
+        try (RequestScope scope = RequestScope.open(false)) {
+            assertFalse(scope.isStarted(), "nothing is opened before a DAO asks");
+            first = JPAUtil.getEntityManager();
+            first.close();
+            EntityManager second = JPAUtil.getEntityManager();
+
+            assertTrue(second.isOpen(), "DAO close() calls are ignored inside a scope");
+            assertSame(session(first), session(second));
+            assertTrue(scope.isStarted());
+        }
+        assertNull(RequestScope.current());
+        assertFalse(first.isOpen());
+
+        EntityManager outside = JPAUtil.getEntityManager();
+        try {
+            assertNotSame(first, outside);
+        } finally {
+            outside.close();
+        }
+    }
+
+    @Test
+    void updateThenReadInOneRequestSeesTheWrite() {
+        Long mangaId = TestDb.createManga();
+        MangaChapterDAO chapterDAO = new MangaChapterDAO();
+        MangaChapter chapter = new MangaChapter();
+        chapter.setMangaId(String.valueOf(mangaId));
+        chapter.setChapterNumber(1);
+        chapter.setChapterTitle("Original");
+        String chapterId = chapterDAO.insert(chapter).getId();
+
+        try (RequestScope ignored = RequestScope.open(false)) {
+            MangaChapter edit = new MangaChapter();
+            edit.setChapterNumber(1);
+            edit.setChapterTitle("Edited");
+            assertTrue(chapterDAO.update(chapterId, edit));
+            assertEquals("Edited", chapterDAO.findById(chapterId).getChapterTitle());
+        }
+        assertEquals("Edited", chapterDAO.findById(chapterId).getChapterTitle());
+    }
+
+    @Test
+    void readOnlyScopeSkipsFlushesButStillAllowsExplicitWrites() {
+        MangaDAO mangaDAO = new MangaDAO();
+        Long mangaId = TestDb.createManga();
+
+        try (RequestScope scope = RequestScope.open(true)) {
+            EntityManager em = JPAUtil.getEntityManager();
+            assertTrue(session(em).isDefaultReadOnly());
+            assertEquals(FlushMode.MANUAL, session(em).getHibernateFlushMode());
+
+            MangaEntity loaded = em.find(MangaEntity.class, mangaId);
+            assertTrue(session(em).isReadOnly(loaded));
+
+            Manga rename = new Manga();
+            rename.setTitle("Renamed in GET");
+            assertTrue(mangaDAO.update(String.valueOf(mangaId), rename));
+
+            assertFalse(scope.isReadOnly(), "a transaction switches the scope to normal mode");
+            assertFalse(session(em).isReadOnly(loaded));
+        }
+        assertEquals("Renamed in GET", mangaDAO.findById(String.valueOf(mangaId)).getTitle());
+    }
+
+    @Test
+    void closingRollsBackATransactionLeftOpen() {
+        Long mangaId = TestDb.createManga();
+        String before = new MangaDAO().findById(String.valueOf(mangaId)).getTitle();
+
+        try (RequestScope ignored = RequestScope.open(false)) {
+            EntityManager em = JPAUtil.getEntityManager();
+            em.getTransaction().begin();
+            em.find(MangaEntity.class, mangaId).setTitle("Never committed");
+            em.flush();
+        }
+        assertEquals(before, new MangaDAO().findById(String.valueOf(mangaId)).getTitle());
+    }
+}
@@ -0,0 +1,134 @@
+package reader.site.Comic.persistence;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import reader.site.Comic.TestDb;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the versioned migration runner. The shared test database is itself built
+ * by the migrations (hbm2ddl is off), so every other DB test also exercises the scripts.
+ */
+class SchemaMigratorTest {
+
+    private static JdbcDataSource freshDatabase() {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:migrations-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        ds.setUser("sa");
+        return ds;
+    }
+
+    @Test
+    void startupAppliesEveryVersionOnce() throws Exception {
+        TestDb.ensureRolesSeeded();
+        List<Integer> versions = new ArrayList<>();
+        try (Connection conn = ConnectionPool.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version, checksum FROM schema_migrations ORDER BY version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+                assertEquals(64, rs.getString(2).trim().length());
+            }
+        }
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), versions);
+
+        assertEquals(0, SchemaMigrator.migrate(ConnectionPool.dataSource()), "a current schema must be left alone");
+    }
+
+    @Test
+    void bookmarkPairIsUnique() throws Exception {
+        String userId = TestDb.createUser("role-user");
+        Long mangaId = TestDb.createManga();
+        try (Connection conn = ConnectionPool.getConnection();
+             PreparedStatement ps = conn.prepareStatement("INSERT INTO bookmarks (user_id, manga_id) VALUES (?, ?)")) {
+            ps.setString(1, userId);
+            ps.setLong(2, mangaId);
+            ps.executeUpdate();
+            assertThrows(SQLException.class, ps::executeUpdate);
+        }
+    }
+
+    @Test
+    void pendingVersionsAreAppliedInOrder() throws Exception {
+        JdbcDataSource ds = freshDatabase();
+        SchemaMigrator.Migration v1 = new SchemaMigrator.Migration(1, "create", "CREATE TABLE t (id INT);");
+        SchemaMigrator.Migration v2 = new SchemaMigrator.Migration(2, "alter", "ALTER TABLE t ADD COLUMN name VARCHAR(10);");
+
+        assertEquals(1, new SchemaMigrator(ds, List.of(v1)).run());
+        assertEquals(1, new SchemaMigrator(ds, List.of(v1, v2)).run());
+        assertEquals(0, new SchemaMigrator(ds, List.of(v1, v2)).run());
+
+        try (Connection conn = ds.getConnection(); Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO t (id, name) VALUES (1, 'ok')");
+        }
+    }
+
+    @Test
+    void editedScriptAfterApplyFailsStartup() {
+        JdbcDataSource ds = freshDatabase();
+        new SchemaMigrator(ds, List.of(new SchemaMigrator.Migration(1, "create", "CREATE TABLE t (id INT);"))).run();
+
+        SchemaMigrator edited = new SchemaMigrator(ds,
+                List.of(new SchemaMigrator.Migration(1, "create", "CREATE TABLE t (id BIGINT);")));
+        IllegalStateException e = assertThrows(IllegalStateException.class, edited::run);
+        assertTrue(e.getMessage().contains("V1__create.sql"));
+    }
+
+    @Test
+    void failedStatementIsNotRecorded() throws Exception {
+        JdbcDataSource ds = freshDatabase();
+        SchemaMigrator broken = new SchemaMigrator(ds,
+                List.of(new SchemaMigrator.Migration(1, "broken", "CREATE TABLE t (id INT);\nNOT SQL AT ALL;")));
+        assertThrows(IllegalStateException.class, broken::run);
+
+        try (Connection conn = ds.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM schema_migrations")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void chapterSummaryBackfillReadsTheJsonList() throws Exception {
+        JdbcDataSource ds = freshDatabase();
+        try (Connection conn = ds.getConnection(); Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE manga (id BIGINT PRIMARY KEY, chapters LONGTEXT, "
+                    + "chapter_count INT NOT NULL DEFAULT 0, latest_chapter VARCHAR(255))");
+            st.execute("INSERT INTO manga (id, chapters) VALUES (1, '[\"ch-3\",\"ch-2\",\"ch-1\"]'), (2, NULL), (3, 'not json')");
+        }
+
+        new SchemaMigrator(ds, List.of(SchemaMigrator.Migration.java(1, "backfill",
+                new MangaChapterSummaryBackfill()))).run();
+
+        try (Connection conn = ds.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT chapter_count, latest_chapter FROM manga ORDER BY id")) {
+            assertTrue(rs.next());
+            assertEquals(3, rs.getInt(1));
+            assertEquals("ch-3", rs.getString(2));
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+            assertNull(rs.getString(2));
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1), "an unreadable list must not fail startup");
+        }
+    }
+
+    @Test
+    void splitStatementsSkipsCommentsAndJoinsLines() {
+        List<String> statements = SchemaMigrator.splitStatements(
+                "-- header\nCREATE TABLE a (\n  id INT\n);\n\n-- next\nCREATE INDEX i ON a (id);\n");
+        assertEquals(List.of("CREATE TABLE a (\nid INT\n)", "CREATE INDEX i ON a (id)"), statements);
+    }
+}
@@ -0,0 +1,201 @@
+package reader.site.Comic.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the memory-mapped session table: lookups, growth, reloading after a restart,
+ * and expiry through the timer wheel (including sessions more than one turn ahead).
+ */
+class SessionStoreTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long TICK = 1_000;
+
+    @TempDir
+    Path dir;
+
+    private SessionStore open(long now) {
+        return SessionStore.open(dir.resolve("sessions.dat"), 16, TICK, now);
+    }
+
+    @Test
+    void storesLooksUpAndRemovesSessions() {
+        try (SessionStore store = open(NOW)) {
+            store.put("token-a", "user-a", "role-user", NOW + 60_000);
+            store.put("token-b", "user-b", null, NOW + 60_000);
+
+            SessionStore.Session a = store.get("token-a", NOW);
+            assertEquals("user-a", a.getUserId());
+            assertEquals("role-user", a.getRoleId());
+            assertEquals(NOW + 60_000, a.getExpiresAtMillis());
+            assertNull(store.get("token-b", NOW).getRoleId());
+            assertNull(store.get("token-c", NOW));
+
+            store.remove("token-a");
+            assertNull(store.get("token-a", NOW));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void theFileHoldsHashesNotTokens() throws Exception {
+        try (SessionStore store = open(NOW)) {
+            store.put("secret-token-value", "user-a", "role-user", NOW + 60_000);
+        }
+        String contents = new String(Files.readAllBytes(dir.resolve("sessions.dat")), "ISO-8859-1");
+        assertFalse(contents.contains("secret-token-value"));
+        assertTrue(contents.contains("user-a"));
+    }
+
+    @Test
+    void growsAndKeepsEverySession() {
+        try (SessionStore store = open(NOW)) {
+            for (int i = 0; i < 1_000; i++) {
+                store.put("token-" + i, "user-" + i, "role-user", NOW + 60_000);
+            }
+            assertEquals(1_000, store.size());
+            assertTrue((int) store.stats().get("capacity") >= 1_024);
+            for (int i = 0; i < 1_000; i++) {
+                assertEquals("user-" + i, store.get("token-" + i, NOW).getUserId());
+            }
+        }
+    }
+
+    @Test
+    void churnDoesNotGrowTheTable() {
+        try (SessionStore store = open(NOW)) {
+            for (int i = 0; i < 10_000; i++) {
+                store.put("token-" + i, "user", "role-user", NOW + 60_000);
+                store.remove("token-" + i);
+            }
+            assertEquals(0, store.size());
+            assertEquals(16, store.stats().get("capacity"), "tombstones are cleared in place");
+        }
+    }
+
+    @Test
+    void sessionsSurviveARestart() {
+        try (SessionStore store = open(NOW)) {
+            for (int i = 0; i < 100; i++) {
+                store.put("token-" + i, "user-" + i, "role-user", NOW + 60_000);
+            }
+            store.put("short", "user-short", "role-user", NOW + 5_000);
+            store.remove("token-0");
+        }
+
+        // Restarted after "short" expired.
+        try (SessionStore store = open(NOW + 10_000)) {
+            assertEquals(99, store.size());
+            assertNull(store.get("token-0", NOW + 10_000));
+            assertNull(store.get("short", NOW + 10_000));
+            assertEquals("user-42", store.get("token-42", NOW + 10_000).getUserId());
+        }
+    }
+
+    @Test
+    void theWheelDeletesSessionsWhenTheyExpire() {
+        long revolution = 8192 * TICK;
+        try (SessionStore store = open(NOW)) {
+            store.put("soon", "u1", "role-user", NOW + 3_500);
+            store.put("later", "u2", "role-user", NOW + 10_000);
+            store.put("next-turn", "u3", "role-user", NOW + 3_500 + revolution);
+
+            assertNull(store.get("soon", NOW + 3_600), "an expired session never resolves");
+            assertEquals(0, store.expireDue(NOW + 3_000));
+            assertEquals(1, store.expireDue(NOW + 4_000));
+            assertEquals(2, store.size());
+
+            assertEquals(1, store.expireDue(NOW + 10_000));
+            assertEquals(1, store.expireDue(NOW + 4_000 + revolution), "filed in the same bucket, one turn later");
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    void aRecordHalfWrittenAtACrashDoesNotHideTheRestOfItsChain() throws Exception {
+        // Same layout as SessionStore: 64-byte header, 176-byte records, hash at +16.
+        int capacity = 16;
+        try (SessionStore store = open(NOW)) {
+            for (int i = 0; i < 10; i++) {
+                store.put("token-" + i, "user-" + i, "role-user", NOW + 60_000);
+            }
+        }
+
+        // Find a session that probed past its home slot, and leave that home slot the way an
+        // interrupted write() does: a tombstone with half-replaced fields.
+        Path file = dir.resolve("sessions.dat");
+        String displaced = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < 10 && displaced == null; i++) {
+                byte[] hash = MessageDigest.getInstance("SHA-256")
+                        .digest(("token-" + i).getBytes(StandardCharsets.UTF_8));
+                int home = (int) (ByteBuffer.wrap(hash).getLong(0) & (capacity - 1));
+                if (!ByteBuffer.wrap(hash).equals(read(channel, 64 + home * 176 + 16, 32))) {
+                    displaced = "token-" + i;
+                    channel.write(ByteBuffer.wrap(new byte[] {2}), 64 + home * 176);
+                    channel.write(ByteBuffer.wrap(new byte[32]), 64 + home * 176 + 16);
+                }
+            }
+        }
+        assertNotNull(displaced, "ten keys in sixteen slots always collide somewhere");
+
+        try (SessionStore store = open(NOW)) {
+            assertEquals(9, store.size(), "only the record being written is lost");
+            assertNotNull(store.get(displaced, NOW));
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        channel.read(buffer, position);
+        return buffer.flip();
+    }
+
+    @Test
+    void aFileAnotherStoreHasOpenIsRefused() {
+        try (SessionStore store = open(NOW)) {
+            store.put("token", "user", "role-user", NOW + 60_000);
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> open(NOW));
+            assertTrue(e.getMessage().contains("another open store"));
+            assertNotNull(store.get("token", NOW), "the first store is unaffected");
+        }
+        try (SessionStore store = open(NOW)) {
+            assertNotNull(store.get("token", NOW), "closing released the lock");
+        }
+    }
+
+    @Test
+    void capacitiesAreRoundedUpThenCappedAtTheMappableSize() {
+        assertEquals(16, SessionStore.tableCapacity(1));
+        assertEquals(16, SessionStore.tableCapacity(16));
+        assertEquals(32_768, SessionStore.tableCapacity(20_000));
+        assertEquals(1 << 23, SessionStore.tableCapacity((1 << 22) + 1));
+        assertEquals(1 << 23, SessionStore.tableCapacity(10_000_000), "not rounded past the cap to 2^24");
+        assertEquals(1 << 23, SessionStore.tableCapacity(Integer.MAX_VALUE));
+
+        try (SessionStore store = SessionStore.open(dir.resolve("sized.dat"), 20_000, TICK, NOW)) {
+            assertEquals(32_768, store.stats().get("capacity"));
+        }
+    }
+
+    @Test
+    void aFileInAnotherFormatIsReplaced() throws Exception {
+        Files.write(dir.resolve("sessions.dat"), new byte[] {1, 2, 3, 4});
+        try (SessionStore store = open(NOW)) {
+            assertEquals(0, store.size());
+            store.put("token", "user", "role-user", NOW + 60_000);
+            assertNotNull(store.get("token", NOW));
+        }
+    }
+}
@@ -2,11 +2,15 @@ package reader.site.Comic.service;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import reader.site.Comic.TestDb;
 import reader.site.Comic.dao.RoleDAO;
 import reader.site.Comic.dao.UserDAO;
 import reader.site.Comic.model.User;
 import reader.site.Comic.model.UserRole;
+import reader.site.Comic.persistence.SessionStore;
+
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,12 +23,17 @@ class AuthServiceTest {
     private static AuthService authService;
     private static UserDAO userDAO;
 
+    @TempDir
+    static Path sessionDir;
+
     @BeforeAll
     static void setUp() {
         TestDb.ensureRolesSeeded();
         userDAO = new UserDAO();
         RoleDAO roleDAO = new RoleDAO();
-        authService = new AuthService(userDAO, roleDAO, new TokenService());
+        SessionStore sessions = SessionStore.open(sessionDir.resolve("sessions.dat"), 16, 1_000,
+                System.currentTimeMillis());
+        authService = new AuthService(userDAO, roleDAO, new TokenService(sessions, roleDAO::findById, false));
     }
 
     private User registerUser(String suffix, String password) {
@@ -0,0 +1,73 @@
+package reader.site.Comic.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that blocking work runs off the caller's thread, that a saturated executor refuses
+ * work instead of queueing it without bound, and that virtual mode degrades on old JDKs.
+ */
+class BlockingExecutorTest {
+
+    @Test
+    void runsTasksOnItsOwnThreads() throws InterruptedException {
+        try (BlockingExecutor executor = new BlockingExecutor(BlockingExecutor.Mode.PLATFORM, 2, 2)) {
+            AtomicReference<Thread> ranOn = new AtomicReference<>();
+            CountDownLatch done = new CountDownLatch(1);
+
+            assertTrue(executor.tryExecute(() -> {
+                ranOn.set(Thread.currentThread());
+                done.countDown();
+            }));
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertNotSame(Thread.currentThread(), ranOn.get());
+            assertTrue(ranOn.get().getName().startsWith("blocking-io"));
+        }
+    }
+
+    @Test
+    void refusesWorkBeyondThreadsPlusQueue() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        try (BlockingExecutor executor = new BlockingExecutor(BlockingExecutor.Mode.PLATFORM, 1, 1)) {
+            Runnable blocked = () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            assertTrue(executor.tryExecute(blocked));
+            assertTrue(executor.tryExecute(blocked));
+
+            assertFalse(executor.tryExecute(blocked));
+            assertEquals(1L, executor.stats().get("rejected"));
+
+            release.countDown();
+        }
+    }
+
+    @Test
+    void virtualModeNeedsJdk21() {
+        try (BlockingExecutor executor = new BlockingExecutor(BlockingExecutor.Mode.VIRTUAL, 1, 0)) {
+            BlockingExecutor.Mode expected = Runtime.version().feature() >= 21
+                    ? BlockingExecutor.Mode.VIRTUAL : BlockingExecutor.Mode.PLATFORM;
+            assertEquals(expected, executor.mode());
+        }
+    }
+
+    @Test
+    void backgroundThreadsAreDaemonsByDefault() {
+        ThreadFactory factory = BlockingExecutor.threadFactory("test-background");
+        Thread thread = factory.newThread(() -> { });
+
+        assertTrue(thread.isDaemon());
+        assertEquals("test-background", thread.getName());
+    }
+}
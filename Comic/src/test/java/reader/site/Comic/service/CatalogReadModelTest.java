@@ -0,0 +1,121 @@
+package reader.site.Comic.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reader.site.Comic.dao.MangaDAO;
+import reader.site.Comic.model.CursorPage;
+import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.MangaSummary;
+import reader.site.Comic.util.PageCursor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the catalog snapshot answers exactly what MangaDAO would, and that it is
+ * not served between a write and the rebuild that includes it.
+ */
+class CatalogReadModelTest {
+
+    private MangaDAO mangaDAO;
+    private CatalogReadModel model;
+
+    @BeforeEach
+    void setUp() {
+        mangaDAO = new MangaDAO();
+        model = new CatalogReadModel(mangaDAO, false, 0);
+    }
+
+    private Manga insert(String title, List<String> chapters) {
+        Manga manga = new Manga();
+        manga.setTitle(title);
+        manga.setCover("https://covers.test/" + title + ".jpg");
+        manga.setChapters(chapters);
+        return mangaDAO.insert(manga);
+    }
+
+    private static List<String> ids(List<MangaSummary> rows) {
+        return rows.stream().map(MangaSummary::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void lookupsMatchTheDao() {
+        Manga inserted = insert("Snapshot One", List.of("Chapter 1", "Chapter 2"));
+        CatalogSnapshot snapshot = model.rebuild();
+
+        Manga found = snapshot.find(inserted.getId());
+        assertEquals("Snapshot One", found.getTitle());
+        assertEquals(inserted.getCover(), found.getCover());
+        assertEquals(List.of("Chapter 1", "Chapter 2"), found.getChapters());
+        assertEquals(2, found.getChapterCount());
+        assertEquals(mangaDAO.findById(inserted.getId()).getLatestChapter(), found.getLatestChapter());
+        assertNull(snapshot.find("999999999"));
+        assertNull(snapshot.find("not-a-number"));
+        assertEquals(ids(mangaDAO.findAllSummaries()), ids(snapshot.summaries()));
+        assertThrows(UnsupportedOperationException.class, () -> found.getChapters().add("Chapter 3"));
+    }
+
+    @Test
+    void pagesMatchTheDaoKeysetPages() {
+        for (int i = 0; i < 3; i++) {
+            insert("Paged " + i, List.of());
+        }
+        CatalogSnapshot snapshot = model.rebuild();
+
+        PageCursor after = null;
+        do {
+            CursorPage<MangaSummary> expected = mangaDAO.findSummaryPage(after, 2);
+            CursorPage<MangaSummary> actual = snapshot.summaryPage(after != null ? after.idAsLong() : null, 2);
+            assertEquals(ids(expected.getItems()), ids(actual.getItems()));
+            assertEquals(expected.getNext(), actual.getNext());
+            after = PageCursor.decode(expected.getNext());
+        } while (after != null);
+
+        List<MangaSummary> newest = snapshot.newestSummaries(2);
+        assertEquals(ids(mangaDAO.findNewestSummaries(2)), ids(newest));
+    }
+
+    @Test
+    void repeatedChapterNamesAreStoredOnce() {
+        Manga a = insert("Interned A", List.of(new String("Prologue"), "Chapter 1"));
+        Manga b = insert("Interned B", List.of(new String("Prologue")));
+        CatalogSnapshot snapshot = model.rebuild();
+
+        assertSame(snapshot.find(a.getId()).getChapters().get(0), snapshot.find(b.getId()).getChapters().get(0));
+    }
+
+    @Test
+    void versionsFollowContentNotTheBuild() {
+        Manga manga = insert("Versioned", List.of("Chapter 1"));
+        CatalogSnapshot first = model.rebuild();
+        CatalogSnapshot again = model.rebuild();
+
+        assertEquals(first.version(), again.version(), "an unchanged catalog keeps its ETag");
+        assertEquals(CatalogSnapshot.version(mangaDAO.findById(manga.getId())), first.version(manga.getId()),
+                "the DAO fallback computes the same version");
+
+        manga.setChapters(List.of("Chapter 1", "Chapter 2"));
+        mangaDAO.update(manga.getId(), manga);
+        CatalogSnapshot changed = model.rebuild();
+        assertNotEquals(first.version(manga.getId()), changed.version(manga.getId()));
+        assertNotEquals(first.version(), changed.version());
+        assertEquals(0, changed.version("999999999"));
+    }
+
+    @Test
+    void aWriteHidesTheSnapshotUntilItIsRebuilt() {
+        model.rebuild();
+        assertNotNull(model.current());
+
+        model.invalidate();
+        assertNull(model.current(), "callers read through the DAO");
+
+        Manga added = insert("After Write", List.of("Chapter 1"));
+        CatalogSnapshot rebuilt = model.rebuild();
+        assertSame(rebuilt, model.current());
+        assertNotNull(rebuilt.find(added.getId()));
+        assertEquals(Boolean.TRUE, model.stats().get("current"));
+    }
+}
@@ -0,0 +1,118 @@
+package reader.site.Comic.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reader.site.Comic.TestDb;
+import reader.site.Comic.dao.DashboardCounterDAO;
+import reader.site.Comic.dao.MangaDAO;
+import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.model.DashboardStats;
+import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.User;
+import reader.site.Comic.model.UserRole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the dashboard counters follow writes incrementally and agree with the COUNT
+ * reconciliation. Uses the shared instance, which is the one the entity listener feeds.
+ */
+class DashboardCountersTest {
+
+    private static DashboardCounters counters;
+    private static UserDAO userDAO;
+    private static MangaDAO mangaDAO;
+
+    @BeforeAll
+    static void setUp() {
+        TestDb.ensureRolesSeeded();
+        counters = DashboardCounters.shared();
+        userDAO = new UserDAO();
+        mangaDAO = new MangaDAO();
+    }
+
+    private static User newUser() {
+        String suffix = "counter-" + System.nanoTime();
+        User user = new User();
+        user.setUsername(suffix);
+        user.setEmail(suffix + "@counters.test");
+        user.setPassword("PlainPassword1!");
+        UserRole role = new UserRole();
+        role.setId("role-user");
+        user.setRole(role);
+        return user;
+    }
+
+    private static Manga newManga(int chapters) {
+        Manga manga = new Manga();
+        manga.setTitle("Counted " + System.nanoTime());
+        List<String> list = new ArrayList<>();
+        for (int i = chapters; i > 0; i--) {
+            list.add("ch-" + i);
+        }
+        manga.setChapters(list);
+        return manga;
+    }
+
+    @Test
+    void insertsAreCountedWithoutRescanning() {
+        counters.reconcile();
+        DashboardStats before = counters.snapshot();
+
+        userDAO.create(newUser());
+        mangaDAO.insert(newManga(3));
+
+        DashboardStats after = counters.snapshot();
+        assertEquals(before.getTotalUsers() + 1, after.getTotalUsers());
+        assertEquals(before.getNewUsersThisMonth() + 1, after.getNewUsersThisMonth());
+        assertEquals(before.getTotalManga() + 1, after.getTotalManga());
+        assertEquals(before.getNewMangaThisMonth() + 1, after.getNewMangaThisMonth());
+        assertEquals(before.getTotalChapters() + 3, after.getTotalChapters());
+        assertEquals(0, counters.reconcile(), "incremental counts must match COUNT");
+    }
+
+    @Test
+    void updatesAndDeletesAreTracked() {
+        User pending = userDAO.create(newUser());
+        Manga manga = mangaDAO.insert(newManga(2));
+        counters.reconcile();
+        DashboardStats before = counters.snapshot();
+
+        assertTrue(UserDAO.activateUser(userDAO.generateActivationToken(pending.getId())));
+        Manga grown = newManga(5);
+        assertTrue(mangaDAO.update(manga.getId(), grown));
+
+        DashboardStats updated = counters.snapshot();
+        assertEquals(before.getActiveUsers() + 1, updated.getActiveUsers());
+        assertEquals(before.getTotalChapters() + 3, updated.getTotalChapters());
+
+        assertTrue(userDAO.delete(pending.getId()));
+        assertTrue(mangaDAO.delete(manga.getId()));
+
+        DashboardStats after = counters.snapshot();
+        assertEquals(before.getTotalUsers() - 1, after.getTotalUsers());
+        assertEquals(before.getActiveUsers(), after.getActiveUsers());
+        assertEquals(before.getTotalManga() - 1, after.getTotalManga());
+        assertEquals(before.getTotalChapters() - 2, after.getTotalChapters());
+        assertEquals(0, counters.reconcile());
+    }
+
+    @Test
+    void viewsArePersistedOnFlush() {
+        DashboardCounterDAO counterDAO = new DashboardCounterDAO();
+        counters.flushViews();
+        long stored = counterDAO.get(DashboardCounterDAO.MANGA_VIEWS);
+        long shown = counters.snapshot().getTotalViews();
+
+        for (int i = 0; i < 3; i++) {
+            counters.mangaViewed();
+        }
+        assertEquals(shown + 3, counters.snapshot().getTotalViews(), "pending views are reported immediately");
+
+        counters.flushViews();
+        assertEquals(stored + 3, counterDAO.get(DashboardCounterDAO.MANGA_VIEWS));
+    }
+}
@@ -0,0 +1,143 @@
+package reader.site.Comic.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import reader.site.Comic.TestDb;
+import reader.site.Comic.dao.MangaDAO;
+import reader.site.Comic.dao.ReadingHistoryDAO;
+import reader.site.Comic.model.ReadingHistory;
+import reader.site.Comic.model.ReadingProgressBufferStats;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the reading-progress write-behind buffer: coalescing, batching triggers,
+ * the bounded queue, read-your-writes and the flush on close.
+ */
+class ReadingProgressBufferTest {
+
+    /** Long enough that the timer never fires during a test. */
+    private static final long NO_TIMER_MS = 600_000;
+
+    private static ReadingHistoryDAO historyDAO;
+
+    @BeforeAll
+    static void setUp() {
+        TestDb.ensureRolesSeeded();
+        historyDAO = new ReadingHistoryDAO();
+    }
+
+    private ReadingProgressBuffer buffer(int batchSize, int maxPending) {
+        return new ReadingProgressBuffer(historyDAO, new MangaDAO(), true, batchSize, maxPending, NO_TIMER_MS);
+    }
+
+    @Test
+    void pageFlipsForSameMangaCoalesceIntoOneWrite() {
+        String userId = TestDb.createUser("role-user");
+        Long mangaId = TestDb.createManga();
+        try (ReadingProgressBuffer buffer = buffer(100, 100)) {
+            for (int page = 1; page <= 10; page++) {
+                assertNotNull(buffer.record(userId, mangaId, "chapter-1", page, false));
+            }
+            assertTrue(historyDAO.findByUserAndManga(userId, mangaId).isEmpty(), "nothing is written before a flush");
+
+            assertEquals(1, buffer.flush());
+
+            ReadingProgressBufferStats stats = buffer.stats();
+            assertEquals(10, stats.getReceived());
+            assertEquals(9, stats.getCoalesced());
+            assertEquals(1, stats.getWritten());
+            assertEquals(0.9, stats.getCoalescingRatio(), 1e-9);
+            assertEquals(10, historyDAO.findByUserAndManga(userId, mangaId).orElseThrow().getCurrentPage());
+        }
+    }
+
+    @Test
+    void flushUserMakesLatestPositionReadable() {
+        String userId = TestDb.createUser("role-user");
+        String otherUser = TestDb.createUser("role-user");
+        Long mangaId = TestDb.createManga();
+        try (ReadingProgressBuffer buffer = buffer(100, 100)) {
+            buffer.record(userId, mangaId, "chapter-2", 4, false);
+            buffer.record(otherUser, mangaId, "chapter-9", 1, false);
+
+            buffer.flushUser(userId);
+
+            assertEquals("chapter-2", historyDAO.findByUserAndManga(userId, mangaId).orElseThrow().getChapterId());
+            assertEquals(1, buffer.stats().getPending(), "other users' entries stay buffered");
+        }
+    }
+
+    @Test
+    void reachingBatchSizeTriggersBackgroundFlush() throws Exception {
+        String userId = TestDb.createUser("role-user");
+        try (ReadingProgressBuffer buffer = buffer(3, 100)) {
+            for (int i = 0; i < 3; i++) {
+                buffer.record(userId, TestDb.createManga(), "chapter-1", i, false);
+            }
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (buffer.stats().getWritten() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(3, buffer.stats().getWritten());
+            assertEquals(3, historyDAO.findByUserId(userId).size());
+        }
+    }
+
+    @Test
+    void fullBufferWritesNewPairsThrough() {
+        String userId = TestDb.createUser("role-user");
+        Long first = TestDb.createManga();
+        Long second = TestDb.createManga();
+        try (ReadingProgressBuffer buffer = buffer(100, 1)) {
+            buffer.record(userId, first, "chapter-1", 1, false);
+            ReadingHistory direct = buffer.record(userId, second, "chapter-1", 2, false);
+
+            assertNotNull(direct.getId(), "a written-through entry has its row id");
+            assertTrue(historyDAO.findByUserAndManga(userId, second).isPresent());
+            assertEquals(1, buffer.stats().getWriteThrough());
+            assertEquals(1, buffer.stats().getPending());
+        }
+    }
+
+    @Test
+    void closeFlushesPendingEntries() {
+        String userId = TestDb.createUser("role-user");
+        Long mangaId = TestDb.createManga();
+        ReadingProgressBuffer buffer = buffer(100, 100);
+        buffer.record(userId, mangaId, "chapter-5", 7, true);
+
+        buffer.close();
+
+        ReadingHistory stored = historyDAO.findByUserAndManga(userId, mangaId).orElseThrow();
+        assertEquals(7, stored.getCurrentPage());
+        assertTrue(stored.getCompleted());
+    }
+
+    @Test
+    void unknownMangaIsRejectedUpFront() {
+        String userId = TestDb.createUser("role-user");
+        try (ReadingProgressBuffer buffer = buffer(100, 100)) {
+            assertNull(buffer.record(userId, 999_999_999L, "chapter-1", 1, false));
+            assertEquals(0, buffer.stats().getPending());
+        }
+    }
+
+    @Test
+    void invalidEntryDoesNotSinkTheBatch() {
+        String userId = TestDb.createUser("role-user");
+        Long mangaId = TestDb.createManga();
+        ReadingHistory valid = new ReadingHistory();
+        valid.setUserId(userId);
+        valid.setMangaId(String.valueOf(mangaId));
+        valid.setCurrentPage(3);
+        valid.setLastReadAt(java.time.LocalDateTime.now());
+        ReadingHistory orphan = new ReadingHistory();
+        orphan.setUserId("no-such-user");
+        orphan.setMangaId(String.valueOf(mangaId));
+        orphan.setLastReadAt(java.time.LocalDateTime.now());
+
+        assertEquals(1, historyDAO.saveAll(java.util.List.of(valid, orphan)));
+        assertTrue(historyDAO.findByUserAndManga(userId, mangaId).isPresent());
+    }
+}
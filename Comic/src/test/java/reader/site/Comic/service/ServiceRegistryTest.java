@@ -0,0 +1,60 @@
+package reader.site.Comic.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reader.site.Comic.dao.RoleDAO;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the registry wires one shared object graph, seeds the default roles and
+ * reports its startup timings.
+ */
+class ServiceRegistryTest {
+
+    // Keeps the session file out of java.io.tmpdir, where a running app may have it open.
+    @TempDir
+    Path dir;
+
+    @Test
+    void startSeedsRolesAndSharesOneGraph() {
+        ServiceRegistry services = ServiceRegistry.start(dir.resolve("sessions.dat"));
+        try {
+            assertNotNull(services.getRoleDAO().findByName("admin"));
+            assertSame(services.getReadingProgressBuffer(), ReadingProgressBuffer.shared());
+            assertSame(services.getDashboardCounters(), DashboardCounters.running());
+        } finally {
+            services.close();
+        }
+        assertNull(DashboardCounters.running(), "close stops the shared counters");
+    }
+
+    @Test
+    void seedingIsIdempotent() {
+        RoleDAO roleDAO = new RoleDAO();
+        roleDAO.seedDefaults();
+        int roles = roleDAO.findAll().size();
+
+        roleDAO.seedDefaults();
+
+        assertEquals(roles, roleDAO.findAll().size());
+    }
+
+    @Test
+    void startupTimingsListEveryStepAndTheTotal() {
+        ServiceRegistry services = ServiceRegistry.start(dir.resolve("sessions.dat"));
+        try {
+            Map<String, Long> timings = services.getStartupTimings();
+            assertEquals(List.of("persistence", "blockingExecutor", "replicas", "roles", "tokens", "readingProgressBuffer",
+                            "dashboardCounters", "catalog", "userSearch", "total"),
+                    List.copyOf(timings.keySet()));
+            assertTrue(timings.values().stream().allMatch(ms -> ms >= 0));
+        } finally {
+            services.close();
+        }
+    }
+}
@@ -1,17 +1,39 @@
 package reader.site.Comic.service;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reader.site.Comic.TestDb;
+import reader.site.Comic.dao.RevokedTokenDAO;
 import reader.site.Comic.model.User;
 import reader.site.Comic.model.UserRole;
+import reader.site.Comic.persistence.SessionStore;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
- * Tests for the in-memory token service, including the security fix that removed
- * sliding expiration (vuln #25).
+ * Tests for session tokens, including the security fix that removed sliding expiration
+ * (vuln #25) and sessions surviving a restart, and for signed tokens shared between nodes.
  */
 class TokenServiceTest {
 
+    @TempDir
+    Path dir;
+
+    private TokenService sessionService() {
+        return sessionService(dir.resolve("sessions.dat"));
+    }
+
+    // Roles are named after their id, e.g. "role-admin" is "admin".
+    private static TokenService sessionService(Path file) {
+        SessionStore store = SessionStore.open(file, 16, 1_000, System.currentTimeMillis());
+        return new TokenService(store,
+                id -> new UserRole(id, id.substring("role-".length()), null, null), false);
+    }
+
     private User user(String id, String roleName) {
         User user = new User();
         user.setId(id);
@@ -25,7 +47,7 @@ class TokenServiceTest {
 
     @Test
     void issueTokenReturnsUniqueTokens() {
-        TokenService service = new TokenService();
+        TokenService service = sessionService();
         String t1 = service.issueToken(user("u1", "user"));
         String t2 = service.issueToken(user("u2", "user"));
         assertNotNull(t1);
@@ -35,7 +57,7 @@ class TokenServiceTest {
 
     @Test
     void resolveReturnsIssuedUser() {
-        TokenService service = new TokenService();
+        TokenService service = sessionService();
         User user = user("u1", "user");
         String token = service.issueToken(user);
 
@@ -46,13 +68,13 @@ class TokenServiceTest {
 
     @Test
     void resolveRejectsUnknownToken() {
-        TokenService service = new TokenService();
+        TokenService service = sessionService();
         assertNull(service.resolve("not-a-real-token"));
     }
 
     @Test
     void resolveRejectsNullAndBlankToken() {
-        TokenService service = new TokenService();
+        TokenService service = sessionService();
         assertNull(service.resolve(null));
         assertNull(service.resolve(""));
         assertNull(service.resolve("   "));
@@ -60,7 +82,7 @@ class TokenServiceTest {
 
     @Test
     void invalidateRemovesToken() {
-        TokenService service = new TokenService();
+        TokenService service = sessionService();
         String token = service.issueToken(user("u1", "user"));
         assertNotNull(service.resolve(token));
 
@@ -70,17 +92,95 @@ class TokenServiceTest {
 
     @Test
     void invalidateNullIsSafe() {
-        TokenService service = new TokenService();
+        TokenService service = sessionService();
         assertDoesNotThrow(() -> service.invalidate(null));
     }
 
     @Test
     void tokenResolvesWithinLifetime() {
         // A freshly issued token must resolve (12h absolute lifetime).
-        TokenService service = new TokenService();
+        TokenService service = sessionService();
         String token = service.issueToken(user("u1", "admin"));
         User resolved = service.resolve(token);
         assertNotNull(resolved);
         assertEquals("admin", resolved.getRole().getName());
     }
+
+    @Test
+    void sessionsSurviveARestart() {
+        TokenService before = sessionService();
+        String token = before.issueToken(user("u1", "moderator"));
+        String loggedOut = before.issueToken(user("u2", "user"));
+        before.invalidate(loggedOut);
+        before.close();
+
+        TokenService after = sessionService();
+        User resolved = after.resolve(token);
+        assertNotNull(resolved, "the session was reloaded from the file");
+        assertEquals("u1", resolved.getId());
+        assertEquals("moderator", resolved.getRole().getName());
+        assertNull(after.resolve(loggedOut));
+        after.close();
+    }
+
+    // ─── Signed mode ─────────────────────────────────────────────────────────
+
+    private static final byte[] KEY = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private static TokenService signed(byte[] key) {
+        TestDb.ensureRolesSeeded();
+        return new TokenService(key, new RevokedTokenDAO(), 0);
+    }
+
+    @Test
+    void signedTokenResolvesOnAnotherNode() {
+        String token = signed(KEY).issueToken(user("u1", "admin"));
+
+        User resolved = signed(KEY).resolve(token);
+        assertNotNull(resolved, "a second node with the same key accepts the token");
+        assertEquals("u1", resolved.getId());
+        assertEquals("role-admin", resolved.getRole().getId());
+        assertEquals("admin", resolved.getRole().getName());
+    }
+
+    @Test
+    void signedTokenIsRejectedWhenTamperedOrSignedWithAnotherKey() {
+        TokenService service = signed(KEY);
+        String token = service.issueToken(user("u1", "user"));
+
+        byte[] otherKey = "another-key-another-key-another-key".getBytes(StandardCharsets.UTF_8);
+        assertNull(signed(otherKey).resolve(token));
+
+        String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8);
+        String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                payload.replace("role-user|user", "role-admin|admin").getBytes(StandardCharsets.UTF_8))
+                + token.substring(token.indexOf('.'));
+        assertNull(service.resolve(forged), "changing the role breaks the signature");
+        assertNull(service.resolve("not-a-signed-token"));
+        assertNull(service.resolve(token + "x"));
+    }
+
+    @Test
+    void logoutOnOneNodeRevokesTheTokenOnOthers() {
+        TokenService first = signed(KEY);
+        TokenService second = signed(KEY);
+        String token = first.issueToken(user("u1", "user"));
+        String other = first.issueToken(user("u1", "user"));
+        assertNotNull(second.resolve(token));
+
+        first.invalidate(token);
+        assertNull(first.resolve(token), "revoked at once on the node that handled the logout");
+        second.syncRevocations();
+        assertNull(second.resolve(token), "revoked on other nodes after their next sync");
+        assertNotNull(second.resolve(other), "other sessions of the same user are unaffected");
+        assertNull(signed(KEY).resolve(token), "a node started later loads the revocation");
+        assertDoesNotThrow(() -> first.invalidate(token), "a second logout is harmless");
+    }
+
+    @Test
+    void shortSigningKeysAreRefused() {
+        assertThrows(IllegalStateException.class,
+                () -> new TokenService("too-short".getBytes(StandardCharsets.UTF_8), new RevokedTokenDAO(), 0));
+    }
 }
@@ -0,0 +1,75 @@
+package reader.site.Comic.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for substring matching, filters, totals and paging in the trigram index.
+ */
+class UserSearchIndexTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    private static UserSearchIndex sample() {
+        UserSearchIndex index = new UserSearchIndex();
+        index.put("u1", "alice", "alice@mail.test", "role-user", "active", T0.plusSeconds(1));
+        index.put("u2", "malicious", "m@other.test", "role-admin", "active", T0.plusSeconds(2));
+        index.put("u3", "bob", "bob.alic@mail.test", "role-user", "pending", T0.plusSeconds(3));
+        index.put("u4", "carol", "carol@mail.test", "role-user", "active", T0.plusSeconds(4));
+        return index;
+    }
+
+    @Test
+    void matchesSubstringsOfUsernameOrEmailNewestFirst() {
+        UserSearchIndex.Result result = sample().search("ALIC", null, null, null, null, 0, 10);
+
+        assertEquals(List.of("u3", "u2", "u1"), result.getUserIds());
+        assertEquals(3, result.getTotal());
+    }
+
+    @Test
+    void filtersByRoleAndStatus() {
+        UserSearchIndex index = sample();
+
+        assertEquals(List.of("u3", "u1"), index.search("alic", "role-user", null, null, null, 0, 10).getUserIds());
+        assertEquals(List.of("u2", "u1"), index.search("alic", null, "active", null, null, 0, 10).getUserIds());
+    }
+
+    @Test
+    void totalCountsEveryMatchWhilePagesAreCut() {
+        UserSearchIndex index = sample();
+
+        UserSearchIndex.Result second = index.search("alic", null, null, null, null, 1, 1);
+        assertEquals(List.of("u2"), second.getUserIds());
+        assertEquals(3, second.getTotal());
+
+        UserSearchIndex.Result afterCursor = index.search("alic", null, null, T0.plusSeconds(3), "u3", 0, 10);
+        assertEquals(List.of("u2", "u1"), afterCursor.getUserIds());
+        assertEquals(T0.plusSeconds(2), afterCursor.getCreatedAts().get(0));
+        assertEquals(3, afterCursor.getTotal());
+    }
+
+    @Test
+    void putReplacesAndRemoveDrops() {
+        UserSearchIndex index = sample();
+
+        index.put("u1", "alfred", "alfred@mail.test", "role-user", "active", T0.plusSeconds(1));
+        index.remove("u2");
+
+        assertEquals(List.of("u3"), index.search("alic", null, null, null, null, 0, 10).getUserIds());
+        assertEquals(List.of("u1"), index.search("alfr", null, null, null, null, 0, 10).getUserIds());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void unknownTrigramMatchesNothingAndShortTermsAreRejected() {
+        UserSearchIndex index = sample();
+
+        assertEquals(0, index.search("zzz", null, null, null, null, 0, 10).getTotal());
+        assertThrows(IllegalArgumentException.class, () -> index.search("al", null, null, null, null, 0, 10));
+    }
+}
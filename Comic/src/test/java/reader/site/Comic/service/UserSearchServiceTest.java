@@ -0,0 +1,115 @@
+package reader.site.Comic.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reader.site.Comic.TestDb;
+import reader.site.Comic.dao.RoleDAO;
+import reader.site.Comic.dao.UserDAO;
+import reader.site.Comic.model.SearchPage;
+import reader.site.Comic.model.User;
+import reader.site.Comic.model.UserRole;
+import reader.site.Comic.util.PageCursor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that admin user search gives the same page and total whether it is answered by
+ * SQL (prefix) or by the index (substring), and that user writes reach the index.
+ */
+class UserSearchServiceTest {
+
+    private UserDAO userDAO;
+    private RoleDAO roleDAO;
+    private UserSearchService service;
+
+    @BeforeEach
+    void setUp() {
+        TestDb.ensureRolesSeeded();
+        roleDAO = new RoleDAO();
+        userDAO = new UserDAO(roleDAO);
+        service = UserSearchService.startShared(userDAO, roleDAO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserSearchService.shutdownShared();
+    }
+
+    private User create(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@search.test");
+        user.setPassword("PlainPassword1!");
+        UserRole role = new UserRole();
+        role.setId("role-user");
+        user.setRole(role);
+        return userDAO.create(user);
+    }
+
+    private static List<String> ids(SearchPage<User> page) {
+        return page.getItems().stream().map(User::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void prefixSearchUsesSqlAndReportsTheTotal() {
+        String marker = "pre" + System.nanoTime();
+        User first = create(marker + "a");
+        User second = create(marker + "b");
+        create("x" + marker);
+
+        SearchPage<User> page = new UserSearchService(userDAO, roleDAO, false, 0).search(marker, null, null, 1, 1);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(2, page.getTotal());
+        assertTrue(List.of(first.getId(), second.getId()).contains(page.getItems().get(0).getId()));
+    }
+
+    @Test
+    void substringSearchUsesTheIndexOnceBuilt() {
+        String marker = "mid" + System.nanoTime();
+        User inner = create("x" + marker + "y");
+        service.rebuild();
+        assertTrue(service.isIndexReady());
+
+        SearchPage<User> page = service.search(marker, "user", null, 1, 10);
+
+        assertEquals(List.of(inner.getId()), ids(page));
+        assertEquals(1, page.getTotal());
+        assertEquals(0, service.search(marker, "no-such-role", null, 1, 10).getTotal());
+    }
+
+    @Test
+    void writesReachTheIndexWithoutARebuild() {
+        service.rebuild();
+        String marker = "live" + System.nanoTime();
+
+        User created = create("a" + marker);
+        assertEquals(List.of(created.getId()), ids(service.search(marker, null, null, 1, 10)));
+
+        userDAO.delete(created.getId());
+        assertEquals(0, service.search(marker, null, null, 1, 10).getTotal());
+    }
+
+    @Test
+    void cursorPagesWalkIndexedMatches() {
+        String marker = "cur" + System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            create("z" + marker + i);
+        }
+        service.rebuild();
+
+        SearchPage<User> first = service.findPage(marker, null, null, null, 2);
+        assertEquals(2, first.getItems().size());
+        assertEquals(3, first.getTotal());
+        assertNotNull(first.getNext());
+
+        SearchPage<User> second = service.findPage(marker, null, null, PageCursor.decode(first.getNext()), 2);
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNext());
+        assertFalse(ids(first).contains(second.getItems().get(0).getId()));
+    }
+}
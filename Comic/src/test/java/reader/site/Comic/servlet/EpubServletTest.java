@@ -0,0 +1,71 @@
+package reader.site.Comic.servlet;
+
+import jakarta.servlet.AsyncContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the download's async lifecycle: it completes its request once, and after the
+ * container times it out it neither writes nor completes.
+ */
+class EpubServletTest {
+
+    private final AtomicInteger completions = new AtomicInteger();
+
+    private AsyncContext async() {
+        return (AsyncContext) Proxy.newProxyInstance(AsyncContext.class.getClassLoader(),
+                new Class<?>[] {AsyncContext.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("complete")) {
+                        completions.incrementAndGet();
+                    }
+                    return null;
+                });
+    }
+
+    @Test
+    void aFinishedDownloadCompletesItsRequestOnce() throws IOException {
+        EpubServlet.Download download = new EpubServlet.Download(async());
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        download.body(sink).write(new byte[] {1, 2, 3}, 0, 3);
+
+        download.finish();
+        download.finish();
+
+        assertEquals(3, sink.size());
+        assertEquals(1, completions.get());
+        assertTrue(download.isOver());
+    }
+
+    @Test
+    void afterATimeoutTheDownloadStopsWritingAndLeavesCompletionToTheContainer() throws IOException {
+        EpubServlet.Download download = new EpubServlet.Download(async());
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        OutputStream body = download.body(sink);
+        body.write(1);
+
+        download.onTimeout(null);
+
+        assertThrows(IOException.class, () -> body.write(new byte[] {2, 3}, 0, 2));
+        download.finish();
+        assertEquals(1, sink.size(), "nothing written after the timeout");
+        assertEquals(0, completions.get(), "complete() after a timeout would throw");
+    }
+
+    @Test
+    void anErrorEndsTheDownloadToo() {
+        EpubServlet.Download download = new EpubServlet.Download(async());
+
+        download.onError(null);
+        download.finish();
+
+        assertTrue(download.isOver());
+        assertEquals(0, completions.get());
+    }
+}
@@ -0,0 +1,129 @@
+package reader.site.Comic.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the gradient concurrency limit: it grows while latency holds, falls when
+ * latency rises under load, ignores samples taken with little in flight, drops samples
+ * rather than wait for one another, and admits, queues or refuses callers around the limit.
+ */
+class AdaptiveLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void theLimitGrowsWhileLatencyHolds() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 100, 0);
+        for (int i = 0; i < 200; i++) {
+            limiter.onSample(FAST, limiter.limit());
+        }
+        assertEquals(100, limiter.limit());
+    }
+
+    @Test
+    void theLimitFallsWhenLatencyRises() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 100, 0);
+        for (int i = 0; i < 200; i++) {
+            limiter.onSample(FAST, limiter.limit());
+        }
+        for (int i = 0; i < 30; i++) {
+            limiter.onSample(SLOW, limiter.limit());
+        }
+        assertTrue(limiter.limit() < 50, "limit was " + limiter.limit());
+        assertTrue(limiter.limit() >= 2);
+
+        for (int i = 0; i < 200; i++) {
+            limiter.onSample(SLOW, limiter.limit());
+        }
+        assertTrue(limiter.limit() >= 2, "never below the minimum");
+    }
+
+    @Test
+    void samplesWithLittleInFlightLeaveTheLimitAlone() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(50, 2, 100, 0);
+        limiter.onSample(FAST, 50);
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(SLOW * 10, 3);
+        }
+        assertEquals(50, limiter.limit());
+    }
+
+    @Test
+    void aSampleThatFindsAnotherBeingFoldedInIsDroppedWithoutWaiting() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 100, 0);
+        assertTrue(limiter.acquire());
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread folding = new Thread(() -> {
+            limiter.sampleLock.lock();
+            try {
+                held.countDown();
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                limiter.sampleLock.unlock();
+            }
+        });
+        folding.start();
+        try {
+            held.await();
+            limiter.release(FAST);
+        } finally {
+            done.countDown();
+            folding.join();
+        }
+
+        assertEquals(0, limiter.inFlight());
+        assertEquals(1L, limiter.stats().get("samplesDropped"));
+        assertEquals(0.0, limiter.stats().get("shortRttMillis"), "the dropped sample was not folded in");
+    }
+
+    @Test
+    void callersPastTheLimitAreRefused() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 2, 2, 0);
+        assertTrue(limiter.acquire());
+        assertTrue(limiter.acquire());
+        assertFalse(limiter.acquire());
+        assertEquals(2, limiter.inFlight());
+
+        limiter.release(-1);
+        assertTrue(limiter.acquire());
+        assertEquals(1L, limiter.stats().get("rejected"));
+    }
+
+    @Test
+    void aQueuedCallerGetsTheNextFreeSlot() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 5_000);
+        assertTrue(limiter.acquire());
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            limiter.release(-1);
+        });
+        releaser.start();
+
+        assertTrue(limiter.acquire());
+        releaser.join();
+        assertEquals(1, limiter.inFlight());
+        assertEquals(1L, limiter.stats().get("queued"));
+    }
+
+    @Test
+    void aQueuedCallerGivesUpAfterTheQueueTime() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 20);
+        assertTrue(limiter.acquire());
+        long start = System.nanoTime();
+        assertFalse(limiter.acquire());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(15));
+    }
+}
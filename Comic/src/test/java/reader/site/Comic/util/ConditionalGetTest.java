@@ -0,0 +1,61 @@
+package reader.site.Comic.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for content ETags and the If-None-Match / If-Modified-Since evaluation.
+ */
+class ConditionalGetTest {
+
+    private static final String ETAG = ConditionalGet.hasher().add("manga").add(42L).toEtag();
+
+    @Test
+    void etagsAreStrongAndDependOnEveryPart() {
+        assertTrue(ETAG.startsWith("\"") && ETAG.endsWith("\""));
+        assertEquals(ETAG, ConditionalGet.hasher().add("manga").add(42L).toEtag());
+        assertNotEquals(ETAG, ConditionalGet.hasher().add("manga").add(43L).toEtag());
+        assertNotEquals(ConditionalGet.hasher().add("ab").add("c").toEtag(),
+                ConditionalGet.hasher().add("a").add("bc").toEtag());
+        assertNotEquals(ConditionalGet.hasher().add((String) null).toEtag(),
+                ConditionalGet.hasher().add("").toEtag());
+    }
+
+    @Test
+    void ifNoneMatchUsesWeakComparisonAndAcceptsLists() {
+        assertTrue(ConditionalGet.isNotModified(ETAG, -1, ETAG, null));
+        assertTrue(ConditionalGet.isNotModified("W/" + ETAG, -1, ETAG, null));
+        assertTrue(ConditionalGet.isNotModified("\"other\", " + ETAG, -1, ETAG, null));
+        assertTrue(ConditionalGet.isNotModified("*", -1, ETAG, null));
+        assertFalse(ConditionalGet.isNotModified("\"other\"", -1, ETAG, null));
+    }
+
+    @Test
+    void ifNoneMatchTakesPrecedenceOverIfModifiedSince() {
+        Instant modified = Instant.parse("2024-05-01T12:00:00.750Z");
+        long later = Instant.parse("2024-06-01T00:00:00Z").toEpochMilli();
+
+        assertFalse(ConditionalGet.isNotModified("\"other\"", later, ETAG, modified));
+        assertTrue(ConditionalGet.isNotModified(null, later, ETAG, modified));
+    }
+
+    @Test
+    void ifModifiedSinceComparesWholeSecondsAndNeedsALastModified() {
+        Instant modified = Instant.parse("2024-05-01T12:00:00.750Z");
+        long sameSecond = Instant.parse("2024-05-01T12:00:00Z").toEpochMilli();
+        long earlier = Instant.parse("2024-05-01T11:59:59Z").toEpochMilli();
+
+        assertTrue(ConditionalGet.isNotModified(null, sameSecond, ETAG, modified), "HTTP dates have no milliseconds");
+        assertFalse(ConditionalGet.isNotModified(null, earlier, ETAG, modified));
+        assertFalse(ConditionalGet.isNotModified(null, sameSecond, ETAG, null));
+        assertFalse(ConditionalGet.isNotModified(null, -1, ETAG, modified));
+    }
+
+    @Test
+    void cacheControlDefaultsToRevalidate() {
+        assertEquals("no-cache", ConditionalGet.cacheControl("route_without_setting"));
+    }
+}
@@ -0,0 +1,81 @@
+package reader.site.Comic.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that streamed JSON is exactly what Gson renders to a String, compact unless
+ * ?pretty is asked for.
+ */
+class JsonOutputTest {
+
+    private static final Gson GSON = new Gson();
+
+    private static String write(Object payload, boolean pretty) throws Exception {
+        StringWriter out = new StringWriter();
+        JsonOutput.write(out, GSON, payload, pretty);
+        return out.toString();
+    }
+
+    private static List<Map<String, Object>> rows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i);
+            row.put("title", "Series <" + i + "> & more");
+            row.put("chapters", List.of("Chapter 1", "Chapter 2"));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Test
+    void streamedOutputMatchesToJson() throws Exception {
+        List<Map<String, Object>> small = rows(3);
+        assertEquals(GSON.toJson(small), write(small, false));
+
+        // Far larger than the 8 KB buffer, with HTML escaping still applied.
+        List<Map<String, Object>> large = rows(2_000);
+        String json = write(large, false);
+        assertEquals(GSON.toJson(large), json);
+        assertTrue(json.contains("\\u003c"));
+
+        assertEquals("null", write(null, false));
+    }
+
+    @Test
+    void prettyOutputIsOnlyIndentation() throws Exception {
+        List<Map<String, Object>> payload = rows(2);
+        String pretty = write(payload, true);
+
+        assertEquals(new GsonBuilder().setPrettyPrinting().create().toJson(payload), pretty);
+        assertFalse(write(payload, false).contains("\n"));
+    }
+
+    @Test
+    void prettyIsReadFromTheQueryStringOnly() {
+        assertTrue(JsonOutput.wantsPretty(request("pretty")));
+        assertTrue(JsonOutput.wantsPretty(request("limit=20&pretty=true")));
+        assertTrue(JsonOutput.wantsPretty(request("pretty=1&cursor=abc")));
+        assertFalse(JsonOutput.wantsPretty(request("pretty=false")));
+        assertFalse(JsonOutput.wantsPretty(request("notpretty")));
+        assertFalse(JsonOutput.wantsPretty(request(null)));
+    }
+
+    private static HttpServletRequest request(String query) {
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class},
+                (proxy, method, args) -> "getQueryString".equals(method.getName()) ? query : null);
+    }
+}
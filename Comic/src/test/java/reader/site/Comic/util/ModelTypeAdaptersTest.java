@@ -0,0 +1,136 @@
+package reader.site.Comic.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import org.junit.jupiter.api.Test;
+import reader.site.Comic.model.Bookmark;
+import reader.site.Comic.model.ChapterImage;
+import reader.site.Comic.model.Manga;
+import reader.site.Comic.model.MangaChapter;
+import reader.site.Comic.model.Permission;
+import reader.site.Comic.model.ReadingHistory;
+import reader.site.Comic.model.User;
+import reader.site.Comic.model.UserRole;
+import reader.site.Comic.persistence.StringListConverter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the hand-written adapters write what Gson's reflective adapter writes and
+ * read it back, including nulls, unknown fields and the chapters column.
+ */
+class ModelTypeAdaptersTest {
+
+    // Reflection needs a LocalDateTime adapter; without one it cannot handle ReadingHistory at all on JDK 17.
+    private static final Gson REFLECTIVE = new GsonBuilder()
+            .registerTypeAdapter(LocalDateTime.class, (JsonSerializer<LocalDateTime>) (src, t, ctx) ->
+                    new JsonPrimitive(src.toString()))
+            .create();
+    private static final Gson ADAPTED = GsonUtil.withModelAdapters(new GsonBuilder()).create();
+
+    private static void assertSameJson(Object model) {
+        String expected = REFLECTIVE.toJson(model);
+        assertEquals(expected, ADAPTED.toJson(model));
+        assertEquals(expected, ADAPTED.toJson(ADAPTED.fromJson(expected, model.getClass())));
+    }
+
+    private static Manga manga() {
+        Manga manga = new Manga();
+        manga.setId("7");
+        manga.setTitle("Series <7> & \"quoted\"");
+        manga.setCover("https://cdn.example/7.jpg");
+        manga.setChapters(Arrays.asList("Chapter 1", null, "Chương 3"));
+        manga.setChapterCount(3);
+        manga.setLatestChapter("Chương 3");
+        return manga;
+    }
+
+    @Test
+    void writesWhatReflectionWrites() {
+        assertSameJson(manga());
+        assertSameJson(new Manga());
+
+        MangaChapter chapter = new MangaChapter();
+        chapter.setId("11");
+        chapter.setMangaId("7");
+        chapter.setChapterNumber(2);
+        chapter.setChapterTitle("Two");
+        chapter.setUpdatedAt("2025-01-02T03:04:05");
+        assertSameJson(chapter);
+
+        assertSameJson(new ChapterImage("https://cdn.example/p1.webp", 1));
+        assertSameJson(new ChapterImage());
+
+        Bookmark bookmark = new Bookmark();
+        bookmark.setId("b1");
+        bookmark.setMangaId("7");
+        bookmark.setCurrentChapter(4);
+        bookmark.setReadingProgress(0.5);
+        assertSameJson(bookmark);
+
+        ReadingHistory history = new ReadingHistory();
+        history.setId("h1");
+        history.setUserId("u1");
+        history.setCurrentPage(12);
+        history.setCompleted(Boolean.FALSE);
+        history.setLastReadAt(LocalDateTime.of(2025, 10, 15, 10, 22, 45));
+        assertSameJson(history);
+
+        List<Permission> permissions = new ArrayList<>();
+        permissions.add(new Permission("p1", "Read", "manga", "read", null));
+        User user = new User("u1", "reader", "reader@example.com", "secret",
+                new UserRole("r1", "reader", "Reader", permissions), "active",
+                "2025-01-01", null, null, null, "bio", null, null, null);
+        assertSameJson(user);
+        assertFalse(ADAPTED.toJson(user).contains("secret"), "password stays transient");
+        assertSameJson(new UserRole());
+    }
+
+    @Test
+    void readingHistoryTimestampsAreIsoStrings() {
+        ReadingHistory history = new ReadingHistory();
+        history.setLastReadAt(LocalDateTime.of(2025, 10, 15, 10, 22, 45));
+
+        String json = ADAPTED.toJson(history);
+        assertEquals("{\"lastReadAt\":\"2025-10-15T10:22:45\"}", json);
+        assertEquals(history.getLastReadAt(), ADAPTED.fromJson(json, ReadingHistory.class).getLastReadAt());
+    }
+
+    @Test
+    void readsLikeReflection() {
+        String json = "{\"id\":7,\"extra\":{\"nested\":[1,2]},\"chapters\":[\"a\"],"
+                + "\"chapterCount\":\"2\",\"latestChapter\":null}";
+        Manga manga = ADAPTED.fromJson(json, Manga.class);
+        assertEquals("7", manga.getId());
+        assertEquals(List.of("a"), manga.getChapters());
+        assertEquals(2, manga.getChapterCount());
+        assertNull(manga.getLatestChapter());
+
+        ChapterImage image = ADAPTED.fromJson("{\"url\":\"u\",\"order\":null}", ChapterImage.class);
+        assertEquals(0, image.getOrder());
+        assertNull(ADAPTED.fromJson("null", Manga.class));
+        assertThrows(JsonParseException.class, () -> ADAPTED.fromJson("{\"chapterCount\":\"two\"}", Manga.class));
+    }
+
+    @Test
+    void chapterColumnRoundTrips() {
+        StringListConverter converter = new StringListConverter();
+        List<String> chapters = List.of("Chapter 1", "Chương \"2\"");
+
+        String column = converter.convertToDatabaseColumn(chapters);
+        assertEquals(REFLECTIVE.toJson(chapters), column);
+        assertEquals(chapters, converter.convertToEntityAttribute(column));
+        assertEquals("[]", converter.convertToDatabaseColumn(List.of()));
+        assertEquals(List.of(), converter.convertToEntityAttribute(" "));
+        assertThrows(JsonParseException.class, () -> converter.convertToEntityAttribute("\"Chapter 1\""));
+        assertThrows(JsonParseException.class, () -> converter.convertToEntityAttribute("[\"a\"] [\"b\"]"));
+    }
+}
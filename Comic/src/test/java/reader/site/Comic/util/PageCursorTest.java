@@ -0,0 +1,54 @@
+package reader.site.Comic.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the opaque keyset-pagination cursor and page-size parsing.
+ */
+class PageCursorTest {
+
+    @Test
+    void encodeDecodeRoundTripsKeyAndId() {
+        LocalDateTime key = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000);
+        PageCursor decoded = PageCursor.decode(PageCursor.of(key, 42L).encode());
+
+        assertEquals(key, decoded.keyAsLocalDateTime());
+        assertEquals(42L, decoded.idAsLong());
+    }
+
+    @Test
+    void nullKeyRoundTripsAsNull() {
+        PageCursor decoded = PageCursor.decode(PageCursor.of(null, "abc-123").encode());
+        assertNull(decoded.getKey());
+        assertEquals("abc-123", decoded.getId());
+    }
+
+    @Test
+    void missingCursorMeansFirstPage() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode("  "));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("%%%not-base64%%%"));
+        String noId = Base64.getUrlEncoder().encodeToString("2024-01-01T00:00|".getBytes());
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(noId));
+        String badKey = PageCursor.of("yesterday", 1).encode();
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(badKey).keyAsLocalDateTime());
+    }
+
+    @Test
+    void limitIsDefaultedAndClamped() {
+        assertEquals(PageCursor.DEFAULT_LIMIT, PageCursor.parseLimit(null));
+        assertEquals(PageCursor.DEFAULT_LIMIT, PageCursor.parseLimit("abc"));
+        assertEquals(1, PageCursor.parseLimit("0"));
+        assertEquals(PageCursor.MAX_LIMIT, PageCursor.parseLimit("100000"));
+        assertEquals(15, PageCursor.parseLimit("15"));
+    }
+}
@@ -1,13 +1,17 @@
 package reader.site.Comic.util;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.Proxy;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
- * Tests for the sliding-window rate limiter used to throttle auth endpoints (vuln #31).
+ * Tests for the token-bucket rate limiter used to throttle auth endpoints (vuln #31).
  */
 class RateLimiterTest {
 
@@ -52,4 +56,102 @@ class RateLimiterTest {
         // keyB has its own budget and must not be affected by keyA
         assertTrue(RateLimiter.allow(keyB, 1, 60_000));
     }
+
+    @Test
+    void tokensComeBackGradually() {
+        String key = "ip-" + UUID.randomUUID();
+        long t = 1_000_000;
+        for (int i = 0; i < 10; i++) {
+            assertTrue(RateLimiter.allow(key, 10, 1_000, t));
+        }
+        assertFalse(RateLimiter.allow(key, 10, 1_000, t));
+
+        // One token per 100 ms; progress towards the next one is kept across attempts.
+        assertFalse(RateLimiter.allow(key, 10, 1_000, t + 60));
+        assertTrue(RateLimiter.allow(key, 10, 1_000, t + 100));
+        assertFalse(RateLimiter.allow(key, 10, 1_000, t + 150));
+        assertTrue(RateLimiter.allow(key, 10, 1_000, t + 250));
+        assertTrue(RateLimiter.allow(key, 10, 1_000, t + 300));
+        assertFalse(RateLimiter.allow(key, 10, 1_000, t + 300));
+    }
+
+    @Test
+    void differentLimitsKeepSeparateBudgets() {
+        String key = "ip-" + UUID.randomUUID();
+        assertTrue(RateLimiter.allow(key, 1, 60_000));
+        assertFalse(RateLimiter.allow(key, 1, 60_000));
+        assertTrue(RateLimiter.allow(key, 1, 30_000), "another endpoint's limit has its own bucket");
+    }
+
+    @Test
+    void concurrentAttemptsNeverExceedTheBudget() throws InterruptedException {
+        String key = "ip-" + UUID.randomUUID();
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 1_000; j++) {
+                    if (RateLimiter.allow(key, 100, 3_600_000)) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100, allowed.get());
+    }
+
+    @Test
+    void idleKeysAreEvictedAndTheTableStaysBounded() {
+        RateLimiter.Buckets buckets = new RateLimiter.Buckets(2, 1_000, 100);
+        long t = 5_000;
+        for (int i = 0; i < 100; i++) {
+            assertTrue(buckets.take("idle-" + i, t));
+        }
+        String busy = "busy";
+        assertTrue(buckets.take(busy, t + 2_000));
+        assertTrue(buckets.take(busy, t + 2_000));
+
+        // Every "idle-" bucket has refilled, so they go first; "busy" keeps its spent budget.
+        assertTrue(buckets.take("new", t + 2_000));
+        assertFalse(buckets.take(busy, t + 2_000));
+        assertTrue(buckets.size() <= 2);
+
+        // A spray of distinct keys never grows the table past its bound.
+        for (int i = 0; i < 10_000; i++) {
+            buckets.take("spray-" + i, t + 2_000);
+        }
+        assertTrue(buckets.size() <= 100);
+    }
+
+    @Test
+    void clientIpIsTheAddressTheTrustedProxySaw() {
+        HttpServletRequest spoofed = request("203.0.113.9, 198.51.100.7", "10.0.0.4");
+        assertEquals("198.51.100.7", RateLimiter.clientIp(spoofed, 1), "the client-supplied entry is ignored");
+        assertEquals("203.0.113.9", RateLimiter.clientIp(spoofed, 2));
+        assertEquals("203.0.113.9", RateLimiter.clientIp(spoofed, 5));
+        assertEquals("10.0.0.4", RateLimiter.clientIp(spoofed, 0), "no proxy: the header is not trusted");
+        assertEquals("10.0.0.4", RateLimiter.clientIp(request(null, "10.0.0.4"), 1));
+    }
+
+    private static HttpServletRequest request(String forwardedFor, String remoteAddr) {
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getHeader": return "X-Forwarded-For".equals(args[0]) ? forwardedFor : null;
+                        case "getRemoteAddr": return remoteAddr;
+                        default: return null;
+                    }
+                });
+    }
 }